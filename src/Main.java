@@ -1,8 +1,41 @@
+import java.sql.SQLException;
+import dao.ReferenceSnapshot;
+import dao.WriteJournal;
+import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import ui.EdtWatchdog;
 import ui.LoginFrame;
+import utils.AppExecutors;
+import utils.Log;
+import utils.Metrics;
+import utils.MigrationRunner;
 
 public class Main {
     public static void main(String[] args) {
+        AppExecutors.installShutdownHook();
+        Metrics.registerJvmMetrics();
+        EdtWatchdog.start();
+        // Replays check-ins and payments journaled while the database was unreachable
+        WriteJournal.start();
+        // Slots, categories, groups and plates from the last run, so the first screen need not wait
+        ReferenceSnapshot.load();
+
+        // Schema migrations (indexes) run off the EDT; the login screen does not wait for them
+        AppExecutors.execute(() -> {
+            try {
+                new MigrationRunner().migrate();
+            } catch (SQLException e) {
+                // Not just slower: without V7 offline writes cannot be replayed, without
+                // V6 bookings fall back to stepwise SQL. Tell the operator, not only the log.
+                Log.get(Main.class).error("Schema migration failed: {}", e.getMessage());
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "The database schema could not be updated:\n" + e.getMessage()
+                                + "\n\nOffline check-ins and payments may not reach the database until this is"
+                                + " fixed.\nSee System Diagnostics for details.",
+                        "Startup Error", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+
         SwingUtilities.invokeLater(() -> {
             new LoginFrame().setVisible(true);
         });
@@ -1,12 +1,51 @@
 package dao;
 
 import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import utils.Log;
+import utils.Metrics;
+import utils.ReadReplicas;
 
 public abstract class BaseDAO<T> {
 
-    // Get database connection
+    private static final Log LOG = Log.get(BaseDAO.class);
+
+    // Rows pgjdbc fetches per round-trip when a query is streamed
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("db.stream.fetchSize", 500);
+    private static final Metrics.Counter STREAMED_ROWS = Metrics.counter("db.stream.rows");
+
+    // Get database connection (timed per statement, see QueryMetrics); inside
+    // a UnitOfWork this is the unit's shared connection
     protected Connection getConnection() throws SQLException {
-        return utils.DatabaseConnection.getConnection();
+        Connection shared = UnitOfWork.sharedConnection();
+        if (shared != null) {
+            return QueryMetrics.instrument(shared, this, -1);
+        }
+        long start = System.nanoTime();
+        Connection conn = ReadReplicas.trackWrites(utils.DatabaseConnection.getConnection());
+        return QueryMetrics.instrument(conn, this, System.nanoTime() - start);
+    }
+
+    // For listings, counts and reports that tolerate a few seconds of
+    // staleness: a read replica when one is configured and this application
+    // has not just written (see utils.ReadReplicas)
+    protected Connection getReadConnection() throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return getConnection();
+        }
+        return openReadConnection();
+    }
+
+    // Where reads outside a unit come from; tools that capture statements
+    // instead of running them override this along with getConnection
+    protected Connection openReadConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = utils.DatabaseConnection.getReadConnection();
+        return QueryMetrics.instrument(conn, this, System.nanoTime() - start);
     }
 
     // Resource closing methods (multiple signatures for flexibility)
@@ -17,7 +56,7 @@ public abstract class BaseDAO<T> {
             if (pstmt != null)
                 pstmt.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.warn("Could not close JDBC resources", e);
         }
     }
 
@@ -30,7 +69,7 @@ public abstract class BaseDAO<T> {
             if (pstmt != null)
                 pstmt.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.warn("Could not close JDBC resources", e);
         }
     }
 
@@ -39,7 +78,7 @@ public abstract class BaseDAO<T> {
             if (rs != null)
                 rs.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.warn("Could not close JDBC resources", e);
         }
     }
 
@@ -54,7 +93,7 @@ public abstract class BaseDAO<T> {
             if (conn != null && !conn.isClosed())
                 conn.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.warn("Could not close JDBC resources", e);
         }
     }
 
@@ -65,29 +104,66 @@ public abstract class BaseDAO<T> {
 
     protected abstract T mapResultSetToEntity(ResultSet rs) throws SQLException;
 
+    // Shared reads: identical queries running at the same time execute once.
+    // Not inside a UnitOfWork: its reads must see its own uncommitted writes,
+    // and nobody else may see them.
+    protected <R> R coalesce(String sql, SingleFlight.SqlCall<R> call) throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return call.call();
+        }
+        return SingleFlight.run(sql, new Object[0], call);
+    }
+
+    protected <R> R coalesce(String sql, Object param, SingleFlight.SqlCall<R> call) throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return call.call();
+        }
+        return SingleFlight.run(sql, new Object[] { param }, call);
+    }
+
+    // Shared reads behind listings and dashboard figures: while the database
+    // is unavailable they return the last answer instead (see LastGood)
+    protected <R> R coalesceOrCached(String sql, SingleFlight.SqlCall<R> call) throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return call.call();
+        }
+        return LastGood.run(sql, new Object[0], () -> SingleFlight.run(sql, new Object[0], call));
+    }
+
+    protected <R> R coalesceOrCached(String sql, Object param, SingleFlight.SqlCall<R> call) throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return call.call();
+        }
+        return LastGood.run(sql, new Object[] { param }, () -> SingleFlight.run(sql, new Object[] { param }, call));
+    }
+
     // Optional CRUD methods (can be overridden by child classes)
     public T findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumnName() + " = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+        return coalesce(sql, id, () -> {
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToEntity(rs) : null;
+                }
             }
-        }
+        });
     }
 
     public java.util.List<T> findAll() throws SQLException {
         String sql = "SELECT * FROM " + getTableName();
-        java.util.List<T> list = new java.util.ArrayList<>();
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+        return coalesce(sql, () -> {
+            java.util.List<T> list = new java.util.ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToEntity(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     public boolean delete(Integer id) throws SQLException {
@@ -98,4 +174,124 @@ public abstract class BaseDAO<T> {
             return pstmt.executeUpdate() > 0;
         }
     }
-}
\ No newline at end of file
+
+    /** Same rows as {@link #findAll()}, read in fetch-size batches; see {@link #stream}. */
+    public Stream<T> streamAll() throws SQLException {
+        return stream("SELECT * FROM " + getTableName());
+    }
+
+    // ================= STREAMING =================
+
+    /** Maps the current row; it must not move the cursor. */
+    @FunctionalInterface
+    protected interface RowMapper<R> {
+        R map(ResultSet rs) throws SQLException;
+    }
+
+    protected Stream<T> stream(String sql, Object... params) throws SQLException {
+        return stream(sql, this::mapResultSetToEntity, params);
+    }
+
+    /**
+     * Run {@code sql} with a server-side cursor and map each row only when the
+     * stream asks for it, so a table of any size is read in constant memory.
+     *
+     * Outside a {@link UnitOfWork} the stream holds its own connection in a
+     * read-only transaction (pgjdbc only honours the fetch size with
+     * autocommit off) until the last row is read or the stream is closed.
+     * Callers that may stop early must close it, ideally with
+     * try-with-resources. Inside a unit it uses the unit's connection and must
+     * be consumed before the unit ends. Errors while reading rows surface as
+     * {@link UncheckedSQLException}.
+     */
+    protected <R> Stream<R> stream(String sql, RowMapper<R> mapper, Object... params) throws SQLException {
+        boolean ownTransaction = !UnitOfWork.inTransaction();
+        Connection conn = getReadConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            if (ownTransaction) {
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+            }
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            new RowCursor<>(conn, ps, rs, mapper, ownTransaction).close();
+            throw e;
+        }
+        RowCursor<R> cursor = new RowCursor<>(conn, ps, rs, mapper, ownTransaction);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    /** An open result set read one row per {@link #tryAdvance}; closes itself at the end. */
+    private static final class RowCursor<R> extends Spliterators.AbstractSpliterator<R> {
+        private final Connection conn;
+        private final PreparedStatement ps;
+        private final ResultSet rs;
+        private final RowMapper<R> mapper;
+        private final boolean ownTransaction;
+        private boolean closed;
+
+        RowCursor(Connection conn, PreparedStatement ps, ResultSet rs, RowMapper<R> mapper, boolean ownTransaction) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.ps = ps;
+            this.rs = rs;
+            this.mapper = mapper;
+            this.ownTransaction = ownTransaction;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            if (closed) {
+                return false;
+            }
+            R row;
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                row = mapper.map(rs);
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException(e);
+            }
+            STREAMED_ROWS.increment();
+            action.accept(row);
+            return true;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (ps != null) {
+                    ps.close();
+                }
+                if (ownTransaction) {
+                    // Nothing was written; ending the transaction also closes the cursor
+                    conn.rollback();
+                }
+            } catch (SQLException e) {
+                LOG.warn("Could not close streamed query", e);
+            } finally {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOG.warn("Could not close JDBC resources", e);
+                }
+            }
+        }
+    }
+}
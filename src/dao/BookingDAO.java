@@ -2,12 +2,19 @@ package dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import models.Booking;
 import models.ParkingSlot;
+import utils.JfrEvents;
+import utils.Log;
+import utils.ReadReplicas;
 
 public class BookingDAO extends BaseDAO<Booking> {
 
+    private static final Log LOG = Log.get(BookingDAO.class);
+
     @Override
     protected String getTableName() {
         return "inet_vehicleparking.tbl_booking";
@@ -18,6 +25,28 @@ public class BookingDAO extends BaseDAO<Booking> {
         return "booking_id";
     }
 
+    /** Every column of tbl_booking the model holds, read by position. */
+    protected static final Projection<Booking> BOOKING_COLUMNS = Projection.of(Booking::new)
+            .intColumn("booking_id", Booking::setBookingId)
+            .nullableInt("customer_id", Booking::setCustomerId)
+            .nullableInt("vehicle_id", Booking::setVehicleId)
+            .nullableInt("slot_id", Booking::setSlotId)
+            .nullableInt("user_id", Booking::setUserId)
+            .intColumn("booking_status", Booking::setBookingStatus)
+            .string("duration_of_booking", Booking::setDurationOfBooking)
+            .string("remarks", Booking::setRemarks)
+            .timestamp("booking_time", Booking::setBookingTime)
+            .timestamp("expected_arrival", Booking::setExpectedArrival)
+            .timestamp("actual_arrival", Booking::setActualArrival)
+            .timestamp("departure_time", Booking::setDepartureTime)
+            .nullableDouble("total_hours", Booking::setTotalHours)
+            .nullableDouble("total_amount", Booking::setTotalAmount)
+            .string("booking_ref", Booking::setBookingRef)
+            .build();
+
+    private static final String SELECT_BOOKING = "SELECT " + BOOKING_COLUMNS.columns() + " FROM ";
+
+    // By label, for queries that select * or join other tables
     @Override
     protected Booking mapResultSetToEntity(ResultSet rs) throws SQLException {
         Booking b = new Booking();
@@ -45,18 +74,20 @@ public class BookingDAO extends BaseDAO<Booking> {
     // ================= FIND METHODS =================
 
     public Booking findById(int bookingId) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumnName() + " = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, bookingId);
-            ResultSet rs = ps.executeQuery();
-            return rs.next() ? mapResultSetToEntity(rs) : null;
-        }               
+        String sql = SELECT_BOOKING + getTableName() + " WHERE " + getIdColumnName() + " = ?";
+        return coalesce(sql, bookingId, () -> {
+            try (Connection conn = getConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, bookingId);
+                ResultSet rs = ps.executeQuery();
+                return rs.next() ? BOOKING_COLUMNS.map(rs) : null;
+            }
+        });
     }
 
     public List<Booking> findByUserId(int userId) throws SQLException {
         List<Booking> list = new ArrayList<>();
-        String sql = "SELECT * FROM " + getTableName() + " WHERE user_id = ? ORDER BY booking_time DESC";
+        String sql = SELECT_BOOKING + getTableName() + " WHERE user_id = ? ORDER BY booking_time DESC";
 
         try (Connection conn = getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -64,7 +95,7 @@ public class BookingDAO extends BaseDAO<Booking> {
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                list.add(BOOKING_COLUMNS.map(rs));
             }
         }
         return list;
@@ -72,7 +103,7 @@ public class BookingDAO extends BaseDAO<Booking> {
 
     public List<Booking> findByCustomerId(int customerId) throws SQLException {
         List<Booking> list = new ArrayList<>();
-        String sql = "SELECT * FROM " + getTableName() + " WHERE customer_id = ? ORDER BY booking_time DESC";
+        String sql = SELECT_BOOKING + getTableName() + " WHERE customer_id = ? ORDER BY booking_time DESC";
 
         try (Connection conn = getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -80,41 +111,75 @@ public class BookingDAO extends BaseDAO<Booking> {
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                list.add(BOOKING_COLUMNS.map(rs));
             }
         }
         return list;
     }
 
     public List<Booking> findByStatus(int status) throws SQLException {
-        List<Booking> list = new ArrayList<>();
-        String sql = "SELECT * FROM " + getTableName() + " WHERE booking_status = ? ORDER BY booking_time DESC";
+        String sql = SELECT_BOOKING + getTableName() + " WHERE booking_status = ? ORDER BY booking_time DESC";
 
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, status);
-            ResultSet rs = ps.executeQuery();
+        return coalesceOrCached(sql, status, () -> {
+            List<Booking> list = new ArrayList<>();
+            try (Connection conn = getConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, status);
+                ResultSet rs = ps.executeQuery();
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(BOOKING_COLUMNS.map(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     public List<Booking> findAll() throws SQLException {
-        List<Booking> list = new ArrayList<>();
-        String sql = "SELECT * FROM " + getTableName() + " ORDER BY booking_time DESC";
+        String sql = SELECT_BOOKING + getTableName() + " ORDER BY booking_time DESC";
 
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ResultSet rs = ps.executeQuery();
+        return coalesceOrCached(sql, () -> {
+            List<Booking> list = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ResultSet rs = ps.executeQuery();
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(BOOKING_COLUMNS.map(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
+    }
+
+    // For reports and exports over the whole history; close the stream when done
+    @Override
+    public Stream<Booking> streamAll() throws SQLException {
+        return stream(SELECT_BOOKING + getTableName() + " ORDER BY booking_time DESC", BOOKING_COLUMNS::map);
+    }
+
+    /**
+     * The whole booking table as a {@link BookingHistory}, for statistics.
+     * Rows are streamed into the column arrays as the cursor reads them, so no
+     * Booking objects are created on the way. While the database is
+     * unavailable the last history loaded is returned instead (see LastGood).
+     */
+    public BookingHistory loadHistory() throws SQLException {
+        String sql = "SELECT " + String.join(", ", BookingHistory.columns()) + " FROM " + getTableName()
+                + " ORDER BY booking_id";
+        return coalesceOrCached(sql, () -> {
+            BookingHistory.Builder history = new BookingHistory.Builder();
+            try (Stream<Integer> rows = stream(sql, history::append)) {
+                // Walking the cursor is what appends the rows
+                Iterator<Integer> it = rows.iterator();
+                while (it.hasNext()) {
+                    it.next();
+                }
+            }
+            BookingHistory loaded = history.build();
+            LOG.debug("Loaded {} bookings into history", loaded.size());
+            return loaded;
+        });
     }
 
     // ================= PENDING BOOKINGS =================
@@ -124,86 +189,117 @@ public class BookingDAO extends BaseDAO<Booking> {
 
     // ================= CREATE BOOKING =================
     public int createBookingWithSlotUpdate(Booking booking) throws SQLException {
-        Connection conn = null;
-        PreparedStatement psBooking = null;
-        PreparedStatement psSlot = null;
-        ResultSet rs = null;
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.createBookingWithSlotUpdate",
+                booking.getSlotId());
 
-        try {
-            conn = getConnection();
+        try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
+            try {
+                // 1️⃣ Generate booking reference
+                String bookingRef = generateBookingRef();
+
+                // 2️⃣ Insert booking (PENDING)
+                String sqlBooking = """
+                            INSERT INTO inet_vehicleparking.tbl_booking
+                            (customer_id, vehicle_id, slot_id, booking_status,
+                            duration_of_booking, remarks, booking_time, user_id, booking_ref)
+                            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """;
+
+                int bookingId = 0;
+                try (PreparedStatement psBooking = conn.prepareStatement(sqlBooking,
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    psBooking.setInt(1, booking.getCustomerId());
+                    psBooking.setInt(2, booking.getVehicleId());
+                    psBooking.setInt(3, booking.getSlotId());
+                    psBooking.setInt(4, Booking.STATUS_PENDING);
+                    psBooking.setString(5, booking.getDurationOfBooking());
+                    psBooking.setString(6, booking.getRemarks());
+                    psBooking.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+                    psBooking.setInt(8, booking.getUserId());
+                    psBooking.setString(9, bookingRef);
+
+                    psBooking.executeUpdate();
+
+                    try (ResultSet rs = psBooking.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            bookingId = rs.getInt(1);
+                        }
+                    }
+                }
 
-            // 1️⃣ Generate booking reference
-            String bookingRef = generateBookingRef();
-
-            // 2️⃣ Insert booking (PENDING)
-            String sqlBooking = """
-                        INSERT INTO inet_vehicleparking.tbl_booking
-                        (customer_id, vehicle_id, slot_id, booking_status,
-                        duration_of_booking, remarks, booking_time, user_id, booking_ref)
-                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
-
-            int bookingId = 0;
-            psBooking = conn.prepareStatement(sqlBooking, Statement.RETURN_GENERATED_KEYS);
-            psBooking.setInt(1, booking.getCustomerId());
-            psBooking.setInt(2, booking.getVehicleId());
-            psBooking.setInt(3, booking.getSlotId());
-            psBooking.setInt(4, Booking.STATUS_PENDING);
-            psBooking.setString(5, booking.getDurationOfBooking());
-            psBooking.setString(6, booking.getRemarks());
-            psBooking.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
-            psBooking.setInt(8, booking.getUserId());
-            psBooking.setString(9, bookingRef);
-
-            psBooking.executeUpdate();
-
-            rs = psBooking.getGeneratedKeys();
-            if (rs.next()) {
-                bookingId = rs.getInt(1);
-            }
+                // 3️⃣ Reserve slot
+                String sqlSlot = """
+                            UPDATE inet_vehicleparking.tbl_parking_slot
+                            SET parking_slot_status = ?, user_id = ?
+                            WHERE parking_slot_id = ?
+                        """;
+                try (PreparedStatement psSlot = conn.prepareStatement(sqlSlot)) {
+                    psSlot.setInt(1, ParkingSlot.STATUS_RESERVED);
+                    psSlot.setInt(2, booking.getUserId());
+                    psSlot.setInt(3, booking.getSlotId());
+                    psSlot.executeUpdate();
+                }
 
-            // 3️⃣ Reserve slot
-            String sqlSlot = """
-                        UPDATE inet_vehicleparking.tbl_parking_slot
-                        SET parking_slot_status = ?, user_id = ?
-                        WHERE parking_slot_id = ?
-                    """;
-            psSlot = conn.prepareStatement(sqlSlot);
-            psSlot.setInt(1, ParkingSlot.STATUS_RESERVED);
-            psSlot.setInt(2, booking.getUserId());
-            psSlot.setInt(3, booking.getSlotId());
-            psSlot.executeUpdate();
+                conn.commit();
+                tx.committed = true;
+                return bookingId;
+            } catch (SQLException e) {
+                rollback(conn, e);
+                throw e;
+            } finally {
+                restoreAutoCommit(conn);
+            }
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
+            throw e;
+        } finally {
+            tx.finish();
+        }
+    }
 
-            conn.commit();
+    // The stepwise writes below run on one connection with auto-commit off.
+    // The connection is closed by try-with-resources whatever happens here,
+    // so a failed rollback or reset can never keep its workload permit.
 
-            conn.commit();
-            return bookingId;
+    private static void rollback(Connection conn, SQLException cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackFailed) {
+            cause.addSuppressed(rollbackFailed);
+        }
+    }
 
+    private static void restoreAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
         } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
+            LOG.warn("Could not reset auto-commit: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create a booking only if its slot is still AVAILABLE. The check and the
+     * writes share one serializable unit, so of two customers racing for the
+     * same slot one gets the booking and the other gets the "no longer
+     * available" error on retry.
+     */
+    public int createBookingForAvailableSlot(Booking booking) throws SQLException {
+        ParkingSlotDAO slotDAO = new ParkingSlotDAO();
+        UnitOfWork.Options options = UnitOfWork.Options.readWrite()
+                .isolation(Connection.TRANSACTION_SERIALIZABLE)
+                .named("BookingDAO.createBookingForAvailableSlot");
+        return UnitOfWork.run(options, () -> {
+            ParkingSlot slot = slotDAO.findById(booking.getSlotId());
+            if (slot == null) {
+                throw new SQLException("❌ Slot #" + booking.getSlotId() + " not found!");
             }
-            throw e;
-        } finally {
-            // Close resources but NOT the connection
-            if (rs != null)
-                rs.close();
-            if (psBooking != null)
-                psBooking.close();
-            if (psSlot != null)
-                psSlot.close();
-
-            // Reset auto-commit but DO NOT close connection
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+            if (slot.getParkingSlotStatus() != ParkingSlot.STATUS_AVAILABLE) {
+                throw new SQLException("⚠️ Slot " + slot.getParkingSlotNumber()
+                        + " is no longer available. Please pick another slot.");
             }
-        }
+            return createBookingWithSlotUpdate(booking);
+        });
     }
 
     public void checkTableStructure() throws SQLException {
@@ -219,178 +315,257 @@ public class BookingDAO extends BaseDAO<Booking> {
                 PreparedStatement ps = conn.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
 
-            System.out.println("=== tbl_booking COLUMNS ===");
             while (rs.next()) {
-                System.out.printf("%-20s %-15s %s%n",
+                LOG.info("tbl_booking column {} {} nullable={}",
                         rs.getString("column_name"),
                         rs.getString("data_type"),
                         rs.getString("is_nullable"));
             }
-            System.out.println("==========================");
         }
     }
 
-    // ================= APPROVE BOOKING =================
-    public boolean approveBookingNow(int bookingId, int adminUserId) throws SQLException {
-        Connection conn = null;
-        PreparedStatement psBooking = null;
-        PreparedStatement psSlot = null;
-        ResultSet rs = null;
+    // ================= BOOKING WORKFLOW =================
+    // Approve, reject and delete are one call each to the V6 server-side
+    // functions: one round-trip, row locks held only inside the database.
+    // Until that migration has run (it runs in the background at startup) the
+    // stepwise versions further down do the same work statement by statement.
 
-        try {
-            conn = getConnection();
-            conn.setAutoCommit(false);
+    private static final String UNDEFINED_FUNCTION = "42883";
 
-            System.out.println("🚀 DEBUG: Starting approval for booking #" + bookingId);
+    public boolean approveBookingNow(int bookingId, int adminUserId) throws SQLException {
+        return callOrStepwise("BookingDAO.approveBookingNow",
+                () -> approveInDatabase(bookingId, adminUserId),
+                () -> approveBookingStepwise(bookingId, adminUserId));
+    }
 
-            // 1. GET BOOKING DETAILS
-            String getSql = "SELECT slot_id, booking_status, user_id, duration_of_booking FROM " +
-                    getTableName() + " WHERE booking_id = ?";
-            psBooking = conn.prepareStatement(getSql);
-            psBooking.setInt(1, bookingId);
-            rs = psBooking.executeQuery();
+    public boolean rejectBooking(int bookingId) throws SQLException {
+        return callOrStepwise("BookingDAO.rejectBooking",
+                () -> rejectInDatabase(bookingId),
+                () -> rejectBookingStepwise(bookingId));
+    }
 
-            if (!rs.next()) {
-                throw new SQLException("❌ Booking #" + bookingId + " not found!");
-            }
+    public boolean delete(int bookingId) throws SQLException {
+        return callOrStepwise("BookingDAO.delete",
+                () -> deleteInDatabase(bookingId),
+                () -> deleteStepwise(bookingId));
+    }
 
-            int slotId = rs.getInt("slot_id");
-            int currentStatus = rs.getInt("booking_status");
-            int userId = rs.getInt("user_id");
-            String duration = rs.getString("duration_of_booking");
+    /**
+     * Inside a unit of work a failed call aborts the shared transaction, so the
+     * call runs under a savepoint there; rolling back to it leaves the
+     * connection usable for the stepwise statements.
+     */
+    private static boolean callOrStepwise(String name, UnitOfWork.Work<Boolean> call,
+            UnitOfWork.Work<Boolean> stepwise) throws SQLException {
+        try {
+            if (UnitOfWork.inTransaction()) {
+                return UnitOfWork.run(UnitOfWork.Options.readWrite().named(name).savepoint(), call);
+            }
+            return call.run();
+        } catch (SQLException e) {
+            if (!UNDEFINED_FUNCTION.equals(e.getSQLState())) {
+                throw e;
+            }
+            return stepwise.run();
+        }
+    }
 
-            System.out.println("📋 DEBUG: Booking details - Slot: " + slotId +
-                    ", Status: " + currentStatus);
+    private boolean approveInDatabase(int bookingId, int adminUserId) throws SQLException {
+        String sql = "SELECT outcome, booking_status, slot_id, amount_due "
+                + "FROM inet_vehicleparking.approve_booking(?)";
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.approveBookingNow", bookingId);
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                String outcome = rs.getString("outcome");
+                if (!"OK".equals(outcome)) {
+                    throw BookingStateException.fromOutcome(outcome, bookingId, rs.getInt("slot_id"),
+                            rs.getInt("booking_status"));
+                }
+                tx.committed = true;
+                ReadReplicas.noteWrite();
+                LOG.info("Booking {} approved by user {}, payment due {}", bookingId, adminUserId,
+                        rs.getBigDecimal("amount_due"));
+                return true;
+            }
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
+            throw e;
+        } finally {
+            tx.finish();
+        }
+    }
 
-            // 2. VALIDATE BOOKING STATUS
-            if (currentStatus == Booking.STATUS_APPROVED) {
-                throw new SQLException("⚠️ Booking #" + bookingId + " is already APPROVED!");
+    private boolean rejectInDatabase(int bookingId) throws SQLException {
+        String sql = "SELECT outcome, slot_id FROM inet_vehicleparking.reject_booking(?)";
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.rejectBooking", bookingId);
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                String outcome = rs.getString("outcome");
+                if (!"OK".equals(outcome)) {
+                    throw BookingStateException.fromOutcome(outcome, bookingId, rs.getInt("slot_id"), -1);
+                }
+                tx.committed = true;
+                ReadReplicas.noteWrite();
+                return true;
             }
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
+            throw e;
+        } finally {
+            tx.finish();
+        }
+    }
 
-            if (currentStatus != Booking.STATUS_PENDING) {
-                throw new SQLException("❌ Booking #" + bookingId + " is not PENDING. Current status: " +
-                        (currentStatus == 0 ? "PENDING" : currentStatus == 1 ? "APPROVED" : "REJECTED"));
-            }       
-
-            // 3. CHECK SLOT STATUS
-            String checkSlotSql = "SELECT parking_slot_status FROM inet_vehicleparking.tbl_parking_slot " +
-                    "WHERE parking_slot_id = ?";
-            try (PreparedStatement psCheckSlot = conn.prepareStatement(checkSlotSql)) {
-                psCheckSlot.setInt(1, slotId);
-                try (ResultSet rsSlot = psCheckSlot.executeQuery()) {
-                    if (!rsSlot.next()) {
-                        throw new SQLException("❌ Slot #" + slotId + " not found!");
-                    }
+    private boolean deleteInDatabase(int bookingId) throws SQLException {
+        String sql = "SELECT outcome FROM inet_vehicleparking.delete_booking(?)";
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.delete", bookingId);
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                tx.committed = true;
+                ReadReplicas.noteWrite();
+                return "OK".equals(rs.getString("outcome"));
+            }
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
+            throw e;
+        } finally {
+            tx.finish();
+        }
+    }
 
-                    int slotStatus = rsSlot.getInt("parking_slot_status");
-                    System.out.println("🅿️ DEBUG: Slot #" + slotId + " current status: " + slotStatus);
+    // ================= APPROVE BOOKING (STEPWISE) =================
+    private boolean approveBookingStepwise(int bookingId, int adminUserId) throws SQLException {
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.approveBookingNow", bookingId);
 
-                    // Check if slot is already occupied
-                    if (slotStatus == ParkingSlot.STATUS_OCCUPIED) {
-                        throw new SQLException("❌ Slot #" + slotId + " is already OCCUPIED!");
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1. GET BOOKING DETAILS
+                String getSql = "SELECT slot_id, booking_status, user_id, duration_of_booking FROM " +
+                        getTableName() + " WHERE booking_id = ?";
+                int slotId;
+                int currentStatus;
+                int userId;
+                String duration;
+                try (PreparedStatement psBooking = conn.prepareStatement(getSql)) {
+                    psBooking.setInt(1, bookingId);
+                    try (ResultSet rs = psBooking.executeQuery()) {
+                        if (!rs.next()) {
+                            throw BookingStateException.bookingNotFound(bookingId);
+                        }
+
+                        slotId = rs.getInt("slot_id");
+                        currentStatus = rs.getInt("booking_status");
+                        userId = rs.getInt("user_id");
+                        duration = rs.getString("duration_of_booking");
                     }
                 }
-            }
 
-            // 4. UPDATE BOOKING STATUS - SIMPLIFIED (no approval timestamp)
-            System.out.println("📝 DEBUG: Updating booking status to APPROVED...");
-            String updateBookingSql = "UPDATE " + getTableName() +
-                    " SET booking_status = ? " +
-                    "WHERE booking_id = ?";
-
-            psBooking = conn.prepareStatement(updateBookingSql);
-            psBooking.setInt(1, Booking.STATUS_APPROVED);
-            psBooking.setInt(2, bookingId);
-
-            int bookingRows = psBooking.executeUpdate();
-            System.out.println("✅ DEBUG: Booking rows updated: " + bookingRows);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Approving booking {}: slot {}, status {}", bookingId, slotId, currentStatus);
+                }
 
-            if (bookingRows == 0) {
-                throw new SQLException("❌ Failed to update booking status!");
-            }
+                // 2. VALIDATE BOOKING STATUS
+                if (currentStatus == Booking.STATUS_APPROVED) {
+                    throw BookingStateException.alreadyApproved(bookingId);
+                }
 
-            // 5. UPDATE SLOT STATUS
-            System.out.println("🔄 DEBUG: Updating slot #" + slotId + " to OCCUPIED...");
+                if (currentStatus != Booking.STATUS_PENDING) {
+                    throw BookingStateException.notPending(bookingId, currentStatus);
+                }
 
-            // Use simple update to avoid transaction issues with Postgres
-            String updateSlotSql = "UPDATE inet_vehicleparking.tbl_parking_slot " +
-                    "SET parking_slot_status = ? " +
-                    "WHERE parking_slot_id = ?";
+                // 3. CHECK SLOT STATUS
+                String checkSlotSql = "SELECT parking_slot_status FROM inet_vehicleparking.tbl_parking_slot " +
+                        "WHERE parking_slot_id = ?";
+                try (PreparedStatement psCheckSlot = conn.prepareStatement(checkSlotSql)) {
+                    psCheckSlot.setInt(1, slotId);
+                    try (ResultSet rsSlot = psCheckSlot.executeQuery()) {
+                        if (!rsSlot.next()) {
+                            throw BookingStateException.slotNotFound(bookingId, slotId);
+                        }
+
+                        int slotStatus = rsSlot.getInt("parking_slot_status");
+                        // Check if slot is already occupied
+                        if (slotStatus == ParkingSlot.STATUS_OCCUPIED) {
+                            throw BookingStateException.slotOccupied(bookingId, slotId);
+                        }
+                    }
+                }
 
-            psSlot = conn.prepareStatement(updateSlotSql);
-            psSlot.setInt(1, ParkingSlot.STATUS_OCCUPIED);
-            psSlot.setInt(2, slotId);
-            int slotRows = psSlot.executeUpdate();
-            System.out.println("✅ DEBUG: Slot rows updated: " + slotRows);
+                // 4. UPDATE BOOKING STATUS - SIMPLIFIED (no approval timestamp)
+                String updateBookingSql = "UPDATE " + getTableName() +
+                        " SET booking_status = ? " +
+                        "WHERE booking_id = ?";
 
-            if (slotRows == 0) {
-                throw new SQLException("❌ Failed to update slot status!");
-            }
+                try (PreparedStatement psBooking = conn.prepareStatement(updateBookingSql)) {
+                    psBooking.setInt(1, Booking.STATUS_APPROVED);
+                    psBooking.setInt(2, bookingId);
 
-            // 6. CREATE PAYMENT RECORD
-            System.out.println("💰 DEBUG: Creating payment record...");
-            double amount = calculateAmountFromDuration(duration);
-
-            // Status 1 = APPROVED_UNPAID (Booking Approved, Payment Required)
-            String paymentSql = """
-                        INSERT INTO inet_vehicleparking.tbl_payment
-                        (booking_id, user_id, amount_due, amount_paid, payment_status, remarks, payment_date)
-                        VALUES (?, ?, ?, 0.0, 1, 'Payment pending for approved booking', NULL)
-                    """;
-
-            try (PreparedStatement psPayment = conn.prepareStatement(paymentSql)) {
-                psPayment.setInt(1, bookingId);
-                psPayment.setInt(2, userId);
-                psPayment.setDouble(3, amount);
-                psPayment.executeUpdate();
-                System.out.println("✅ DEBUG: Payment record created for $" + amount);
-            }
+                    int bookingRows = psBooking.executeUpdate();
+                    if (bookingRows == 0) {
+                        throw new SQLException("❌ Failed to update booking status!");
+                    }
+                }
 
-            // 6. COMMIT TRANSACTION
-            conn.commit();
-            System.out.println("🎉 DEBUG: Transaction SUCCESSFUL! Booking #" + bookingId + " approved.");
-            return true;
+                // 5. UPDATE SLOT STATUS
+                // Use simple update to avoid transaction issues with Postgres
+                String updateSlotSql = "UPDATE inet_vehicleparking.tbl_parking_slot " +
+                        "SET parking_slot_status = ? " +
+                        "WHERE parking_slot_id = ?";
+
+                try (PreparedStatement psSlot = conn.prepareStatement(updateSlotSql)) {
+                    psSlot.setInt(1, ParkingSlot.STATUS_OCCUPIED);
+                    psSlot.setInt(2, slotId);
+                    int slotRows = psSlot.executeUpdate();
+                    if (slotRows == 0) {
+                        throw new SQLException("❌ Failed to update slot status!");
+                    }
+                }
 
-        } catch (SQLException e) {
-            System.err.println("💥 DEBUG: Transaction FAILED!");
-            System.err.println("Error: " + e.getMessage());
-
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    System.out.println("🔄 DEBUG: Transaction rolled back");
-                } catch (SQLException rollbackEx) {
-                    System.err.println("⚠️ DEBUG: Rollback failed: " + rollbackEx.getMessage());
+                // 6. CREATE PAYMENT RECORD
+                double amount = calculateAmountFromDuration(duration);
+
+                // Status 1 = APPROVED_UNPAID (Booking Approved, Payment Required)
+                String paymentSql = """
+                            INSERT INTO inet_vehicleparking.tbl_payment
+                            (booking_id, user_id, amount_due, amount_paid, payment_status, remarks, payment_date)
+                            VALUES (?, ?, ?, 0.0, 1, 'Payment pending for approved booking', NULL)
+                        """;
+
+                try (PreparedStatement psPayment = conn.prepareStatement(paymentSql)) {
+                    psPayment.setInt(1, bookingId);
+                    psPayment.setInt(2, userId);
+                    psPayment.setDouble(3, amount);
+                    psPayment.executeUpdate();
                 }
+
+                // 6. COMMIT TRANSACTION
+                conn.commit();
+                tx.committed = true;
+                LOG.info("Booking {} approved by user {}, payment due {}", bookingId, adminUserId, amount);
+                return true;
+
+            } catch (SQLException e) {
+                LOG.warn("Approval of booking {} rolled back: {}", bookingId, e.getMessage());
+                rollback(conn, e);
+                throw e;
+            } finally {
+                restoreAutoCommit(conn);
             }
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
             throw e;
-
         } finally {
-            // Clean up resources
-            if (rs != null)
-                try {
-                    rs.close();
-                } catch (SQLException e) {
-                    /* ignore */ }
-            if (psBooking != null)
-                try {
-                    psBooking.close();
-                } catch (SQLException e) {
-                    /* ignore */ }
-            if (psSlot != null)
-                try {
-                    psSlot.close();
-                } catch (SQLException e) {
-                    /* ignore */ }
-
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    System.err.println("⚠️ DEBUG: Failed to reset auto-commit: " + e.getMessage());
-                }
-            }
+            tx.finish();
         }
     }
 
@@ -413,68 +588,57 @@ public class BookingDAO extends BaseDAO<Booking> {
         };
     }
 
-    // ================= REJECT BOOKING =================
-    public boolean rejectBooking(int bookingId) throws SQLException {
-        Connection conn = null;
-        PreparedStatement psBooking = null;
-        PreparedStatement psSlot = null;
-        ResultSet rs = null;
+    // ================= REJECT BOOKING (STEPWISE) =================
+    private boolean rejectBookingStepwise(int bookingId) throws SQLException {
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.rejectBooking", bookingId);
 
-        try {
-            conn = getConnection();
+        try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
+            try {
+                // 1️⃣ Get booking to find slotId
+                String getSql = "SELECT slot_id FROM " + getTableName() + " WHERE booking_id = ?";
+                int slotId;
+                try (PreparedStatement psBooking = conn.prepareStatement(getSql)) {
+                    psBooking.setInt(1, bookingId);
+                    try (ResultSet rs = psBooking.executeQuery()) {
+                        if (!rs.next()) {
+                            throw BookingStateException.bookingNotFound(bookingId);
+                        }
+                        slotId = rs.getInt("slot_id");
+                    }
+                }
 
-            // 1️⃣ Get booking to find slotId
-            String getSql = "SELECT slot_id FROM " + getTableName() + " WHERE booking_id = ?";
-            psBooking = conn.prepareStatement(getSql);
-            psBooking.setInt(1, bookingId);
-            rs = psBooking.executeQuery();
-
-            if (!rs.next()) {
-                throw new SQLException("Booking not found: " + bookingId);
-            }
-
-            int slotId = rs.getInt("slot_id");
-
-            // 2️⃣ Reject booking
-            String rejectSql = "UPDATE inet_vehicleparking.tbl_booking SET booking_status=? WHERE booking_id=?";
-            psBooking = conn.prepareStatement(rejectSql);
-            psBooking.setInt(1, Booking.STATUS_REJECTED);
-            psBooking.setInt(2, bookingId);
-            psBooking.executeUpdate();
+                // 2️⃣ Reject booking
+                String rejectSql = "UPDATE inet_vehicleparking.tbl_booking SET booking_status=? WHERE booking_id=?";
+                try (PreparedStatement psBooking = conn.prepareStatement(rejectSql)) {
+                    psBooking.setInt(1, Booking.STATUS_REJECTED);
+                    psBooking.setInt(2, bookingId);
+                    psBooking.executeUpdate();
+                }
 
-            // 3️⃣ Free slot and clear user_id
-            String slotSql = "UPDATE inet_vehicleparking.tbl_parking_slot SET parking_slot_status=?, user_id=NULL WHERE parking_slot_id=?";
-            psSlot = conn.prepareStatement(slotSql);
-            psSlot.setInt(1, ParkingSlot.STATUS_AVAILABLE);
-            psSlot.setInt(2, slotId);
-            psSlot.executeUpdate();
+                // 3️⃣ Free slot and clear user_id
+                String slotSql = "UPDATE inet_vehicleparking.tbl_parking_slot SET parking_slot_status=?, user_id=NULL WHERE parking_slot_id=?";
+                try (PreparedStatement psSlot = conn.prepareStatement(slotSql)) {
+                    psSlot.setInt(1, ParkingSlot.STATUS_AVAILABLE);
+                    psSlot.setInt(2, slotId);
+                    psSlot.executeUpdate();
+                }
 
-            conn.commit();
-            return true;
+                conn.commit();
+                tx.committed = true;
+                return true;
 
+            } catch (SQLException e) {
+                rollback(conn, e);
+                throw e;
+            } finally {
+                restoreAutoCommit(conn);
+            }
         } catch (SQLException e) {
-            if (conn != null)
-                conn.rollback();
+            tx.error = e.getMessage();
             throw e;
         } finally {
-            // Close resources but NOT the connection
-            if (rs != null)
-                rs.close();
-            if (psBooking != null)
-                psBooking.close();
-            if (psSlot != null)
-                psSlot.close();
-
-            // Reset auto-commit but DO NOT close connection
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+            tx.finish();
         }
     }
 
@@ -489,27 +653,83 @@ public class BookingDAO extends BaseDAO<Booking> {
         }
     }
 
+    // Journaled instead when the database is unreachable (see WriteJournal)
     public boolean updateArrivalTime(int bookingId, Timestamp arrivalTime) throws SQLException {
-        String sql = "UPDATE " + getTableName() + " SET actual_arrival = ? WHERE booking_id = ?";
+        return WriteJournal.write(WriteJournal.arrival(bookingId, arrivalTime), () -> {
+            String sql = "UPDATE " + getTableName() + " SET actual_arrival = ? WHERE booking_id = ?";
+            try (Connection conn = getConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setTimestamp(1, arrivalTime);
+                ps.setInt(2, bookingId);
+                return ps.executeUpdate() > 0;
+            }
+        });
+    }
+
+    // Journaled instead when the database is unreachable (see WriteJournal)
+    public boolean updateDepartureTime(int bookingId, Timestamp departureTime, double totalHours, double totalAmount)
+            throws SQLException {
+        return WriteJournal.write(WriteJournal.departure(bookingId, departureTime, totalHours, totalAmount), () -> {
+            String sql = "UPDATE " + getTableName()
+                    + " SET departure_time = ?, total_hours = ?, total_amount = ? WHERE booking_id = ?";
+            try (Connection conn = getConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setTimestamp(1, departureTime);
+                ps.setDouble(2, totalHours);
+                ps.setDouble(3, totalAmount);
+                ps.setInt(4, bookingId);
+                return ps.executeUpdate() > 0;
+            }
+        });
+    }
+
+    // ================= JOURNAL REPLAY =================
+    // Called by WriteJournal inside its replay unit. Null when applied,
+    // otherwise why not: a time recorded meanwhile by someone else wins.
+
+    String replayArrival(int bookingId, Timestamp arrivalTime) throws SQLException {
+        String sql = "UPDATE " + getTableName() + " SET actual_arrival = ? WHERE booking_id = ?"
+                + " AND (actual_arrival IS NULL OR actual_arrival = ?)";
         try (Connection conn = getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setTimestamp(1, arrivalTime);
             ps.setInt(2, bookingId);
-            return ps.executeUpdate() > 0;
+            ps.setTimestamp(3, arrivalTime);
+            if (ps.executeUpdate() > 0) {
+                return null;
+            }
         }
+        return replayConflict(bookingId, "actual_arrival");
     }
 
-    public boolean updateDepartureTime(int bookingId, Timestamp departureTime, double totalHours, double totalAmount)
+    String replayDeparture(int bookingId, Timestamp departureTime, double totalHours, double totalAmount)
             throws SQLException {
         String sql = "UPDATE " + getTableName()
-                + " SET departure_time = ?, total_hours = ?, total_amount = ? WHERE booking_id = ?";
+                + " SET departure_time = ?, total_hours = ?, total_amount = ? WHERE booking_id = ?"
+                + " AND (departure_time IS NULL OR departure_time = ?)";
         try (Connection conn = getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setTimestamp(1, departureTime);
             ps.setDouble(2, totalHours);
             ps.setDouble(3, totalAmount);
             ps.setInt(4, bookingId);
-            return ps.executeUpdate() > 0;
+            ps.setTimestamp(5, departureTime);
+            if (ps.executeUpdate() > 0) {
+                return null;
+            }
+        }
+        return replayConflict(bookingId, "departure_time");
+    }
+
+    private String replayConflict(int bookingId, String timeColumn) throws SQLException {
+        String sql = "SELECT " + timeColumn + " FROM " + getTableName() + " WHERE booking_id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? "booking already has " + timeColumn + " " + rs.getTimestamp(1)
+                        : "booking no longer exists";
+            }
         }
     }
 
@@ -560,6 +780,7 @@ public class BookingDAO extends BaseDAO<Booking> {
                 timestamp, timestamp, timestamp, random);
     }
 
+    // Same rules as inet_vehicleparking.booking_price() in V6; change both together
     private double calculateAmountFromDuration(String duration) {
         if (duration == null || duration.isEmpty()) {
             return 5.00; // Default minimum charge
@@ -593,27 +814,31 @@ public class BookingDAO extends BaseDAO<Booking> {
     // ================= COUNT METHODS =================
     public int countBookings() throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName();
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-            return rs.next() ? rs.getInt(1) : 0;
-        }
+        return coalesceOrCached(sql, () -> {
+            try (Connection conn = getReadConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql);
+                    ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
     }
 
     public int countBookingsByStatus(int status) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName() + " WHERE booking_status = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, status);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt(1) : 0;
+        return coalesceOrCached(sql, status, () -> {
+            try (Connection conn = getReadConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, status);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
             }
-        }
+        });
     }
 
     public int countBookingsByUser(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName() + " WHERE user_id = ?";
-        try (Connection conn = getConnection();
+        try (Connection conn = getReadConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -622,73 +847,61 @@ public class BookingDAO extends BaseDAO<Booking> {
         }
     }
 
-    // ================= DELETE METHOD =================
-    public boolean delete(int bookingId) throws SQLException {
-        Connection conn = null;
-        PreparedStatement psGet = null;
-        PreparedStatement psSlot = null;
-        PreparedStatement psDelete = null;
-        ResultSet rs = null;
+    // ================= DELETE METHOD (STEPWISE) =================
+    private boolean deleteStepwise(int bookingId) throws SQLException {
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("BookingDAO.delete", bookingId);
 
-        try {
-            conn = getConnection();
+        try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
+            try {
+                // 1️⃣ Get booking details
+                String getSql = "SELECT slot_id, booking_status FROM " + getTableName() + " WHERE booking_id = ?";
+                int slotId;
+                int bookingStatus;
+                try (PreparedStatement psGet = conn.prepareStatement(getSql)) {
+                    psGet.setInt(1, bookingId);
+                    try (ResultSet rs = psGet.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        slotId = rs.getInt("slot_id");
+                        bookingStatus = rs.getInt("booking_status");
+                    }
+                }
 
-            // 1️⃣ Get booking details
-            String getSql = "SELECT slot_id, booking_status FROM " + getTableName() + " WHERE booking_id = ?";
-            psGet = conn.prepareStatement(getSql);
-            psGet.setInt(1, bookingId);
-            rs = psGet.executeQuery();
+                // 2️⃣ Free the slot if it's reserved/occupied by this booking
+                if (bookingStatus == Booking.STATUS_PENDING || bookingStatus == Booking.STATUS_APPROVED) {
+                    String slotSql = "UPDATE inet_vehicleparking.tbl_parking_slot SET parking_slot_status=?, user_id=NULL WHERE parking_slot_id=?";
+                    try (PreparedStatement psSlot = conn.prepareStatement(slotSql)) {
+                        psSlot.setInt(1, ParkingSlot.STATUS_AVAILABLE);
+                        psSlot.setInt(2, slotId);
+                        psSlot.executeUpdate();
+                    }
+                }
 
-            if (!rs.next()) {
-                return false;
-            }
+                // 3️⃣ Delete the booking
+                String deleteSql = "DELETE FROM " + getTableName() + " WHERE " + getIdColumnName() + " = ?";
+                int rows;
+                try (PreparedStatement psDelete = conn.prepareStatement(deleteSql)) {
+                    psDelete.setInt(1, bookingId);
+                    rows = psDelete.executeUpdate();
+                }
 
-            int slotId = rs.getInt("slot_id");
-            int bookingStatus = rs.getInt("booking_status");
+                conn.commit();
+                tx.committed = true;
+                return rows > 0;
 
-            // 2️⃣ Free the slot if it's reserved/occupied by this booking
-            if (bookingStatus == Booking.STATUS_PENDING || bookingStatus == Booking.STATUS_APPROVED) {
-                String slotSql = "UPDATE inet_vehicleparking.tbl_parking_slot SET parking_slot_status=?, user_id=NULL WHERE parking_slot_id=?";
-                psSlot = conn.prepareStatement(slotSql);
-                psSlot.setInt(1, ParkingSlot.STATUS_AVAILABLE);
-                psSlot.setInt(2, slotId);
-                psSlot.executeUpdate();
+            } catch (SQLException e) {
+                rollback(conn, e);
+                throw e;
+            } finally {
+                restoreAutoCommit(conn);
             }
-
-            // 3️⃣ Delete the booking
-            String deleteSql = "DELETE FROM " + getTableName() + " WHERE " + getIdColumnName() + " = ?";
-            psDelete = conn.prepareStatement(deleteSql);
-            psDelete.setInt(1, bookingId);
-            int rows = psDelete.executeUpdate();
-
-            conn.commit();
-            return rows > 0;
-
         } catch (SQLException e) {
-            if (conn != null)
-                conn.rollback();
+            tx.error = e.getMessage();
             throw e;
         } finally {
-            // Close resources but NOT the connection
-            if (rs != null)
-                rs.close();
-            if (psGet != null)
-                psGet.close();
-            if (psSlot != null)
-                psSlot.close();
-            if (psDelete != null)
-                psDelete.close();
-
-            // Reset auto-commit but DO NOT close connection
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+            tx.finish();
         }
     }
-}
\ No newline at end of file
+}
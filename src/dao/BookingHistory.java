@@ -0,0 +1,392 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only, column-per-array copy of the booking table for statistics.
+ *
+ * Each column is one primitive array indexed by row: ids as ints, status as a
+ * byte, duration as a short code into a small dictionary, timestamps as epoch
+ * millis and hours/amount as doubles. A row costs about 70 bytes here against
+ * several hundred as a {@link models.Booking} with its boxed fields,
+ * Timestamps and strings. Free-text columns (remarks, booking_ref) are left
+ * out; screens that show individual bookings still load the model.
+ *
+ * Missing values: ids are {@link #NO_ID}, times {@link #NO_TIME}, hours and
+ * amounts NaN.
+ *
+ * Filters produce a {@link Selection}, one bit per row packed 64 to a long, in
+ * branch-free loops over a single array. Aggregates read only the selected
+ * rows. Both split the rows into chunks of {@link #CHUNK_ROWS} that run on the
+ * common fork-join pool once the table is larger than one chunk.
+ *
+ * Load one with {@link BookingDAO#loadHistory()}.
+ */
+public final class BookingHistory {
+
+    public static final int NO_ID = 0;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    // A multiple of 64, so every chunk owns whole words of a selection
+    static final int CHUNK_ROWS = 64 * 1024;
+
+    private static final List<String> COLUMNS = List.of("booking_id", "customer_id", "vehicle_id", "slot_id",
+            "user_id", "booking_status", "duration_of_booking", "booking_time", "expected_arrival",
+            "actual_arrival", "departure_time", "total_hours", "total_amount");
+
+    private final int size;
+    private final int[] bookingIds;
+    private final int[] customerIds;
+    private final int[] vehicleIds;
+    private final int[] slotIds;
+    private final int[] userIds;
+    private final byte[] statuses;
+    private final short[] durationCodes;
+    private final String[] durations;
+    private final long[] bookingTimes;
+    private final long[] expectedArrivals;
+    private final long[] actualArrivals;
+    private final long[] departureTimes;
+    private final double[] totalHours;
+    private final double[] totalAmounts;
+
+    private BookingHistory(Builder b) {
+        this.size = b.size;
+        this.bookingIds = Arrays.copyOf(b.bookingIds, size);
+        this.customerIds = Arrays.copyOf(b.customerIds, size);
+        this.vehicleIds = Arrays.copyOf(b.vehicleIds, size);
+        this.slotIds = Arrays.copyOf(b.slotIds, size);
+        this.userIds = Arrays.copyOf(b.userIds, size);
+        this.statuses = Arrays.copyOf(b.statuses, size);
+        this.durationCodes = Arrays.copyOf(b.durationCodes, size);
+        this.durations = b.durations.keySet().toArray(new String[0]);
+        this.bookingTimes = Arrays.copyOf(b.bookingTimes, size);
+        this.expectedArrivals = Arrays.copyOf(b.expectedArrivals, size);
+        this.actualArrivals = Arrays.copyOf(b.actualArrivals, size);
+        this.departureTimes = Arrays.copyOf(b.departureTimes, size);
+        this.totalHours = Arrays.copyOf(b.totalHours, size);
+        this.totalAmounts = Arrays.copyOf(b.totalAmounts, size);
+    }
+
+    /** The select list {@link Builder#append} expects, in order. */
+    public static List<String> columns() {
+        return COLUMNS;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ================= ROW ACCESS =================
+
+    public int bookingId(int row) { return bookingIds[row]; }
+
+    public int customerId(int row) { return customerIds[row]; }
+
+    public int vehicleId(int row) { return vehicleIds[row]; }
+
+    public int slotId(int row) { return slotIds[row]; }
+
+    public int userId(int row) { return userIds[row]; }
+
+    public int status(int row) { return statuses[row]; }
+
+    public String duration(int row) {
+        int code = durationCodes[row];
+        return code < 0 ? null : durations[code];
+    }
+
+    public long bookingTime(int row) { return bookingTimes[row]; }
+
+    public long expectedArrival(int row) { return expectedArrivals[row]; }
+
+    public long actualArrival(int row) { return actualArrivals[row]; }
+
+    public long departureTime(int row) { return departureTimes[row]; }
+
+    public double totalHours(int row) { return totalHours[row]; }
+
+    public double totalAmount(int row) { return totalAmounts[row]; }
+
+    // ================= FILTERS =================
+
+    /** A set of rows of one history, as a bitmap. Combine with {@link #and}. */
+    public static final class Selection {
+        private final long[] words;
+
+        private Selection(long[] words) {
+            this.words = words;
+        }
+
+        public Selection and(Selection other) {
+            long[] result = new long[words.length];
+            for (int w = 0; w < result.length; w++) {
+                result[w] = words[w] & other.words[w];
+            }
+            return new Selection(result);
+        }
+
+        public boolean contains(int row) {
+            return (words[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowTest {
+        // Bits for rows [from, to) of one word, row from in bit 0
+        long word(int from, int to);
+    }
+
+    public Selection all() {
+        long[] words = new long[wordCount()];
+        Arrays.fill(words, -1L);
+        if ((size & 63) != 0) {
+            words[words.length - 1] = (1L << size) - 1;
+        }
+        return new Selection(words);
+    }
+
+    public Selection withStatus(int status) {
+        byte code = (byte) status;
+        return select((from, to) -> {
+            long bits = 0;
+            for (int i = from; i < to; i++) {
+                bits |= (statuses[i] == code ? 1L : 0L) << (i - from);
+            }
+            return bits;
+        });
+    }
+
+    /** Rows booked in [fromMillis, toMillis). Rows without a booking time never match. */
+    public Selection bookedBetween(long fromMillis, long toMillis) {
+        return select((from, to) -> {
+            long bits = 0;
+            for (int i = from; i < to; i++) {
+                long t = bookingTimes[i];
+                bits |= (t >= fromMillis & t < toMillis ? 1L : 0L) << (i - from);
+            }
+            return bits;
+        });
+    }
+
+    public Selection forSlot(int slotId) {
+        return select((from, to) -> {
+            long bits = 0;
+            for (int i = from; i < to; i++) {
+                bits |= (slotIds[i] == slotId ? 1L : 0L) << (i - from);
+            }
+            return bits;
+        });
+    }
+
+    private Selection select(RowTest test) {
+        long[] words = new long[wordCount()];
+        chunks().forEach(chunk -> {
+            int start = chunk * CHUNK_ROWS;
+            int end = Math.min(size, start + CHUNK_ROWS);
+            for (int from = start; from < end; from += 64) {
+                words[from >>> 6] = test.word(from, Math.min(end, from + 64));
+            }
+        });
+        return new Selection(words);
+    }
+
+    // ================= AGGREGATES =================
+
+    public int count(Selection rows) {
+        int count = 0;
+        for (long word : rows.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** Selected rows per status code; index i holds the count for status i. */
+    public int[] countByStatus(Selection rows) {
+        return chunks().mapToObj(chunk -> {
+            int[] counts = new int[Byte.MAX_VALUE + 1];
+            forEachSelected(rows, chunk, row -> counts[statuses[row] & 0x7f]++);
+            return counts;
+        }).reduce(new int[Byte.MAX_VALUE + 1], (a, b) -> {
+            int[] sum = new int[a.length];
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] = a[i] + b[i];
+            }
+            return sum;
+        });
+    }
+
+    /** Sum of total_amount over the selected rows; rows without one add nothing. */
+    public double sumAmount(Selection rows) {
+        return sum(rows, totalAmounts);
+    }
+
+    public double sumHours(Selection rows) {
+        return sum(rows, totalHours);
+    }
+
+    /** Selected rows per duration, in the order each duration was first seen. */
+    public Map<String, Integer> countByDuration(Selection rows) {
+        int[] counts = chunks().mapToObj(chunk -> {
+            int[] partial = new int[durations.length + 1];
+            // Code -1 (no duration) is counted in the last slot and not reported
+            forEachSelected(rows, chunk, row -> partial[durationCodes[row] < 0 ? durations.length
+                    : durationCodes[row]]++);
+            return partial;
+        }).reduce(new int[durations.length + 1], (a, b) -> {
+            int[] sum = new int[a.length];
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] = a[i] + b[i];
+            }
+            return sum;
+        });
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code = 0; code < durations.length; code++) {
+            if (counts[code] > 0) {
+                result.put(durations[code], counts[code]);
+            }
+        }
+        return result;
+    }
+
+    private double sum(Selection rows, double[] column) {
+        return chunks().mapToDouble(chunk -> {
+            double[] total = new double[1];
+            forEachSelected(rows, chunk, row -> {
+                double value = column[row];
+                if (value == value) {
+                    total[0] += value;
+                }
+            });
+            return total[0];
+        }).sum();
+    }
+
+    @FunctionalInterface
+    private interface RowAction {
+        void accept(int row);
+    }
+
+    private void forEachSelected(Selection rows, int chunk, RowAction action) {
+        int firstWord = chunk * (CHUNK_ROWS / 64);
+        int lastWord = Math.min(rows.words.length, firstWord + CHUNK_ROWS / 64);
+        for (int w = firstWord; w < lastWord; w++) {
+            long word = rows.words[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private IntStream chunks() {
+        int count = (size + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        IntStream chunks = IntStream.range(0, count);
+        return count > 1 ? chunks.parallel() : chunks;
+    }
+
+    private int wordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    // ================= LOADING =================
+
+    /**
+     * Collects rows into growing arrays. Feed it rows whose select list is
+     * {@link #columns()}; it reads them by position and keeps no reference
+     * to the result set.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] bookingIds = new int[1024];
+        private int[] customerIds = new int[1024];
+        private int[] vehicleIds = new int[1024];
+        private int[] slotIds = new int[1024];
+        private int[] userIds = new int[1024];
+        private byte[] statuses = new byte[1024];
+        private short[] durationCodes = new short[1024];
+        private long[] bookingTimes = new long[1024];
+        private long[] expectedArrivals = new long[1024];
+        private long[] actualArrivals = new long[1024];
+        private long[] departureTimes = new long[1024];
+        private double[] totalHours = new double[1024];
+        private double[] totalAmounts = new double[1024];
+        private final Map<String, Short> durations = new LinkedHashMap<>();
+
+        /** Append the current row and return its index. */
+        public int append(ResultSet rs) throws SQLException {
+            if (size == bookingIds.length) {
+                grow();
+            }
+            int row = size;
+            // getInt gives 0 for NULL, which is NO_ID
+            bookingIds[row] = rs.getInt(1);
+            customerIds[row] = rs.getInt(2);
+            vehicleIds[row] = rs.getInt(3);
+            slotIds[row] = rs.getInt(4);
+            userIds[row] = rs.getInt(5);
+            statuses[row] = (byte) rs.getInt(6);
+            durationCodes[row] = durationCode(rs.getString(7));
+            bookingTimes[row] = millis(rs.getTimestamp(8));
+            expectedArrivals[row] = millis(rs.getTimestamp(9));
+            actualArrivals[row] = millis(rs.getTimestamp(10));
+            departureTimes[row] = millis(rs.getTimestamp(11));
+            totalHours[row] = doubleOrNaN(rs, 12);
+            totalAmounts[row] = doubleOrNaN(rs, 13);
+            size++;
+            return row;
+        }
+
+        public BookingHistory build() {
+            return new BookingHistory(this);
+        }
+
+        private short durationCode(String duration) {
+            if (duration == null) {
+                return -1;
+            }
+            Short code = durations.get(duration);
+            if (code == null) {
+                if (durations.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("More than " + Short.MAX_VALUE + " distinct durations");
+                }
+                code = (short) durations.size();
+                durations.put(duration, code);
+            }
+            return code;
+        }
+
+        private static long millis(Timestamp t) {
+            return t == null ? NO_TIME : t.getTime();
+        }
+
+        private static double doubleOrNaN(ResultSet rs, int index) throws SQLException {
+            double value = rs.getDouble(index);
+            return rs.wasNull() ? Double.NaN : value;
+        }
+
+        private void grow() {
+            int capacity = bookingIds.length + (bookingIds.length >> 1);
+            bookingIds = Arrays.copyOf(bookingIds, capacity);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            vehicleIds = Arrays.copyOf(vehicleIds, capacity);
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            durationCodes = Arrays.copyOf(durationCodes, capacity);
+            bookingTimes = Arrays.copyOf(bookingTimes, capacity);
+            expectedArrivals = Arrays.copyOf(expectedArrivals, capacity);
+            actualArrivals = Arrays.copyOf(actualArrivals, capacity);
+            departureTimes = Arrays.copyOf(departureTimes, capacity);
+            totalHours = Arrays.copyOf(totalHours, capacity);
+            totalAmounts = Arrays.copyOf(totalAmounts, capacity);
+        }
+    }
+}
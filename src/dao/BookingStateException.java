@@ -0,0 +1,89 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * A booking approve / reject / delete that was refused because of the
+ * booking's or its slot's current state, not because the database failed.
+ *
+ * Thrown the same way whether the flow ran as one server-side function or
+ * statement by statement, so callers can switch on {@link #getReason()}
+ * instead of reading the message. The message is the one the admin sees.
+ */
+public class BookingStateException extends SQLException {
+
+    public enum Reason {
+        BOOKING_NOT_FOUND,
+        ALREADY_APPROVED,
+        NOT_PENDING,
+        SLOT_NOT_FOUND,
+        SLOT_OCCUPIED
+    }
+
+    // no_data for missing rows, object_not_in_prerequisite_state otherwise
+    private static final String NOT_FOUND_STATE = "02000";
+    private static final String WRONG_STATE = "55000";
+
+    private final Reason reason;
+    private final int bookingId;
+
+    private BookingStateException(Reason reason, int bookingId, String message) {
+        super(message, reason == Reason.BOOKING_NOT_FOUND || reason == Reason.SLOT_NOT_FOUND
+                ? NOT_FOUND_STATE : WRONG_STATE);
+        this.reason = reason;
+        this.bookingId = bookingId;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    // ================= FACTORIES =================
+
+    static BookingStateException bookingNotFound(int bookingId) {
+        return new BookingStateException(Reason.BOOKING_NOT_FOUND, bookingId,
+                "❌ Booking #" + bookingId + " not found!");
+    }
+
+    static BookingStateException alreadyApproved(int bookingId) {
+        return new BookingStateException(Reason.ALREADY_APPROVED, bookingId,
+                "⚠️ Booking #" + bookingId + " is already APPROVED!");
+    }
+
+    static BookingStateException notPending(int bookingId, int currentStatus) {
+        return new BookingStateException(Reason.NOT_PENDING, bookingId,
+                "❌ Booking #" + bookingId + " is not PENDING. Current status: " +
+                        (currentStatus == 0 ? "PENDING" : currentStatus == 1 ? "APPROVED" : "REJECTED"));
+    }
+
+    static BookingStateException slotNotFound(int bookingId, int slotId) {
+        return new BookingStateException(Reason.SLOT_NOT_FOUND, bookingId, "❌ Slot #" + slotId + " not found!");
+    }
+
+    static BookingStateException slotOccupied(int bookingId, int slotId) {
+        return new BookingStateException(Reason.SLOT_OCCUPIED, bookingId,
+                "❌ Slot #" + slotId + " is already OCCUPIED!");
+    }
+
+    /** Map an {@code outcome} column from the V6 booking functions. */
+    static BookingStateException fromOutcome(String outcome, int bookingId, int slotId, int currentStatus)
+            throws SQLException {
+        Reason reason;
+        try {
+            reason = Reason.valueOf(outcome);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new SQLException("Unexpected outcome from booking function: " + outcome);
+        }
+        return switch (reason) {
+            case BOOKING_NOT_FOUND -> bookingNotFound(bookingId);
+            case ALREADY_APPROVED -> alreadyApproved(bookingId);
+            case NOT_PENDING -> notPending(bookingId, currentStatus);
+            case SLOT_NOT_FOUND -> slotNotFound(bookingId, slotId);
+            case SLOT_OCCUPIED -> slotOccupied(bookingId, slotId);
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import models.CustomerMatch;
+import utils.PlateNumbers;
+
+/**
+ * Unified "find customer" search for the admin panels.
+ *
+ * Matches vehicle owners by name, phone, email, linked user account, any of
+ * their plate numbers or a booking reference. Every branch is a contains-match
+ * backed by a pg_trgm GIN index (migration V5), so latency stays flat as the
+ * tables grow.
+ */
+public class CustomerSearchDAO extends BaseDAO<CustomerMatch> {
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    // pg_trgm can only use the index for a pattern with at least one whole
+    // trigram, i.e. three characters; shorter terms would scan every row
+    public static final int MIN_TERM_LENGTH = 3;
+
+    private final VehicleOwnerDAO ownerDAO = new VehicleOwnerDAO();
+
+    @Override
+    protected String getTableName() {
+        return "inet_vehicleparking.tbl_vehicle_owner";
+    }
+
+    @Override
+    protected String getIdColumnName() {
+        return "vehicle_owner_id";
+    }
+
+    @Override
+    protected CustomerMatch mapResultSetToEntity(ResultSet rs) throws SQLException {
+        CustomerMatch match = new CustomerMatch();
+        match.setOwner(ownerDAO.mapResultSetToEntity(rs));
+        match.setMatchedField(rs.getString("matched_field"));
+        match.setMatchedValue(rs.getString("matched_value"));
+        match.setScore(rs.getDouble("score"));
+        return match;
+    }
+
+    // ================= SEARCH =================
+
+    public List<CustomerMatch> findCustomers(String term) throws SQLException {
+        return findCustomers(term, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Best match per owner, highest similarity first.
+     */
+    public List<CustomerMatch> findCustomers(String term, int limit) throws SQLException {
+        List<CustomerMatch> list = new ArrayList<>();
+        String text = term != null ? term.trim() : "";
+        String plate = PlateNumbers.normalize(text);
+        if (text.length() < MIN_TERM_LENGTH) {
+            return list;
+        }
+        // "ab-" normalizes to "AB": too short for the plate index, and an
+        // empty plate would become '%%' and match every vehicle. NULL
+        // patterns match nothing, so that branch drops out.
+        boolean plateSearch = plate.length() >= MIN_TERM_LENGTH;
+
+        // Each branch is capped on its own so one very common term cannot
+        // flood the merge step
+        String sql = """
+                    WITH hits AS (
+                        (SELECT vehicle_owner_id AS owner_id, 'name' AS matched_field,
+                                vehicle_owner_name AS matched_value,
+                                similarity(vehicle_owner_name, ?) AS score
+                         FROM inet_vehicleparking.tbl_vehicle_owner
+                         WHERE vehicle_owner_name ILIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                        UNION ALL
+                        (SELECT vehicle_owner_id, 'phone', vehicle_owner_contact,
+                                similarity(vehicle_owner_contact, ?)
+                         FROM inet_vehicleparking.tbl_vehicle_owner
+                         WHERE vehicle_owner_contact ILIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                        UNION ALL
+                        (SELECT vehicle_owner_id, 'email', vehicle_owner_email,
+                                similarity(vehicle_owner_email, ?)
+                         FROM inet_vehicleparking.tbl_vehicle_owner
+                         WHERE vehicle_owner_email ILIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                        UNION ALL
+                        (SELECT vo.vehicle_owner_id, 'account', u.fullname,
+                                GREATEST(similarity(u.fullname, ?), similarity(u.username, ?),
+                                         similarity(u.email, ?))
+                         FROM inet_vehicleparking.tbl_user u
+                         JOIN inet_vehicleparking.tbl_vehicle_owner vo ON vo.user_id = u.user_id
+                         WHERE u.fullname ILIKE ? OR u.username ILIKE ? OR u.email ILIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                        UNION ALL
+                        (SELECT vehicle_owner_id, 'plate', vehicle_plate_number,
+                                similarity(%1$s, ?)
+                         FROM inet_vehicleparking.tbl_vehicle
+                         WHERE %1$s LIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                        UNION ALL
+                        (SELECT customer_id, 'booking_ref', booking_ref,
+                                similarity(booking_ref, ?)
+                         FROM inet_vehicleparking.tbl_booking
+                         WHERE booking_ref ILIKE ?
+                         ORDER BY 4 DESC LIMIT ?)
+                    ),
+                    best AS (
+                        SELECT DISTINCT ON (owner_id) owner_id, matched_field, matched_value, score
+                        FROM hits
+                        WHERE owner_id IS NOT NULL
+                        ORDER BY owner_id, score DESC
+                    )
+                    SELECT vo.vehicle_owner_id, vo.vehicle_owner_name, vo.vehicle_owner_contact,
+                           vo.vehicle_owner_email, vo.status, vo.user_id, vo.created_at, vo.updated_at,
+                           best.matched_field, best.matched_value, best.score
+                    FROM best
+                    JOIN inet_vehicleparking.tbl_vehicle_owner vo ON vo.vehicle_owner_id = best.owner_id
+                    ORDER BY best.score DESC, vo.vehicle_owner_name
+                    LIMIT ?
+                """.formatted(PlateNumbers.SQL_NORMALIZED_PLATE);
+
+        String pattern = containsPattern(text);
+        String platePattern = plateSearch ? containsPattern(plate) : null;
+
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            // name, phone, email
+            for (int branch = 0; branch < 3; branch++) {
+                ps.setString(i++, text);
+                ps.setString(i++, pattern);
+                ps.setInt(i++, limit);
+            }
+            // linked user account
+            ps.setString(i++, text);
+            ps.setString(i++, text);
+            ps.setString(i++, text);
+            ps.setString(i++, pattern);
+            ps.setString(i++, pattern);
+            ps.setString(i++, pattern);
+            ps.setInt(i++, limit);
+            // plate
+            ps.setString(i++, plate);
+            ps.setString(i++, platePattern);
+            ps.setInt(i++, limit);
+            // booking ref
+            ps.setString(i++, text);
+            ps.setString(i++, pattern);
+            ps.setInt(i++, limit);
+
+            ps.setInt(i, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToEntity(rs));
+                }
+            }
+        }
+        return list;
+    }
+
+    // ================= HELPERS =================
+
+    /** "%term%" with LIKE wildcards in the term escaped. */
+    static String containsPattern(String term) {
+        StringBuilder sb = new StringBuilder(term.length() + 2).append('%');
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+}
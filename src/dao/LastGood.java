@@ -0,0 +1,76 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import utils.CircuitBreaker;
+import utils.Log;
+import utils.Metrics;
+
+/**
+ * The last answer to each listing and dashboard read, handed back when the
+ * database cannot give a fresh one: unreachable, timed out, its circuit
+ * breaker open or its connections busy. Other errors are still thrown.
+ *
+ * Panels call {@link #takeServedCached()} on the worker thread after loading
+ * to find out whether they should say the figures may be out of date. Like
+ * SingleFlight, every caller gets its own copy, entities included.
+ */
+public final class LastGood {
+
+    private static final Log LOG = Log.get(LastGood.class);
+
+    private static final int MAX_ENTRIES = 256;
+
+    private static final Map<List<Object>, Object> RESULTS = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final ThreadLocal<Boolean> SERVED_CACHED = new ThreadLocal<>();
+    private static final Metrics.Counter SERVED = Metrics.counter("db.reads.servedCached");
+
+    private LastGood() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> R run(String sql, Object[] params, SingleFlight.SqlCall<R> call) throws SQLException {
+        List<Object> key = new ArrayList<>(params.length + 1);
+        key.add(sql);
+        key.addAll(Arrays.asList(params));
+        try {
+            R result = call.call();
+            synchronized (RESULTS) {
+                RESULTS.put(key, ResultCopies.copy(result));
+            }
+            return result;
+        } catch (SQLException e) {
+            if (!CircuitBreaker.isUnavailable(e)) {
+                throw e;
+            }
+            Object cached;
+            synchronized (RESULTS) {
+                if (!RESULTS.containsKey(key)) {
+                    throw e;
+                }
+                cached = RESULTS.get(key);
+            }
+            SERVED.increment();
+            SERVED_CACHED.set(Boolean.TRUE);
+            LOG.debug("Serving cached result, database unavailable: {}", e.getMessage());
+            return (R) ResultCopies.copy(cached);
+        }
+    }
+
+    /** Whether a read on this thread fell back to a cached result since the last call. */
+    public static boolean takeServedCached() {
+        boolean served = SERVED_CACHED.get() != null;
+        SERVED_CACHED.remove();
+        return served;
+    }
+}
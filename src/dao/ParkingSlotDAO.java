@@ -41,17 +41,19 @@ public class ParkingSlotDAO extends BaseDAO<ParkingSlot> {
     @Override
     public List<ParkingSlot> findAll() throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " ORDER BY parking_slot_number";
-        List<ParkingSlot> list = new ArrayList<>();
 
-        try (Connection conn = getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            ResultSet rs = pstmt.executeQuery()) {
+        return coalesce(sql, () -> {
+            List<ParkingSlot> list = new ArrayList<>();
+            try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(mapResultSetToEntity(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     // CREATE method
@@ -121,12 +123,14 @@ public class ParkingSlotDAO extends BaseDAO<ParkingSlot> {
     // ================= CUSTOM METHODS =================
     public int countSlots() throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName();
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
+        return coalesceOrCached(sql, () -> {
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
 
-            return rs.next() ? rs.getInt(1) : 0;
-        }
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
     }
 
     public boolean updateStatus(int slotId, int status, Integer userId) throws SQLException {
@@ -156,18 +160,20 @@ public class ParkingSlotDAO extends BaseDAO<ParkingSlot> {
         String sql = "SELECT * FROM " + getTableName() + 
                     " WHERE parking_slot_status = ? ORDER BY parking_slot_number";
         
-        List<ParkingSlot> list = new ArrayList<>();
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, ParkingSlot.STATUS_AVAILABLE);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+        return coalesce(sql, ParkingSlot.STATUS_AVAILABLE, () -> {
+            List<ParkingSlot> list = new ArrayList<>();
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setInt(1, ParkingSlot.STATUS_AVAILABLE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(mapResultSetToEntity(rs));
+                    }
                 }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     public boolean reserveSlot(int slotId, int userId) throws SQLException {
@@ -218,14 +224,16 @@ public class ParkingSlotDAO extends BaseDAO<ParkingSlot> {
     public int countByStatus(int status) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName() + " WHERE parking_slot_status = ?";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return coalesceOrCached(sql, status, () -> {
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, status);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getInt(1) : 0;
+                pstmt.setInt(1, status);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
             }
-        }
+        });
     }
     
     // Find by user ID
@@ -3,11 +3,17 @@ package dao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import models.Payment;
+import utils.AppExecutors;
+import utils.JfrEvents;
+import utils.Log;
 import utils.TelegramService;
 
 public class PaymentDAO extends BaseDAO<Payment> {
 
+    private static final Log LOG = Log.get(PaymentDAO.class);
+
     // ================= PAYMENT STATUS CONSTANTS =================
     // Updated to match your requirement
     public static final int STATUS_PENDING_APPROVAL = 0; // Booking pending admin approval
@@ -26,6 +32,22 @@ public class PaymentDAO extends BaseDAO<Payment> {
         return "payment_id";
     }
 
+    /** The tbl_payment columns the model holds, read by position. */
+    protected static final Projection<Payment> PAYMENT_COLUMNS = Projection.of(Payment::new)
+            .intColumn("payment_id", Payment::setPaymentId)
+            .intColumn("booking_id", Payment::setBookingId)
+            .nullableInt("user_id", Payment::setUserId)
+            .doubleColumn("amount_due", Payment::setDueAmount)
+            .doubleColumn("amount_paid", Payment::setPaidAmount)
+            .intColumn("payment_status", Payment::setPaymentStatus)
+            .string("paid_by", Payment::setPaidBy)
+            .string("remarks", Payment::setRemarks)
+            .date("payment_date", Payment::setPaymentDate)
+            .build();
+
+    private static final String SELECT_PAYMENT = "SELECT " + PAYMENT_COLUMNS.columns() + " FROM ";
+
+    // By label, for the joins that select p.* plus booking and user columns
     @Override
     protected Payment mapResultSetToEntity(ResultSet rs) throws SQLException {
         Payment p = new Payment();
@@ -60,30 +82,32 @@ public class PaymentDAO extends BaseDAO<Payment> {
     // ================= CRUD METHODS =================
     @Override
     public List<Payment> findAll() throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " ORDER BY payment_id DESC";
-        List<Payment> list = new ArrayList<>();
+        String sql = SELECT_PAYMENT + getTableName() + " ORDER BY payment_id DESC";
 
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
+        return coalesceOrCached(sql, () -> {
+            List<Payment> list = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(PAYMENT_COLUMNS.map(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     @Override
     public Payment findById(Integer id) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumnName() + " = ?";
+        String sql = SELECT_PAYMENT + getTableName() + " WHERE " + getIdColumnName() + " = ?";
 
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+                return rs.next() ? PAYMENT_COLUMNS.map(rs) : null;
             }
         }
     }
@@ -169,8 +193,10 @@ public class PaymentDAO extends BaseDAO<Payment> {
         }
     }
 
+    // Inside a UnitOfWork the payment is not visible to the notification's own
+    // connection until the unit commits, so wait for that
     private void triggerTelegramNotification(int paymentId) {
-        new Thread(() -> {
+        UnitOfWork.afterCommit(() -> AppExecutors.execute(() -> {
             try {
                 // Fetch full data with joins for the report
                 String sql = """
@@ -195,9 +221,9 @@ public class PaymentDAO extends BaseDAO<Payment> {
                     }
                 }
             } catch (Exception e) {
-                System.err.println("Failed to trigger Telegram notification: " + e.getMessage());
+                LOG.warn("Failed to trigger Telegram notification for payment {}", paymentId, e);
             }
-        }).start();
+        }));
     }
 
     // ================= USER DASHBOARD: GET PAYMENTS AFTER ADMIN APPROVAL
@@ -272,144 +298,174 @@ public class PaymentDAO extends BaseDAO<Payment> {
     }
 
     // ================= USER: MAKE PAYMENT =================
+    // Journaled instead when the database is unreachable (see WriteJournal)
     public boolean processUserPayment(int paymentId, double amount, String paymentMethod,
             String transactionId, int userId) throws SQLException {
+        return WriteJournal.write(WriteJournal.payment(paymentId, amount, paymentMethod, transactionId, userId),
+                () -> recordUserPayment(paymentId, amount, paymentMethod, transactionId, userId));
+    }
+
+    private boolean recordUserPayment(int paymentId, double amount, String paymentMethod,
+            String transactionId, int userId) throws SQLException {
 
         Connection conn = null;
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start("PaymentDAO.processUserPayment", paymentId);
         try {
             conn = getConnection();
             conn.setAutoCommit(false);
 
-            // 1. Get current payment with user's full name
-            String getSql = """
-                        SELECT p.*, b.booking_ref, u.fullname
-                        FROM inet_vehicleparking.tbl_payment p
-                        LEFT JOIN inet_vehicleparking.tbl_booking b ON p.booking_id = b.booking_id
-                        LEFT JOIN inet_vehicleparking.tbl_user u ON p.user_id = u.user_id
-                        WHERE p.payment_id = ? AND p.user_id = ?
-                    """;
+            String refused = applyUserPayment(conn, paymentId, amount, paymentMethod, transactionId, userId);
+            if (NOT_UPDATED.equals(refused)) {
+                return false;
+            }
+            if (refused != null) {
+                throw new SQLException(refused);
+            }
 
-            PreparedStatement ps = conn.prepareStatement(getSql);
-            ps.setInt(1, paymentId);
-            ps.setInt(2, userId);
-            ResultSet rs = ps.executeQuery();
+            conn.commit();
+            tx.committed = true;
 
-            if (!rs.next()) {
-                throw new SQLException("Payment not found or unauthorized");
-            }
+            // 4. Send Telegram Notification handled via triggerTelegramNotification in
+            // update()
+            // No need to call it here anymore if update() is called or if we commit first.
+            // However, processUserPayment uses raw SQL updates, not the update() method.
+            // So we should keep a call here or change the updates to call update().
+            triggerTelegramNotification(paymentId);
 
-            double dueAmount = rs.getDouble("amount_due");
-            double paidAmount = rs.getDouble("amount_paid");
-            int currentStatus = rs.getInt("payment_status");
+            return true;
 
-            // Validate
-            if (currentStatus == STATUS_PAID) {
-                throw new SQLException("Payment already completed");
+        } catch (SQLException e) {
+            tx.error = e.getMessage();
+            if (conn != null)
+                conn.rollback();
+            throw e;
+        } finally {
+            tx.finish();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } finally {
+                    conn.close();
+                }
             }
+        }
+    }
 
-            if (currentStatus != STATUS_APPROVED_UNPAID && currentStatus != STATUS_PARTIAL) {
-                throw new SQLException("Payment not ready for processing");
+    // Called by WriteJournal inside its replay unit. Null when applied,
+    // otherwise why not (already paid, cancelled meanwhile, ...).
+    String replayUserPayment(int paymentId, double amount, String paymentMethod,
+            String transactionId, int userId) throws SQLException {
+        try (Connection conn = getConnection()) {
+            String refused = applyUserPayment(conn, paymentId, amount, paymentMethod, transactionId, userId);
+            if (refused == null) {
+                triggerTelegramNotification(paymentId);
             }
+            return refused;
+        }
+    }
 
-            double newTotalPaid = paidAmount + amount;
-            int newStatus;
+    private static final String NOT_UPDATED = "Payment was not updated";
 
-            if (newTotalPaid >= dueAmount) {
-                newStatus = STATUS_PAID;
-            } else {
-                newStatus = STATUS_PARTIAL;
+    // Checks and records the payment on conn without committing. Null when
+    // recorded, otherwise the reason it was refused.
+    private String applyUserPayment(Connection conn, int paymentId, double amount, String paymentMethod,
+            String transactionId, int userId) throws SQLException {
+
+        // 1. Get current payment with user's full name
+        String getSql = """
+                    SELECT p.*, b.booking_ref, u.fullname
+                    FROM inet_vehicleparking.tbl_payment p
+                    LEFT JOIN inet_vehicleparking.tbl_booking b ON p.booking_id = b.booking_id
+                    LEFT JOIN inet_vehicleparking.tbl_user u ON p.user_id = u.user_id
+                    WHERE p.payment_id = ? AND p.user_id = ?
+                """;
+
+        double dueAmount;
+        double paidAmount;
+        int currentStatus;
+        try (PreparedStatement ps = conn.prepareStatement(getSql)) {
+            ps.setInt(1, paymentId);
+            ps.setInt(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return "Payment not found or unauthorized";
+                }
+                dueAmount = rs.getDouble("amount_due");
+                paidAmount = rs.getDouble("amount_paid");
+                currentStatus = rs.getInt("payment_status");
             }
+        }
 
-            rs.close();
-            ps.close();
-
-            // 2. Update payment
-            String updateSql = """
-                        UPDATE inet_vehicleparking.tbl_payment
-                        SET amount_paid = ?,
-                            payment_status = ?,
-                            paid_by = ?,
-                            payment_date = NOW(),
-                            remarks = CONCAT(remarks, ' | Paid via ', ?, ' - ', ?)
-                        WHERE payment_id = ?
-                    """;
+        // Validate
+        if (currentStatus == STATUS_PAID) {
+            return "Payment already completed";
+        }
+
+        if (currentStatus != STATUS_APPROVED_UNPAID && currentStatus != STATUS_PARTIAL) {
+            return "Payment not ready for processing";
+        }
+
+        double newTotalPaid = paidAmount + amount;
+        int newStatus;
 
-            ps = conn.prepareStatement(updateSql);
+        if (newTotalPaid >= dueAmount) {
+            newStatus = STATUS_PAID;
+        } else {
+            newStatus = STATUS_PARTIAL;
+        }
+
+        // 2. Update payment
+        String updateSql = """
+                    UPDATE inet_vehicleparking.tbl_payment
+                    SET amount_paid = ?,
+                        payment_status = ?,
+                        paid_by = ?,
+                        payment_date = NOW(),
+                        remarks = CONCAT(remarks, ' | Paid via ', ?, ' - ', ?)
+                    WHERE payment_id = ?
+                """;
+
+        int rows;
+        try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
             ps.setDouble(1, newTotalPaid);
             ps.setInt(2, newStatus);
             ps.setString(3, "User ID: " + userId);
             ps.setString(4, paymentMethod);
             ps.setString(5, transactionId);
             ps.setInt(6, paymentId);
+            rows = ps.executeUpdate();
+        }
 
-            int rows = ps.executeUpdate();
-            ps.close();
-
-            if (rows > 0) {
-                // 3. If fully paid, update booking payment status
-                if (newStatus == STATUS_PAID) {
-                    String updateBookingSql = """
-                                UPDATE inet_vehicleparking.tbl_booking
-                                SET payment_status = 1,
-                                    paid_at = NOW()
-                                WHERE booking_id = (SELECT booking_id FROM tbl_payment WHERE payment_id = ?)
-                            """;
-
-                    ps = conn.prepareStatement(updateBookingSql);
-                    ps.setInt(1, paymentId);
-                    ps.executeUpdate();
-                    ps.close();
-                }
-
-                conn.commit();
-
-                // 4. Send Telegram Notification handled via triggerTelegramNotification in
-                // update()
-                // No need to call it here anymore if update() is called or if we commit first.
-                // However, processUserPayment uses raw SQL updates, not the update() method.
-                // So we should keep a call here or change the updates to call update().
-                triggerTelegramNotification(paymentId);
-
-                return true;
-            }
+        if (rows == 0) {
+            return NOT_UPDATED;
+        }
 
-            return false;
+        // 3. If fully paid, update booking payment status
+        if (newStatus == STATUS_PAID) {
+            String updateBookingSql = """
+                        UPDATE inet_vehicleparking.tbl_booking
+                        SET payment_status = 1,
+                            paid_at = NOW()
+                        WHERE booking_id = (SELECT booking_id FROM tbl_payment WHERE payment_id = ?)
+                    """;
 
-        } catch (SQLException e) {
-            if (conn != null)
-                conn.rollback();
-            throw e;
-        } finally {
-            if (conn != null) {
-                conn.setAutoCommit(true);
-                conn.close();
+            try (PreparedStatement ps = conn.prepareStatement(updateBookingSql)) {
+                ps.setInt(1, paymentId);
+                ps.executeUpdate();
             }
         }
+        return null;
     }
 
     // ================= ADMIN: VIEW ALL PAYMENTS =================
-    public List<Payment> getAllPaymentsForAdmin() throws SQLException {
-        String sql = """
-                    SELECT p.*,
-                           b.booking_ref,
-                           u.user_name,
+    // Only what mapAdminPayment reads; the extra columns follow the projection in this order
+    private static final String ADMIN_PAYMENTS_SQL = "SELECT " + PAYMENT_COLUMNS.columns("p") + """
+                           , b.booking_ref,
                            vo.vehicle_owner_name as full_name,
-                           v.vehicle_plate_number,
-                           CASE p.payment_status
-                               WHEN 0 THEN 'PENDING APPROVAL'
-                               WHEN 1 THEN 'APPROVED UNPAID'
-                               WHEN 2 THEN '✅ PAID'
-                               WHEN 3 THEN 'PARTIAL'
-                               WHEN 4 THEN 'CANCELLED'
-                               ELSE 'UNKNOWN'
-                           END as admin_status_display,
-                           p.payment_date,
                            p.payment_method
                     FROM inet_vehicleparking.tbl_payment p
                     LEFT JOIN inet_vehicleparking.tbl_booking b ON p.booking_id = b.booking_id
-                    LEFT JOIN inet_vehicleparking.tbl_user u ON p.user_id = u.user_id
                     LEFT JOIN inet_vehicleparking.tbl_vehicle_owner vo ON b.customer_id = vo.vehicle_owner_id
-                    LEFT JOIN inet_vehicleparking.tbl_vehicle v ON b.vehicle_id = v.vehicle_id
                     ORDER BY
                         CASE p.payment_status
                             WHEN 1 THEN 1  -- APPROVED_UNPAID first
@@ -421,26 +477,51 @@ public class PaymentDAO extends BaseDAO<Payment> {
                         p.payment_id DESC
                 """;
 
-        List<Payment> list = new ArrayList<>();
+    public List<Payment> getAllPaymentsForAdmin() throws SQLException {
+        return coalesceOrCached(ADMIN_PAYMENTS_SQL, () -> {
+            List<Payment> list = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(ADMIN_PAYMENTS_SQL);
+                    ResultSet rs = pstmt.executeQuery()) {
 
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Payment payment = mapResultSetToEntity(rs);
-                payment.setBookingRef(rs.getString("booking_ref"));
-                payment.setFullName(rs.getString("full_name"));
-                payment.setPaymentMethod(rs.getString("payment_method"));
-                list.add(payment);
+                while (rs.next()) {
+                    list.add(mapAdminPayment(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
+    }
+
+    // ================= ADMIN: EXPORT =================
+    // The admin table's rows in its order (findAll), with the account the
+    // panel shows as the customer; streamed so the export holds no list
+    private static final String EXPORT_PAYMENTS_SQL = "SELECT " + PAYMENT_COLUMNS.columns("p") + """
+                           , u.username
+                    FROM inet_vehicleparking.tbl_payment p
+                    LEFT JOIN inet_vehicleparking.tbl_user u ON p.user_id = u.user_id
+                    ORDER BY p.payment_id DESC
+                """;
+
+    public Stream<Payment> streamPaymentsForExport() throws SQLException {
+        return stream(EXPORT_PAYMENTS_SQL, rs -> {
+            Payment payment = PAYMENT_COLUMNS.map(rs);
+            payment.setUserName(rs.getString(PAYMENT_COLUMNS.size() + 1));
+            return payment;
+        });
+    }
+
+    private Payment mapAdminPayment(ResultSet rs) throws SQLException {
+        Payment payment = PAYMENT_COLUMNS.map(rs);
+        int next = PAYMENT_COLUMNS.size();
+        payment.setBookingRef(rs.getString(next + 1));
+        payment.setFullName(rs.getString(next + 2));
+        payment.setPaymentMethod(rs.getString(next + 3));
+        return payment;
     }
 
     // ================= CUSTOM METHODS =================
     public List<Payment> findByUserId(int userId) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE user_id = ? ORDER BY payment_id DESC";
+        String sql = SELECT_PAYMENT + getTableName() + " WHERE user_id = ? ORDER BY payment_id DESC";
         List<Payment> list = new ArrayList<>();
 
         try (Connection conn = getConnection();
@@ -449,7 +530,7 @@ public class PaymentDAO extends BaseDAO<Payment> {
             pstmt.setInt(1, userId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+                    list.add(PAYMENT_COLUMNS.map(rs));
                 }
             }
         }
@@ -457,14 +538,14 @@ public class PaymentDAO extends BaseDAO<Payment> {
     }
 
     public Payment findByBookingId(int bookingId) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE booking_id = ?";
+        String sql = SELECT_PAYMENT + getTableName() + " WHERE booking_id = ?";
 
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, bookingId);
             try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+                return rs.next() ? PAYMENT_COLUMNS.map(rs) : null;
             }
         }
     }
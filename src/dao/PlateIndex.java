@@ -0,0 +1,109 @@
+package dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import utils.Metrics;
+import utils.PlateTrie;
+
+/**
+ * Process-wide plate typeahead index.
+ *
+ * Loaded once from a lean (vehicle_id, plate, owner) query and then kept in
+ * step by VehicleDAO create/update/delete, so suggestions never hit the
+ * database.
+ */
+public class PlateIndex {
+
+    private static final PlateIndex INSTANCE = new PlateIndex();
+
+    // A miss is a lookup made before the index finished loading
+    private static final Metrics.Counter HITS = Metrics.counter("plates.suggest.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("plates.suggest.misses");
+
+    private final PlateTrie trie = new PlateTrie();
+    private volatile boolean loaded = false;
+
+    private PlateIndex() {
+    }
+
+    public static PlateIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Load all plates if not loaded yet. Call off the EDT. */
+    public synchronized void load() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        replaceAll(fetchAll());
+    }
+
+    // The lean (vehicle_id, owner, plate) rows; also what ReferenceSnapshot keeps
+    static List<PlateTrie.Entry> fetchAll() throws SQLException {
+        String sql = "SELECT vehicle_id, vehicle_owner_id, vehicle_plate_number "
+                + "FROM inet_vehicleparking.tbl_vehicle";
+
+        List<PlateTrie.Entry> plates = new ArrayList<>();
+        try (Connection conn = utils.DatabaseConnection.getReadConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plates.add(new PlateTrie.Entry(rs.getInt(1), rs.getInt(2), rs.getString(3)));
+                }
+            }
+        }
+        return plates;
+    }
+
+    // From the warm-start snapshot, or a newer copy once it was revalidated
+    synchronized void replaceAll(List<PlateTrie.Entry> plates) {
+        trie.clear();
+        for (PlateTrie.Entry plate : plates) {
+            trie.put(plate.getVehicleId(), plate.getOwnerId(), plate.getPlate());
+        }
+        loaded = true;
+    }
+
+    /** Up to {@code limit} vehicles whose plate starts with the typed text. */
+    public List<PlateTrie.Entry> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return new ArrayList<>();
+        }
+        if (!loaded) {
+            MISSES.increment();
+            return new ArrayList<>();
+        }
+        HITS.increment();
+        return trie.startingWith(prefix, limit);
+    }
+
+    /** Vehicles whose plate equals the given text (ignoring spacing and case). */
+    public List<PlateTrie.Entry> findExact(String plate) {
+        if (!loaded || plate == null) {
+            return new ArrayList<>();
+        }
+        return trie.exact(plate);
+    }
+
+    // ================= CHANGE HOOKS (VehicleDAO) =================
+    // Synchronized with load() so a change that commits during the initial
+    // load is applied after it rather than lost
+
+    synchronized void vehicleSaved(int vehicleId, int ownerId, String plate) {
+        if (loaded) {
+            trie.put(vehicleId, ownerId, plate);
+        }
+    }
+
+    synchronized void vehicleDeleted(int vehicleId) {
+        if (loaded) {
+            trie.remove(vehicleId);
+        }
+    }
+}
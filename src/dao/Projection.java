@@ -0,0 +1,155 @@
+package dao;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * An explicit column list and the row mapper that goes with it.
+ *
+ * The columns are fixed when the projection is built, so the mapper reads each
+ * one by position with the getter for its type instead of looking the label up
+ * in every row (pgjdbc resolves the label through a map on each
+ * {@code getXxx(String)} call). Queries select {@link #columns()} rather than
+ * {@code *}, so columns nobody maps, such as images, are never sent.
+ *
+ * NOT NULL numeric columns are read as primitives. Nullable ones use the
+ * typed {@code getObject(int, Class)}, one driver call with no cast; the
+ * models keep boxed fields, so those values are boxed either way.
+ *
+ * Build one per query shape and keep it in a static field; a projection is
+ * immutable and safe to share between threads.
+ */
+public final class Projection<T> {
+
+    @FunctionalInterface
+    private interface Column<T> {
+        void read(ResultSet rs, int index, T target) throws SQLException;
+    }
+
+    private final Supplier<T> factory;
+    private final String[] names;
+    private final Column<T>[] readers;
+    private final String columns;
+
+    private Projection(Supplier<T> factory, String[] names, Column<T>[] readers) {
+        this.factory = factory;
+        this.names = names;
+        this.readers = readers;
+        this.columns = String.join(", ", names);
+    }
+
+    public static <T> Builder<T> of(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /** The select list, e.g. {@code "booking_id, customer_id, ..."}. */
+    public String columns() {
+        return columns;
+    }
+
+    /** The select list qualified with a table alias, for joins. */
+    public String columns(String alias) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String name : names) {
+            joiner.add(alias + "." + name);
+        }
+        return joiner.toString();
+    }
+
+    public List<String> columnNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Map the current row. The result set must have been produced by a query
+     * whose select list starts with {@link #columns()}; later columns are
+     * ignored and can be read by the caller from index {@code size() + 1}.
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T target = factory.get();
+        Column<T>[] readers = this.readers;
+        for (int i = 0; i < readers.length; i++) {
+            readers[i].read(rs, i + 1, target);
+        }
+        return target;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    // ================= BUILDER =================
+
+    public static final class Builder<T> {
+        private final Supplier<T> factory;
+        private final List<String> names = new ArrayList<>();
+        private final List<Column<T>> readers = new ArrayList<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /** A NOT NULL integer column. */
+        public Builder<T> intColumn(String name, ObjIntConsumer<T> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getInt(i)));
+        }
+
+        public Builder<T> nullableInt(String name, BiConsumer<T, Integer> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getObject(i, Integer.class)));
+        }
+
+        /** A NOT NULL numeric column. */
+        public Builder<T> doubleColumn(String name, ObjDoubleConsumer<T> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getDouble(i)));
+        }
+
+        public Builder<T> nullableDouble(String name, BiConsumer<T, Double> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getObject(i, Double.class)));
+        }
+
+        public Builder<T> string(String name, BiConsumer<T, String> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getString(i)));
+        }
+
+        public Builder<T> timestamp(String name, BiConsumer<T, Timestamp> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getTimestamp(i)));
+        }
+
+        public Builder<T> date(String name, BiConsumer<T, Date> setter) {
+            return add(name, (rs, i, t) -> setter.accept(t, rs.getDate(i)));
+        }
+
+        private Builder<T> add(String name, Column<T> reader) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Column listed twice: " + name);
+            }
+            names.add(name);
+            readers.add(reader);
+            return this;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Projection<T> build() {
+            if (names.isEmpty()) {
+                throw new IllegalStateException("A projection needs at least one column");
+            }
+            return new Projection<>(factory, names.toArray(new String[0]),
+                    readers.toArray(new Column[0]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Projection" + Arrays.toString(names);
+    }
+}
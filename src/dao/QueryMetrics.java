@@ -0,0 +1,540 @@
+package dao;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import utils.JfrEvents;
+import utils.LatencyHistogram;
+import utils.Log;
+import utils.Metrics;
+import utils.ReadReplicas;
+
+/**
+ * Per-statement timing for every connection a DAO opens.
+ *
+ * {@link BaseDAO#getConnection()} hands out connections wrapped here. Each
+ * statement is named after the DAO method that ran it
+ * ({@code BookingDAO.findByStatus}; a method with several statements gets
+ * {@code #2}, {@code #3}... in the order they first ran) and gets its own
+ * {@link StatementStats}, registered as an MBean under
+ * {@code parking.db:type=Statement}. Executions slower than the threshold are
+ * logged at WARN with the shape of their parameters (types and string
+ * lengths, never values). With a Flight Recorder recording running, each
+ * execution is also a {@link JfrEvents.DaoStatement} event, committed once its
+ * result set or statement is closed so the row count is known.
+ *
+ * Connection, execution, error and slow counts plus acquire latency also go
+ * to the {@link Metrics} registry under {@code db.*}.
+ *
+ * System properties: {@code db.metrics=false} hands out unwrapped
+ * connections, {@code db.slowQueryMs} sets the slow threshold (default 500).
+ */
+public final class QueryMetrics {
+
+    private static final Log LOG = Log.get(QueryMetrics.class);
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("db.metrics"));
+    private static final AtomicLong SLOW_NANOS = new AtomicLong(
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slowQueryMs", 500)));
+
+    // Dynamic SQL must not grow the registry without bound
+    private static final int MAX_STATEMENTS_PER_METHOD = 32;
+
+    private static final Map<String, Map<String, StatementStats>> BY_METHOD = new ConcurrentHashMap<>();
+    private static final LatencyHistogram ACQUIRE = Metrics.histogram("db.acquire");
+    private static final Metrics.Counter EXECUTIONS = Metrics.counter("db.statements.executed");
+    private static final Metrics.Counter ERRORS = Metrics.counter("db.statements.errors");
+    private static final Metrics.Counter SLOW = Metrics.counter("db.statements.slow");
+    private static final AtomicInteger OPEN = new AtomicInteger();
+    // Statements executing right now, for stall reports
+    private static final Map<Thread, InFlight> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final AtomicBoolean JMX_REGISTERED = new AtomicBoolean();
+
+    static {
+        Metrics.gauge("db.connections.open", OPEN::get);
+    }
+
+    private QueryMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // ================= WRAPPING =================
+
+    /**
+     * Wrap a freshly opened connection for {@code dao}. Called from the DAO
+     * method's own thread, so the stack says which method wanted it. A
+     * negative {@code acquireNanos} marks a UnitOfWork's shared connection,
+     * which was not opened for this call and is not counted as open.
+     */
+    static Connection instrument(Connection conn, BaseDAO<?> dao, long acquireNanos) {
+        if (!ENABLED) {
+            return conn;
+        }
+        registerJmx();
+        boolean opened = acquireNanos >= 0;
+        if (opened) {
+            ACQUIRE.recordNanos(acquireNanos);
+            OPEN.incrementAndGet();
+        }
+        Tracked tracked = new Tracked(callerName(dao.getClass()), acquireNanos);
+        AtomicBoolean closed = new AtomicBoolean(!opened);
+        return proxy(Connection.class, conn, (p, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close") && closed.compareAndSet(false, true)) {
+                OPEN.decrementAndGet();
+            }
+            if ((name.equals("prepareStatement") || name.equals("prepareCall")) && args[0] instanceof String sql) {
+                return preparedStatement((PreparedStatement) invoke(conn, method, args), tracked, sql);
+            }
+            if (name.equals("createStatement")) {
+                return statement((Statement) invoke(conn, method, args), tracked);
+            }
+            Object result = invoke(conn, method, args);
+            if (name.equals("commit")) {
+                // For SingleFlight, which must not hand this caller a read older than its write
+                ReadReplicas.noteWrite();
+            }
+            return result;
+        });
+    }
+
+    /** What one wrapped connection knows about where it came from. */
+    private static final class Tracked {
+        final String caller;
+        // Acquire time is charged once, to the first statement that runs
+        final AtomicLong pendingAcquireNanos;
+
+        Tracked(String caller, long acquireNanos) {
+            this.caller = caller;
+            this.pendingAcquireNanos = new AtomicLong(acquireNanos);
+        }
+    }
+
+    private static PreparedStatement preparedStatement(PreparedStatement ps, Tracked tracked, String sql) {
+        StatementStats stats = statsFor(tracked.caller, sql);
+        boolean write = ReadReplicas.changesData(sql);
+        List<String> shapes = new ArrayList<>();
+        PendingEvent pending = new PendingEvent();
+        return proxy(PreparedStatement.class, ps, (p, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordShape(shapes, index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                shapes.clear();
+            } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                Object result = timed(stats, tracked, shapes, pending, () -> invoke(ps, method, args));
+                if (write) {
+                    ReadReplicas.noteWrite();
+                }
+                return result;
+            } else if (name.equals("close")) {
+                pending.commit();
+            }
+            return invoke(ps, method, args);
+        });
+    }
+
+    private static Statement statement(Statement stmt, Tracked tracked) {
+        PendingEvent pending = new PendingEvent();
+        return proxy(Statement.class, stmt, (p, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute") && args != null && args[0] instanceof String sql) {
+                Object result = timed(statsFor(tracked.caller, sql), tracked, List.of(), pending,
+                        () -> invoke(stmt, method, args));
+                if (ReadReplicas.changesData(sql)) {
+                    ReadReplicas.noteWrite();
+                }
+                return result;
+            } else if (name.equals("close")) {
+                pending.commit();
+            }
+            return invoke(stmt, method, args);
+        });
+    }
+
+    /** The JFR event of a query whose rows are still being read. */
+    private static final class PendingEvent {
+        JfrEvents.DaoStatement event;
+
+        void commit() {
+            if (event != null) {
+                if (event.shouldCommit()) {
+                    event.commit();
+                }
+                event = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Execution {
+        Object run() throws Throwable;
+    }
+
+    private static Object timed(StatementStats stats, Tracked tracked, List<String> shapes, PendingEvent pending,
+            Execution execution) throws Throwable {
+        long acquire = tracked.pendingAcquireNanos.getAndSet(-1);
+        if (acquire >= 0) {
+            stats.acquire.recordNanos(acquire);
+        }
+
+        pending.commit();
+        JfrEvents.DaoStatement event = new JfrEvents.DaoStatement();
+        boolean recording = event.isEnabled();
+        if (recording) {
+            event.name = stats.getName();
+            event.sql = stats.getSql();
+            event.parameters = shapes.toString();
+            event.begin();
+        }
+
+        long start = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        IN_FLIGHT.put(thread, new InFlight(stats, shapes, start));
+        Object result;
+        try {
+            result = execution.run();
+        } catch (Throwable e) {
+            stats.errors.increment();
+            ERRORS.increment();
+            if (recording) {
+                event.failed = true;
+                event.commit();
+            }
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(thread);
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.latency.recordNanos(elapsed);
+        EXECUTIONS.increment();
+        if (recording) {
+            event.end();
+        }
+
+        long affected = 0;
+        if (result instanceof Integer n) {
+            affected = Math.max(0, n);
+        } else if (result instanceof Long n) {
+            affected = Math.max(0, n);
+        } else if (result instanceof int[] batch) {
+            for (int n : batch) {
+                affected += Math.max(0, n);
+            }
+        } else if (result instanceof ResultSet rs) {
+            result = countingResultSet(rs, stats, recording ? event : null, pending);
+        }
+        stats.rowsAffected.add(affected);
+        if (recording) {
+            if (result instanceof ResultSet) {
+                // Rows are counted as they are read; commit on close
+                pending.event = event;
+            } else {
+                event.rowsAffected = affected;
+                event.commit();
+            }
+        }
+
+        if (elapsed >= SLOW_NANOS.get()) {
+            stats.slow.increment();
+            SLOW.increment();
+            LOG.warn("[slow-query] {} {} ms {}", stats.getName(), elapsed / 1_000_000,
+                    "params=" + shapes + " sql=" + abbreviate(stats.getSql()));
+        }
+        return result;
+    }
+
+    private static ResultSet countingResultSet(ResultSet rs, StatementStats stats, JfrEvents.DaoStatement event,
+            PendingEvent pending) {
+        return proxy(ResultSet.class, rs, (p, method, args) -> {
+            String name = method.getName();
+            Object result = invoke(rs, method, args);
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                stats.rowsReturned.increment();
+                if (event != null) {
+                    event.rowsReturned++;
+                }
+            } else if (name.equals("close")) {
+                pending.commit();
+            }
+            return result;
+        });
+    }
+
+    private static void recordShape(List<String> shapes, int index, Object value) {
+        while (shapes.size() < index) {
+            shapes.add("?");
+        }
+        String shape;
+        if (value == null) {
+            shape = "null";
+        } else if (value instanceof CharSequence s) {
+            shape = "String(" + s.length() + ")";
+        } else if (value instanceof byte[] bytes) {
+            shape = "bytes(" + bytes.length + ")";
+        } else {
+            shape = value.getClass().getSimpleName();
+        }
+        shapes.set(index - 1, shape);
+    }
+
+    // ================= NAMING =================
+
+    static StatementStats statsFor(String caller, String sql) {
+        Map<String, StatementStats> statements = BY_METHOD.computeIfAbsent(caller, k -> new ConcurrentHashMap<>());
+        StatementStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        synchronized (statements) {
+            stats = statements.get(sql);
+            if (stats == null) {
+                int n = statements.size();
+                if (n >= MAX_STATEMENTS_PER_METHOD) {
+                    return statements.computeIfAbsent("", k -> register(new StatementStats(caller + "#other", "")));
+                }
+                String name = n == 0 ? caller : caller + "#" + (n + 1);
+                stats = register(new StatementStats(name, sql));
+                statements.put(sql, stats);
+            }
+            return stats;
+        }
+    }
+
+    /** "BookingDAO.findByStatus" for the innermost DAO method on the stack. */
+    static String callerName(Class<?> daoClass) {
+        String owner = daoClass.isAnonymousClass() ? daoClass.getSuperclass().getSimpleName()
+                : daoClass.getSimpleName();
+        String method = WALKER.walk(frames -> frames
+                .filter(f -> BaseDAO.class.isAssignableFrom(f.getDeclaringClass())
+                        && !f.getMethodName().equals("getConnection")
+                        && !f.getMethodName().equals("getReadConnection")
+                        && !f.getMethodName().equals("openReadConnection")
+                        && !f.getMethodName().equals("stream")
+                        && !f.getMethodName().startsWith("coalesce"))
+                .map(StackWalker.StackFrame::getMethodName)
+                .findFirst()
+                .orElse("?"));
+        // Queries inside coalesce(...) run in lambda$findByStatus$3
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            method = end > 7 ? method.substring(7, end) : method;
+        }
+        return owner + "." + method;
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 300 ? flat.substring(0, 300) + "..." : flat;
+    }
+
+    private static final class InFlight {
+        final StatementStats stats;
+        final List<String> shapes;
+        final long startNanos;
+
+        InFlight(StatementStats stats, List<String> shapes, long startNanos) {
+            this.stats = stats;
+            this.shapes = shapes;
+            this.startNanos = startNanos;
+        }
+    }
+
+    // ================= QUERIES =================
+
+    /**
+     * One line per statement executing right now:
+     * thread, name, elapsed time, parameter shapes and SQL.
+     */
+    public static List<String> inFlightStatements() {
+        long now = System.nanoTime();
+        List<String> lines = new ArrayList<>();
+        IN_FLIGHT.forEach((thread, f) -> lines.add(String.format("%s: %s running %.0f ms params=%s sql=%s",
+                thread.getName(), f.stats.getName(), (now - f.startNanos) / 1e6, shapesOf(f),
+                abbreviate(f.stats.getSql()))));
+        return lines;
+    }
+
+    private static String shapesOf(InFlight f) {
+        try {
+            return f.shapes.toString();
+        } catch (RuntimeException e) {
+            // The owning thread is binding the next execution's parameters
+            return "[?]";
+        }
+    }
+
+    /** Every statement seen so far, in no particular order. */
+    public static List<StatementStats> snapshot() {
+        List<StatementStats> all = new ArrayList<>();
+        for (Map<String, StatementStats> statements : BY_METHOD.values()) {
+            all.addAll(statements.values());
+        }
+        return all;
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(SLOW_NANOS.get());
+    }
+
+    public static void setSlowQueryThresholdMillis(long millis) {
+        SLOW_NANOS.set(TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+    }
+
+    public static LatencyHistogram acquireHistogram() {
+        return ACQUIRE;
+    }
+
+    public static void reset() {
+        for (StatementStats stats : snapshot()) {
+            stats.reset();
+        }
+        ACQUIRE.reset();
+        EXECUTIONS.reset();
+        ERRORS.reset();
+        SLOW.reset();
+    }
+
+    /** Statements by total time spent, heaviest first. */
+    public static String topStatements(int limit) {
+        List<StatementStats> all = snapshot();
+        all.sort(Comparator.comparingDouble((StatementStats s) -> s.getMeanMillis() * s.getCount()).reversed());
+        StringBuilder sb = new StringBuilder(String.format("%-50s %9s %10s %9s %9s %9s %7s%n", "STATEMENT",
+                "COUNT", "TOTAL ms", "p50 ms", "p99 ms", "max ms", "ERRORS"));
+        for (StatementStats s : all.subList(0, Math.min(limit, all.size()))) {
+            sb.append(String.format("%-50s %9d %10.0f %9.2f %9.2f %9.2f %7d%n", s.getName(), s.getCount(),
+                    s.getMeanMillis() * s.getCount(), s.getP50Millis(), s.getP99Millis(), s.getMaxMillis(),
+                    s.getErrors()));
+        }
+        return sb.toString();
+    }
+
+    // ================= JMX =================
+
+    private static void registerJmx() {
+        if (!JMX_REGISTERED.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(new Control(), QueryMetricsMBean.class),
+                    new ObjectName("parking.db:type=QueryMetrics"));
+        } catch (JMException e) {
+            LOG.warn("Could not register query metrics MBean: {}", e.getMessage());
+        }
+    }
+
+    private static StatementStats register(StatementStats stats) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+                    new ObjectName("parking.db:type=Statement,name=" + ObjectName.quote(stats.getName())));
+        } catch (JMException e) {
+            // Still counted, just not visible over JMX
+            LOG.warn("Could not register MBean for {}: {}", stats.getName(), e.getMessage());
+        }
+        return stats;
+    }
+
+    private static final class Control implements QueryMetricsMBean {
+        @Override
+        public long getSlowQueryThresholdMillis() {
+            return QueryMetrics.getSlowQueryThresholdMillis();
+        }
+
+        @Override
+        public void setSlowQueryThresholdMillis(long millis) {
+            QueryMetrics.setSlowQueryThresholdMillis(millis);
+        }
+
+        @Override
+        public int getStatementCount() {
+            return snapshot().size();
+        }
+
+        @Override
+        public long getTotalExecutions() {
+            long total = 0;
+            for (StatementStats s : snapshot()) {
+                total += s.getCount();
+            }
+            return total;
+        }
+
+        @Override
+        public long getTotalErrors() {
+            return ERRORS.get();
+        }
+
+        @Override
+        public long getConnectionsAcquired() {
+            return ACQUIRE.getCount();
+        }
+
+        @Override
+        public double getMeanAcquireMillis() {
+            return ACQUIRE.getMeanMicros() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            QueryMetrics.reset();
+        }
+
+        @Override
+        public String topStatements(int limit) {
+            return QueryMetrics.topStatements(limit);
+        }
+    }
+
+    // ================= PROXIES =================
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(), new Class<?>[] { type },
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        case "toString":
+                            return target.toString();
+                        default:
+                            return handler.invoke(p, method, args);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
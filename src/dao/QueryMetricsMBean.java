@@ -0,0 +1,27 @@
+package dao;
+
+/**
+ * JMX controls and totals for DAO statement instrumentation.
+ */
+public interface QueryMetricsMBean {
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    int getStatementCount();
+
+    long getTotalExecutions();
+
+    long getTotalErrors();
+
+    long getConnectionsAcquired();
+
+    double getMeanAcquireMillis();
+
+    /** Clear every counter and histogram; statement MBeans stay registered. */
+    void reset();
+
+    /** Statements ordered by total time spent, as a text table. */
+    String topStatements(int limit);
+}
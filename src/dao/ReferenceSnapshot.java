@@ -0,0 +1,399 @@
+package dao;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import models.ParkingSlot;
+import models.UserGroup;
+import models.VehicleCategory;
+import utils.AppExecutors;
+import utils.DatabaseConnection;
+import utils.Log;
+import utils.Metrics;
+import utils.PlateTrie;
+
+/**
+ * Reference data kept on disk between runs so the first screen can render
+ * before the database has answered: parking slots, vehicle categories, user
+ * groups and the plate index.
+ *
+ * {@link #load()} maps the file ({@code snapshot.file}, default
+ * data/reference-snapshot.bin) at startup and seeds {@link PlateIndex}. It
+ * then checks in the background which tables changed since the snapshot was
+ * taken, one query over the change counters of migration V9, and reloads
+ * only those. The check runs again whenever a panel reads the snapshot and
+ * the last one is older than {@code snapshot.revalidateMs} (30 s). The file
+ * is rewritten at shutdown when anything was reloaded.
+ *
+ * The accessors return null when there is no snapshot yet, so callers fall
+ * back to their DAO. Since migration V10 the slot counter ignores status
+ * changes, so bookings never wait on it: a snapshot slot's status and user
+ * are as of its last reload, and availability must be loaded live. Lists are read-only and their entities shared: treat
+ * them as such.
+ */
+public final class ReferenceSnapshot {
+
+    private static final Log LOG = Log.get(ReferenceSnapshot.class);
+
+    private static final Path FILE = Path.of(System.getProperty("snapshot.file", "data/reference-snapshot.bin"));
+    private static final long REVALIDATE_NANOS = Long.getLong("snapshot.revalidateMs", 30_000) * 1_000_000L;
+
+    private static final int MAGIC = 0x504b5331;
+    private static final int VERSION = 1;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    // Sections of the file, in this order, and the counter row for each table.
+    // Writers bump the row in their own transaction, so a counter read here
+    // never runs ahead of the rows a reload can see.
+    private static final int SLOTS = 0;
+    private static final int CATEGORIES = 1;
+    private static final int USER_GROUPS = 2;
+    private static final int PLATES = 3;
+    private static final String VERSIONS_SQL = "SELECT "
+            + "coalesce(max(version) FILTER (WHERE table_name = 'slots'), -1), "
+            + "coalesce(max(version) FILTER (WHERE table_name = 'categories'), -1), "
+            + "coalesce(max(version) FILTER (WHERE table_name = 'user_groups'), -1), "
+            + "coalesce(max(version) FILTER (WHERE table_name = 'vehicles'), -1) "
+            + "FROM inet_vehicleparking.tbl_reference_version";
+    // Before migration V9 there are no counters: reload everything on every check
+    private static final long UNKNOWN = -1;
+
+    private static volatile List<ParkingSlot> slots;
+    private static volatile List<VehicleCategory> categories;
+    private static volatile List<UserGroup> userGroups;
+    private static volatile List<PlateTrie.Entry> plates;
+    private static final long[] VERSIONS = { UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN };
+    private static volatile boolean dirty;
+    private static volatile long lastValidated = System.nanoTime() - REVALIDATE_NANOS;
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean();
+    private static final AtomicBoolean LOADED = new AtomicBoolean();
+
+    private static final Metrics.Counter RELOADED = Metrics.counter("snapshot.tables.reloaded");
+    private static final Metrics.Counter UNCHANGED = Metrics.counter("snapshot.tables.unchanged");
+
+    private ReferenceSnapshot() {
+    }
+
+    // ================= STARTUP =================
+
+    /**
+     * Read the snapshot left by the last run, seed the plate index from it
+     * and start revalidating. Cheap enough for the main thread.
+     */
+    public static void load() {
+        if (!LOADED.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (Files.exists(FILE)) {
+            try {
+                read();
+                LOG.info("Reference snapshot: {} slots, {} plates in {} ms", slots.size(), plates.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Ignoring unreadable reference snapshot {}: {}", FILE, e.toString());
+                slots = null;
+                categories = null;
+                userGroups = null;
+                plates = null;
+                Arrays.fill(VERSIONS, UNKNOWN);
+            }
+        }
+        if (plates != null) {
+            PlateIndex.getInstance().replaceAll(plates);
+        }
+        AppExecutors.onShutdown(ReferenceSnapshot::save);
+        revalidate();
+    }
+
+    // ================= ACCESS =================
+
+    /** The slot list; statuses may be out of date, see the class comment. */
+    public static List<ParkingSlot> slots() {
+        revalidate();
+        return slots;
+    }
+
+    public static List<VehicleCategory> categories() {
+        revalidate();
+        return categories;
+    }
+
+    public static List<UserGroup> userGroups() {
+        revalidate();
+        return userGroups;
+    }
+
+    /** Number of vehicles, or -1 without a snapshot. */
+    public static int vehicleCount() {
+        revalidate();
+        List<PlateTrie.Entry> current = plates;
+        return current != null ? current.size() : -1;
+    }
+
+    // ================= REVALIDATION =================
+
+    // At most one check at a time, and none within REVALIDATE_NANOS of the last
+    private static void revalidate() {
+        if (!LOADED.get() || System.nanoTime() - lastValidated < REVALIDATE_NANOS
+                || !REFRESHING.compareAndSet(false, true)) {
+            return;
+        }
+        AppExecutors.execute(() -> {
+            try {
+                refresh();
+                lastValidated = System.nanoTime();
+            } catch (SQLException e) {
+                LOG.debug("Reference snapshot not revalidated: {}", e.getMessage());
+            } finally {
+                REFRESHING.set(false);
+            }
+        });
+    }
+
+    private static void refresh() throws SQLException {
+        // Counters first: a change committed while a table reloads shows up as a newer counter next time
+        long[] current = versions();
+        for (int table = SLOTS; table <= PLATES; table++) {
+            if (current[table] != UNKNOWN && current[table] == VERSIONS[table] && isPresent(table)) {
+                UNCHANGED.increment();
+                continue;
+            }
+            reload(table);
+            VERSIONS[table] = current[table];
+            dirty = true;
+            RELOADED.increment();
+        }
+    }
+
+    private static long[] versions() throws SQLException {
+        long[] current = { UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN };
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery(VERSIONS_SQL)) {
+            if (rs.next()) {
+                for (int table = SLOTS; table <= PLATES; table++) {
+                    current[table] = rs.getLong(table + 1);
+                }
+            }
+        } catch (SQLException e) {
+            // 42P01 undefined_table: the schema is not migrated yet
+            if (!"42P01".equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+        return current;
+    }
+
+    private static boolean isPresent(int table) {
+        switch (table) {
+            case SLOTS:
+                return slots != null;
+            case CATEGORIES:
+                return categories != null;
+            case USER_GROUPS:
+                return userGroups != null;
+            default:
+                return plates != null;
+        }
+    }
+
+    private static void reload(int table) throws SQLException {
+        switch (table) {
+            case SLOTS:
+                slots = Collections.unmodifiableList(new ParkingSlotDAO().findAll());
+                break;
+            case CATEGORIES:
+                categories = Collections.unmodifiableList(new VehicleCategoryDAO().findAll());
+                break;
+            case USER_GROUPS:
+                userGroups = Collections.unmodifiableList(new UserGroupDAO().findAll());
+                break;
+            default:
+                plates = Collections.unmodifiableList(PlateIndex.fetchAll());
+                PlateIndex.getInstance().replaceAll(plates);
+        }
+    }
+
+    // ================= FILE =================
+
+    private static void read() throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(FILE, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("not a version " + VERSION + " snapshot");
+            }
+
+            VERSIONS[SLOTS] = in.getLong();
+            int slotCount = in.getInt();
+            List<ParkingSlot> slotList = new ArrayList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                ParkingSlot slot = new ParkingSlot();
+                slot.setParkingSlotId(in.getInt());
+                slot.setParkingSlotNumber(in.getInt());
+                slot.setParkingSlotStatus(in.getInt());
+                slot.setUserId(getInteger(in));
+                slot.setSlotType(getString(in));
+                slot.setZone(getString(in));
+                slotList.add(slot);
+            }
+
+            VERSIONS[CATEGORIES] = in.getLong();
+            int categoryCount = in.getInt();
+            List<VehicleCategory> categoryList = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                VehicleCategory category = new VehicleCategory();
+                category.setVehicleCategoryId(in.getInt());
+                category.setVehicleCategoryName(getString(in));
+                category.setUserId(getInteger(in));
+                categoryList.add(category);
+            }
+
+            VERSIONS[USER_GROUPS] = in.getLong();
+            int groupCount = in.getInt();
+            List<UserGroup> groupList = new ArrayList<>(groupCount);
+            for (int i = 0; i < groupCount; i++) {
+                UserGroup group = new UserGroup();
+                group.setUserGroupId(in.getInt());
+                group.setGroupName(getString(in));
+                group.setDescription(getString(in));
+                group.setAllowAdd(getInteger(in));
+                group.setAllowEdit(getInteger(in));
+                group.setAllowDelete(getInteger(in));
+                group.setAllowPrint(getInteger(in));
+                group.setAllowImport(getInteger(in));
+                group.setAllowExport(getInteger(in));
+                groupList.add(group);
+            }
+
+            VERSIONS[PLATES] = in.getLong();
+            int plateCount = in.getInt();
+            List<PlateTrie.Entry> plateList = new ArrayList<>(plateCount);
+            for (int i = 0; i < plateCount; i++) {
+                plateList.add(new PlateTrie.Entry(in.getInt(), in.getInt(), getString(in)));
+            }
+
+            slots = Collections.unmodifiableList(slotList);
+            categories = Collections.unmodifiableList(categoryList);
+            userGroups = Collections.unmodifiableList(groupList);
+            plates = Collections.unmodifiableList(plateList);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated", e);
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a crash leaves the old snapshot
+    private static void save() {
+        List<ParkingSlot> slotList = slots;
+        List<VehicleCategory> categoryList = categories;
+        List<UserGroup> groupList = userGroups;
+        List<PlateTrie.Entry> plateList = plates;
+        if (!dirty || slotList == null || categoryList == null || groupList == null || plateList == null) {
+            return;
+        }
+        Path tmp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+        try {
+            if (FILE.getParent() != null) {
+                Files.createDirectories(FILE.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeLong(VERSIONS[SLOTS]);
+                out.writeInt(slotList.size());
+                for (ParkingSlot slot : slotList) {
+                    out.writeInt(slot.getParkingSlotId());
+                    out.writeInt(slot.getParkingSlotNumber());
+                    out.writeInt(slot.getParkingSlotStatus());
+                    putInteger(out, slot.getUserId());
+                    putString(out, slot.getSlotType());
+                    putString(out, slot.getZone());
+                }
+
+                out.writeLong(VERSIONS[CATEGORIES]);
+                out.writeInt(categoryList.size());
+                for (VehicleCategory category : categoryList) {
+                    out.writeInt(category.getVehicleCategoryId());
+                    putString(out, category.getVehicleCategoryName());
+                    putInteger(out, category.getUserId());
+                }
+
+                out.writeLong(VERSIONS[USER_GROUPS]);
+                out.writeInt(groupList.size());
+                for (UserGroup group : groupList) {
+                    out.writeInt(group.getUserGroupId());
+                    putString(out, group.getGroupName());
+                    putString(out, group.getDescription());
+                    putInteger(out, group.getAllowAdd());
+                    putInteger(out, group.getAllowEdit());
+                    putInteger(out, group.getAllowDelete());
+                    putInteger(out, group.getAllowPrint());
+                    putInteger(out, group.getAllowImport());
+                    putInteger(out, group.getAllowExport());
+                }
+
+                out.writeLong(VERSIONS[PLATES]);
+                out.writeInt(plateList.size());
+                for (PlateTrie.Entry plate : plateList) {
+                    out.writeInt(plate.getVehicleId());
+                    out.writeInt(plate.getOwnerId());
+                    putString(out, plate.getPlate());
+                }
+            }
+            Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not save reference snapshot {}: {}", FILE, e.toString());
+        }
+    }
+
+    private static void putInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeInt(value != null ? value : NULL_INT);
+    }
+
+    private static Integer getInteger(ByteBuffer in) {
+        int value = in.getInt();
+        return value != NULL_INT ? value : null;
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
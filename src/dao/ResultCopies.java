@@ -0,0 +1,77 @@
+package dao;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Copies of shared read results, so one caller editing what it got back
+ * cannot change what another caller sees.
+ *
+ * A List is copied element by element. A model from the {@code models}
+ * package is copied field by field through its no-argument constructor,
+ * including the models and timestamps it holds (a Booking's customer, a
+ * payment date). Anything else, such as counts or a BookingHistory, is
+ * immutable and returned as is.
+ */
+final class ResultCopies {
+
+    private static final String MODELS = "models";
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private ResultCopies() {
+    }
+
+    static Object copy(Object result) {
+        if (result instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (result instanceof Date date) {
+            return date.clone();
+        }
+        if (result != null && result.getClass().getPackageName().equals(MODELS)) {
+            return copyModel(result);
+        }
+        return result;
+    }
+
+    private static Object copyModel(Object model) {
+        try {
+            Constructor<?> constructor = model.getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object copy = constructor.newInstance();
+            for (Field field : FIELDS.get(model.getClass())) {
+                field.set(copy, copy(field.get(model)));
+            }
+            return copy;
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot copy " + model.getClass().getName(), e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Cannot copy " + model.getClass().getName(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import utils.Metrics;
+import utils.ReadReplicas;
+
+/**
+ * Merges identical reads that are in flight at the same time.
+ *
+ * The first caller for a given SQL + parameters runs the query; anyone asking
+ * for the same thing before it finishes waits for that result instead of
+ * opening another connection. Nothing is kept once the query returns, so this
+ * is not a cache: a call that starts after the previous one finished always
+ * hits the database.
+ *
+ * When anyone joined, every caller gets its own copy of the result, entities
+ * included (see ResultCopies), so sorting a list or filling in a payment's
+ * display fields cannot change what the other callers see. A query nobody
+ * joined hands its result over as is.
+ *
+ * A caller whose application wrote after the running query started does not
+ * join it: that query may not see the write, so the caller runs its own.
+ */
+public final class SingleFlight {
+
+    /** A database read that may throw SQLException. */
+    @FunctionalInterface
+    public interface SqlCall<R> {
+        R call() throws SQLException;
+    }
+
+    /** A running query, when it started and how many callers wait for it. */
+    private static final class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final long startedNanos = System.nanoTime();
+        // Changed only inside IN_FLIGHT.compute, so it is final once the flight is removed
+        int joiners;
+    }
+
+    private static final Map<List<Object>, Flight> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final LongAdder CALLS = new LongAdder();
+    private static final LongAdder EXECUTED = new LongAdder();
+    private static final LongAdder DEDUPLICATED = new LongAdder();
+    private static final LongAdder BYPASSED = new LongAdder();
+    private static final Map<String, LongAdder> DEDUPLICATED_BY_SQL = new ConcurrentHashMap<>();
+
+    static {
+        Metrics.gauge("singleflight.calls", CALLS::sum);
+        Metrics.gauge("singleflight.executed", EXECUTED::sum);
+        Metrics.gauge("singleflight.deduplicated", DEDUPLICATED::sum);
+        Metrics.gauge("singleflight.bypassedAfterWrite", BYPASSED::sum);
+        Metrics.gauge("singleflight.inFlight", IN_FLIGHT::size);
+    }
+
+    private SingleFlight() {
+    }
+
+    /**
+     * Run the call, or wait for an identical one that is already running.
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R run(String sql, Object[] params, SqlCall<R> call) throws SQLException {
+        CALLS.increment();
+
+        List<Object> key = new ArrayList<>(params.length + 1);
+        key.add(sql);
+        key.addAll(Arrays.asList(params));
+
+        Flight mine = new Flight();
+        Flight[] joined = new Flight[1];
+        boolean[] bypassed = new boolean[1];
+        IN_FLIGHT.compute(key, (k, running) -> {
+            if (running == null) {
+                return mine;
+            }
+            if (ReadReplicas.wroteSince(running.startedNanos)) {
+                bypassed[0] = true;
+            } else {
+                running.joiners++;
+                joined[0] = running;
+            }
+            return running;
+        });
+        if (bypassed[0]) {
+            // Not registered: later callers keep joining the running query
+            BYPASSED.increment();
+            EXECUTED.increment();
+            return call.call();
+        }
+        if (joined[0] != null) {
+            DEDUPLICATED.increment();
+            DEDUPLICATED_BY_SQL.computeIfAbsent(sql, k -> new LongAdder()).increment();
+            return (R) ResultCopies.copy(await(joined[0].result));
+        }
+
+        EXECUTED.increment();
+        try {
+            R result = call.call();
+            int joiners = finish(key, mine);
+            mine.result.complete(result);
+            // Joiners copy from this one, so the leader must not change it
+            return joiners > 0 ? (R) ResultCopies.copy(result) : result;
+        } catch (SQLException | RuntimeException | Error e) {
+            finish(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Removes the flight; nobody can join it after this
+    private static int finish(List<Object> key, Flight flight) {
+        int[] joiners = new int[1];
+        IN_FLIGHT.computeIfPresent(key, (k, running) -> {
+            if (running != flight) {
+                return running;
+            }
+            joiners[0] = flight.joiners;
+            return null;
+        });
+        return joiners[0];
+    }
+
+    private static Object await(CompletableFuture<Object> flight) throws SQLException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a shared query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                // Fresh exception so this caller's stack trace shows where it waited
+                throw new SQLException(sqlException.getMessage(), sqlException.getSQLState(),
+                        sqlException.getErrorCode(), sqlException);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    // ================= METRICS =================
+
+    /** Reads that went through the single-flight layer. */
+    public static long totalCalls() {
+        return CALLS.sum();
+    }
+
+    /** Reads that actually ran a query. */
+    public static long executedCalls() {
+        return EXECUTED.sum();
+    }
+
+    /** Reads answered by another caller's query. */
+    public static long deduplicatedCalls() {
+        return DEDUPLICATED.sum();
+    }
+
+    /** Reads that ran their own query because this application wrote after an identical one started. */
+    public static long bypassedCalls() {
+        return BYPASSED.sum();
+    }
+
+    /** Queries running right now that others could still join. */
+    public static int inFlight() {
+        return IN_FLIGHT.size();
+    }
+
+    /** Deduplicated call count per SQL statement, sorted by statement. */
+    public static Map<String, Long> deduplicatedBySql() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        DEDUPLICATED_BY_SQL.forEach((sql, count) -> snapshot.put(sql, count.sum()));
+        return snapshot;
+    }
+
+    public static void resetMetrics() {
+        CALLS.reset();
+        EXECUTED.reset();
+        DEDUPLICATED.reset();
+        BYPASSED.reset();
+        DEDUPLICATED_BY_SQL.clear();
+    }
+}
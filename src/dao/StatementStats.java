@@ -0,0 +1,114 @@
+package dao;
+
+import java.util.concurrent.atomic.LongAdder;
+import utils.LatencyHistogram;
+
+/**
+ * Counters for one named statement, e.g. {@code BookingDAO.approveBookingNow#2}.
+ *
+ * Latency covers the execute call (pgjdbc has the whole result by then, so
+ * row mapping is not included). Acquire time is the connection open that
+ * preceded the statement, charged to the first statement run on that
+ * connection.
+ */
+public final class StatementStats implements StatementStatsMBean {
+
+    private final String name;
+    private final String sql;
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LatencyHistogram acquire = new LatencyHistogram();
+    final LongAdder errors = new LongAdder();
+    final LongAdder rowsReturned = new LongAdder();
+    final LongAdder rowsAffected = new LongAdder();
+    final LongAdder slow = new LongAdder();
+
+    StatementStats(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowsReturned() {
+        return rowsReturned.sum();
+    }
+
+    @Override
+    public long getRowsAffected() {
+        return rowsAffected.sum();
+    }
+
+    @Override
+    public long getSlowCount() {
+        return slow.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanMicros() / 1000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getValueAtPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.getValueAtPercentile(95) / 1000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getValueAtPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxMicros() / 1000.0;
+    }
+
+    @Override
+    public double getMeanAcquireMillis() {
+        return acquire.getMeanMicros() / 1000.0;
+    }
+
+    @Override
+    public double getP99AcquireMillis() {
+        return acquire.getValueAtPercentile(99) / 1000.0;
+    }
+
+    /** Latency distribution, for callers that want more than the fixed percentiles. */
+    public LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    void reset() {
+        latency.reset();
+        acquire.reset();
+        errors.reset();
+        rowsReturned.reset();
+        rowsAffected.reset();
+        slow.reset();
+    }
+}
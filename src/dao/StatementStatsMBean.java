@@ -0,0 +1,35 @@
+package dao;
+
+/**
+ * JMX view of one named DAO statement. Times are in milliseconds.
+ */
+public interface StatementStatsMBean {
+
+    String getName();
+
+    String getSql();
+
+    long getCount();
+
+    long getErrors();
+
+    long getRowsReturned();
+
+    long getRowsAffected();
+
+    long getSlowCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getMeanAcquireMillis();
+
+    double getP99AcquireMillis();
+}
@@ -0,0 +1,19 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * A {@link SQLException} raised while a {@link BaseDAO#stream} result is
+ * being consumed, where the Stream API does not allow checked exceptions.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,355 @@
+package dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import utils.DatabaseConnection;
+import utils.JfrEvents;
+import utils.Log;
+import utils.Metrics;
+import utils.ReadReplicas;
+import utils.Workload;
+
+/**
+ * One connection and one transaction shared by every DAO call in a block.
+ *
+ * <pre>
+ * int id = UnitOfWork.run(() -> {
+ *     ParkingSlot slot = slotDAO.findById(slotId);
+ *     ...
+ *     return bookingDAO.createBookingWithSlotUpdate(booking);
+ * });
+ * </pre>
+ *
+ * While the block runs, {@link BaseDAO#getConnection()} on that thread hands
+ * out the bound connection. The DAO's own setAutoCommit, commit and close
+ * become no-ops, and its rollback marks the whole unit rollback-only. The
+ * block commits when it returns and rolls back when it throws.
+ *
+ * A block started inside another one joins it. The inner block's isolation
+ * is ignored, it may not ask for writes inside a read-only unit, and with
+ * {@link Options#savepoint()} a failure rolls back only the inner block. The
+ * outermost block is re-run on a serialization failure or deadlock (40001,
+ * 40P01), up to {@link Options#retries(int)} times. Work that can be retried
+ * must not have side effects outside the database. Use {@link #afterCommit}
+ * for those.
+ */
+public final class UnitOfWork {
+
+    private static final Log LOG = Log.get(UnitOfWork.class);
+
+    /** The body of a unit; any DAO it calls joins the transaction. */
+    @FunctionalInterface
+    public interface Work<R> {
+        R run() throws SQLException;
+    }
+
+    /** Hints for a unit. Instances are immutable; each method returns a copy. */
+    public static final class Options {
+        private final String name;
+        private final boolean readOnly;
+        private final int isolation;
+        private final int retries;
+        private final boolean savepoint;
+        private final Workload workload;
+        private final int statementTimeoutMillis;
+
+        private Options(String name, boolean readOnly, int isolation, int retries, boolean savepoint,
+                Workload workload, int statementTimeoutMillis) {
+            this.name = name;
+            this.readOnly = readOnly;
+            this.isolation = isolation;
+            this.retries = retries;
+            this.savepoint = savepoint;
+            this.workload = workload;
+            this.statementTimeoutMillis = statementTimeoutMillis;
+        }
+
+        /** Read-write, the server's default isolation, three retries, interactive. */
+        public static Options readWrite() {
+            return new Options("UnitOfWork", false, -1, 3, false, Workload.INTERACTIVE, -1);
+        }
+
+        public static Options readOnly() {
+            return new Options("UnitOfWork", true, -1, 3, false, Workload.INTERACTIVE, -1);
+        }
+
+        /** Name used for the Flight Recorder event. */
+        public Options named(String name) {
+            return new Options(name, readOnly, isolation, retries, savepoint, workload, statementTimeoutMillis);
+        }
+
+        /** A {@link Connection} TRANSACTION_* level; only the outermost unit applies it. */
+        public Options isolation(int level) {
+            return new Options(name, readOnly, level, retries, savepoint, workload, statementTimeoutMillis);
+        }
+
+        public Options retries(int count) {
+            return new Options(name, readOnly, isolation, Math.max(0, count), savepoint, workload,
+                    statementTimeoutMillis);
+        }
+
+        /** When nested, roll back to a savepoint on failure instead of dooming the outer unit. */
+        public Options savepoint() {
+            return new Options(name, readOnly, isolation, retries, true, workload, statementTimeoutMillis);
+        }
+
+        /** Whose connections and default statement timeout the outermost unit uses. */
+        public Options workload(Workload workload) {
+            return new Options(name, readOnly, isolation, retries, savepoint, workload, statementTimeoutMillis);
+        }
+
+        /** SET LOCAL statement_timeout for this transaction only; 0 for none. Outermost unit only. */
+        public Options statementTimeout(int millis) {
+            return new Options(name, readOnly, isolation, retries, savepoint, workload, Math.max(0, millis));
+        }
+    }
+
+    /** The transaction bound to a thread. */
+    private static final class Scope {
+        final Connection connection;
+        final Connection shared;
+        final boolean readOnly;
+        boolean rollbackOnly;
+        List<Runnable> afterCommit;
+
+        Scope(Connection connection, boolean readOnly) {
+            this.connection = connection;
+            this.readOnly = readOnly;
+            this.shared = sharedView(connection, this);
+        }
+    }
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK = "40P01";
+
+    private static final Metrics.Counter COMMITTED = Metrics.counter("db.unitOfWork.committed");
+    private static final Metrics.Counter ROLLED_BACK = Metrics.counter("db.unitOfWork.rolledBack");
+    private static final Metrics.Counter RETRIED = Metrics.counter("db.unitOfWork.retried");
+
+    private UnitOfWork() {
+    }
+
+    // ================= RUNNING =================
+
+    public static <R> R run(Work<R> work) throws SQLException {
+        return run(Options.readWrite(), work);
+    }
+
+    public static <R> R readOnly(Work<R> work) throws SQLException {
+        return run(Options.readOnly(), work);
+    }
+
+    public static <R> R run(Options options, Work<R> work) throws SQLException {
+        Scope outer = CURRENT.get();
+        if (outer != null) {
+            return runNested(outer, options, work);
+        }
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                return runOutermost(options, work);
+            } catch (SQLException e) {
+                if (attempt >= options.retries || !isRetryable(e)) {
+                    throw e;
+                }
+                RETRIED.increment();
+                LOG.debug("Retrying {} after {}", options.name, e.getSQLState());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static <R> R runOutermost(Options options, Work<R> work) throws SQLException {
+        JfrEvents.DaoTransaction tx = JfrEvents.DaoTransaction.start(options.name, 0);
+        Connection conn = null;
+        Scope scope = null;
+        try {
+            long start = System.nanoTime();
+            conn = DatabaseConnection.getConnection(options.workload);
+            Metrics.histogram("db.acquire").recordNanos(System.nanoTime() - start);
+
+            conn.setAutoCommit(false);
+            if (options.readOnly) {
+                conn.setReadOnly(true);
+            }
+            if (options.isolation >= 0) {
+                conn.setTransactionIsolation(options.isolation);
+            }
+            if (options.statementTimeoutMillis >= 0) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("SET LOCAL statement_timeout = " + options.statementTimeoutMillis);
+                }
+            }
+            scope = new Scope(conn, options.readOnly);
+            CURRENT.set(scope);
+
+            R result = work.run();
+            if (scope.rollbackOnly) {
+                throw new SQLException("Transaction was rolled back: a DAO call or nested unit inside it failed");
+            }
+            conn.commit();
+            if (!options.readOnly) {
+                ReadReplicas.noteWrite();
+            }
+            tx.committed = true;
+            COMMITTED.increment();
+            runAfterCommit(scope);
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            tx.error = e.getMessage();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackFailed) {
+                    e.addSuppressed(rollbackFailed);
+                }
+                ROLLED_BACK.increment();
+            }
+            throw e;
+        } finally {
+            tx.finish();
+            if (scope != null) {
+                CURRENT.remove();
+            }
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOG.warn("Could not close unit-of-work connection", e);
+                }
+            }
+        }
+    }
+
+    private static <R> R runNested(Scope scope, Options options, Work<R> work) throws SQLException {
+        if (scope.readOnly && !options.readOnly) {
+            throw new SQLException("A read-write unit cannot run inside a read-only one");
+        }
+        Savepoint savepoint = options.savepoint ? scope.connection.setSavepoint() : null;
+        // A DAO rollback inside the block dooms the unit only if the savepoint cannot undo it
+        boolean rollbackOnlyBefore = scope.rollbackOnly;
+        try {
+            R result = work.run();
+            if (savepoint != null) {
+                scope.connection.releaseSavepoint(savepoint);
+            }
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            if (savepoint != null) {
+                try {
+                    scope.connection.rollback(savepoint);
+                    scope.rollbackOnly = rollbackOnlyBefore;
+                } catch (SQLException rollbackFailed) {
+                    e.addSuppressed(rollbackFailed);
+                    scope.rollbackOnly = true;
+                }
+            } else {
+                scope.rollbackOnly = true;
+            }
+            throw e;
+        }
+    }
+
+    // ================= SCOPE =================
+
+    public static boolean inTransaction() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Run {@code action} once the current unit commits, or now when there is
+     * none. Skipped when the unit rolls back; a retried unit registers again.
+     */
+    public static void afterCommit(Runnable action) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            action.run();
+            return;
+        }
+        if (scope.afterCommit == null) {
+            scope.afterCommit = new ArrayList<>();
+        }
+        scope.afterCommit.add(action);
+    }
+
+    /** The connection DAOs on this thread should use, or null outside a unit. */
+    static Connection sharedConnection() {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope.shared : null;
+    }
+
+    private static void runAfterCommit(Scope scope) {
+        if (scope.afterCommit == null) {
+            return;
+        }
+        for (Runnable action : scope.afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                // Already committed; one failing callback must not hide the rest
+                LOG.warn("After-commit action failed", e);
+            }
+        }
+    }
+
+    // DAOs manage their own transactions when called on their own; inside a
+    // unit those calls must not end the shared transaction early
+    private static Connection sharedView(Connection conn, Scope scope) {
+        return (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit", "setReadOnly", "setTransactionIsolation":
+                            return null;
+                        case "getAutoCommit":
+                            return false;
+                        case "rollback":
+                            if (args == null || args.length == 0) {
+                                scope.rollbackOnly = true;
+                                return null;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // ================= RETRY =================
+
+    static boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                String state = sql.getSQLState();
+                if (SERIALIZATION_FAILURE.equals(state) || DEADLOCK.equals(state)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void backOff(int attempt) throws SQLException {
+        // Jittered so two clashing units do not clash again on the retry
+        long millis = (10L << Math.min(attempt, 4)) + ThreadLocalRandom.current().nextLong(10);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying a transaction", e);
+        }
+    }
+}
@@ -236,30 +236,34 @@ public class UserDAO extends BaseDAO<User> {
     public User findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " WHERE user_id = ?";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+        return coalesce(sql, id, () -> {
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToEntity(rs) : null;
+                }
             }
-        }
+        });
     }
     
     @Override
     public List<User> findAll() throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " ORDER BY fullname";
-        List<User> users = new ArrayList<>();
-        
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                users.add(mapResultSetToEntity(rs));
+
+        return coalesceOrCached(sql, () -> {
+            List<User> users = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+
+                while (rs.next()) {
+                    users.add(mapResultSetToEntity(rs));
+                }
             }
-        }
-        return users;
+            return users;
+        });
     }
     
     public boolean update(User user) throws SQLException {
@@ -342,18 +346,32 @@ public class UserDAO extends BaseDAO<User> {
      * Search users by name, username, or email
      */
     public List<User> search(String keyword) throws SQLException {
+        return search(keyword, CustomerSearchDAO.DEFAULT_LIMIT);
+    }
+    
+    /**
+     * Search users by name, username, or email, best matches first.
+     * Uses the pg_trgm indexes on fullname/username/email.
+     */
+    public List<User> search(String keyword, int limit) throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + 
                     " WHERE fullname ILIKE ? OR username ILIKE ? OR email ILIKE ? " +
-                    "ORDER BY fullname";
+                    "ORDER BY GREATEST(similarity(fullname, ?), similarity(username, ?), " +
+                    "similarity(email, ?)) DESC, fullname LIMIT ?";
         List<User> users = new ArrayList<>();
+        String term = keyword != null ? keyword.trim() : "";
         
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String searchTerm = "%" + keyword + "%";
+            String searchTerm = CustomerSearchDAO.containsPattern(term);
             pstmt.setString(1, searchTerm);
             pstmt.setString(2, searchTerm);
             pstmt.setString(3, searchTerm);
+            pstmt.setString(4, term);
+            pstmt.setString(5, term);
+            pstmt.setString(6, term);
+            pstmt.setInt(7, limit);
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -370,12 +388,14 @@ public class UserDAO extends BaseDAO<User> {
     public int countUsers() throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName();
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            return rs.next() ? rs.getInt(1) : 0;
-        }
+        return coalesceOrCached(sql, () -> {
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
     }
     
     /**
@@ -384,7 +404,7 @@ public class UserDAO extends BaseDAO<User> {
     public int countByStatus(Integer status) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName() + " WHERE status = ?";
         
-        try (Connection conn = getConnection();
+        try (Connection conn = getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, status);
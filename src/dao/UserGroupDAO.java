@@ -62,7 +62,7 @@
                 }
                 return null;
             } finally {
-                closeResources(rs, pstmt);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, rs);
             }
         }
         
@@ -84,7 +84,7 @@
                 }
                 return null;
             } finally {
-                closeResources(rs, pstmt);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, rs);
             }
         }
         
@@ -107,7 +107,7 @@
                 }
                 return groups;
             } finally {
-                closeResources(rs, pstmt);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, rs);
             }
         }
         
@@ -135,7 +135,7 @@
                 
                 return pstmt.executeUpdate() > 0;
             } finally {
-                closeResources(pstmt, null);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, null);
             }
         }
         
@@ -153,7 +153,7 @@
                 
                 return pstmt.executeUpdate() > 0;
             } finally {
-                closeResources(pstmt, null);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, null);
             }
         }
         
@@ -175,7 +175,7 @@
                 }
                 return false;
             } finally {
-                closeResources(rs, pstmt);  // Changed from 3 params to 2 params
+                closeResources(conn, pstmt, rs);
             }
         }
     }
\ No newline at end of file
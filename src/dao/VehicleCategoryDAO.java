@@ -174,7 +174,7 @@ public class VehicleCategoryDAO extends BaseDAO<VehicleCategory> {
         ResultSet rs = null;
         
         try {
-            conn = getConnection();
+            conn = getReadConnection();
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, categoryId);
             rs = pstmt.executeQuery();
@@ -4,12 +4,17 @@ package dao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import models.Vehicle;
 import models.VehicleCategory;
 import models.VehicleOwner;
+import utils.Log;
+import utils.PlateNumbers;
 
 public class VehicleDAO extends BaseDAO<Vehicle> {
 
+    private static final Log LOG = Log.get(VehicleDAO.class);
+
     @Override
     protected String getTableName() {
         return "inet_vehicleparking.tbl_vehicle";
@@ -20,6 +25,20 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
         return "vehicle_id";
     }
 
+    /**
+     * Everything but vehicle_image, read by position. Lists never show the
+     * image, so they do not fetch it; findById still returns it.
+     */
+    protected static final Projection<Vehicle> VEHICLE_COLUMNS = Projection.of(Vehicle::new)
+            .intColumn("vehicle_id", Vehicle::setVehicleId)
+            .intColumn("vehicle_category_id", Vehicle::setVehicleCategoryId)
+            .string("vehicle_plate_number", Vehicle::setVehiclePlateNumber)
+            .string("vehicle_description", Vehicle::setVehicleDescription)
+            .intColumn("vehicle_owner_id", Vehicle::setVehicleOwnerId)
+            .build();
+
+    private static final String SELECT_VEHICLE = "SELECT " + VEHICLE_COLUMNS.columns() + " FROM ";
+
     @Override
     protected Vehicle mapResultSetToEntity(ResultSet rs) throws SQLException {
         Vehicle vehicle = new Vehicle();
@@ -44,11 +63,11 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
 
     public List<Vehicle> findByUserId(int userId) throws SQLException {
         String sql = """
-                    SELECT v.*
+                    SELECT %s
                     FROM inet_vehicleparking.tbl_vehicle v
                     JOIN inet_vehicleparking.tbl_vehicle_owner vo ON v.vehicle_owner_id = vo.vehicle_owner_id
                     WHERE vo.user_id = ?
-                """;
+                """.formatted(VEHICLE_COLUMNS.columns("v"));
 
         List<Vehicle> list = new ArrayList<>();
         try (Connection conn = getConnection();
@@ -56,7 +75,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
             pstmt.setInt(1, userId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+                    list.add(VEHICLE_COLUMNS.map(rs));
                 }
             }
         }
@@ -67,25 +86,27 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     public Vehicle findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " WHERE vehicle_id = ?";
 
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return coalesce(sql, id, () -> {
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToEntity(rs) : null;
+                }
             }
-        }
+        });
     }
 
     public Vehicle findByPlateNumber(String plateNumber) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE vehicle_plate_number = ?";
+        String sql = SELECT_VEHICLE + getTableName() + " WHERE vehicle_plate_number = ?";
 
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, plateNumber);
             try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+                return rs.next() ? VEHICLE_COLUMNS.map(rs) : null;
             }
         }
     }
@@ -135,18 +156,25 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     }
 
     public List<Vehicle> findAll() throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " ORDER BY vehicle_plate_number";
+        String sql = SELECT_VEHICLE + getTableName() + " ORDER BY vehicle_plate_number";
 
-        List<Vehicle> list = new ArrayList<>();
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
+        return coalesceOrCached(sql, () -> {
+            List<Vehicle> list = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(VEHICLE_COLUMNS.map(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
+    }
+
+    @Override
+    public Stream<Vehicle> streamAll() throws SQLException {
+        return stream(SELECT_VEHICLE + getTableName() + " ORDER BY vehicle_plate_number", VEHICLE_COLUMNS::map);
     }
 
     public List<Vehicle> findByOwnerId(Integer ownerId) throws SQLException {
@@ -158,7 +186,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     }
 
     private List<Vehicle> findByField(String field, Integer value) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE " + field + " = ? ORDER BY vehicle_plate_number";
+        String sql = SELECT_VEHICLE + getTableName() + " WHERE " + field + " = ? ORDER BY vehicle_plate_number";
 
         List<Vehicle> list = new ArrayList<>();
         try (Connection conn = getConnection();
@@ -167,7 +195,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
             pstmt.setInt(1, value);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+                    list.add(VEHICLE_COLUMNS.map(rs));
                 }
             }
         }
@@ -175,17 +203,27 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     }
 
     public List<Vehicle> searchByPlateNumber(String plate) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName()
-                + " WHERE vehicle_plate_number ILIKE ? ORDER BY vehicle_plate_number";
+        return searchByPlateNumber(plate, CustomerSearchDAO.DEFAULT_LIMIT);
+    }
+
+    // Spaces, dots, dashes and case are ignored on both sides ("2a-1234" finds "2A 1234")
+    public List<Vehicle> searchByPlateNumber(String plate, int limit) throws SQLException {
+        String normalized = PlateNumbers.normalize(plate);
+        String sql = SELECT_VEHICLE + getTableName()
+                + " WHERE " + PlateNumbers.SQL_NORMALIZED_PLATE + " LIKE ?"
+                + " ORDER BY similarity(" + PlateNumbers.SQL_NORMALIZED_PLATE + ", ?) DESC, vehicle_plate_number"
+                + " LIMIT ?";
 
         List<Vehicle> list = new ArrayList<>();
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, "%" + plate + "%");
+            pstmt.setString(1, CustomerSearchDAO.containsPattern(normalized));
+            pstmt.setString(2, normalized);
+            pstmt.setInt(3, limit);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+                    list.add(VEHICLE_COLUMNS.map(rs));
                 }
             }
         }
@@ -196,7 +234,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     public boolean update(Vehicle vehicle) throws SQLException {
         String sql = "UPDATE " + getTableName() +
                 " SET vehicle_category_id = ?, vehicle_plate_number = ?, vehicle_description = ?, " +
-                "vehicle_image = ?, vehicle_owner_id = ? WHERE vehicle_id = ?";
+                "vehicle_image = COALESCE(?, vehicle_image), vehicle_owner_id = ? WHERE vehicle_id = ?";
 
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -208,13 +246,19 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
             if (vehicle.getVehicleImage() != null && vehicle.getVehicleImage().length > 0) {
                 pstmt.setBytes(4, vehicle.getVehicleImage());
             } else {
+                // Keeps the stored image: vehicles loaded by the list queries never carry it
                 pstmt.setNull(4, Types.BINARY);
             }
 
             pstmt.setInt(5, vehicle.getVehicleOwnerId());
             pstmt.setInt(6, vehicle.getVehicleId());
 
-            return pstmt.executeUpdate() > 0;
+            boolean updated = pstmt.executeUpdate() > 0;
+            if (updated) {
+                PlateIndex.getInstance().vehicleSaved(vehicle.getVehicleId(), vehicle.getVehicleOwnerId(),
+                        vehicle.getVehiclePlateNumber());
+            }
+            return updated;
         }
     }
 
@@ -226,20 +270,27 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                PlateIndex.getInstance().vehicleDeleted(id);
+            }
+            return deleted;
         }
     }
 
     /* ================= COUNT ================= */
     public int countVehicles() throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName();
+        return coalesceOrCached(sql, () -> countWithRetry(sql));
+    }
 
+    private int countWithRetry(String sql) throws SQLException {
         // Add connection validation and retry logic
         int retryCount = 0;
         int maxRetries = 3;
 
         while (retryCount < maxRetries) {
-            try (Connection conn = getConnection();
+            try (Connection conn = getReadConnection();
                     PreparedStatement pstmt = conn.prepareStatement(sql);
                     ResultSet rs = pstmt.executeQuery()) {
 
@@ -250,7 +301,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
 
             } catch (SQLException e) {
                 retryCount++;
-                System.err.println("Attempt " + retryCount + " failed for countVehicles(): " + e.getMessage());
+                LOG.warn("Attempt {} failed for countVehicles(): {}", retryCount, e.getMessage());
 
                 if (retryCount >= maxRetries) {
                     throw new SQLException("Failed to count vehicles after " + maxRetries + " attempts", e);
@@ -276,7 +327,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     public int countVehiclesByOwner(Integer ownerId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName() + " WHERE vehicle_owner_id = ?";
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getReadConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, ownerId);
@@ -324,7 +375,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
                     WHERE b.booking_status = 1 OR b.booking_status IS NULL
                 """;
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getReadConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
 
@@ -333,7 +384,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
     }
 
     public List<Vehicle> findByVehicleOwnerId(Integer ownerId) throws SQLException {
-        String sql = "SELECT * FROM " + getTableName() + " WHERE vehicle_owner_id = ? ORDER BY vehicle_plate_number";
+        String sql = SELECT_VEHICLE + getTableName() + " WHERE vehicle_owner_id = ? ORDER BY vehicle_plate_number";
 
         List<Vehicle> list = new ArrayList<>();
         try (Connection conn = getConnection();
@@ -342,7 +393,7 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
             pstmt.setInt(1, ownerId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    list.add(mapResultSetToEntity(rs));
+                    list.add(VEHICLE_COLUMNS.map(rs));
                 }
             }
         }
@@ -370,7 +421,10 @@ public class VehicleDAO extends BaseDAO<Vehicle> {
 
             try (ResultSet rs = pstmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getInt(1);
+                    int vehicleId = rs.getInt(1);
+                    PlateIndex.getInstance().vehicleSaved(vehicleId, vehicle.getVehicleOwnerId(),
+                            vehicle.getVehiclePlateNumber());
+                    return vehicleId;
                 } else {
                     throw new SQLException("Creating vehicle failed, no ID obtained.");
                 }
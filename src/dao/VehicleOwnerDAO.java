@@ -110,29 +110,33 @@ public class VehicleOwnerDAO extends BaseDAO<VehicleOwner> {
     public VehicleOwner findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " WHERE vehicle_owner_id = ?";
 
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? mapResultSetToEntity(rs) : null;
+        return coalesce(sql, id, () -> {
+            try (Connection conn = getConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? mapResultSetToEntity(rs) : null;
+                }
             }
-        }
+        });
     }
 
     public List<VehicleOwner> findAll() throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " ORDER BY vehicle_owner_id";
-        List<VehicleOwner> list = new ArrayList<>();
 
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
+        return coalesceOrCached(sql, () -> {
+            List<VehicleOwner> list = new ArrayList<>();
+            try (Connection conn = getReadConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql);
+                    ResultSet rs = ps.executeQuery()) {
 
-            while (rs.next()) {
-                list.add(mapResultSetToEntity(rs));
+                while (rs.next()) {
+                    list.add(mapResultSetToEntity(rs));
+                }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     /* ================= UPDATE ================= */
@@ -196,12 +200,14 @@ public class VehicleOwnerDAO extends BaseDAO<VehicleOwner> {
     public int countOwners() throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + getTableName();
 
-        try (Connection conn = getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
+        return coalesceOrCached(sql, () -> {
+            try (Connection conn = getReadConnection();
+                    PreparedStatement ps = conn.prepareStatement(sql);
+                    ResultSet rs = ps.executeQuery()) {
 
-            return rs.next() ? rs.getInt(1) : 0;
-        }
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
     }
 
     /* ================= ADDITIONAL METHODS ================= */
@@ -248,6 +254,35 @@ public class VehicleOwnerDAO extends BaseDAO<VehicleOwner> {
         }
     }
 
+    // Search by name, contact or email, best matches first (pg_trgm indexed)
+    public List<VehicleOwner> search(String keyword, int limit) throws SQLException {
+        String sql = "SELECT * FROM " + getTableName()
+                + " WHERE vehicle_owner_name ILIKE ? OR vehicle_owner_contact ILIKE ? OR vehicle_owner_email ILIKE ?"
+                + " ORDER BY GREATEST(similarity(vehicle_owner_name, ?), similarity(vehicle_owner_contact, ?),"
+                + " similarity(vehicle_owner_email, ?)) DESC, vehicle_owner_name LIMIT ?";
+        List<VehicleOwner> list = new ArrayList<>();
+        String term = keyword != null ? keyword.trim() : "";
+
+        try (Connection conn = getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            String pattern = CustomerSearchDAO.containsPattern(term);
+            ps.setString(1, pattern);
+            ps.setString(2, pattern);
+            ps.setString(3, pattern);
+            ps.setString(4, term);
+            ps.setString(5, term);
+            ps.setString(6, term);
+            ps.setInt(7, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToEntity(rs));
+                }
+            }
+        }
+        return list;
+    }
+
     // Find active owners only
     public List<VehicleOwner> findActiveOwners() throws SQLException {
         String sql = "SELECT * FROM " + getTableName() + " WHERE status = 1 ORDER BY vehicle_owner_id";
@@ -0,0 +1,588 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import utils.AppExecutors;
+import utils.CircuitBreaker;
+import utils.Log;
+import utils.Metrics;
+
+/**
+ * Check-ins, checkouts and payments recorded while the database cannot be
+ * reached, kept in a local file and applied in order once it can.
+ *
+ * {@link BookingDAO#updateArrivalTime}, {@link BookingDAO#updateDepartureTime}
+ * and {@link PaymentDAO#processUserPayment} still write to the database first.
+ * When that fails because the database is unavailable (see
+ * {@link CircuitBreaker#isUnavailable}), or while earlier journaled writes
+ * are still waiting, the operation is appended here and the call reports
+ * success. With {@code -Djournal.writeBehind=true} they are always journaled,
+ * so the gate never waits on the database. Listings meanwhile come from
+ * {@link LastGood}.
+ *
+ * The journal is a memory-mapped file ({@code journal.file}, default
+ * data/write-journal.bin, {@code journal.sizeKb} 4096). Each record is forced
+ * to disk before the call returns and carries a CRC, so one torn by a crash
+ * is dropped rather than half applied. A daemon thread replays records oldest
+ * first as soon as one is added and every {@code journal.replayMs} (2 s).
+ * Every record has a random id that replay stores in
+ * tbl_write_journal_applied in the same transaction, so none is applied
+ * twice. Payments store it on the online attempt too, so one whose commit
+ * landed just before the connection dropped is not replayed on top. A record the database no longer agrees with, e.g. an arrival
+ * already recorded at another time or a payment already settled, is a
+ * conflict: it is logged, listed by {@link #conflicts()} and skipped.
+ *
+ * Replay waits up to {@code journal.schemaWaitMs} (5 min) for migration V7
+ * to create tbl_write_journal_applied. Past that, or on any other error that
+ * is not the database being unavailable (a missing column, a revoked grant),
+ * the journal is blocked: records stay in the file, {@link #blockedReason()}
+ * says why, and new writes go to the database directly instead of piling up
+ * behind them.
+ */
+public final class WriteJournal {
+
+    private static final Log LOG = Log.get(WriteJournal.class);
+
+    private static final boolean WRITE_BEHIND = Boolean.getBoolean("journal.writeBehind");
+    private static final Path FILE = Path.of(System.getProperty("journal.file", "data/write-journal.bin"));
+    private static final int SIZE_BYTES = Integer.getInteger("journal.sizeKb", 4096) * 1024;
+    private static final long REPLAY_MS = Long.getLong("journal.replayMs", 2000);
+    private static final long SCHEMA_WAIT_MS = Long.getLong("journal.schemaWaitMs", 300_000);
+    private static final int MAX_CONFLICTS = 100;
+
+    // Header: magic, format version, epoch, unused, offset of the first record
+    // not yet replayed. Records: payload length, CRC32 of the payload, payload.
+    // The payload starts with the epoch it was written in; emptying the
+    // journal bumps the epoch, so leftovers further down no longer count.
+    private static final int MAGIC = 0x504b4a31;
+    private static final int VERSION = 1;
+    private static final int EPOCH_AT = 8;
+    private static final int REPLAYED_AT = 16;
+    private static final int HEADER_BYTES = 24;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    static final byte ARRIVAL = 1;
+    static final byte DEPARTURE = 2;
+    static final byte PAYMENT = 3;
+
+    // SQLSTATE 58030 io_error, 42P01 undefined_table
+    private static final String IO_ERROR = "58030";
+    private static final String UNDEFINED_TABLE = "42P01";
+    private static final String MARKER_TABLE = "tbl_write_journal_applied";
+
+    private static final String MARK_SQL = "INSERT INTO inet_vehicleparking.tbl_write_journal_applied"
+            + " (journal_id, operation) VALUES (?, ?) ON CONFLICT (journal_id) DO NOTHING";
+    private static final String CONFLICT_SQL = "UPDATE inet_vehicleparking.tbl_write_journal_applied"
+            + " SET outcome = 'CONFLICT' WHERE journal_id = ?";
+    private static final String DUPLICATE = "already applied";
+
+    private static final String MARKER_TABLE_SQL =
+            "SELECT to_regclass('inet_vehicleparking.tbl_write_journal_applied') IS NOT NULL";
+    private static final UnitOfWork.Options ONLINE = UnitOfWork.Options.readWrite().named("WriteJournal.online");
+    private static volatile boolean markerTable;
+    private static final UnitOfWork.Options REPLAY = UnitOfWork.Options.readWrite().named("WriteJournal.replay");
+    private static final BookingDAO BOOKINGS = new BookingDAO();
+    private static final PaymentDAO PAYMENTS = new PaymentDAO();
+
+    private static final Object LOCK = new Object();
+    private static MappedByteBuffer buffer;
+    private static int epoch;
+    private static int writeAt;
+    private static int replayedTo;
+    private static int pending;
+    private static Thread replayer;
+    private static final Deque<String> CONFLICTS = new ArrayDeque<>();
+    private static volatile String blocked;
+    // Replayer thread only
+    private static long schemaWaitSince;
+
+    private static final Object WAKE = new Object();
+    private static boolean woken;
+
+    private static final Metrics.Counter QUEUED = Metrics.counter("db.journal.queued");
+    private static final Metrics.Counter REPLAYED = Metrics.counter("db.journal.replayed");
+    private static final Metrics.Counter DUPLICATES = Metrics.counter("db.journal.duplicates");
+    private static final Metrics.Counter CONFLICTED = Metrics.counter("db.journal.conflicts");
+
+    static {
+        Metrics.gauge("db.journal.pending", WriteJournal::pending);
+        Metrics.gauge("db.journal.blocked", () -> blocked != null ? 1 : 0);
+    }
+
+    private WriteJournal() {
+    }
+
+    // ================= OPERATIONS =================
+
+    /** One journaled write. Which fields mean something depends on {@code op}. */
+    static final class Entry {
+        final byte op;
+        final UUID id;
+        final long recordedAt;
+        final int targetId;
+        final int userId;
+        final long when;
+        final double hours;
+        final double amount;
+        final String method;
+        final String transactionId;
+        // Offset of the record after this one, once read back from the file
+        int next;
+
+        Entry(byte op, UUID id, long recordedAt, int targetId, int userId, long when, double hours,
+                double amount, String method, String transactionId) {
+            this.op = op;
+            this.id = id;
+            this.recordedAt = recordedAt;
+            this.targetId = targetId;
+            this.userId = userId;
+            this.when = when;
+            this.hours = hours;
+            this.amount = amount;
+            this.method = method;
+            this.transactionId = transactionId;
+        }
+
+        String operation() {
+            switch (op) {
+                case ARRIVAL:
+                    return "arrival of booking " + targetId;
+                case DEPARTURE:
+                    return "departure of booking " + targetId;
+                case PAYMENT:
+                    return "payment of " + amount + " on payment " + targetId;
+                default:
+                    return "operation " + op;
+            }
+        }
+    }
+
+    static Entry arrival(int bookingId, Timestamp arrivalTime) {
+        return new Entry(ARRIVAL, UUID.randomUUID(), System.currentTimeMillis(), bookingId, 0,
+                arrivalTime.getTime(), 0, 0, null, null);
+    }
+
+    static Entry departure(int bookingId, Timestamp departureTime, double totalHours, double totalAmount) {
+        return new Entry(DEPARTURE, UUID.randomUUID(), System.currentTimeMillis(), bookingId, 0,
+                departureTime.getTime(), totalHours, totalAmount, null, null);
+    }
+
+    static Entry payment(int paymentId, double amount, String paymentMethod, String transactionId, int userId) {
+        return new Entry(PAYMENT, UUID.randomUUID(), System.currentTimeMillis(), paymentId, userId, 0, 0,
+                amount, paymentMethod, transactionId);
+    }
+
+    // ================= WRITING =================
+
+    /**
+     * Run {@code online} against the database, or journal {@code entry} when
+     * the database is unavailable or earlier entries are still waiting (a
+     * checkout must not overtake its own check-in). Inside a UnitOfWork the
+     * write is always online: the unit has to stay atomic. So is every write
+     * while replay is blocked: the database answers, so waiting behind
+     * records that cannot be applied would only lose more.
+     */
+    static boolean write(Entry entry, SingleFlight.SqlCall<Boolean> online) throws SQLException {
+        if (UnitOfWork.inTransaction()) {
+            return online.call();
+        }
+        if (blocked != null || (!WRITE_BEHIND && pending() == 0)) {
+            try {
+                return entry.op == PAYMENT ? UnitOfWork.run(ONLINE, () -> {
+                    mark(UnitOfWork.sharedConnection(), entry);
+                    return online.call();
+                }) : online.call();
+            } catch (SQLException e) {
+                if (!CircuitBreaker.isUnavailable(e)) {
+                    throw e;
+                }
+                try {
+                    append(entry);
+                } catch (SQLException notJournaled) {
+                    e.addSuppressed(notJournaled);
+                    throw e;
+                }
+                LOG.warn("Database unavailable, journaled {}: {}", entry.operation(), e.getMessage());
+                return true;
+            }
+        }
+        append(entry);
+        return true;
+    }
+
+    /**
+     * Records a payment's id in the transaction that applies it online. If
+     * the commit reaches the server but its reply is lost, the call fails as
+     * unavailable and the payment is journaled; replay then finds the id and
+     * skips it instead of adding the amount twice. Arrivals and departures
+     * replay only onto an empty or equal time, so they need no marker. Until
+     * the migration has created the table the marker is left out.
+     */
+    private static void mark(Connection conn, Entry entry) throws SQLException {
+        if (!markerTable) {
+            try (PreparedStatement ps = conn.prepareStatement(MARKER_TABLE_SQL);
+                    ResultSet rs = ps.executeQuery()) {
+                markerTable = rs.next() && rs.getBoolean(1);
+            }
+            if (!markerTable) {
+                return;
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(MARK_SQL)) {
+            ps.setObject(1, entry.id);
+            ps.setString(2, entry.operation());
+            ps.executeUpdate();
+        }
+    }
+
+    private static void append(Entry entry) throws SQLException {
+        synchronized (LOCK) {
+            open();
+            byte[] payload = encode(entry, epoch);
+            int end = writeAt + RECORD_HEADER_BYTES + payload.length;
+            if (end > buffer.capacity()) {
+                throw new SQLException("Write journal " + FILE + " is full with " + pending
+                        + " operations waiting for the database", IO_ERROR);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.putInt(writeAt + 4, (int) crc.getValue());
+            buffer.put(writeAt + RECORD_HEADER_BYTES, payload);
+            // Length last: until it is there, the scan at startup stops short of this record
+            buffer.putInt(writeAt, payload.length);
+            buffer.force(writeAt, end - writeAt);
+            writeAt = end;
+            pending++;
+        }
+        QUEUED.increment();
+        wake();
+    }
+
+    // ================= STATUS =================
+
+    /** Starts replaying whatever an earlier run left in the journal. */
+    public static void start() {
+        synchronized (LOCK) {
+            try {
+                open();
+            } catch (SQLException e) {
+                LOG.error("Write journal unavailable, offline writes will fail: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Journaled operations not yet applied to the database. */
+    public static int pending() {
+        synchronized (LOCK) {
+            return pending;
+        }
+    }
+
+    /**
+     * Why replay cannot apply the oldest waiting record although the database
+     * is reachable, or null while the journal is empty or only waiting for
+     * the database to come back.
+     */
+    public static String blockedReason() {
+        return blocked;
+    }
+
+    /** The most recent operations replay had to skip, oldest first. */
+    public static List<String> conflicts() {
+        synchronized (CONFLICTS) {
+            return new ArrayList<>(CONFLICTS);
+        }
+    }
+
+    // ================= REPLAYING =================
+
+    private static void replayLoop() {
+        while (true) {
+            try {
+                replayPending();
+            } catch (RuntimeException e) {
+                LOG.error("Write journal replay failed", e);
+            }
+            synchronized (WAKE) {
+                try {
+                    if (!woken) {
+                        WAKE.wait(REPLAY_MS);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                woken = false;
+            }
+        }
+    }
+
+    private static void wake() {
+        synchronized (WAKE) {
+            woken = true;
+            WAKE.notifyAll();
+        }
+    }
+
+    private static void replayPending() {
+        while (true) {
+            Entry entry;
+            synchronized (LOCK) {
+                if (pending == 0) {
+                    return;
+                }
+                entry = read(replayedTo);
+                if (entry == null) {
+                    LOG.error("Write journal record at {} is unreadable; {} operation(s) dropped", replayedTo, pending);
+                    pending = 0;
+                    advance(writeAt);
+                    return;
+                }
+            }
+            String conflict;
+            try {
+                conflict = replay(entry);
+            } catch (SQLException e) {
+                // Unreachable again, or V7 not run yet: keep the entry for later
+                if (CircuitBreaker.isUnavailable(e) || waitingForMarkerTable(e)) {
+                    LOG.debug("Write journal replay paused: {}", e.getMessage());
+                    return;
+                }
+                // Skipping would lose the write for a fault in this installation, not in the record
+                if (e.getSQLState() != null && e.getSQLState().startsWith("42")) {
+                    block(entry, e);
+                    return;
+                }
+                conflict = "failed: " + e.getMessage();
+            }
+            schemaWaitSince = 0;
+            if (blocked != null) {
+                blocked = null;
+                LOG.info("Write journal replay resumed");
+            }
+            if (conflict == null) {
+                REPLAYED.increment();
+            } else if (conflict == DUPLICATE) {
+                DUPLICATES.increment();
+            } else {
+                noteConflict(entry, conflict);
+            }
+            synchronized (LOCK) {
+                pending--;
+                advance(entry.next);
+                if (pending == 0) {
+                    LOG.info("Write journal replayed");
+                }
+            }
+        }
+    }
+
+    // The marker row and the write commit or roll back together
+    private static String replay(Entry entry) throws SQLException {
+        return UnitOfWork.run(REPLAY, () -> {
+            Connection conn = UnitOfWork.sharedConnection();
+            try (PreparedStatement ps = conn.prepareStatement(MARK_SQL)) {
+                ps.setObject(1, entry.id);
+                ps.setString(2, entry.operation());
+                if (ps.executeUpdate() == 0) {
+                    return DUPLICATE;
+                }
+            }
+            String conflict;
+            switch (entry.op) {
+                case ARRIVAL:
+                    conflict = BOOKINGS.replayArrival(entry.targetId, new Timestamp(entry.when));
+                    break;
+                case DEPARTURE:
+                    conflict = BOOKINGS.replayDeparture(entry.targetId, new Timestamp(entry.when), entry.hours,
+                            entry.amount);
+                    break;
+                case PAYMENT:
+                    conflict = PAYMENTS.replayUserPayment(entry.targetId, entry.amount, entry.method,
+                            entry.transactionId, entry.userId);
+                    break;
+                default:
+                    conflict = "unknown operation " + entry.op;
+            }
+            if (conflict != null) {
+                try (PreparedStatement ps = conn.prepareStatement(CONFLICT_SQL)) {
+                    ps.setObject(1, entry.id);
+                    ps.executeUpdate();
+                }
+            }
+            return conflict;
+        });
+    }
+
+    private static boolean waitingForMarkerTable(SQLException e) {
+        if (!UNDEFINED_TABLE.equals(e.getSQLState()) || e.getMessage() == null
+                || !e.getMessage().contains(MARKER_TABLE)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (schemaWaitSince == 0) {
+            schemaWaitSince = now;
+        }
+        return now - schemaWaitSince < SCHEMA_WAIT_MS;
+    }
+
+    private static void block(Entry entry, SQLException e) {
+        String reason = UNDEFINED_TABLE.equals(e.getSQLState()) && e.getMessage() != null
+                && e.getMessage().contains(MARKER_TABLE)
+                        ? MARKER_TABLE + " is missing, schema migration V7 has not run"
+                        : e.getMessage() + " (SQLState " + e.getSQLState() + ")";
+        if (!reason.equals(blocked)) {
+            LOG.error("Write journal replay blocked at {} with {} operation(s) waiting: {}; new writes go to"
+                    + " the database directly", entry.operation(), pending(), reason);
+        }
+        blocked = reason;
+    }
+
+    private static void noteConflict(Entry entry, String conflict) {
+        CONFLICTED.increment();
+        String line = new Timestamp(entry.recordedAt) + " " + entry.operation() + " (" + entry.id + "): " + conflict;
+        LOG.warn("Journaled write not applied: {}", line);
+        synchronized (CONFLICTS) {
+            if (CONFLICTS.size() == MAX_CONFLICTS) {
+                CONFLICTS.removeFirst();
+            }
+            CONFLICTS.addLast(line);
+        }
+    }
+
+    // ================= FILE =================
+
+    // Caller holds LOCK
+    private static void open() throws SQLException {
+        if (buffer != null) {
+            return;
+        }
+        try {
+            if (FILE.getParent() != null) {
+                Files.createDirectories(FILE.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(FILE, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), SIZE_BYTES));
+            }
+        } catch (IOException e) {
+            throw new SQLException("Cannot open write journal " + FILE + ": " + e.getMessage(), IO_ERROR, e);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(EPOCH_AT, 1);
+            buffer.putLong(REPLAYED_AT, HEADER_BYTES);
+            buffer.force(0, HEADER_BYTES);
+        } else if (buffer.getInt(4) != VERSION) {
+            int version = buffer.getInt(4);
+            buffer = null;
+            throw new SQLException("Write journal " + FILE + " has format version " + version, IO_ERROR);
+        }
+        epoch = buffer.getInt(EPOCH_AT);
+        replayedTo = (int) buffer.getLong(REPLAYED_AT);
+        writeAt = replayedTo;
+        pending = 0;
+        for (Entry entry = read(writeAt); entry != null; entry = read(writeAt)) {
+            writeAt = entry.next;
+            pending++;
+        }
+        if (pending > 0) {
+            LOG.info("Write journal {} holds {} operation(s) to replay", FILE, pending);
+        }
+
+        replayer = AppExecutors.startDaemon("write-journal-replay", WriteJournal::replayLoop);
+    }
+
+    // Caller holds LOCK. Records the replay position; once nothing is left,
+    // starts the file over under a new epoch.
+    private static void advance(int next) {
+        replayedTo = next;
+        if (pending == 0 && replayedTo == writeAt) {
+            epoch++;
+            buffer.putInt(EPOCH_AT, epoch);
+            replayedTo = HEADER_BYTES;
+            writeAt = HEADER_BYTES;
+        }
+        buffer.putLong(REPLAYED_AT, replayedTo);
+        buffer.force(0, HEADER_BYTES);
+    }
+
+    // Caller holds LOCK. Null past the last complete record of this epoch.
+    private static Entry read(int offset) {
+        if (offset + RECORD_HEADER_BYTES > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length < 4 || length > buffer.capacity() - offset - RECORD_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(offset + RECORD_HEADER_BYTES, length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(offset + 4) || payload.getInt() != epoch) {
+            return null;
+        }
+        Entry entry = new Entry(payload.get(), new UUID(payload.getLong(), payload.getLong()), payload.getLong(),
+                payload.getInt(), payload.getInt(), payload.getLong(), payload.getDouble(), payload.getDouble(),
+                getString(payload), getString(payload));
+        entry.next = offset + RECORD_HEADER_BYTES + length;
+        return entry;
+    }
+
+    private static byte[] encode(Entry entry, int epoch) {
+        byte[] method = entry.method != null ? entry.method.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] transactionId = entry.transactionId != null
+                ? entry.transactionId.getBytes(StandardCharsets.UTF_8)
+                : null;
+        ByteBuffer out = ByteBuffer.allocate(4 + 1 + 16 + 8 + 4 + 4 + 8 + 8 + 8
+                + 4 + (method != null ? method.length : 0) + 4 + (transactionId != null ? transactionId.length : 0));
+        out.putInt(epoch)
+                .put(entry.op)
+                .putLong(entry.id.getMostSignificantBits())
+                .putLong(entry.id.getLeastSignificantBits())
+                .putLong(entry.recordedAt)
+                .putInt(entry.targetId)
+                .putInt(entry.userId)
+                .putLong(entry.when)
+                .putDouble(entry.hours)
+                .putDouble(entry.amount);
+        putString(out, method);
+        putString(out, transactionId);
+        return out.array();
+    }
+
+    private static void putString(ByteBuffer out, byte[] utf8) {
+        if (utf8 == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(utf8.length).put(utf8);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
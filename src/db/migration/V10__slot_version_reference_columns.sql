@@ -0,0 +1,15 @@
+-- Keep bookings off the 'slots' counter row of V9.
+--
+-- Creating, approving, rejecting and deleting a booking all change a slot's
+-- status, so with the V9 trigger every booking on every terminal queued on
+-- that one row until commit, and concurrent SERIALIZABLE bookings for
+-- different slots failed with 40001. The snapshot only needs to know when
+-- the slot list itself changes: slots added or removed, renumbered, moved
+-- to another type or zone. Status and the occupying user are not counted;
+-- terminals load availability live (ParkingSlotDAO.findAvailableSlots).
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_parking_slot;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR DELETE OR TRUNCATE OR UPDATE OF parking_slot_id, parking_slot_number, slot_type, zone
+    ON inet_vehicleparking.tbl_parking_slot
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('slots');
@@ -0,0 +1,24 @@
+-- migrate:no-transaction
+-- Indexes behind BookingDAO lookups. Built CONCURRENTLY so bookings can
+-- still be written while a large table is indexed.
+
+-- findByCustomerId: WHERE customer_id = ? ORDER BY booking_time DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_customer_time
+    ON inet_vehicleparking.tbl_booking (customer_id, booking_time DESC);
+
+-- findByUserId, countBookingsByUser: WHERE user_id = ? ORDER BY booking_time DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_user_time
+    ON inet_vehicleparking.tbl_booking (user_id, booking_time DESC);
+
+-- findByStatus, countBookingsByStatus: WHERE booking_status = ? ORDER BY booking_time DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_status_time
+    ON inet_vehicleparking.tbl_booking (booking_status, booking_time DESC);
+
+-- findAll: ORDER BY booking_time DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_time
+    ON inet_vehicleparking.tbl_booking (booking_time DESC);
+
+-- isVehicleAvailableForBooking: WHERE vehicle_id = ? AND booking_status IN (1, 2)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_vehicle_active
+    ON inet_vehicleparking.tbl_booking (vehicle_id)
+    WHERE booking_status IN (1, 2);
@@ -0,0 +1,15 @@
+-- migrate:no-transaction
+-- Indexes behind PaymentDAO lookups.
+
+-- findByBookingId: WHERE booking_id = ?
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_booking
+    ON inet_vehicleparking.tbl_payment (booking_id);
+
+-- findByUserId: WHERE user_id = ? ORDER BY payment_id DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_user_id_desc
+    ON inet_vehicleparking.tbl_payment (user_id, payment_id DESC);
+
+-- getUserPendingPayments: user_id = ? AND payment_status IN (APPROVED_UNPAID, PARTIAL)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_user_outstanding
+    ON inet_vehicleparking.tbl_payment (user_id, payment_id DESC)
+    WHERE payment_status IN (1, 3);
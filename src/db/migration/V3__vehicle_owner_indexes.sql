@@ -0,0 +1,15 @@
+-- migrate:no-transaction
+-- Indexes behind VehicleDAO and VehicleOwnerDAO lookups.
+
+-- findByOwnerId, findByVehicleOwnerId, countVehiclesByOwner:
+-- WHERE vehicle_owner_id = ? ORDER BY vehicle_plate_number
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vehicle_owner_plate
+    ON inet_vehicleparking.tbl_vehicle (vehicle_owner_id, vehicle_plate_number);
+
+-- findByPlateNumber, existsByPlateNumber: WHERE vehicle_plate_number = ?
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vehicle_plate
+    ON inet_vehicleparking.tbl_vehicle (vehicle_plate_number);
+
+-- findOwnerIdByUserId, findByUserId, getVehicleOwnerIdForUser: WHERE user_id = ?
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_owner_user
+    ON inet_vehicleparking.tbl_vehicle_owner (user_id);
@@ -0,0 +1,12 @@
+-- migrate:no-transaction
+-- Indexes behind ParkingSlotDAO lookups. The slot table is small, but the
+-- available-slot query runs on every booking screen refresh.
+
+-- findAvailableSlots, countByStatus: WHERE parking_slot_status = ? ORDER BY parking_slot_number
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_slot_status_number
+    ON inet_vehicleparking.tbl_parking_slot (parking_slot_status, parking_slot_number);
+
+-- findByUserId: WHERE user_id = ? ORDER BY parking_slot_number
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_slot_user_number
+    ON inet_vehicleparking.tbl_parking_slot (user_id, parking_slot_number)
+    WHERE user_id IS NOT NULL;
@@ -0,0 +1,28 @@
+-- migrate:no-transaction
+-- pg_trgm indexes behind CustomerSearchDAO, UserDAO.search,
+-- VehicleOwnerDAO.search and VehicleDAO.searchByPlateNumber.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_fullname_trgm
+    ON inet_vehicleparking.tbl_user USING gin (fullname gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_username_trgm
+    ON inet_vehicleparking.tbl_user USING gin (username gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_email_trgm
+    ON inet_vehicleparking.tbl_user USING gin (email gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_owner_name_trgm
+    ON inet_vehicleparking.tbl_vehicle_owner USING gin (vehicle_owner_name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_owner_contact_trgm
+    ON inet_vehicleparking.tbl_vehicle_owner USING gin (vehicle_owner_contact gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_owner_email_trgm
+    ON inet_vehicleparking.tbl_vehicle_owner USING gin (vehicle_owner_email gin_trgm_ops);
+
+-- Must stay identical to PlateNumbers.SQL_NORMALIZED_PLATE or the planner
+-- will not use it
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vehicle_plate_norm_trgm
+    ON inet_vehicleparking.tbl_vehicle
+    USING gin ((upper(regexp_replace(vehicle_plate_number, '[[:space:].-]', '', 'g'))) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_booking_ref_trgm
+    ON inet_vehicleparking.tbl_booking USING gin (booking_ref gin_trgm_ops);
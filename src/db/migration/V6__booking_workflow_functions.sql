@@ -0,0 +1,153 @@
+-- Server-side approve / reject / delete for BookingDAO, so each flow is one
+-- round-trip and its row locks are held only while the function runs.
+--
+-- Validation failures are not raised: the function returns before writing
+-- anything and reports why in "outcome", which BookingDAO turns into a
+-- BookingStateException. 'OK' means every write was done.
+--
+-- Status codes match models.Booking and models.ParkingSlot:
+-- booking PENDING=0, APPROVED=1, REJECTED=2; slot AVAILABLE=0, OCCUPIED=2.
+
+-- Same rules as BookingDAO.calculateAmountFromDuration: $5/hour, $50/day,
+-- minutes pro rata with a $2 minimum, $5 for anything unreadable
+CREATE OR REPLACE FUNCTION inet_vehicleparking.booking_price(p_duration text)
+RETURNS numeric
+LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    v_lower  text := lower(coalesce(p_duration, ''));
+    v_first  text := split_part(coalesce(p_duration, ''), ' ', 1);
+    v_amount numeric;
+BEGIN
+    IF v_lower = '' OR v_first !~ '^[+-]?([0-9]+\.?[0-9]*|\.[0-9]+)([eE][+-]?[0-9]+)?$' THEN
+        RETURN 5.00;
+    END IF;
+    v_amount := v_first::numeric;
+    IF v_lower LIKE '%hour%' THEN
+        RETURN v_amount * 5.00;
+    ELSIF v_lower LIKE '%day%' THEN
+        RETURN v_amount * 50.00;
+    ELSIF v_lower LIKE '%minute%' THEN
+        RETURN greatest(v_amount / 60.0 * 5.00, 2.00);
+    END IF;
+    RETURN 5.00;
+END
+$$;
+
+-- outcome: OK, BOOKING_NOT_FOUND, ALREADY_APPROVED, NOT_PENDING,
+-- SLOT_NOT_FOUND, SLOT_OCCUPIED
+CREATE OR REPLACE FUNCTION inet_vehicleparking.approve_booking(p_booking_id integer,
+        OUT outcome text, OUT booking_status integer, OUT slot_id integer, OUT amount_due numeric)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_booking     record;
+    v_slot_status integer;
+BEGIN
+    SELECT b.slot_id, b.booking_status, b.user_id, b.duration_of_booking
+      INTO v_booking
+      FROM inet_vehicleparking.tbl_booking b
+     WHERE b.booking_id = p_booking_id
+       FOR UPDATE;
+    IF NOT FOUND THEN
+        outcome := 'BOOKING_NOT_FOUND';
+        RETURN;
+    END IF;
+    booking_status := v_booking.booking_status;
+    slot_id := v_booking.slot_id;
+
+    IF v_booking.booking_status = 1 THEN
+        outcome := 'ALREADY_APPROVED';
+        RETURN;
+    ELSIF v_booking.booking_status <> 0 THEN
+        outcome := 'NOT_PENDING';
+        RETURN;
+    END IF;
+
+    SELECT s.parking_slot_status
+      INTO v_slot_status
+      FROM inet_vehicleparking.tbl_parking_slot s
+     WHERE s.parking_slot_id = v_booking.slot_id
+       FOR UPDATE;
+    IF NOT FOUND THEN
+        outcome := 'SLOT_NOT_FOUND';
+        RETURN;
+    ELSIF v_slot_status = 2 THEN
+        outcome := 'SLOT_OCCUPIED';
+        RETURN;
+    END IF;
+
+    UPDATE inet_vehicleparking.tbl_booking b
+       SET booking_status = 1
+     WHERE b.booking_id = p_booking_id;
+
+    UPDATE inet_vehicleparking.tbl_parking_slot s
+       SET parking_slot_status = 2
+     WHERE s.parking_slot_id = v_booking.slot_id;
+
+    amount_due := inet_vehicleparking.booking_price(v_booking.duration_of_booking);
+    INSERT INTO inet_vehicleparking.tbl_payment
+           (booking_id, user_id, amount_due, amount_paid, payment_status, remarks, payment_date)
+    VALUES (p_booking_id, v_booking.user_id, amount_due, 0.0, 1, 'Payment pending for approved booking', NULL);
+
+    booking_status := 1;
+    outcome := 'OK';
+END
+$$;
+
+-- outcome: OK, BOOKING_NOT_FOUND. Like the stepwise version, any status can
+-- be rejected and the slot is freed.
+CREATE OR REPLACE FUNCTION inet_vehicleparking.reject_booking(p_booking_id integer,
+        OUT outcome text, OUT slot_id integer)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_slot_id integer;
+BEGIN
+    UPDATE inet_vehicleparking.tbl_booking b
+       SET booking_status = 2
+     WHERE b.booking_id = p_booking_id
+    RETURNING b.slot_id INTO v_slot_id;
+    IF NOT FOUND THEN
+        outcome := 'BOOKING_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    UPDATE inet_vehicleparking.tbl_parking_slot s
+       SET parking_slot_status = 0, user_id = NULL
+     WHERE s.parking_slot_id = v_slot_id;
+
+    slot_id := v_slot_id;
+    outcome := 'OK';
+END
+$$;
+
+-- outcome: OK, BOOKING_NOT_FOUND. The slot is freed only when the booking
+-- was still holding it (PENDING or APPROVED).
+CREATE OR REPLACE FUNCTION inet_vehicleparking.delete_booking(p_booking_id integer,
+        OUT outcome text, OUT slot_id integer, OUT slot_freed boolean)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_slot_id integer;
+    v_status  integer;
+BEGIN
+    DELETE FROM inet_vehicleparking.tbl_booking b
+     WHERE b.booking_id = p_booking_id
+    RETURNING b.slot_id, b.booking_status INTO v_slot_id, v_status;
+    IF NOT FOUND THEN
+        outcome := 'BOOKING_NOT_FOUND';
+        slot_freed := false;
+        RETURN;
+    END IF;
+
+    slot_freed := v_status IN (0, 1);
+    IF slot_freed THEN
+        UPDATE inet_vehicleparking.tbl_parking_slot s
+           SET parking_slot_status = 0, user_id = NULL
+         WHERE s.parking_slot_id = v_slot_id;
+    END IF;
+
+    slot_id := v_slot_id;
+    outcome := 'OK';
+END
+$$;
@@ -0,0 +1,15 @@
+-- Operations replayed from a terminal's offline write journal (dao.WriteJournal).
+--
+-- Each journaled arrival, departure or payment carries a random id. Replay
+-- inserts the id in the same transaction as the write, so an operation that
+-- was applied before the terminal crashed, or that reaches the database from
+-- a copied journal, is skipped instead of applied twice.
+--
+-- outcome: APPLIED, or CONFLICT when the row had changed in a way the
+-- journaled operation must not overwrite.
+CREATE TABLE IF NOT EXISTS inet_vehicleparking.tbl_write_journal_applied (
+    journal_id  uuid PRIMARY KEY,
+    operation   text NOT NULL,
+    outcome     text NOT NULL DEFAULT 'APPLIED',
+    applied_at  timestamptz NOT NULL DEFAULT now()
+);
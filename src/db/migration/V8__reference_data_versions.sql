@@ -0,0 +1,43 @@
+-- Change counters behind dao.ReferenceSnapshot, so a terminal can tell with
+-- one cheap query which reference tables changed since its local snapshot.
+--
+-- Every statement that writes to a table advances that table's sequence.
+-- Sequences are not transactional: a rolled-back write still advances it
+-- (costing one needless reload) and a write never waits on another
+-- terminal's counter. A change that is still uncommitted while a terminal
+-- reloads is picked up at the table's next change; panels load live data
+-- after their first paint anyway.
+
+CREATE SEQUENCE IF NOT EXISTS inet_vehicleparking.ref_version_slots;
+CREATE SEQUENCE IF NOT EXISTS inet_vehicleparking.ref_version_categories;
+CREATE SEQUENCE IF NOT EXISTS inet_vehicleparking.ref_version_user_groups;
+CREATE SEQUENCE IF NOT EXISTS inet_vehicleparking.ref_version_vehicles;
+
+CREATE OR REPLACE FUNCTION inet_vehicleparking.bump_reference_version()
+RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM nextval(TG_ARGV[0]::regclass);
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_parking_slot;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_parking_slot
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('inet_vehicleparking.ref_version_slots');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_vehicle_category;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_vehicle_category
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('inet_vehicleparking.ref_version_categories');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_user_group;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_user_group
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('inet_vehicleparking.ref_version_user_groups');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_vehicle;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_vehicle
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('inet_vehicleparking.ref_version_vehicles');
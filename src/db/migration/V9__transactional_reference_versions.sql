@@ -0,0 +1,66 @@
+-- Change counters behind dao.ReferenceSnapshot, now bumped inside the
+-- writing transaction.
+--
+-- The V8 sequences advanced when a write ran, not when it committed. A
+-- terminal that reloaded a table in between stored the new counter next to
+-- the old rows and kept them until the table changed again. A row update
+-- commits or rolls back with the write it counts, so a counter a terminal
+-- can see always comes with the rows it counts.
+--
+-- The cost: writers of the same reference table queue on its counter row
+-- until they commit. Writes to these tables are single short statements
+-- or V6 function calls.
+
+CREATE TABLE IF NOT EXISTS inet_vehicleparking.tbl_reference_version (
+    table_name VARCHAR(64) PRIMARY KEY,
+    version    BIGINT NOT NULL
+);
+
+-- Start past every V8 counter, so no snapshot taken under V8 matches
+INSERT INTO inet_vehicleparking.tbl_reference_version (table_name, version)
+SELECT 'slots', CASE WHEN is_called THEN last_value ELSE 0 END + 1 FROM inet_vehicleparking.ref_version_slots
+UNION ALL
+SELECT 'categories', CASE WHEN is_called THEN last_value ELSE 0 END + 1 FROM inet_vehicleparking.ref_version_categories
+UNION ALL
+SELECT 'user_groups', CASE WHEN is_called THEN last_value ELSE 0 END + 1 FROM inet_vehicleparking.ref_version_user_groups
+UNION ALL
+SELECT 'vehicles', CASE WHEN is_called THEN last_value ELSE 0 END + 1 FROM inet_vehicleparking.ref_version_vehicles
+ON CONFLICT (table_name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION inet_vehicleparking.bump_reference_version()
+RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE inet_vehicleparking.tbl_reference_version
+    SET version = version + 1
+    WHERE table_name = TG_ARGV[0];
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_parking_slot;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_parking_slot
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('slots');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_vehicle_category;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_vehicle_category
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('categories');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_user_group;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_user_group
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('user_groups');
+
+DROP TRIGGER IF EXISTS trg_reference_version ON inet_vehicleparking.tbl_vehicle;
+CREATE TRIGGER trg_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON inet_vehicleparking.tbl_vehicle
+    FOR EACH STATEMENT EXECUTE FUNCTION inet_vehicleparking.bump_reference_version('vehicles');
+
+-- Nothing advances these any more; a terminal still reading them gets
+-- 42P01 and reloads everything on each check instead of trusting them
+DROP SEQUENCE IF EXISTS inet_vehicleparking.ref_version_slots;
+DROP SEQUENCE IF EXISTS inet_vehicleparking.ref_version_categories;
+DROP SEQUENCE IF EXISTS inet_vehicleparking.ref_version_user_groups;
+DROP SEQUENCE IF EXISTS inet_vehicleparking.ref_version_vehicles;
@@ -0,0 +1,40 @@
+package models;
+
+/**
+ * One row of the admin "find customer" search: the vehicle owner plus the
+ * field that matched best.
+ */
+public class CustomerMatch {
+    // Which field produced the match
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_PHONE = "phone";
+    public static final String FIELD_EMAIL = "email";
+    public static final String FIELD_ACCOUNT = "account";
+    public static final String FIELD_PLATE = "plate";
+    public static final String FIELD_BOOKING_REF = "booking_ref";
+
+    private VehicleOwner owner;
+    private String matchedField;
+    private String matchedValue;
+    private double score;
+
+    public CustomerMatch() {}
+
+    public VehicleOwner getOwner() { return owner; }
+    public void setOwner(VehicleOwner owner) { this.owner = owner; }
+
+    public String getMatchedField() { return matchedField; }
+    public void setMatchedField(String matchedField) { this.matchedField = matchedField; }
+
+    public String getMatchedValue() { return matchedValue; }
+    public void setMatchedValue(String matchedValue) { this.matchedValue = matchedValue; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    @Override
+    public String toString() {
+        String name = owner != null ? owner.getVehicleOwnerName() : "?";
+        return name + " (" + matchedField + ": " + matchedValue + ")";
+    }
+}
@@ -0,0 +1,401 @@
+package tools;
+
+import dao.BookingDAO;
+import dao.CustomerSearchDAO;
+import dao.ParkingSlotDAO;
+import dao.PaymentDAO;
+import dao.UserDAO;
+import dao.UserGroupDAO;
+import dao.VehicleCategoryDAO;
+import dao.VehicleDAO;
+import dao.VehicleOwnerDAO;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import models.Booking;
+import models.ParkingSlot;
+
+/**
+ * Named registry of the statements the DAO classes send to the database.
+ *
+ * Each entry is a call into a real DAO method. The DAOs here are wired to a
+ * {@link StatementRecorder}, so running an entry captures the SQL and
+ * parameters the method would send without touching the database. Adding a
+ * DAO method to the audit means registering one line here; the SQL itself is
+ * never copied.
+ *
+ * Writes are registered too: QueryPlanAudit explains them inside a rolled-back
+ * transaction like everything else. Calls that open their own UnitOfWork are
+ * left out, because the unit takes its connection from DatabaseConnection
+ * rather than from the DAO.
+ */
+public class DaoStatementCatalog {
+
+    /** A DAO call, given sample ids from the target database. */
+    @FunctionalInterface
+    public interface DaoCall {
+        void run(Samples s) throws SQLException;
+    }
+
+    public static final class Entry {
+        private final String name;
+        private final long budgetMs;
+        private final boolean fullScan;
+        private final boolean write;
+        private final DaoCall call;
+
+        Entry(String name, long budgetMs, boolean fullScan, boolean write, DaoCall call) {
+            this.name = name;
+            this.budgetMs = budgetMs;
+            this.fullScan = fullScan;
+            this.write = write;
+            this.call = call;
+        }
+
+        public String getName() { return name; }
+
+        /** Execution time allowed for each statement of this call. */
+        public long getBudgetMs() { return budgetMs; }
+
+        /** True when the call reads the whole table by design (findAll, counts). */
+        public boolean isFullScan() { return fullScan; }
+
+        /** True when the call changes rows; its statements are only ever explained and rolled back. */
+        public boolean isWrite() { return write; }
+    }
+
+    /** Realistic parameter values picked from the target database. */
+    public static final class Samples {
+        public int bookingId = 1;
+        public int customerId = 1;
+        public int userId = 1;
+        public int paymentId = 1;
+        public int paymentBookingId = 1;
+        public int vehicleId = 1;
+        public int ownerId = 1;
+        public int ownerUserId = 1;
+        public int slotId = 1;
+        public int slotNumber = 1;
+        public int categoryId = 1;
+        public int userGroupId = 1;
+        public String plate = "";
+        public String ownerEmail = "";
+        public String ownerContact = "";
+        public String username = "";
+        public String searchTerm = "";
+
+        /**
+         * Busiest customer and user (worst case for per-customer lists),
+         * newest rows for point lookups.
+         */
+        public static Samples load(Connection conn) throws SQLException {
+            Samples s = new Samples();
+            String schema = "inet_vehicleparking.";
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("SELECT customer_id FROM " + schema + "tbl_booking"
+                        + " WHERE customer_id IS NOT NULL GROUP BY customer_id ORDER BY count(*) DESC LIMIT 1")) {
+                    if (rs.next()) s.customerId = rs.getInt(1);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT user_id FROM " + schema + "tbl_booking"
+                        + " WHERE user_id IS NOT NULL GROUP BY user_id ORDER BY count(*) DESC LIMIT 1")) {
+                    if (rs.next()) s.userId = rs.getInt(1);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT max(booking_id) FROM " + schema + "tbl_booking")) {
+                    if (rs.next()) s.bookingId = rs.getInt(1);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT payment_id, booking_id FROM " + schema + "tbl_payment"
+                        + " ORDER BY payment_id DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        s.paymentId = rs.getInt(1);
+                        s.paymentBookingId = rs.getInt(2);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT vehicle_id, vehicle_plate_number, vehicle_owner_id, "
+                        + "vehicle_category_id FROM " + schema + "tbl_vehicle ORDER BY vehicle_id DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        s.vehicleId = rs.getInt(1);
+                        s.plate = rs.getString(2);
+                        s.ownerId = rs.getInt(3);
+                        s.categoryId = rs.getInt(4);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT vehicle_owner_email, vehicle_owner_contact, "
+                        + "vehicle_owner_name, user_id FROM " + schema + "tbl_vehicle_owner"
+                        + " WHERE user_id IS NOT NULL ORDER BY vehicle_owner_id DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        s.ownerEmail = rs.getString(1);
+                        s.ownerContact = rs.getString(2);
+                        String name = rs.getString(3);
+                        s.searchTerm = name != null && name.length() > 4 ? name.substring(0, 4) : name;
+                        s.ownerUserId = rs.getInt(4);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT username, user_group_id FROM " + schema + "tbl_user"
+                        + " ORDER BY user_id DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        s.username = rs.getString(1);
+                        s.userGroupId = rs.getInt(2);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT parking_slot_id, parking_slot_number FROM " + schema
+                        + "tbl_parking_slot ORDER BY parking_slot_id DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        s.slotId = rs.getInt(1);
+                        s.slotNumber = rs.getInt(2);
+                    }
+                }
+            }
+            if (s.plate == null) s.plate = "";
+            if (s.searchTerm == null) s.searchTerm = "";
+            return s;
+        }
+    }
+
+    private final StatementRecorder recorder = new StatementRecorder();
+    private final List<Entry> entries = new ArrayList<>();
+
+    // Every DAO talks to the recorder instead of the database
+    private final BookingDAO bookingDAO = new BookingDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final ParkingSlotDAO slotDAO = new ParkingSlotDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final PaymentDAO paymentDAO = new PaymentDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final VehicleDAO vehicleDAO = new VehicleDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final VehicleOwnerDAO ownerDAO = new VehicleOwnerDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final UserDAO userDAO = new UserDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final UserGroupDAO groupDAO = new UserGroupDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final VehicleCategoryDAO categoryDAO = new VehicleCategoryDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+    private final CustomerSearchDAO searchDAO = new CustomerSearchDAO() {
+        @Override
+        protected Connection getConnection() {
+            return recorder.connection();
+        }
+
+        @Override
+        protected Connection openReadConnection() {
+            return recorder.connection();
+        }
+    };
+
+    public DaoStatementCatalog() {
+        registerBookings();
+        registerSlots();
+        registerPayments();
+        registerVehicles();
+        registerOwners();
+        registerUsers();
+    }
+
+    // ================= REGISTRY =================
+
+    private void register(String name, long budgetMs, DaoCall call) {
+        entries.add(new Entry(name, budgetMs, false, false, call));
+    }
+
+    private void registerFullScan(String name, long budgetMs, DaoCall call) {
+        entries.add(new Entry(name, budgetMs, true, false, call));
+    }
+
+    private void registerWrite(String name, long budgetMs, DaoCall call) {
+        entries.add(new Entry(name, budgetMs, false, true, call));
+    }
+
+    public List<Entry> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /** Statements the entry's DAO call sends, in order. */
+    public List<StatementRecorder.Captured> capture(Entry entry, Samples samples) throws SQLException {
+        recorder.take();
+        try {
+            entry.call.run(samples);
+        } catch (SQLException e) {
+            // A write finds no rows in the dry run and may give up after its
+            // first statement; what it sent up to there is still worth auditing
+            List<StatementRecorder.Captured> partial = recorder.take();
+            if (!entry.write || partial.isEmpty()) {
+                throw e;
+            }
+            return partial;
+        }
+        return recorder.take();
+    }
+
+    private void registerBookings() {
+        register("BookingDAO.findById", 5, s -> bookingDAO.findById(s.bookingId));
+        register("BookingDAO.findByUserId", 50, s -> bookingDAO.findByUserId(s.userId));
+        register("BookingDAO.findByCustomerId", 50, s -> bookingDAO.findByCustomerId(s.customerId));
+        register("BookingDAO.findPendingBookings", 200, s -> bookingDAO.findPendingBookings());
+        register("BookingDAO.countBookingsByStatus", 200,
+                s -> bookingDAO.countBookingsByStatus(Booking.STATUS_PENDING));
+        register("BookingDAO.countBookingsByUser", 20, s -> bookingDAO.countBookingsByUser(s.userId));
+        registerFullScan("BookingDAO.findAll", 5000, s -> bookingDAO.findAll());
+        registerFullScan("BookingDAO.countBookings", 2000, s -> bookingDAO.countBookings());
+        registerWrite("BookingDAO.updateBookingStatus", 5,
+                s -> bookingDAO.updateBookingStatus(s.bookingId, Booking.STATUS_PENDING));
+        registerWrite("BookingDAO.createBookingWithSlotUpdate", 20,
+                s -> bookingDAO.createBookingWithSlotUpdate(sampleBooking(s)));
+        registerWrite("BookingDAO.approveBookingNow", 20, s -> bookingDAO.approveBookingNow(s.bookingId, s.userId));
+        registerWrite("BookingDAO.rejectBooking", 20, s -> bookingDAO.rejectBooking(s.bookingId));
+        registerWrite("BookingDAO.delete", 20, s -> bookingDAO.delete(s.bookingId));
+    }
+
+    private static Booking sampleBooking(Samples s) {
+        Booking booking = new Booking();
+        booking.setCustomerId(s.customerId);
+        booking.setVehicleId(s.vehicleId);
+        booking.setSlotId(s.slotId);
+        booking.setUserId(s.userId);
+        booking.setDurationOfBooking(Booking.DURATION_1H);
+        booking.setRemarks("query plan audit");
+        return booking;
+    }
+
+    private void registerSlots() {
+        register("ParkingSlotDAO.findAvailableSlots", 20, s -> slotDAO.findAvailableSlots());
+        register("ParkingSlotDAO.countByStatus", 20, s -> slotDAO.countByStatus(ParkingSlot.STATUS_AVAILABLE));
+        register("ParkingSlotDAO.findBySlotNumber", 5, s -> slotDAO.findBySlotNumber(s.slotNumber));
+        register("ParkingSlotDAO.findByUserId", 10, s -> slotDAO.findByUserId(s.userId));
+        registerFullScan("ParkingSlotDAO.findAll", 100, s -> slotDAO.findAll());
+        registerFullScan("ParkingSlotDAO.countSlots", 50, s -> slotDAO.countSlots());
+        registerWrite("ParkingSlotDAO.updateStatus", 5,
+                s -> slotDAO.updateStatus(s.slotId, ParkingSlot.STATUS_RESERVED, s.userId));
+        registerWrite("ParkingSlotDAO.reserveSlot", 5, s -> slotDAO.reserveSlot(s.slotId, s.userId));
+        registerWrite("ParkingSlotDAO.releaseSlot", 5, s -> slotDAO.releaseSlot(s.slotId));
+    }
+
+    private void registerPayments() {
+        register("PaymentDAO.findById", 5, s -> paymentDAO.findById(s.paymentId));
+        register("PaymentDAO.findByBookingId", 5, s -> paymentDAO.findByBookingId(s.paymentBookingId));
+        register("PaymentDAO.findByUserId", 50, s -> paymentDAO.findByUserId(s.userId));
+        register("PaymentDAO.getUserPendingPayments", 50, s -> paymentDAO.getUserPendingPayments(s.userId));
+        registerFullScan("PaymentDAO.findAll", 5000, s -> paymentDAO.findAll());
+        registerFullScan("PaymentDAO.getAllPaymentsForAdmin", 10000, s -> paymentDAO.getAllPaymentsForAdmin());
+    }
+
+    private void registerVehicles() {
+        register("VehicleDAO.findById", 5, s -> vehicleDAO.findById(s.vehicleId));
+        register("VehicleDAO.findByIdWithDetails", 5, s -> vehicleDAO.findByIdWithDetails(s.vehicleId));
+        register("VehicleDAO.findByPlateNumber", 5, s -> vehicleDAO.findByPlateNumber(s.plate));
+        register("VehicleDAO.existsByPlateNumber", 5, s -> vehicleDAO.existsByPlateNumber(s.plate));
+        register("VehicleDAO.findByOwnerId", 10, s -> vehicleDAO.findByOwnerId(s.ownerId));
+        register("VehicleDAO.countVehiclesByOwner", 5, s -> vehicleDAO.countVehiclesByOwner(s.ownerId));
+        register("VehicleDAO.findByUserId", 20, s -> vehicleDAO.findByUserId(s.ownerUserId));
+        register("VehicleDAO.getVehicleOwnerIdForUser", 5, s -> vehicleDAO.getVehicleOwnerIdForUser(s.ownerUserId));
+        register("VehicleDAO.isVehicleAvailableForBooking", 5,
+                s -> vehicleDAO.isVehicleAvailableForBooking(s.vehicleId));
+        register("VehicleDAO.searchByPlateNumber", 50,
+                s -> vehicleDAO.searchByPlateNumber(s.plate.length() > 3 ? s.plate.substring(0, 3) : s.plate, 10));
+        register("VehicleDAO.findByCategoryId", 500, s -> vehicleDAO.findByCategoryId(s.categoryId));
+        registerFullScan("VehicleDAO.findAll", 3000, s -> vehicleDAO.findAll());
+        registerFullScan("VehicleDAO.countVehicles", 1000, s -> vehicleDAO.countVehicles());
+        registerFullScan("VehicleCategoryDAO.findAll", 20, s -> categoryDAO.findAll());
+    }
+
+    private void registerOwners() {
+        register("VehicleOwnerDAO.findById", 5, s -> ownerDAO.findById(s.ownerId));
+        register("VehicleOwnerDAO.findByUserId", 5, s -> ownerDAO.findByUserId(s.ownerUserId));
+        register("VehicleOwnerDAO.findByEmail", 5, s -> ownerDAO.findByEmail(s.ownerEmail));
+        register("VehicleOwnerDAO.findByContact", 5, s -> ownerDAO.findByContact(s.ownerContact));
+        register("VehicleOwnerDAO.search", 100, s -> ownerDAO.search(s.searchTerm, 50));
+        register("CustomerSearchDAO.findCustomers", 200, s -> searchDAO.findCustomers(s.searchTerm));
+        registerFullScan("VehicleOwnerDAO.findAll", 3000, s -> ownerDAO.findAll());
+        registerFullScan("VehicleOwnerDAO.findActiveOwners", 3000, s -> ownerDAO.findActiveOwners());
+        registerFullScan("VehicleOwnerDAO.countOwners", 1000, s -> ownerDAO.countOwners());
+    }
+
+    private void registerUsers() {
+        register("UserDAO.findById", 5, s -> userDAO.findById(s.userId));
+        register("UserDAO.login", 5, s -> userDAO.login(s.username, "audit-not-a-password"));
+        register("UserDAO.usernameExists", 5, s -> userDAO.usernameExists(s.username));
+        register("UserDAO.findByUsernameOrEmail", 5, s -> userDAO.findByUsernameOrEmail(s.username));
+        register("UserDAO.search", 100, s -> userDAO.search(s.searchTerm, 50));
+        register("UserDAO.findByUserGroupId", 500, s -> userDAO.findByUserGroupId(s.userGroupId));
+        registerFullScan("UserDAO.findAll", 3000, s -> userDAO.findAll());
+        registerFullScan("UserDAO.countUsers", 1000, s -> userDAO.countUsers());
+        registerFullScan("UserGroupDAO.findAll", 20, s -> groupDAO.findAll());
+        registerWrite("UserDAO.setStatus", 5, s -> userDAO.setStatus(s.userId, 1));
+    }
+}
@@ -0,0 +1,101 @@
+package tools;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import utils.DatabaseConnection;
+import utils.DatabaseHosts;
+
+/**
+ * Measures how long the application cannot write while the primary is
+ * switched over, e.g. two local instances in streaming replication where you
+ * stop the primary and run {@code pg_ctl promote} on the standby mid-drill.
+ *
+ * Every interval it opens a connection the way the DAOs do and runs a
+ * statement that only a primary accepts. Each outage is printed with the
+ * host before and after and how long it lasted; the summary gives the
+ * longest one.
+ *
+ * Usage: {@code java -cp bin:lib/* -Ddb.hosts=localhost:5432,localhost:5433
+ * tools.FailoverDrill [--duration=SECONDS] [--interval-ms=N]}
+ */
+public class FailoverDrill {
+
+    private int durationSeconds = 120;
+    private long intervalMs = 100;
+
+    public static void main(String[] args) throws Exception {
+        FailoverDrill drill = new FailoverDrill();
+        drill.parseArgs(args);
+        drill.run();
+        System.exit(0);
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--duration=")) {
+                durationSeconds = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--interval-ms=")) {
+                intervalMs = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+    }
+
+    private void run() throws InterruptedException {
+        long end = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        long outageStart = -1;
+        String hostBefore = null;
+        String lastError = null;
+        List<Long> outages = new ArrayList<>();
+        long probes = 0;
+        long failures = 0;
+
+        System.out.printf("Failover drill: %d s, one write check every %d ms%n", durationSeconds, intervalMs);
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+            probes++;
+            try {
+                checkWritable();
+                if (outageStart >= 0) {
+                    long millis = (System.nanoTime() - outageStart) / 1_000_000;
+                    outages.add(millis);
+                    System.out.printf("  writable again after %,d ms: %s -> %s (last error: %s)%n",
+                            millis, hostBefore, DatabaseHosts.currentPrimary(), lastError);
+                    outageStart = -1;
+                }
+                hostBefore = DatabaseHosts.currentPrimary();
+            } catch (SQLException e) {
+                failures++;
+                lastError = e.getMessage();
+                if (outageStart < 0) {
+                    outageStart = now;
+                    System.out.printf("  not writable on %s: %s%n", hostBefore, e.getMessage());
+                }
+            }
+            Thread.sleep(intervalMs);
+        }
+
+        if (outageStart >= 0) {
+            System.out.printf("  still not writable after %,d ms%n", (System.nanoTime() - outageStart) / 1_000_000);
+        }
+        long longest = outages.stream().mapToLong(Long::longValue).max().orElse(0);
+        System.out.printf("%,d checks, %,d failed, %d outage(s), longest %,d ms%n",
+                probes, failures, outages.size(), longest);
+    }
+
+    // txid_current() assigns a transaction id, which a standby refuses
+    private static void checkWritable() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement st = conn.createStatement()) {
+            st.setQueryTimeout(5);
+            try (ResultSet rs = st.executeQuery("SELECT txid_current()")) {
+                rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package tools;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory {@link ResultSet} over fixed rows, for exercising row mappers
+ * without a database.
+ *
+ * Columns are looked up by label (case-insensitive, as pgjdbc does) or by
+ * 1-based index, and values are converted the way the driver would for the
+ * getters the DAOs use. An unknown label throws SQLException like the real
+ * driver. {@code beforeFirst()} rewinds, so one fixture can be mapped over
+ * and over.
+ */
+public class FixtureResultSet {
+
+    private final String[] columns;
+    private final List<Object[]> rows;
+    private final Map<String, Integer> indexByLabel = new HashMap<>();
+    private int cursor = -1;
+    private boolean lastWasNull;
+
+    private FixtureResultSet(String[] columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+        for (int i = 0; i < columns.length; i++) {
+            indexByLabel.putIfAbsent(columns[i].toLowerCase(Locale.ROOT), i + 1);
+        }
+    }
+
+    public static ResultSet of(String[] columns, List<Object[]> rows) {
+        FixtureResultSet state = new FixtureResultSet(columns, rows);
+        return (ResultSet) Proxy.newProxyInstance(FixtureResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (p, method, args) -> state.invoke(method.getName(),
+                        method.getReturnType(), args));
+    }
+
+    private Object invoke(String name, Class<?> type, Object[] args) throws SQLException {
+        switch (name) {
+            case "next":
+                return ++cursor < rows.size();
+            case "beforeFirst":
+                cursor = -1;
+                return null;
+            case "isClosed":
+                return false;
+            case "close":
+                return null;
+            case "wasNull":
+                return lastWasNull;
+            case "findColumn":
+                return column(args[0]);
+            case "getMetaData":
+                return metaData();
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return false;
+            case "toString":
+                return "FixtureResultSet" + java.util.Arrays.toString(columns);
+            default:
+                break;
+        }
+        if (name.startsWith("get") && args != null && args.length >= 1) {
+            if (cursor < 0 || cursor >= rows.size()) {
+                throw new SQLException("ResultSet not positioned properly, perhaps you need to call next.");
+            }
+            Object value = rows.get(cursor)[column(args[0]) - 1];
+            lastWasNull = value == null;
+            return convert(value, type);
+        }
+        throw new SQLException("Not supported by fixture: " + name);
+    }
+
+    private int column(Object key) throws SQLException {
+        if (key instanceof Integer index) {
+            if (index < 1 || index > columns.length) {
+                throw new SQLException("The column index is out of range: " + index);
+            }
+            return index;
+        }
+        Integer index = indexByLabel.get(((String) key).toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new SQLException("The column name " + key + " was not found in this ResultSet.");
+        }
+        return index;
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (type == Object.class) {
+            return value;
+        }
+        if (value == null) {
+            if (!type.isPrimitive()) {
+                return null;
+            }
+            if (type == boolean.class) {
+                return false;
+            }
+            return type == double.class ? 0d
+                    : type == float.class ? 0f
+                    : type == long.class ? 0L
+                    : type == short.class ? (short) 0
+                    : type == byte.class ? (byte) 0 : 0;
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        if (type == int.class) {
+            return ((Number) value).intValue();
+        }
+        if (type == long.class) {
+            return ((Number) value).longValue();
+        }
+        if (type == double.class) {
+            return ((Number) value).doubleValue();
+        }
+        if (type == float.class) {
+            return ((Number) value).floatValue();
+        }
+        if (type == short.class) {
+            return ((Number) value).shortValue();
+        }
+        if (type == boolean.class) {
+            return value instanceof Boolean b ? b : ((Number) value).intValue() != 0;
+        }
+        if (type == BigDecimal.class) {
+            return value instanceof BigDecimal d ? d : BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        if (type == java.sql.Date.class) {
+            return value instanceof java.sql.Date d ? d : new java.sql.Date(((java.util.Date) value).getTime());
+        }
+        if (type == Timestamp.class) {
+            return value instanceof Timestamp t ? t : new Timestamp(((java.util.Date) value).getTime());
+        }
+        return value;
+    }
+
+    private ResultSetMetaData metaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(FixtureResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSetMetaData.class }, (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return columns[(Integer) args[0] - 1];
+                        default:
+                            throw new SQLException("Not supported by fixture: " + method.getName());
+                    }
+                });
+    }
+}
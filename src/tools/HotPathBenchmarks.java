@@ -0,0 +1,711 @@
+package tools;
+
+import dao.BookingDAO;
+import dao.BookingHistory;
+import dao.PaymentDAO;
+import dao.Projection;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import models.Booking;
+import models.Payment;
+import ui.PaymentFilterIndex;
+import ui.PaymentPanel;
+
+/**
+ * Microbenchmarks for the CPU-side hot paths: row mapping (by label and by
+ * position, per row and over a million-row scan), booking statistics from
+ * model objects and from the columnar history, duration pricing, booking
+ * references, payment filtering and table population.
+ *
+ * Follows JMH's throughput mode: each benchmark is calibrated into batches,
+ * warmed up, then measured over several fixed-length iterations on one
+ * thread. Like JMH, every benchmark runs in a JVM of its own ({@code --forks},
+ * default 1), started with this JVM's options, so the JIT profile one
+ * benchmark leaves at the shared call sites cannot slow down the next;
+ * {@code --forks=0} runs them all in this JVM for a quick look. Per-op
+ * allocation comes from the thread's allocated-bytes counter (what JMH's
+ * -prof gc reports as gc.alloc.rate.norm). Results are written in JMH's JSON
+ * layout, so the usual visualizers read them, and --baseline prints the
+ * change against an earlier run.
+ *
+ * Usage: {@code java -cp bin:lib/* tools.HotPathBenchmarks [--warmup-ms=N]
+ * [--iterations=N] [--iteration-ms=N] [--forks=N] [--only=prefix]
+ * [--out=FILE] [--baseline=FILE]}. Inputs are generated from a fixed seed,
+ * so runs are comparable.
+ */
+public class HotPathBenchmarks {
+
+    private long warmupMs = 2_000;
+    private int iterations = 5;
+    private long iterationMs = 1_000;
+    private int forks = 1;
+    private String only;
+    // Set in a forked JVM: the one benchmark it runs
+    private String forkOf;
+    private Path out = Path.of("hotpaths.json");
+    private Path baseline;
+
+    /** One benchmark operation. */
+    @FunctionalInterface
+    interface Benchmark {
+        void run(Sink sink) throws Throwable;
+    }
+
+    /** Keeps results reachable so the JIT cannot drop the work that produced them. */
+    static final class Sink {
+        Object last;
+        long bits;
+
+        void consume(Object value) {
+            last = value;
+        }
+
+        void consume(double value) {
+            bits += Double.doubleToRawLongBits(value);
+        }
+
+        void consume(long value) {
+            bits += value;
+        }
+    }
+
+    static final class Result {
+        final String name;
+        final double[] opsPerSecond;
+        final double[] bytesPerOp;
+        long gcCount;
+
+        Result(String name, int iterations) {
+            this.name = name;
+            this.opsPerSecond = new double[iterations];
+            this.bytesPerOp = new double[iterations];
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        System.setProperty("java.awt.headless", "true");
+        HotPathBenchmarks bench = new HotPathBenchmarks();
+        bench.parseArgs(args);
+        bench.runAll();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--warmup-ms=")) {
+                warmupMs = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--iteration-ms=")) {
+                iterationMs = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--forks=")) {
+                forks = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--fork-of=")) {
+                forkOf = value(arg);
+            } else if (arg.startsWith("--only=")) {
+                only = value(arg);
+            } else if (arg.startsWith("--out=")) {
+                out = Path.of(value(arg));
+            } else if (arg.startsWith("--baseline=")) {
+                baseline = Path.of(value(arg));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    // ================= BENCHMARKS =================
+
+    private Map<String, Benchmark> benchmarks() throws ReflectiveOperationException, SQLException {
+        Map<String, Benchmark> all = new LinkedHashMap<>();
+        Fixtures f = new Fixtures(42);
+
+        // Row mappers are protected; a subclass here can reach them
+        BookingMapper bookingMapper = new BookingMapper();
+        ResultSet bookingRows = f.bookingRows(1_000);
+        all.put("bookingRowMapping", sink -> sink.consume(bookingMapper.mapNext(bookingRows)));
+
+        // The DAO queries' own column lists, mapped by position
+        ResultSet bookingProjected = f.bookingRows(1_000, BookingMapper.PROJECTION.columnNames());
+        all.put("bookingRowMappingProjection", sink -> sink.consume(BookingMapper.projectNext(bookingProjected)));
+
+        // A million-row history scan, as streamAll does it; the fixture's 1,000 rows repeat
+        all.put("bookingScan1mByName", sink -> sink.consume(bookingMapper.scan(bookingRows, 1_000_000)));
+        all.put("bookingScan1mProjection", sink -> sink.consume(BookingMapper.scanProjected(bookingProjected,
+                1_000_000)));
+
+        PaymentMapper paymentMapper = new PaymentMapper();
+        ResultSet paymentRows = f.paymentRows(1_000);
+        all.put("paymentRowMapping", sink -> sink.consume(paymentMapper.mapNext(paymentRows)));
+
+        ResultSet paymentProjected = f.paymentRows(1_000, PaymentMapper.PROJECTION.columnNames());
+        all.put("paymentRowMappingProjection", sink -> sink.consume(PaymentMapper.projectNext(paymentProjected)));
+
+        // BookingPanel's statistics (count per status, approved revenue) over 250,000 bookings,
+        // from the model list it used to load and from the columnar history
+        List<Booking> bookingList = bookingMapper.mapAll(f.bookingRows(250_000));
+        all.put("bookingStatsList", sink -> {
+            long approved = bookingList.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_APPROVED)
+                    .count();
+            long pending = bookingList.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_PENDING)
+                    .count();
+            double revenue = bookingList.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_APPROVED)
+                    .mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0).sum();
+            sink.consume(approved + pending);
+            sink.consume(revenue);
+        });
+        BookingHistory history = loadHistory(f.bookingRows(250_000, BookingHistory.columns()));
+        all.put("bookingStatsHistory", sink -> {
+            int[] byStatus = history.countByStatus(history.all());
+            sink.consume(byStatus[Booking.STATUS_APPROVED] + byStatus[Booking.STATUS_PENDING]);
+            sink.consume(history.sumAmount(history.withStatus(Booking.STATUS_APPROVED)));
+        });
+
+        Booking[] bookings = f.bookings(64);
+        String[] vehicleTypes = { "Car", "Motorcycle", "Truck", "Van", "SUV" };
+        int[] next = new int[1];
+        all.put("calculateEstimatedAmount", sink -> {
+            int i = next[0]++ & 63;
+            sink.consume(bookings[i].calculateEstimatedAmount(vehicleTypes[i % vehicleTypes.length]));
+        });
+
+        // Private helpers of BookingDAO, called exactly as the DAO calls them
+        BookingDAO bookingDAO = new BookingDAO();
+        MethodHandle amountFromDuration = privateHandle(BookingDAO.class, "calculateAmountFromDuration",
+                MethodType.methodType(double.class, String.class));
+        MethodHandle bookingRef = privateHandle(BookingDAO.class, "generateBookingRef",
+                MethodType.methodType(String.class));
+        String[] durations = Booking.getDurationOptions();
+        all.put("calculateAmountFromDuration", sink -> {
+            String duration = durations[next[0]++ % durations.length];
+            sink.consume((double) amountFromDuration.invokeExact(bookingDAO, duration));
+        });
+        all.put("generateBookingRef", sink -> sink.consume((String) bookingRef.invokeExact(bookingDAO)));
+
+        List<Payment> payments = f.payments(5_000);
+        all.put("paymentFilterIndexBuild", sink -> sink.consume(new PaymentFilterIndex(payments)));
+
+        PaymentFilterIndex index = new PaymentFilterIndex(payments);
+        Object[][] queries = f.filterQueries();
+        all.put("paymentFilterMatch", sink -> {
+            Object[] q = queries[next[0]++ % queries.length];
+            BitSet rows = index.match((int[]) q[0], (String) q[1], (Date) q[2], (Date) q[3], (String) q[4]);
+            sink.consume(rows.cardinality());
+        });
+
+        DefaultTableModel model = new DefaultTableModel(new String[] { "ID", "Booking", "Customer", "Amount Due",
+                "Amount Paid", "Balance", "Method", "Status", "Date", "Actions" }, 0);
+        // Attach a table and sorter so every addRow pays for the listeners the panel has
+        JTable table = new JTable(model);
+        table.setRowSorter(new TableRowSorter<TableModel>(model));
+        // PaymentPanel.updateTable for 5,000 payments, rows and filter index, minus the
+        // per-row action-button panel (a Swing component built by the panel instance)
+        all.put("paymentTablePopulate", sink -> {
+            sink.consume(PaymentPanel.fillRows(model, payments, payment -> null));
+            sink.consume(model.getRowCount());
+        });
+
+        return all;
+    }
+
+    private static MethodHandle privateHandle(Class<?> owner, String name, MethodType type)
+            throws ReflectiveOperationException {
+        Method method = owner.getDeclaredMethod(name, type.parameterArray());
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method)
+                .asType(type.insertParameterTypes(0, owner));
+    }
+
+    static final class BookingMapper extends BookingDAO {
+        static final Projection<Booking> PROJECTION = BOOKING_COLUMNS;
+
+        Booking mapNext(ResultSet rs) throws SQLException {
+            advance(rs);
+            return mapResultSetToEntity(rs);
+        }
+
+        static Booking projectNext(ResultSet rs) throws SQLException {
+            advance(rs);
+            return PROJECTION.map(rs);
+        }
+
+        List<Booking> mapAll(ResultSet rs) throws SQLException {
+            List<Booking> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(mapResultSetToEntity(rs));
+            }
+            return list;
+        }
+
+        // Sums a field so every row is materialized and read, as a report would
+        long scan(ResultSet rs, int rows) throws SQLException {
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                advance(rs);
+                sum += mapResultSetToEntity(rs).getBookingStatus();
+            }
+            return sum;
+        }
+
+        static long scanProjected(ResultSet rs, int rows) throws SQLException {
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                advance(rs);
+                sum += PROJECTION.map(rs).getBookingStatus();
+            }
+            return sum;
+        }
+    }
+
+    static final class PaymentMapper extends PaymentDAO {
+        static final Projection<Payment> PROJECTION = PAYMENT_COLUMNS;
+
+        Payment mapNext(ResultSet rs) throws SQLException {
+            advance(rs);
+            return mapResultSetToEntity(rs);
+        }
+
+        static Payment projectNext(ResultSet rs) throws SQLException {
+            advance(rs);
+            return PROJECTION.map(rs);
+        }
+    }
+
+    private static BookingHistory loadHistory(ResultSet rs) throws SQLException {
+        BookingHistory.Builder builder = new BookingHistory.Builder();
+        while (rs.next()) {
+            builder.append(rs);
+        }
+        return builder.build();
+    }
+
+    // Moves to the next fixture row, starting over at the end
+    private static void advance(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            rs.beforeFirst();
+            rs.next();
+        }
+    }
+
+    // ================= HARNESS =================
+
+    private void runAll() throws Throwable {
+        if (forkOf != null) {
+            Benchmark benchmark = benchmarks().get(forkOf);
+            if (benchmark == null) {
+                throw new IllegalArgumentException("Unknown benchmark: " + forkOf);
+            }
+            forks = 0;
+            Files.writeString(out, Json.write(toJson(List.of(measure(forkOf, benchmark)))), StandardCharsets.UTF_8);
+            return;
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, Benchmark> e : benchmarks().entrySet()) {
+            if (only != null && !e.getKey().startsWith(only)) {
+                continue;
+            }
+            System.out.println("# " + e.getKey());
+            Result result = forks > 0 ? measureForked(e.getKey()) : measure(e.getKey(), e.getValue());
+            results.add(result);
+            System.out.println(String.format("  %,.1f +/- %,.1f ops/s, %,.1f B/op", mean(result.opsPerSecond),
+                    scoreError(result.opsPerSecond), mean(result.bytesPerOp)));
+        }
+
+        Files.writeString(out, Json.write(toJson(results)), StandardCharsets.UTF_8);
+        printSummary(results);
+        System.out.println("Results written to " + out);
+    }
+
+    // Runs the benchmark in --forks fresh JVMs and joins their iterations, fork after fork
+    @SuppressWarnings("unchecked")
+    private Result measureForked(String name) throws IOException, InterruptedException {
+        Result result = new Result(name, iterations * forks);
+        for (int fork = 0; fork < forks; fork++) {
+            Path file = Files.createTempFile("hotpaths-" + name + "-", ".json");
+            try {
+                List<String> command = new ArrayList<>();
+                command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+                command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+                command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                        HotPathBenchmarks.class.getName(), "--fork-of=" + name, "--warmup-ms=" + warmupMs,
+                        "--iterations=" + iterations, "--iteration-ms=" + iterationMs, "--out=" + file));
+                int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+                if (exit != 0) {
+                    throw new IOException("Fork " + (fork + 1) + " of " + name + " exited with " + exit);
+                }
+
+                Map<String, Object> row = (Map<String, Object>) ((List<Object>) Json.parse(
+                        Files.readString(file, StandardCharsets.UTF_8))).get(0);
+                Map<String, Object> secondary = (Map<String, Object>) row.get("secondaryMetrics");
+                copyRaw((Map<String, Object>) row.get("primaryMetric"), result.opsPerSecond, fork * iterations);
+                copyRaw((Map<String, Object>) secondary.get("·gc.alloc.rate.norm"), result.bytesPerOp,
+                        fork * iterations);
+                result.gcCount += ((Number) ((Map<String, Object>) secondary.get("·gc.count")).get("score"))
+                        .longValue();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void copyRaw(Map<String, Object> metric, double[] into, int offset) {
+        List<Object> raw = (List<Object>) ((List<Object>) metric.get("rawData")).get(0);
+        for (int i = 0; i < raw.size(); i++) {
+            into[offset + i] = raw.get(i) instanceof Number n ? n.doubleValue() : Double.NaN;
+        }
+    }
+
+    private Result measure(String name, Benchmark benchmark) throws Throwable {
+        Sink sink = new Sink();
+
+        // Batch enough calls that reading the clock costs nothing by comparison
+        int batch = 1;
+        while (batch < (1 << 24)) {
+            long start = System.nanoTime();
+            runBatch(benchmark, sink, batch);
+            if (System.nanoTime() - start >= 1_000_000) {
+                break;
+            }
+            batch <<= 1;
+        }
+
+        long warmupEnd = System.nanoTime() + warmupMs * 1_000_000;
+        while (System.nanoTime() < warmupEnd) {
+            runBatch(benchmark, sink, batch);
+        }
+
+        Result result = new Result(name, iterations);
+        long gcBefore = gcCount();
+        for (int i = 0; i < iterations; i++) {
+            long ops = 0;
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long deadline = start + iterationMs * 1_000_000;
+            long now;
+            do {
+                runBatch(benchmark, sink, batch);
+                ops += batch;
+                now = System.nanoTime();
+            } while (now < deadline);
+            long allocated = allocatedBytes() - allocatedBefore;
+            result.opsPerSecond[i] = ops / ((now - start) / 1e9);
+            result.bytesPerOp[i] = allocatedBefore < 0 ? Double.NaN : (double) allocated / ops;
+        }
+        result.gcCount = gcCount() - gcBefore;
+        return result;
+    }
+
+    private static void runBatch(Benchmark benchmark, Sink sink, int batch) throws Throwable {
+        for (int i = 0; i < batch; i++) {
+            benchmark.run(sink);
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()) {
+            return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    // ================= STATISTICS =================
+
+    // Student's t at 99.9% two-sided for 1..10 degrees of freedom, as JMH reports
+    private static final double[] T_999 = { 636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781,
+            4.587 };
+
+    static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    static double scoreError(double[] values) {
+        int n = values.length;
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double mean = mean(values);
+        double squares = 0;
+        for (double v : values) {
+            squares += (v - mean) * (v - mean);
+        }
+        int df = n - 1;
+        double t = df <= T_999.length ? T_999[df - 1] : df <= 30 ? 3.646 + (4.587 - 3.646) * (30 - df) / 20.0 : 3.291;
+        return t * Math.sqrt(squares / df) / Math.sqrt(n);
+    }
+
+    // ================= OUTPUT =================
+
+    private List<Object> toJson(List<Result> results) {
+        List<Object> list = new ArrayList<>();
+        for (Result r : results) {
+            double score = mean(r.opsPerSecond);
+            double error = scoreError(r.opsPerSecond);
+
+            Map<String, Object> primary = new LinkedHashMap<>();
+            primary.put("score", score);
+            primary.put("scoreError", error);
+            primary.put("scoreConfidence", List.of(score - (Double.isNaN(error) ? 0 : error),
+                    score + (Double.isNaN(error) ? 0 : error)));
+            primary.put("scoreUnit", "ops/s");
+            primary.put("rawData", perFork(r.opsPerSecond));
+
+            Map<String, Object> alloc = new LinkedHashMap<>();
+            alloc.put("score", mean(r.bytesPerOp));
+            alloc.put("scoreError", scoreError(r.bytesPerOp));
+            alloc.put("scoreUnit", "B/op");
+            alloc.put("rawData", perFork(r.bytesPerOp));
+
+            Map<String, Object> gc = new LinkedHashMap<>();
+            gc.put("score", (double) r.gcCount);
+            gc.put("scoreUnit", "counts");
+
+            Map<String, Object> secondary = new LinkedHashMap<>();
+            secondary.put("·gc.alloc.rate.norm", alloc);
+            secondary.put("·gc.count", gc);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("benchmark", HotPathBenchmarks.class.getName() + "." + r.name);
+            row.put("mode", "thrpt");
+            row.put("threads", 1);
+            row.put("forks", forks);
+            row.put("jvm", System.getProperty("java.home"));
+            row.put("jdkVersion", System.getProperty("java.version"));
+            row.put("warmupTime", warmupMs + " ms");
+            row.put("measurementIterations", iterations);
+            row.put("measurementTime", iterationMs + " ms");
+            row.put("primaryMetric", primary);
+            row.put("secondaryMetrics", secondary);
+            list.add(row);
+        }
+        return list;
+    }
+
+    // JMH lists each fork's iterations separately
+    private List<Object> perFork(double[] values) {
+        List<Object> forkLists = new ArrayList<>();
+        for (int from = 0; from < values.length; from += iterations) {
+            List<Object> list = new ArrayList<>(iterations);
+            for (int i = from; i < Math.min(values.length, from + iterations); i++) {
+                list.add(values[i]);
+            }
+            forkLists.add(list);
+        }
+        return forkLists;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void printSummary(List<Result> results) throws IOException {
+        Map<String, double[]> before = new HashMap<>();
+        if (baseline != null) {
+            for (Object o : (List<Object>) Json.parse(Files.readString(baseline, StandardCharsets.UTF_8))) {
+                Map<String, Object> row = (Map<String, Object>) o;
+                String name = String.valueOf(row.get("benchmark"));
+                name = name.substring(name.lastIndexOf('.') + 1);
+                Map<String, Object> primary = (Map<String, Object>) row.get("primaryMetric");
+                Map<String, Object> secondary = (Map<String, Object>) row.get("secondaryMetrics");
+                Object alloc = secondary == null ? null : secondary.get("·gc.alloc.rate.norm");
+                double bytes = alloc instanceof Map<?, ?> m && m.get("score") instanceof Number n ? n.doubleValue()
+                        : Double.NaN;
+                before.put(name, new double[] { ((Number) primary.get("score")).doubleValue(), bytes });
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-30s %16s %14s %12s %10s %10s", "BENCHMARK", "ops/s", "error", "B/op",
+                "vs base", "B/op vs"));
+        for (Result r : results) {
+            double score = mean(r.opsPerSecond);
+            double bytes = mean(r.bytesPerOp);
+            double[] old = before.get(r.name);
+            String scoreDelta = old == null ? "" : String.format("%+.1f%%", (score / old[0] - 1) * 100);
+            String bytesDelta = old == null || Double.isNaN(old[1]) ? "" : String.format("%+.0f", bytes - old[1]);
+            System.out.println(String.format("%-30s %16.1f %14.1f %12.1f %10s %10s", r.name, score,
+                    scoreError(r.opsPerSecond), bytes, scoreDelta, bytesDelta));
+        }
+        System.out.println();
+    }
+
+    // ================= FIXTURES =================
+
+    /** Deterministic inputs shaped like the synthetic data set. */
+    static final class Fixtures {
+        private static final String[] METHODS = { "Cash", "Card", "Bank Transfer", "Mobile" };
+        private static final String[] NAMES = { "Sok Dara", "Chan Sophea", "Lim Vanna", "Keo Rathana",
+                "Meas Sreyleak", "Heng Pisey", "Nuon Bopha", "Ouk Chenda" };
+        private static final long DAY = 86_400_000L;
+
+        private final SplittableRandom random;
+        private final long now = 1_760_000_000_000L;
+
+        Fixtures(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        private static final String[] BOOKING_COLUMNS = { "booking_id", "customer_id", "vehicle_id", "slot_id",
+                "user_id", "booking_status", "duration_of_booking", "remarks", "booking_time", "expected_arrival",
+                "actual_arrival", "departure_time", "total_hours", "total_amount", "booking_ref", "payment_status",
+                "paid_at" };
+        private static final String[] PAYMENT_COLUMNS = { "payment_id", "booking_id", "user_id", "amount_due",
+                "amount_paid", "payment_status", "paid_by", "remarks", "payment_date" };
+
+        ResultSet bookingRows(int count) {
+            return FixtureResultSet.of(BOOKING_COLUMNS, bookingData(count));
+        }
+
+        // The same rows as a query selecting exactly these columns would return them
+        ResultSet bookingRows(int count, List<String> columns) {
+            return select(BOOKING_COLUMNS, bookingData(count), columns);
+        }
+
+        ResultSet paymentRows(int count) {
+            return FixtureResultSet.of(PAYMENT_COLUMNS, paymentData(count));
+        }
+
+        ResultSet paymentRows(int count, List<String> columns) {
+            return select(PAYMENT_COLUMNS, paymentData(count), columns);
+        }
+
+        private static ResultSet select(String[] columns, List<Object[]> rows, List<String> wanted) {
+            int[] from = new int[wanted.size()];
+            for (int i = 0; i < from.length; i++) {
+                from[i] = List.of(columns).indexOf(wanted.get(i));
+                if (from[i] < 0) {
+                    throw new IllegalArgumentException("No fixture column " + wanted.get(i));
+                }
+            }
+            List<Object[]> projected = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Object[] out = new Object[from.length];
+                for (int i = 0; i < from.length; i++) {
+                    out[i] = row[from[i]];
+                }
+                projected.add(out);
+            }
+            return FixtureResultSet.of(wanted.toArray(new String[0]), projected);
+        }
+
+        private List<Object[]> bookingData(int count) {
+            String[] durations = Booking.getDurationOptions();
+            List<Object[]> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long booked = now - random.nextLong(90 * DAY);
+                boolean finished = random.nextInt(3) == 0;
+                rows.add(new Object[] {
+                        i + 1, random.nextInt(1, 50_000), random.nextInt(1, 80_000), random.nextInt(1, 500),
+                        random.nextInt(1, 50_000), random.nextInt(5), durations[random.nextInt(durations.length)],
+                        random.nextInt(4) == 0 ? null : "Booked at counter", new Timestamp(booked),
+                        new Timestamp(booked + 3_600_000), finished ? new Timestamp(booked + 3_700_000) : null,
+                        finished ? new Timestamp(booked + 10_000_000) : null, finished ? 2.5 : null,
+                        finished ? 12.5 : null, String.format("BK-%08d", i + 1), random.nextInt(2), null });
+            }
+            return rows;
+        }
+
+        private List<Object[]> paymentData(int count) {
+            List<Object[]> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double due = 2.5 * random.nextInt(1, 80);
+                int status = random.nextInt(5);
+                rows.add(new Object[] {
+                        i + 1, i + 1, random.nextInt(1, 50_000), due, status == 2 ? due : 0.0, status,
+                        status == 2 ? METHODS[random.nextInt(METHODS.length)] : null,
+                        "Payment pending for approved booking",
+                        status == 2 ? new java.sql.Date(now - random.nextLong(90 * DAY)) : null });
+            }
+            return rows;
+        }
+
+        Booking[] bookings(int count) {
+            String[] durations = Booking.getDurationOptions();
+            Booking[] bookings = new Booking[count];
+            for (int i = 0; i < count; i++) {
+                bookings[i] = new Booking();
+                bookings[i].setDurationOfBooking(durations[random.nextInt(durations.length)]);
+            }
+            return bookings;
+        }
+
+        List<Payment> payments(int count) {
+            List<Payment> payments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Payment p = new Payment();
+                double due = 2.5 * random.nextInt(1, 80);
+                int status = random.nextInt(5);
+                p.setPaymentId(i + 1);
+                p.setBookingId(i + 1);
+                p.setUserId(random.nextInt(1, 50_000));
+                p.setDueAmount(due);
+                p.setPaidAmount(status == Payment.STATUS_PAID ? due : status == Payment.STATUS_PARTIAL ? due / 2 : 0);
+                p.setPaymentStatus(status);
+                p.setBookingRef(String.format("BK-%08d", i + 1));
+                p.setFullName(NAMES[random.nextInt(NAMES.length)] + " " + (i % 997));
+                if (status == Payment.STATUS_PAID || status == Payment.STATUS_PARTIAL) {
+                    p.setPaidBy(METHODS[random.nextInt(METHODS.length)]);
+                    p.setPaymentDate(new Date(now - random.nextLong(90 * DAY)));
+                }
+                payments.add(p);
+            }
+            return payments;
+        }
+
+        /** {statuses, method, from, to, text} as PaymentPanel passes them, typing included. */
+        Object[][] filterQueries() {
+            Date from = new Date(now - 30 * DAY);
+            Date to = new Date(now);
+            return new Object[][] {
+                    { null, "All", null, null, "" },
+                    { new int[] { Payment.STATUS_PAID }, "All", null, null, "" },
+                    { new int[] { Payment.STATUS_PAID }, "Card", from, to, "" },
+                    { null, "All", null, null, "s" },
+                    { null, "All", null, null, "so" },
+                    { null, "All", null, null, "sok" },
+                    { null, "All", null, null, "sok d" },
+                    { new int[] { Payment.STATUS_PARTIAL }, "Cash", null, null, "bk-0000" },
+                    { new int[] { Payment.STATUS_PENDING_APPROVAL }, "All", from, to, "chan" },
+            };
+        }
+    }
+}
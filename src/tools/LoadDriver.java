@@ -0,0 +1,487 @@
+package tools;
+
+import dao.BookingDAO;
+import dao.BookingStateException;
+import dao.ParkingSlotDAO;
+import dao.PaymentDAO;
+import dao.UncheckedSQLException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import models.Booking;
+import models.ParkingSlot;
+import models.Payment;
+import utils.AppExecutors;
+import utils.DatabaseConnection;
+import utils.LatencyHistogram;
+import utils.Workload;
+
+/**
+ * Headless load driver for the booking flow, run against a local Postgres
+ * seeded with {@link SyntheticDataGenerator}.
+ *
+ * Simulated customers browse free slots, list their bookings, book and pay;
+ * simulated admins approve what customers booked. Every call goes through the
+ * real DAOs, so connection setup, single-flight coalescing and the DAO
+ * transactions are all part of what gets measured. Each actor is its own
+ * thread (virtual on Java 21+) and every in-flight call opens a connection,
+ * so keep customers + admins below the server's max_connections.
+ *
+ * Failures are split into conflicts (another actor got there first:
+ * serialization failures, deadlocks, constraint violations, "already
+ * APPROVED" and friends) and errors (everything else).
+ *
+ * Usage: {@code java -cp bin:lib/* tools.LoadDriver [--customers=N] [--admins=N]
+ * [--duration=SECONDS] [--warmup=SECONDS] [--think-ms=N] [--seed=N]
+ * [--hgrm-dir=DIR] [--notify] [--verbose]}. Telegram notifications are off
+ * unless --notify is given; DAO console output is dropped unless --verbose.
+ */
+public class LoadDriver {
+
+    static final String FIND_AVAILABLE_SLOTS = "findAvailableSlots";
+    static final String FIND_BY_CUSTOMER = "findByCustomerId";
+    static final String CREATE_BOOKING = "createBookingWithSlotUpdate";
+    static final String FIND_PENDING_BOOKINGS = "findPendingBookings";
+    static final String APPROVE_BOOKING = "approveBookingNow";
+    static final String PENDING_PAYMENTS = "getUserPendingPayments";
+    static final String PROCESS_PAYMENT = "processUserPayment";
+
+    private int customers = 20;
+    private int admins = 2;
+    private int durationSeconds = 60;
+    private int warmupSeconds = 10;
+    private long thinkMs = 50;
+    private long seed = 42;
+    private Path hgrmDir;
+    private boolean notify;
+    private boolean verbose;
+
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final ParkingSlotDAO slotDAO = new ParkingSlotDAO();
+    private final PaymentDAO paymentDAO = new PaymentDAO();
+
+    private final Map<String, OpStats> stats = new LinkedHashMap<>();
+    // Bookings customers created, waiting for an admin
+    private final BlockingQueue<Integer> awaitingApproval = new LinkedBlockingQueue<>();
+
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    /** A customer identity taken from the database. */
+    static final class Persona {
+        final int ownerId;
+        final int userId;
+        final int vehicleId;
+
+        Persona(int ownerId, int userId, int vehicleId) {
+            this.ownerId = ownerId;
+            this.userId = userId;
+            this.vehicleId = vehicleId;
+        }
+    }
+
+    /** Latency and failure counts for one DAO operation. */
+    static final class OpStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+    }
+
+    @FunctionalInterface
+    interface Op<T> {
+        T call() throws SQLException;
+    }
+
+    public LoadDriver() {
+        for (String op : new String[] { FIND_AVAILABLE_SLOTS, FIND_BY_CUSTOMER, CREATE_BOOKING,
+                FIND_PENDING_BOOKINGS, APPROVE_BOOKING, PENDING_PAYMENTS, PROCESS_PAYMENT }) {
+            stats.put(op, new OpStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadDriver driver = new LoadDriver();
+        driver.parseArgs(args);
+        if (!driver.notify) {
+            System.setProperty("telegram.disabled", "true");
+        }
+        driver.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--customers=")) {
+                customers = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--admins=")) {
+                admins = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--duration=")) {
+                durationSeconds = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--warmup=")) {
+                warmupSeconds = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--think-ms=")) {
+                thinkMs = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--hgrm-dir=")) {
+                hgrmDir = Path.of(value(arg));
+            } else if (arg.equals("--notify")) {
+                notify = true;
+            } else if (arg.equals("--verbose")) {
+                verbose = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    // ================= RUN =================
+
+    void run() throws SQLException, InterruptedException, IOException {
+        PrintStream console = System.out;
+        List<Persona> personas;
+        List<Integer> adminIds;
+        try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+            personas = loadPersonas(conn, customers);
+            adminIds = loadAdminIds(conn);
+        }
+        if (personas.isEmpty()) {
+            throw new SQLException("No vehicles with an owner account found; seed the database first");
+        }
+
+        console.println(String.format("Load: %d customers, %d admins, %ds warmup + %ds measured, think %d ms, "
+                + "%s threads", customers, admins, warmupSeconds, durationSeconds, thinkMs,
+                AppExecutors.usesVirtualThreads() ? "virtual" : "platform"));
+
+        if (!verbose) {
+            // The DAOs print on every call; at this rate that is the bottleneck
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        // Each actor runs one DAO call at a time; with the terminal-sized shares
+        // the run would mostly measure actors queueing for a connection
+        Workload.INTERACTIVE.allowAtLeast(customers + admins);
+        Workload.REPORTING.allowAtLeast(customers + admins);
+
+        List<Thread> threads = new ArrayList<>();
+        ThreadFactory customerThreads = AppExecutors.threadFactory("load-customer-");
+        ThreadFactory adminThreads = AppExecutors.threadFactory("load-admin-");
+        for (int i = 0; i < customers; i++) {
+            Persona persona = personas.get(i % personas.size());
+            SplittableRandom random = new SplittableRandom(seed * 31 + i);
+            threads.add(customerThreads.newThread(() -> customerLoop(persona, random)));
+        }
+        for (int i = 0; i < admins; i++) {
+            int adminId = adminIds.get(i % adminIds.size());
+            SplittableRandom random = new SplittableRandom(seed * 131 + i);
+            threads.add(adminThreads.newThread(() -> adminLoop(adminId, random)));
+        }
+        threads.forEach(Thread::start);
+
+        long measuredNanos;
+        try {
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            measuring = true;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+            while (System.nanoTime() < end) {
+                TimeUnit.MILLISECONDS.sleep(Math.min(10_000, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()) + 1));
+                console.println(String.format("  %4ds  %,d ops", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                        totalOps()));
+            }
+            measuring = false;
+            measuredNanos = System.nanoTime() - start;
+        } finally {
+            running = false;
+            for (Thread t : threads) {
+                t.join(TimeUnit.SECONDS.toMillis(30));
+            }
+            System.setOut(console);
+        }
+
+        printReport(console, measuredNanos / 1e9);
+        writeDistributions(console);
+    }
+
+    private long totalOps() {
+        long total = 0;
+        for (OpStats s : stats.values()) {
+            total += s.latency.getCount() + s.errors.sum() + s.conflicts.sum();
+        }
+        return total;
+    }
+
+    // ================= ACTORS =================
+
+    private void customerLoop(Persona persona, SplittableRandom random) {
+        List<ParkingSlot> lastSeen = List.of();
+        while (running) {
+            int roll = random.nextInt(100);
+            if (roll < 35) {
+                List<ParkingSlot> slots = timed(FIND_AVAILABLE_SLOTS, slotDAO::findAvailableSlots);
+                if (slots != null) {
+                    lastSeen = slots;
+                }
+            } else if (roll < 65) {
+                timed(FIND_BY_CUSTOMER, () -> bookingDAO.findByCustomerId(persona.ownerId));
+            } else if (roll < 85) {
+                if (lastSeen.isEmpty()) {
+                    List<ParkingSlot> slots = timed(FIND_AVAILABLE_SLOTS, slotDAO::findAvailableSlots);
+                    lastSeen = slots != null ? slots : List.of();
+                }
+                if (!lastSeen.isEmpty()) {
+                    book(persona, lastSeen.get(random.nextInt(lastSeen.size())), random);
+                    // What was free a moment ago probably is not any more
+                    lastSeen = List.of();
+                }
+            } else {
+                pay(persona);
+            }
+            think(random);
+        }
+    }
+
+    private void book(Persona persona, ParkingSlot slot, SplittableRandom random) {
+        String[] durations = Booking.getDurationOptions();
+        Booking b = new Booking();
+        b.setCustomerId(persona.ownerId);
+        b.setVehicleId(persona.vehicleId);
+        b.setSlotId(slot.getParkingSlotId());
+        b.setDurationOfBooking(durations[random.nextInt(durations.length)]);
+        b.setBookingStatus(Booking.STATUS_PENDING);
+        b.setUserId(persona.userId);
+        b.setRemarks("load-driver");
+        b.setBookingTime(new Timestamp(System.currentTimeMillis()));
+
+        Integer bookingId = timed(CREATE_BOOKING, () -> bookingDAO.createBookingWithSlotUpdate(b));
+        if (bookingId != null && bookingId > 0) {
+            awaitingApproval.offer(bookingId);
+        }
+    }
+
+    private void pay(Persona persona) {
+        List<Payment> due = timed(PENDING_PAYMENTS, () -> paymentDAO.getUserPendingPayments(persona.userId));
+        if (due == null) {
+            return;
+        }
+        for (Payment p : due) {
+            Double balance = p.getBalance();
+            if (balance != null && balance > 0) {
+                String transactionId = "LD-" + persona.userId + "-" + System.nanoTime();
+                timed(PROCESS_PAYMENT, () -> paymentDAO.processUserPayment(p.getPaymentId(), balance, "Load test",
+                        transactionId, persona.userId));
+                return;
+            }
+        }
+    }
+
+    private void adminLoop(int adminId, SplittableRandom random) {
+        while (running) {
+            Integer bookingId;
+            try {
+                bookingId = awaitingApproval.poll(Math.max(1, thinkMs) * 4, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (bookingId == null) {
+                // Nothing queued: work the pending list like the admin screen does,
+                // racing the other admins for the same rows
+                List<Booking> pending = timed(FIND_PENDING_BOOKINGS, bookingDAO::findPendingBookings);
+                if (pending == null || pending.isEmpty()) {
+                    continue;
+                }
+                bookingId = pending.get(random.nextInt(Math.min(pending.size(), 20))).getBookingId();
+            }
+            int id = bookingId;
+            timed(APPROVE_BOOKING, () -> bookingDAO.approveBookingNow(id, adminId));
+            think(random);
+        }
+    }
+
+    private void think(SplittableRandom random) {
+        if (thinkMs <= 0) {
+            return;
+        }
+        try {
+            // Uniform around the mean so actors drift out of lockstep
+            Thread.sleep(random.nextLong(thinkMs / 2, thinkMs * 3 / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // ================= MEASUREMENT =================
+
+    /** Run one DAO call, recording latency or the kind of failure. Returns null on failure. */
+    private <T> T timed(String op, Op<T> call) {
+        OpStats s = stats.get(op);
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            if (measuring) {
+                s.latency.recordNanos(System.nanoTime() - start);
+            }
+            return result;
+        } catch (SQLException e) {
+            failed(s, e);
+            return null;
+        } catch (UncheckedSQLException e) {
+            failed(s, e.getCause());
+            return null;
+        } catch (RuntimeException e) {
+            // A bug in a DAO must show up in the report, not end the actor's loop
+            if (measuring) {
+                s.errors.increment();
+                s.firstError.compareAndSet(null, e.toString());
+            }
+            return null;
+        }
+    }
+
+    private void failed(OpStats s, SQLException e) {
+        if (measuring) {
+            if (isConflict(e)) {
+                s.conflicts.increment();
+            } else {
+                s.errors.increment();
+                s.firstError.compareAndSet(null, e.getMessage());
+            }
+        }
+    }
+
+    static boolean isConflict(SQLException e) {
+        if (e instanceof BookingStateException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        // 40001 serialization failure, 40P01 deadlock, 23xxx constraint violation
+        if (state != null && (state.equals("40001") || state.equals("40P01") || state.startsWith("23"))) {
+            return true;
+        }
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        return message.contains("already") || message.contains("not PENDING") || message.contains("not ready");
+    }
+
+    // ================= OUTPUT =================
+
+    private void printReport(PrintStream out, double seconds) {
+        out.println();
+        out.println(String.format("%-28s %9s %9s %9s %9s %9s %9s %8s %9s", "OPERATION", "COUNT", "OPS/S",
+                "p50 ms", "p95 ms", "p99 ms", "max ms", "ERRORS", "CONFLICTS"));
+        long total = 0;
+        for (Map.Entry<String, OpStats> e : stats.entrySet()) {
+            OpStats s = e.getValue();
+            LatencyHistogram h = s.latency;
+            total += h.getCount();
+            out.println(String.format("%-28s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %8d %9d", e.getKey(), h.getCount(),
+                    h.getCount() / seconds, h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(95) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getMaxMicros() / 1000.0, s.errors.sum(), s.conflicts.sum()));
+        }
+        out.println();
+        out.println(String.format("%,d successful calls in %.1f s (%.1f/s)", total, seconds, total / seconds));
+        for (Map.Entry<String, OpStats> e : stats.entrySet()) {
+            String first = e.getValue().firstError.get();
+            if (first != null) {
+                out.println("  first " + e.getKey() + " error: " + first);
+            }
+        }
+    }
+
+    /** One .hgrm per operation in --hgrm-dir, or all of them on stdout. */
+    private void writeDistributions(PrintStream console) throws IOException {
+        if (hgrmDir != null) {
+            Files.createDirectories(hgrmDir);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (Map.Entry<String, OpStats> e : stats.entrySet()) {
+            LatencyHistogram h = e.getValue().latency;
+            if (hgrmDir == null) {
+                console.println();
+                console.println("# " + e.getKey() + " (ms)");
+                h.outputPercentileDistribution(console, 5, 1000.0);
+                continue;
+            }
+            try (PrintStream file = new PrintStream(Files.newOutputStream(hgrmDir.resolve(e.getKey() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                h.outputPercentileDistribution(file, 5, 1000.0);
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", h.getCount());
+            row.put("p50Ms", h.getValueAtPercentile(50) / 1000.0);
+            row.put("p95Ms", h.getValueAtPercentile(95) / 1000.0);
+            row.put("p99Ms", h.getValueAtPercentile(99) / 1000.0);
+            row.put("maxMs", h.getMaxMicros() / 1000.0);
+            row.put("errors", e.getValue().errors.sum());
+            row.put("conflicts", e.getValue().conflicts.sum());
+            summary.put(e.getKey(), row);
+        }
+        if (hgrmDir != null) {
+            Files.writeString(hgrmDir.resolve("summary.json"), Json.write(summary), StandardCharsets.UTF_8);
+            console.println("Distributions written to " + hgrmDir);
+        }
+    }
+
+    // ================= SETUP =================
+
+    private static List<Persona> loadPersonas(Connection conn, int limit) throws SQLException {
+        // One vehicle per owner account, newest first
+        String sql = """
+                    SELECT DISTINCT ON (o.vehicle_owner_id) o.vehicle_owner_id, o.user_id, v.vehicle_id
+                    FROM inet_vehicleparking.tbl_vehicle_owner o
+                    JOIN inet_vehicleparking.tbl_vehicle v ON v.vehicle_owner_id = o.vehicle_owner_id
+                    WHERE o.user_id IS NOT NULL
+                    ORDER BY o.vehicle_owner_id DESC, v.vehicle_id
+                    LIMIT ?
+                """;
+        List<Persona> personas = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, Math.max(1, limit));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    personas.add(new Persona(rs.getInt(1), rs.getInt(2), rs.getInt(3)));
+                }
+            }
+        }
+        return personas;
+    }
+
+    private static List<Integer> loadAdminIds(Connection conn) throws SQLException {
+        String sql = "SELECT user_id FROM inet_vehicleparking.tbl_user WHERE user_group_id = 1 ORDER BY user_id LIMIT 10";
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            ids.add(1);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,304 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import utils.DatabaseConnection;
+import utils.Workload;
+
+/**
+ * EXPLAINs every statement in {@link DaoStatementCatalog} against the
+ * configured database and flags plans that will not scale.
+ *
+ * Run it against a database seeded with production-scale data; on a
+ * near-empty schema every plan looks fine. Each statement is run
+ * under EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) inside a transaction that is
+ * rolled back. A statement fails the audit when its plan
+ * <ul>
+ * <li>sequentially scans a table larger than {@code --seq-scan-rows} (unless
+ * the call reads the whole table by design),</li>
+ * <li>has a node whose row estimate is off by {@code --misestimate} times or
+ * more,</li>
+ * <li>sorts on disk, or</li>
+ * <li>runs longer than the budget registered for it.</li>
+ * </ul>
+ *
+ * Usage: {@code java tools.QueryPlanAudit [--seq-scan-rows=N] [--misestimate=F]
+ * [--plans-dir=DIR] [--only=NamePrefix] [--no-fail]}. Exits with status 1
+ * when any statement fails, unless --no-fail is given.
+ */
+public class QueryPlanAudit {
+
+    private long seqScanRows = 10_000;
+    private double misestimateFactor = 10;
+    // Ignore misestimates on nodes this small; they never matter
+    private long misestimateMinRows = 1_000;
+    private Path plansDir;
+    private String only;
+    private boolean failOnViolation = true;
+
+    private final Map<String, Double> tableRows = new HashMap<>();
+
+    /** Outcome for one captured statement. */
+    static final class Result {
+        final String name;
+        final String sql;
+        final long budgetMs;
+        double executionMs;
+        double planningMs;
+        String topNode = "";
+        final List<String> violations = new ArrayList<>();
+
+        Result(String name, String sql, long budgetMs) {
+            this.name = name;
+            this.sql = sql;
+            this.budgetMs = budgetMs;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        QueryPlanAudit audit = new QueryPlanAudit();
+        audit.parseArgs(args);
+        List<Result> results = audit.run();
+        audit.printReport(results);
+
+        boolean failed = results.stream().anyMatch(r -> !r.violations.isEmpty());
+        if (failed && audit.failOnViolation) {
+            System.exit(1);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--seq-scan-rows=")) {
+                seqScanRows = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--misestimate=")) {
+                misestimateFactor = Double.parseDouble(value(arg));
+            } else if (arg.startsWith("--plans-dir=")) {
+                plansDir = Path.of(value(arg));
+            } else if (arg.startsWith("--only=")) {
+                only = value(arg);
+            } else if (arg.equals("--no-fail")) {
+                failOnViolation = false;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    // ================= AUDIT =================
+
+    List<Result> run() throws SQLException, IOException {
+        DaoStatementCatalog catalog = new DaoStatementCatalog();
+        List<Result> results = new ArrayList<>();
+
+        if (plansDir != null) {
+            Files.createDirectories(plansDir);
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+            loadTableSizes(conn);
+            DaoStatementCatalog.Samples samples = DaoStatementCatalog.Samples.load(conn);
+
+            for (DaoStatementCatalog.Entry entry : catalog.entries()) {
+                if (only != null && !entry.getName().startsWith(only)) {
+                    continue;
+                }
+                List<StatementRecorder.Captured> statements;
+                try {
+                    statements = catalog.capture(entry, samples);
+                } catch (SQLException | RuntimeException e) {
+                    Result result = new Result(entry.getName(), "", entry.getBudgetMs());
+                    result.violations.add("capture failed: " + e.getMessage());
+                    results.add(result);
+                    continue;
+                }
+                for (int i = 0; i < statements.size(); i++) {
+                    StatementRecorder.Captured captured = statements.get(i);
+                    String name = statements.size() == 1 ? entry.getName() : entry.getName() + "#" + (i + 1);
+                    Result result = new Result(name, captured.getSql(), entry.getBudgetMs());
+                    try {
+                        Map<String, Object> plan = explain(conn, captured);
+                        check(result, plan, entry.isFullScan());
+                        savePlan(name, plan);
+                    } catch (SQLException e) {
+                        result.violations.add("EXPLAIN failed: " + e.getMessage());
+                    }
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    private void loadTableSizes(Connection conn) throws SQLException {
+        String sql = """
+                    SELECT c.relname, c.reltuples
+                    FROM pg_class c
+                    JOIN pg_namespace n ON n.oid = c.relnamespace
+                    WHERE n.nspname = 'inet_vehicleparking' AND c.relkind IN ('r', 'p')
+                """;
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                tableRows.put(rs.getString(1), rs.getDouble(2));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> explain(Connection conn, StatementRecorder.Captured captured) throws SQLException {
+        String sql = "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + captured.getSql();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            List<Object> params = captured.getParams();
+            for (int i = 0; i < params.size(); i++) {
+                Object value = params.get(i);
+                if (value instanceof StatementRecorder.SqlNull sqlNull) {
+                    ps.setNull(i + 1, sqlNull.getSqlType());
+                } else {
+                    ps.setObject(i + 1, value);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                List<Object> root = (List<Object>) Json.parse(rs.getString(1));
+                return (Map<String, Object>) root.get(0);
+            }
+        } finally {
+            // ANALYZE really executes the statement; never keep its effects
+            conn.rollback();
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // ================= CHECKS =================
+
+    @SuppressWarnings("unchecked")
+    private void check(Result result, Map<String, Object> explained, boolean fullScan) {
+        result.executionMs = number(explained.get("Execution Time"));
+        result.planningMs = number(explained.get("Planning Time"));
+        Map<String, Object> plan = (Map<String, Object>) explained.get("Plan");
+        result.topNode = String.valueOf(plan.get("Node Type"));
+
+        walk(plan, node -> checkNode(result, node, fullScan));
+
+        if (result.executionMs > result.budgetMs) {
+            result.violations.add(String.format("execution %.1f ms over budget %d ms",
+                    result.executionMs, result.budgetMs));
+        }
+    }
+
+    private void checkNode(Result result, Map<String, Object> node, boolean fullScan) {
+        String type = String.valueOf(node.get("Node Type"));
+
+        if (type.equals("Seq Scan") && !fullScan) {
+            String table = String.valueOf(node.get("Relation Name"));
+            double rows = tableRows.getOrDefault(table, 0d);
+            if (rows >= seqScanRows) {
+                result.violations.add(String.format("seq scan on %s (~%,.0f rows)", table, rows));
+            }
+        }
+
+        if ("Disk".equals(node.get("Sort Space Type"))) {
+            result.violations.add(String.format("sort spilled to disk (%,.0f kB)", number(node.get("Sort Space Used"))));
+        }
+
+        // Estimates are per loop; compare totals so nested loops are judged fairly
+        double loops = Math.max(1, number(node.get("Actual Loops")));
+        double estimated = number(node.get("Plan Rows")) * loops;
+        double actual = number(node.get("Actual Rows")) * loops;
+        double larger = Math.max(estimated, actual);
+        double smaller = Math.max(1, Math.min(estimated, actual));
+        if (larger >= misestimateMinRows && larger / smaller >= misestimateFactor) {
+            result.violations.add(String.format("%s estimated %,.0f rows, got %,.0f", type, estimated, actual));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void walk(Map<String, Object> node, java.util.function.Consumer<Map<String, Object>> visitor) {
+        visitor.accept(node);
+        Object children = node.get("Plans");
+        if (children instanceof List<?> list) {
+            for (Object child : list) {
+                walk((Map<String, Object>) child, visitor);
+            }
+        }
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    // ================= OUTPUT =================
+
+    private void savePlan(String name, Map<String, Object> plan) throws SQLException {
+        if (plansDir == null) {
+            return;
+        }
+        try {
+            Files.writeString(plansDir.resolve(name + ".json"), Json.write(plan), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not write plan for " + name, e);
+        }
+    }
+
+    void printReport(List<Result> results) {
+        int failed = 0;
+        System.out.println();
+        System.out.println(String.format("%-45s %10s %8s  %-20s %s", "STATEMENT", "EXEC ms", "BUDGET", "TOP NODE",
+                "RESULT"));
+        for (Result r : results) {
+            String status = r.violations.isEmpty() ? "ok" : "FAIL";
+            System.out.println(String.format("%-45s %10.2f %8d  %-20s %s", r.name, r.executionMs, r.budgetMs,
+                    r.topNode, status));
+            for (String v : r.violations) {
+                System.out.println("    - " + v);
+            }
+            if (!r.violations.isEmpty()) {
+                failed++;
+            }
+        }
+        System.out.println();
+        System.out.println(results.size() + " statements audited, " + failed + " failed");
+
+        if (plansDir != null) {
+            List<Object> statements = new ArrayList<>();
+            for (Result r : results) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("name", r.name);
+                row.put("sql", r.sql);
+                row.put("executionMs", r.executionMs);
+                row.put("planningMs", r.planningMs);
+                row.put("budgetMs", r.budgetMs);
+                row.put("violations", r.violations);
+                statements.add(row);
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("audited", results.size());
+            summary.put("failed", failed);
+            summary.put("statements", statements);
+            try {
+                Files.writeString(plansDir.resolve("summary.json"), Json.write(summary), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Could not write summary: " + e.getMessage());
+            }
+        }
+    }
+}
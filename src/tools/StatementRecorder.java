@@ -0,0 +1,197 @@
+package tools;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dry-run JDBC connection that records SQL instead of running it.
+ *
+ * A DAO wired to {@link #connection()} behaves as if the database were empty:
+ * every query returns no rows and every update touches nothing. What the DAO
+ * tried to execute (SQL plus bound parameters) is kept in order, so the exact
+ * statements a DAO method issues can be replayed elsewhere without keeping
+ * copies of the SQL.
+ */
+public class StatementRecorder {
+
+    /** One executed statement with its parameters, 1-based like JDBC. */
+    public static final class Captured {
+        private final String sql;
+        private final List<Object> params;
+
+        Captured(String sql, List<Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        public String getSql() { return sql; }
+
+        /** Parameter values in order; a SQL NULL is an {@link SqlNull}. */
+        public List<Object> getParams() { return params; }
+    }
+
+    /** Placeholder for a parameter bound with setNull. */
+    public static final class SqlNull {
+        private final int sqlType;
+
+        SqlNull(int sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        public int getSqlType() { return sqlType; }
+
+        @Override
+        public String toString() {
+            return "NULL";
+        }
+    }
+
+    private final List<Captured> captured = new ArrayList<>();
+
+    /** Drain the statements recorded since the last call. */
+    public List<Captured> take() {
+        List<Captured> result = new ArrayList<>(captured);
+        captured.clear();
+        return result;
+    }
+
+    public Connection connection() {
+        return proxy(Connection.class, (p, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return preparedStatement((String) args[0]);
+                case "createStatement":
+                    return statement();
+                case "isClosed":
+                    return false;
+                case "getAutoCommit":
+                    return true;
+                case "isValid":
+                    return true;
+                case "unwrap":
+                    throw new java.sql.SQLFeatureNotSupportedException("Dry-run connection");
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private PreparedStatement preparedStatement(String sql) {
+        Map<Integer, Object> params = new TreeMap<>();
+        return proxy(PreparedStatement.class, (p, method, args) -> {
+            String name = method.getName();
+            if (name.equals("setNull")) {
+                params.put((Integer) args[0], new SqlNull((Integer) args[1]));
+                return null;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                params.put(index, args[1] == null ? new SqlNull(java.sql.Types.NULL) : args[1]);
+                return null;
+            }
+            if (name.equals("clearParameters")) {
+                params.clear();
+                return null;
+            }
+            if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                captured.add(new Captured(sql, new ArrayList<>(params.values())));
+                return executeResult(method.getReturnType());
+            }
+            if (name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+                return emptyResultSet();
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private Statement statement() {
+        return proxy(Statement.class, (p, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute") && args != null && args.length >= 1 && args[0] instanceof String sql) {
+                captured.add(new Captured(sql, new ArrayList<>()));
+                return executeResult(method.getReturnType());
+            }
+            if (name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+                return emptyResultSet();
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private Object executeResult(Class<?> type) {
+        if (type == ResultSet.class) {
+            return emptyResultSet();
+        }
+        if (type == int[].class) {
+            return new int[0];
+        }
+        if (type == long[].class) {
+            return new long[0];
+        }
+        return defaultValue(type);
+    }
+
+    private ResultSet emptyResultSet() {
+        return proxy(ResultSet.class, (p, method, args) -> {
+            if (method.getName().equals("wasNull")) {
+                return true;
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    // ================= HELPERS =================
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[] { type },
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        case "toString":
+                            return "DryRun" + type.getSimpleName();
+                        default:
+                            return handler.invoke(p, method, args);
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,777 @@
+package tools;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import models.Booking;
+import models.ParkingSlot;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import utils.DatabaseConnection;
+import utils.Workload;
+
+/**
+ * Fills the inet_vehicleparking schema with production-sized synthetic data.
+ *
+ * The output depends only on the options: every chunk of rows draws from its
+ * own random stream derived from the seed, so the same seed gives the same
+ * rows no matter how many threads load them. Rows are streamed with COPY, one
+ * connection per chunk, several chunks at a time.
+ *
+ * What the data looks like:
+ * <ul>
+ * <li>each owner has a customer login and one to a few vehicles;</li>
+ * <li>booking times follow a weekday/hour demand curve (commute and lunch
+ * peaks, quiet Sundays) and a few regulars book far more than others;</li>
+ * <li>durations use the labels from {@link Booking#getDurationOptions()},
+ * amounts use {@link Booking#calculateEstimatedAmount(String)};</li>
+ * <li>finished bookings are mostly completed, recent ones still pending or
+ * approved; approved and completed bookings carry a payment that is paid,
+ * partly paid or still due.</li>
+ * </ul>
+ *
+ * Usage: {@code java tools.SyntheticDataGenerator [--bookings=10000000]
+ * [--owners=N] [--vehicles=N] [--slots=4000] [--zones=20] [--days=730]
+ * [--end=2026-01-01] [--seed=42] [--threads=N] [--truncate]}.
+ *
+ * Rows are appended after the current max ids; --truncate empties the
+ * generated tables first. Load into a schema without the secondary indexes
+ * (before the migrations run) for the fastest load.
+ */
+public class SyntheticDataGenerator {
+
+    private static final String SCHEMA = "inet_vehicleparking.";
+    private static final int CHUNK_ROWS = 200_000;
+    private static final int FLUSH_BYTES = 1 << 16;
+    private static final int CUSTOMER_GROUP_ID = 2;
+
+    // ================= OPTIONS =================
+
+    private long seed = 42;
+    private int bookings = 10_000_000;
+    private int owners = -1;
+    private int vehicles = -1;
+    private int slots = 4_000;
+    private int zones = 20;
+    private int days = 730;
+    private LocalDate end = LocalDate.of(2026, 1, 1);
+    private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private boolean truncate = false;
+
+    // ================= DISTRIBUTIONS =================
+
+    // Relative demand per hour of day: morning commute, lunch, evening peak
+    private static final double[] HOUR_WEIGHTS = {
+            0.2, 0.1, 0.1, 0.1, 0.2, 0.5, 1.5, 4.0, 6.5, 5.0, 3.5, 4.0,
+            5.0, 4.0, 3.0, 3.0, 4.0, 5.5, 5.0, 3.5, 2.5, 1.5, 0.8, 0.4 };
+
+    // Monday..Sunday
+    private static final double[] WEEKDAY_WEIGHTS = { 1.0, 1.0, 1.0, 1.05, 1.15, 0.75, 0.45 };
+
+    // Same order as Booking.getDurationOptions()
+    private static final double[] DURATION_WEIGHTS = {
+            10, 22, 20, 12, 8, 5, 4, 3, 6, 6, 2, 2 };
+
+    private static final String[] CATEGORY_NAMES = { "Car", "Motorcycle", "Van", "Truck" };
+    private static final double[] CATEGORY_WEIGHTS = { 62, 28, 6, 4 };
+
+    private static final String[] SLOT_TYPES = { "Car", "Motorcycle", "VIP", "Disabled" };
+    private static final double[] SLOT_TYPE_WEIGHTS = { 72, 20, 5, 3 };
+
+    private static final String[] PAY_METHODS = { "Cash", "ABA", "Card", "Wing" };
+    private static final double[] PAY_METHOD_WEIGHTS = { 45, 30, 15, 10 };
+
+    private static final String[] FIRST_NAMES = {
+            "Sok", "Dara", "Sophea", "Vanna", "Bopha", "Rith", "Chenda", "Pisey", "Vuthy", "Sreymom",
+            "Kosal", "Nary", "Samnang", "Lina", "Visal", "Malis", "Piseth", "Sothea", "Rachana", "Chan",
+            "Kimheng", "Sreyneang", "Bunthoeun", "Kanha", "Makara", "Davy", "Ratanak", "Somaly", "Veasna", "Thida" };
+    private static final String[] LAST_NAMES = {
+            "Chea", "Sok", "Kim", "Heng", "Lim", "Ly", "Chan", "Seng", "Meas", "Nhem",
+            "Phan", "Tep", "Keo", "Sam", "Long", "Pen", "Ouk", "Prak", "Yim", "Touch" };
+
+    // ================= STATE =================
+
+    private int userBase;
+    private int ownerBase;
+    private int vehicleBase;
+    private int slotBase;
+    private int bookingBase;
+    private int paymentBase;
+
+    private int[] categoryIds;
+    private String[] categoryNames;
+
+    // Filled before bookings are generated; index = vehicle offset
+    private int[] vehicleOwner;
+    private byte[] vehicleCategory;
+
+    private double[] hourCdf;
+    private double[] durationCdf;
+    private String[] durationLabels;
+    private int[] durationMinutes;
+
+    public static void main(String[] args) throws Exception {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator();
+        generator.parseArgs(args);
+        generator.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--bookings=")) {
+                bookings = Integer.parseInt(value);
+            } else if (arg.startsWith("--owners=")) {
+                owners = Integer.parseInt(value);
+            } else if (arg.startsWith("--vehicles=")) {
+                vehicles = Integer.parseInt(value);
+            } else if (arg.startsWith("--slots=")) {
+                slots = Integer.parseInt(value);
+            } else if (arg.startsWith("--zones=")) {
+                zones = Integer.parseInt(value);
+            } else if (arg.startsWith("--days=")) {
+                days = Integer.parseInt(value);
+            } else if (arg.startsWith("--end=")) {
+                end = LocalDate.parse(value);
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.equals("--truncate")) {
+                truncate = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (owners < 0) {
+            owners = Math.max(10, bookings / 25);
+        }
+        if (vehicles < 0) {
+            vehicles = owners + owners * 3 / 10;
+        }
+        vehicles = Math.max(vehicles, owners);
+    }
+
+    // ================= RUN =================
+
+    void run() throws Exception {
+        prepareDistributions();
+        long start = System.currentTimeMillis();
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+            if (truncate) {
+                truncateTables(conn);
+            }
+            loadReferenceData(conn);
+            readBaseIds(conn);
+        }
+
+        buildVehicleOwnership();
+
+        // One COPY connection per thread; the maintenance share would otherwise cap --threads at two
+        Workload.MAINTENANCE.allowAtLeast(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            load(pool, "tbl_user", owners, this::writeUsers);
+            load(pool, "tbl_vehicle_owner", owners, this::writeOwners);
+            load(pool, "tbl_vehicle", vehicles, this::writeVehicles);
+            load(pool, "tbl_parking_slot", slots, this::writeSlots);
+            load(pool, "tbl_booking", bookings, this::writeBookingsAndPayments);
+        } finally {
+            pool.shutdown();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+            resetSequences(conn);
+            try (Statement stmt = conn.createStatement()) {
+                for (String table : new String[] { "tbl_user", "tbl_vehicle_owner", "tbl_vehicle",
+                        "tbl_parking_slot", "tbl_booking", "tbl_payment" }) {
+                    stmt.execute("ANALYZE " + SCHEMA + table);
+                }
+            }
+        }
+
+        System.out.printf("Generated %,d owners, %,d vehicles, %,d slots, %,d bookings in %.1f s%n",
+                owners, vehicles, slots, bookings, (System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(Connection conn, int from, int to, SplittableRandom random) throws SQLException;
+    }
+
+    private void load(ExecutorService pool, String table, int rows, ChunkWriter writer) throws Exception {
+        long start = System.currentTimeMillis();
+        int tableTag = table.hashCode();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int from = 0, chunk = 0; from < rows; from += CHUNK_ROWS, chunk++) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(rows, from + CHUNK_ROWS);
+            SplittableRandom random = new SplittableRandom(mix(seed, tableTag, chunk));
+            futures.add(pool.submit(() -> {
+                try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+                    conn.setNetworkTimeout(Runnable::run, 0);
+                    writer.write(conn, chunkFrom, chunkTo, random);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        System.out.printf("  %-18s %,12d rows  %6.1f s%n", table, rows, (System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    // ================= SETUP =================
+
+    private void truncateTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE " + SCHEMA + "tbl_payment, " + SCHEMA + "tbl_booking, "
+                    + SCHEMA + "tbl_vehicle, " + SCHEMA + "tbl_vehicle_owner, " + SCHEMA + "tbl_parking_slot");
+            // Keep staff accounts; only generated customers go
+            stmt.execute("DELETE FROM " + SCHEMA + "tbl_user WHERE user_group_id = " + CUSTOMER_GROUP_ID);
+        }
+    }
+
+    private void loadReferenceData(Connection conn) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        String select = "SELECT vehicle_category_id, vehicle_category_name FROM " + SCHEMA
+                + "tbl_vehicle_category ORDER BY vehicle_category_id";
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(select)) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+                names.add(rs.getString(2));
+            }
+        }
+        if (ids.isEmpty()) {
+            String insert = "INSERT INTO " + SCHEMA + "tbl_vehicle_category (vehicle_category_name) VALUES (?)";
+            try (PreparedStatement ps = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                for (String name : CATEGORY_NAMES) {
+                    ps.setString(1, name);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        keys.next();
+                        ids.add(keys.getInt(1));
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        categoryIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        categoryNames = names.toArray(new String[0]);
+    }
+
+    private void readBaseIds(Connection conn) throws SQLException {
+        userBase = maxId(conn, "tbl_user", "user_id");
+        ownerBase = maxId(conn, "tbl_vehicle_owner", "vehicle_owner_id");
+        vehicleBase = maxId(conn, "tbl_vehicle", "vehicle_id");
+        slotBase = maxId(conn, "tbl_parking_slot", "parking_slot_id");
+        bookingBase = maxId(conn, "tbl_booking", "booking_id");
+        paymentBase = maxId(conn, "tbl_payment", "payment_id");
+    }
+
+    private static int maxId(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(max(" + column + "), 0) FROM " + SCHEMA + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void resetSequences(Connection conn) throws SQLException {
+        String[][] serials = {
+                { "tbl_user", "user_id" }, { "tbl_vehicle_owner", "vehicle_owner_id" },
+                { "tbl_vehicle", "vehicle_id" }, { "tbl_parking_slot", "parking_slot_id" },
+                { "tbl_booking", "booking_id" }, { "tbl_payment", "payment_id" } };
+        try (Statement stmt = conn.createStatement()) {
+            for (String[] s : serials) {
+                String table = SCHEMA + s[0];
+                stmt.execute("SELECT setval(pg_get_serial_sequence('" + table + "', '" + s[1] + "'), "
+                        + "COALESCE((SELECT max(" + s[1] + ") FROM " + table + "), 1))");
+            }
+        }
+    }
+
+    private void prepareDistributions() {
+        hourCdf = cdf(HOUR_WEIGHTS);
+        durationCdf = cdf(DURATION_WEIGHTS);
+        durationLabels = Booking.getDurationOptions();
+        durationMinutes = new int[durationLabels.length];
+        Booking probe = new Booking();
+        for (int i = 0; i < durationLabels.length; i++) {
+            probe.setDurationOfBooking(durationLabels[i]);
+            durationMinutes[i] = probe.getDurationInMinutes();
+        }
+    }
+
+    // Every owner gets one vehicle; the rest go to random owners
+    private void buildVehicleOwnership() {
+        vehicleOwner = new int[vehicles];
+        vehicleCategory = new byte[vehicles];
+        SplittableRandom random = new SplittableRandom(mix(seed, "ownership".hashCode(), 0));
+        double[] categoryCdf = categoryCdf();
+        for (int v = 0; v < vehicles; v++) {
+            vehicleOwner[v] = v < owners ? v : random.nextInt(owners);
+            vehicleCategory[v] = (byte) pick(categoryCdf, random);
+        }
+    }
+
+    private double[] categoryCdf() {
+        double[] weights = new double[categoryIds.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1;
+            for (int k = 0; k < CATEGORY_NAMES.length; k++) {
+                if (CATEGORY_NAMES[k].equalsIgnoreCase(categoryNames[i])) {
+                    weights[i] = CATEGORY_WEIGHTS[k];
+                }
+            }
+        }
+        return cdf(weights);
+    }
+
+    // ================= TABLE WRITERS =================
+
+    private void writeUsers(Connection conn, int from, int to, SplittableRandom random) throws SQLException {
+        try (CopyStream out = new CopyStream(conn, "tbl_user",
+                "user_id, username, password, fullname, contact, email, user_group_id, status, created_at")) {
+            for (int i = from; i < to; i++) {
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                int userId = userBase + 1 + i;
+                out.col(userId)
+                        .col("cust" + userId)
+                        .col("password")
+                        .col(first + " " + last)
+                        .col(phone(userId))
+                        .col(email(first, last, userId))
+                        .col(CUSTOMER_GROUP_ID)
+                        .col(random.nextInt(100) < 97 ? 1 : 0)
+                        .col(timestamp(accountCreated(random)))
+                        .endRow();
+            }
+        }
+    }
+
+    private void writeOwners(Connection conn, int from, int to, SplittableRandom random) throws SQLException {
+        try (CopyStream out = new CopyStream(conn, "tbl_vehicle_owner",
+                "vehicle_owner_id, vehicle_owner_name, vehicle_owner_contact, vehicle_owner_email, status, "
+                        + "user_id, created_at, updated_at")) {
+            for (int i = from; i < to; i++) {
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                long created = accountCreated(random);
+                out.col(ownerBase + 1 + i)
+                        .col(first + " " + last)
+                        .col(phone(userBase + 1 + i))
+                        .col(email(first, last, userBase + 1 + i))
+                        .col(random.nextInt(100) < 95 ? 1 : 0)
+                        .col(userBase + 1 + i)
+                        .col(timestamp(created))
+                        .col(timestamp(created + random.nextInt(90 * 86_400)))
+                        .endRow();
+            }
+        }
+    }
+
+    private void writeVehicles(Connection conn, int from, int to, SplittableRandom random) throws SQLException {
+        try (CopyStream out = new CopyStream(conn, "tbl_vehicle",
+                "vehicle_id, vehicle_category_id, vehicle_plate_number, vehicle_description, vehicle_owner_id")) {
+            for (int v = from; v < to; v++) {
+                int category = vehicleCategory[v];
+                out.col(vehicleBase + 1 + v)
+                        .col(categoryIds[category])
+                        .col(plate(vehicleBase + v))
+                        .col(categoryNames[category] + " #" + (v + 1))
+                        .col(ownerBase + 1 + vehicleOwner[v])
+                        .endRow();
+            }
+        }
+    }
+
+    private void writeSlots(Connection conn, int from, int to, SplittableRandom random) throws SQLException {
+        double[] typeCdf = cdf(SLOT_TYPE_WEIGHTS);
+        try (CopyStream out = new CopyStream(conn, "tbl_parking_slot",
+                "parking_slot_id, parking_slot_number, parking_slot_status, user_id, slot_type, zone")) {
+            for (int s = from; s < to; s++) {
+                int roll = random.nextInt(100);
+                int status = roll < 70 ? ParkingSlot.STATUS_AVAILABLE
+                        : roll < 80 ? ParkingSlot.STATUS_RESERVED : ParkingSlot.STATUS_OCCUPIED;
+                out.col(slotBase + 1 + s)
+                        .col(slotBase + 1 + s)
+                        .col(status);
+                if (status == ParkingSlot.STATUS_AVAILABLE) {
+                    out.nul();
+                } else {
+                    out.col(userBase + 1 + random.nextInt(owners));
+                }
+                out.col(SLOT_TYPES[pick(typeCdf, random)])
+                        .col(zoneName(s % zones))
+                        .endRow();
+            }
+        }
+    }
+
+    private void writeBookingsAndPayments(Connection conn, int from, int to, SplittableRandom random)
+            throws SQLException {
+        long endSecond = end.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long startSecond = end.minusDays(days).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        double[] methodCdf = cdf(PAY_METHOD_WEIGHTS);
+
+        // Payment ids have to be unique across chunks: each chunk owns the id
+        // range of its bookings and payments are numbered by booking
+        StringBuilder payments = new StringBuilder(1 << 20);
+        CopyStream paymentRows = new CopyStream(payments);
+
+        try (CopyStream out = new CopyStream(conn, "tbl_booking",
+                "booking_id, customer_id, vehicle_id, slot_id, booking_status, duration_of_booking, remarks, "
+                        + "booking_time, user_id, booking_ref, expected_arrival, actual_arrival, departure_time, "
+                        + "total_hours, total_amount")) {
+
+            Booking probe = new Booking();
+            for (int b = from; b < to; b++) {
+                int bookingId = bookingBase + 1 + b;
+
+                // Squaring skews towards low indexes: a few regular vehicles book often
+                double u = random.nextDouble();
+                int vehicle = (int) (u * u * vehicles);
+                int owner = vehicleOwner[vehicle];
+                int userId = userBase + 1 + owner;
+                int slotId = slotBase + 1 + random.nextInt(slots);
+
+                long bookedAt = bookingSecond(random, startSecond, endSecond);
+                int d = pick(durationCdf, random);
+                int minutes = durationMinutes[d];
+                long expected = bookedAt + 60L * random.nextInt(121);
+                boolean finished = expected + 60L * minutes < endSecond;
+                int status = bookingStatus(random, finished);
+
+                Long arrival = null;
+                Long departure = null;
+                Double hours = null;
+                Double amount = null;
+                probe.setDurationOfBooking(durationLabels[d]);
+                double estimate = probe.calculateEstimatedAmount(categoryNames[vehicleCategory[vehicle]]);
+
+                if (status == Booking.STATUS_COMPLETED || status == Booking.STATUS_APPROVED) {
+                    arrival = expected + 60L * (random.nextInt(31) - 15);
+                }
+                if (status == Booking.STATUS_COMPLETED) {
+                    double stretch = 0.8 + random.nextDouble() * 0.5;
+                    departure = arrival + (long) (60L * minutes * stretch);
+                    hours = round2((departure - arrival) / 3600.0);
+                    amount = round2(estimate * stretch);
+                }
+
+                out.col(bookingId)
+                        .col(ownerBase + 1 + owner)
+                        .col(vehicleBase + 1 + vehicle)
+                        .col(slotId)
+                        .col(status)
+                        .col(durationLabels[d])
+                        .nul()
+                        .col(timestamp(bookedAt))
+                        .col(userId)
+                        .col("BK-" + date(bookedAt) + "-" + bookingId)
+                        .col(timestamp(expected))
+                        .col(arrival != null ? timestamp(arrival) : null)
+                        .col(departure != null ? timestamp(departure) : null)
+                        .col(hours)
+                        .col(amount)
+                        .endRow();
+
+                writePayment(paymentRows, random, methodCdf, paymentBase + 1 + b, bookingId, userId, status,
+                        amount != null ? amount : round2(estimate), bookedAt, departure);
+            }
+        }
+
+        try (CopyStream out = new CopyStream(conn, "tbl_payment",
+                "payment_id, booking_id, user_id, amount_due, amount_paid, payment_status, paid_by, remarks, "
+                        + "payment_date, payment_method")) {
+            out.append(payments);
+        }
+    }
+
+    private void writePayment(CopyStream out, SplittableRandom random, double[] methodCdf, int paymentId,
+            int bookingId, int userId, int bookingStatus, double due, long bookedAt, Long departure) {
+        int roll = random.nextInt(100);
+        int status;
+        if (bookingStatus == Booking.STATUS_COMPLETED) {
+            status = roll < 90 ? 2 : roll < 97 ? 3 : 1;
+        } else if (bookingStatus == Booking.STATUS_APPROVED) {
+            status = roll < 60 ? 1 : roll < 75 ? 3 : 2;
+        } else if (bookingStatus == Booking.STATUS_CANCELLED && roll < 30) {
+            // Cancelled after approval: the payment was created, then voided
+            status = 4;
+        } else {
+            return;
+        }
+
+        double paid = switch (status) {
+            case 2 -> due;
+            case 3 -> round2(due * (0.3 + random.nextDouble() * 0.6));
+            default -> 0.0;
+        };
+        boolean hasPayment = status == 2 || status == 3;
+        String method = hasPayment ? PAY_METHODS[pick(methodCdf, random)] : null;
+        long paidAt = departure != null ? departure : bookedAt + 3600L * random.nextInt(48);
+
+        out.col(paymentId)
+                .col(bookingId)
+                .col(userId)
+                .col(due)
+                .col(paid)
+                .col(status)
+                .col(method)
+                .col(status == 4 ? "Booking cancelled" : "Payment pending for approved booking")
+                .col(hasPayment ? date(paidAt) : null)
+                .col(method)
+                .endRow();
+    }
+
+    private static int bookingStatus(SplittableRandom random, boolean finished) {
+        int roll = random.nextInt(100);
+        if (finished) {
+            return roll < 80 ? Booking.STATUS_COMPLETED
+                    : roll < 90 ? Booking.STATUS_CANCELLED : Booking.STATUS_REJECTED;
+        }
+        return roll < 35 ? Booking.STATUS_PENDING
+                : roll < 90 ? Booking.STATUS_APPROVED
+                        : roll < 95 ? Booking.STATUS_CANCELLED : Booking.STATUS_REJECTED;
+    }
+
+    // ================= VALUE HELPERS =================
+
+    // Day weighted by weekday, hour by the demand curve, minute uniform
+    private long bookingSecond(SplittableRandom random, long startSecond, long endSecond) {
+        int totalDays = (int) ((endSecond - startSecond) / 86_400);
+        long day;
+        while (true) {
+            day = random.nextInt(totalDays);
+            DayOfWeek dow = LocalDateTime.ofEpochSecond(startSecond + day * 86_400, 0, ZoneOffset.UTC).getDayOfWeek();
+            if (random.nextDouble() * 1.15 < WEEKDAY_WEIGHTS[dow.getValue() - 1]) {
+                break;
+            }
+        }
+        int hour = pick(hourCdf, random);
+        return startSecond + day * 86_400 + hour * 3600L + random.nextInt(3600);
+    }
+
+    private long accountCreated(SplittableRandom random) {
+        long endSecond = end.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        return endSecond - 86_400L * (days + random.nextInt(365)) + random.nextInt(86_400);
+    }
+
+    private static String phone(int i) {
+        // Unique per index, Cambodian mobile shape: 0 + 2-digit prefix + 6-7 digits
+        String[] prefixes = { "12", "15", "16", "17", "69", "70", "77", "78", "81", "85", "89", "92", "93", "96", "97" };
+        return "0" + prefixes[i % prefixes.length] + String.format("%07d", i / prefixes.length);
+    }
+
+    private static String email(String first, String last, int i) {
+        return (first + "." + last).toLowerCase() + i + "@example.com";
+    }
+
+    // Province digit, two letters, four digits; a fixed permutation of the
+    // index so neighbouring vehicles do not get neighbouring plates
+    private static String plate(int v) {
+        long capacity = 9L * 676 * 10_000;
+        long code = (v * 2_654_435_761L) % capacity;
+        int number = (int) (code % 10_000);
+        long rest = code / 10_000;
+        char a = (char) ('A' + rest % 26);
+        char b = (char) ('A' + (rest / 26) % 26);
+        int province = (int) (rest / 676) + 1;
+        return String.format("%d%c%c-%04d", province, a, b, number);
+    }
+
+    private static String zoneName(int zone) {
+        return zone < 26 ? String.valueOf((char) ('A' + zone)) : "Z" + zone;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // Hand-formatted: String.format is the slowest part of a 10M-row load
+    private static String timestamp(long epochSecond) {
+        LocalDateTime t = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        char[] c = new char[19];
+        digits(c, 0, t.getYear(), 4);
+        c[4] = '-';
+        digits(c, 5, t.getMonthValue(), 2);
+        c[7] = '-';
+        digits(c, 8, t.getDayOfMonth(), 2);
+        c[10] = ' ';
+        digits(c, 11, t.getHour(), 2);
+        c[13] = ':';
+        digits(c, 14, t.getMinute(), 2);
+        c[16] = ':';
+        digits(c, 17, t.getSecond(), 2);
+        return new String(c);
+    }
+
+    private static String date(long epochSecond) {
+        return timestamp(epochSecond).substring(0, 10);
+    }
+
+    private static void digits(char[] c, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            c[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static double[] cdf(double[] weights) {
+        double total = 0;
+        for (double w : weights) {
+            total += w;
+        }
+        double[] cdf = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i];
+            cdf[i] = running / total;
+        }
+        cdf[cdf.length - 1] = 1.0;
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, SplittableRandom random) {
+        double u = random.nextDouble();
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // SplitMix64 finalizer over the seed, table and chunk
+    static long mix(long seed, long table, long chunk) {
+        long z = seed * 0x9E3779B97F4A7C15L + table * 0xBF58476D1CE4E5B9L + chunk * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // ================= COPY =================
+
+    /**
+     * Builds COPY text-format rows and streams them to the server in 64 KB
+     * pieces. Without a connection it only buffers (used for payments, which
+     * are written after their bookings).
+     */
+    static final class CopyStream implements AutoCloseable {
+        private final StringBuilder buffer;
+        private final CopyIn copy;
+        private boolean firstColumn = true;
+
+        CopyStream(Connection conn, String table, String columns) throws SQLException {
+            CopyManager manager = conn.unwrap(PGConnection.class).getCopyAPI();
+            this.copy = manager.copyIn("COPY " + SCHEMA + table + " (" + columns + ") FROM STDIN");
+            this.buffer = new StringBuilder(FLUSH_BYTES * 2);
+        }
+
+        CopyStream(StringBuilder target) {
+            this.copy = null;
+            this.buffer = target;
+        }
+
+        CopyStream col(Object value) {
+            if (!firstColumn) {
+                buffer.append('\t');
+            }
+            firstColumn = false;
+            if (value == null) {
+                buffer.append("\\N");
+            } else if (value instanceof String s) {
+                escape(s);
+            } else {
+                buffer.append(value);
+            }
+            return this;
+        }
+
+        CopyStream nul() {
+            return col(null);
+        }
+
+        void endRow() {
+            buffer.append('\n');
+            firstColumn = true;
+            if (copy != null && buffer.length() >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+
+        void append(CharSequence rows) {
+            for (int i = 0; i < rows.length(); i += FLUSH_BYTES) {
+                buffer.append(rows, i, Math.min(rows.length(), i + FLUSH_BYTES));
+                flush();
+            }
+        }
+
+        private void escape(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+
+        private void flush() {
+            if (copy == null || buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copy.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IllegalStateException("COPY failed: " + e.getMessage(), e);
+            }
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (copy == null) {
+                return;
+            }
+            try {
+                flush();
+                copy.endCopy();
+            } catch (RuntimeException | SQLException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.Booking;
+import models.ParkingSlot;
+import utils.AppExecutors;
 
 public class AdminDashboard extends JFrame {
 
@@ -55,6 +57,7 @@ public class AdminDashboard extends JFrame {
         contentPanel.add(new VehicleOwnerPanel(), "OWNERS");
         contentPanel.add(new ParkingSlotPanel(), "SLOTS");
         contentPanel.add(new UserManagementPanel(), "USERS");
+        contentPanel.add(new DiagnosticsPanel(), "DIAGNOSTICS");
 
         add(contentPanel, BorderLayout.CENTER);
 
@@ -87,6 +90,7 @@ public class AdminDashboard extends JFrame {
         panel.add(menuBtn("Owners", "OWNERS", SIDEBAR_BTN_CLR, "👤"));
         panel.add(menuBtn("Parking Slots", "SLOTS", SIDEBAR_BTN_CLR, "🅿️"));
         panel.add(menuBtn("User Management", "USERS", SIDEBAR_BTN_CLR, "👥"));
+        panel.add(menuBtn("Diagnostics", "DIAGNOSTICS", SIDEBAR_BTN_CLR, "🩺"));
 
         // Add some vertical space before logout button
         panel.add(Box.createVerticalGlue());
@@ -157,12 +161,25 @@ public class AdminDashboard extends JFrame {
         timeLabel.setForeground(Color.WHITE);
         timeLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
+        // Offline check-ins and payments that cannot reach the database (see Diagnostics)
+        JLabel journalLabel = new JLabel();
+        journalLabel.setForeground(new Color(255, 193, 7));
+        journalLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        journalLabel.setVisible(false);
+
         // Update time every second - Use javax.swing.Timer specifically
         javax.swing.Timer timer = new javax.swing.Timer(1000, e -> {
             timeLabel.setText(new java.text.SimpleDateFormat("hh:mm:ss a").format(new Date()));
+            String blocked = WriteJournal.blockedReason();
+            journalLabel.setVisible(blocked != null);
+            if (blocked != null) {
+                journalLabel.setText("⚠ " + WriteJournal.pending() + " offline write(s) stuck");
+                journalLabel.setToolTipText(blocked);
+            }
         });
         timer.start();
 
+        rightPanel.add(journalLabel);
         rightPanel.add(welcomeLabel);
         rightPanel.add(new JLabel("|"));
         rightPanel.add(timeLabel);
@@ -188,9 +205,12 @@ public class AdminDashboard extends JFrame {
         stats.setOpaque(false);
 
         lblBookings = createSimpleCard(new Color(33, 150, 243), "📋", "Bookings", "0");
-        lblVehicles = createSimpleCard(new Color(0, 200, 83), "🚗", "Vehicles", "0");
+        // Vehicles and slots start from the warm-start snapshot until refreshDashboard has live counts
+        int vehicles = ReferenceSnapshot.vehicleCount();
+        List<ParkingSlot> slots = ReferenceSnapshot.slots();
+        lblVehicles = createSimpleCard(new Color(0, 200, 83), "🚗", "Vehicles", vehicles >= 0 ? String.valueOf(vehicles) : "0");
         lblOwners = createSimpleCard(new Color(255, 193, 7), "👤", "Owners", "0");
-        lblSlots = createSimpleCard(new Color(244, 67, 54), "🅿️", "Slots", "0");
+        lblSlots = createSimpleCard(new Color(244, 67, 54), "🅿️", "Slots", slots != null ? String.valueOf(slots.size()) : "0");
 
         stats.add(lblBookings);
         stats.add(lblVehicles);
@@ -256,14 +276,17 @@ public class AdminDashboard extends JFrame {
     // ================= DATA =================
     private void refreshDashboard() {
         // Load Stats Worker
-        new SwingWorker<Map<String, Integer>, Void>() {
+        AppExecutors.execute(new SwingWorker<Map<String, Integer>, Void>() {
             @Override
             protected Map<String, Integer> doInBackground() throws Exception {
                 Map<String, Integer> stats = new HashMap<>();
+                LastGood.takeServedCached();
                 stats.put("Bookings", bookingDAO.countBookings());
                 stats.put("Vehicles", vehicleDAO.countVehicles());
                 stats.put("Owners", ownerDAO.countOwners());
                 stats.put("Slots", slotDAO.countSlots());
+                // 1 when the database was unavailable and these are the last known figures
+                stats.put("Cached", LastGood.takeServedCached() ? 1 : 0);
                 return stats;
             }
 
@@ -271,22 +294,23 @@ public class AdminDashboard extends JFrame {
             protected void done() {
                 try {
                     Map<String, Integer> stats = get();
+                    String cached = stats.get("Cached") == 1 ? " (cached)" : "";
 
                     // Update cards with simple method calls
-                    updateCardText(lblBookings, "Bookings", String.valueOf(stats.get("Bookings")), "📋");
-                    updateCardText(lblVehicles, "Vehicles", String.valueOf(stats.get("Vehicles")), "🚗");
-                    updateCardText(lblOwners, "Owners", String.valueOf(stats.get("Owners")), "👤");
-                    updateCardText(lblSlots, "Slots", String.valueOf(stats.get("Slots")), "🅿️");
+                    updateCardText(lblBookings, "Bookings" + cached, String.valueOf(stats.get("Bookings")), "📋");
+                    updateCardText(lblVehicles, "Vehicles" + cached, String.valueOf(stats.get("Vehicles")), "🚗");
+                    updateCardText(lblOwners, "Owners" + cached, String.valueOf(stats.get("Owners")), "👤");
+                    updateCardText(lblSlots, "Slots" + cached, String.valueOf(stats.get("Slots")), "🅿️");
 
                 } catch (Exception e) {
                     e.printStackTrace();
                     JOptionPane.showMessageDialog(AdminDashboard.this, "Error loading stats: " + e.getMessage());
                 }
             }
-        }.execute();
+        });
 
         // Load Table Worker
-        new SwingWorker<List<Booking>, Void>() {
+        AppExecutors.execute(new SwingWorker<List<Booking>, Void>() {
             @Override
             protected List<Booking> doInBackground() throws Exception {
                 return bookingDAO.findPendingBookings();
@@ -327,7 +351,7 @@ public class AdminDashboard extends JFrame {
                     JOptionPane.showMessageDialog(AdminDashboard.this, "Error loading bookings: " + e.getMessage());
                 }
             }
-        }.execute();
+        });
     }
 
     private String getStatusWithIcon(int status) {
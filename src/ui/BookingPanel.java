@@ -1,7 +1,9 @@
 package ui;
 
 import dao.BookingDAO;
+import dao.BookingHistory;
 import dao.ParkingSlotDAO;
+import dao.PlateIndex;
 import dao.UserDAO;
 import dao.VehicleDAO;
 import dao.VehicleOwnerDAO;
@@ -10,7 +12,9 @@ import java.awt.event.*;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
@@ -18,9 +22,15 @@ import models.Booking;
 import models.ParkingSlot;
 import models.Vehicle;
 import models.VehicleOwner;
+import utils.AppExecutors;
+import utils.JfrEvents;
+import utils.Log;
+import utils.PlateTrie;
 
 public class BookingPanel extends JPanel {
 
+    private static final Log LOG = Log.get(BookingPanel.class);
+
     private final BookingDAO bookingDAO = new BookingDAO();
     private final ParkingSlotDAO parkingSlotDAO = new ParkingSlotDAO();
     private final UserDAO userDAO = new UserDAO();
@@ -59,6 +69,18 @@ public class BookingPanel extends JPanel {
         initComponents();
         loadData();
         startClock();
+        loadPlateIndex();
+    }
+
+    // Warm the plate typeahead used by the booking dialog
+    private void loadPlateIndex() {
+        AppExecutors.execute(() -> {
+            try {
+                PlateIndex.getInstance().load();
+            } catch (SQLException e) {
+                LOG.warn("Failed to load plate index: {}", e.getMessage());
+            }
+        });
     }
 
     public BookingPanel() {
@@ -180,7 +202,7 @@ public class BookingPanel extends JPanel {
                     // Done
                 }
             };
-            worker.execute();
+            AppExecutors.execute(worker);
         });
 
         return button;
@@ -383,20 +405,17 @@ public class BookingPanel extends JPanel {
         gbc.weighty = 1.0;
 
         try {
-            List<Booking> allBookings = bookingDAO.findAll();
-            int total = allBookings.size();
-            long pending = allBookings.stream()
-                    .filter(b -> b.getBookingStatus() == Booking.STATUS_PENDING).count();
-            long approved = allBookings.stream()
-                    .filter(b -> b.getBookingStatus() == Booking.STATUS_APPROVED).count();
-            long rejected = allBookings.stream()
-                    .filter(b -> b.getBookingStatus() == Booking.STATUS_REJECTED).count();
+            // Columnar copy of the table, streamed: counts and sums without a
+            // Booking per row. The last copy loaded while the database is unavailable
+            BookingHistory history = bookingDAO.loadHistory();
+            int total = history.size();
+            int[] byStatus = history.countByStatus(history.all());
+            long pending = byStatus[Booking.STATUS_PENDING];
+            long approved = byStatus[Booking.STATUS_APPROVED];
+            long rejected = byStatus[Booking.STATUS_REJECTED];
 
             // Get revenue
-            double totalRevenue = allBookings.stream()
-                    .filter(b -> b.getBookingStatus() == Booking.STATUS_APPROVED)
-                    .mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0)
-                    .sum();
+            double totalRevenue = history.sumAmount(history.withStatus(Booking.STATUS_APPROVED));
 
             // Get available slots
             List<ParkingSlot> availableSlots = parkingSlotDAO.findAvailableSlots();
@@ -431,7 +450,7 @@ public class BookingPanel extends JPanel {
             gbc.gridy = 2;
             gbc.gridwidth = 3;
             gbc.weighty = 0.3;
-            statsPanel.add(createChartPanel(allBookings), gbc);
+            statsPanel.add(createChartPanel(pending, approved, rejected), gbc);
 
         } catch (SQLException e) {
             JLabel errorLabel = new JLabel("<html><center>Error loading statistics:<br>" +
@@ -484,7 +503,7 @@ public class BookingPanel extends JPanel {
         return card;
     }
 
-    private JPanel createChartPanel(List<Booking> bookings) {
+    private JPanel createChartPanel(long pending, long approved, long rejected) {
         JPanel chartPanel = new JPanel(new BorderLayout());
         chartPanel.setBackground(CARD_BG);
         chartPanel.setBorder(BorderFactory.createCompoundBorder(
@@ -501,10 +520,6 @@ public class BookingPanel extends JPanel {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                long pending = bookings.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_PENDING).count();
-                long approved = bookings.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_APPROVED).count();
-                long rejected = bookings.stream().filter(b -> b.getBookingStatus() == Booking.STATUS_REJECTED).count();
-
                 int total = (int) (pending + approved + rejected);
                 if (total == 0)
                     return;
@@ -686,9 +701,11 @@ public class BookingPanel extends JPanel {
         JTextField customerIdField = new JTextField();
         panel.add(customerIdField);
 
-        panel.add(new JLabel("Vehicle ID:"));
-        JTextField vehicleIdField = new JTextField();
-        panel.add(vehicleIdField);
+        panel.add(new JLabel("Vehicle Plate:"));
+        PlateAutocompleteField plateField = new PlateAutocompleteField();
+        // Picking a plate fills in its owner as the customer
+        plateField.setOnSelect(entry -> customerIdField.setText(String.valueOf(entry.getOwnerId())));
+        panel.add(plateField);
 
         panel.add(new JLabel("Slot ID:"));
         JTextField slotIdField = new JTextField();
@@ -713,13 +730,19 @@ public class BookingPanel extends JPanel {
             try {
                 Booking b = new Booking();
                 b.setCustomerId(Integer.parseInt(customerIdField.getText()));
-                b.setVehicleId(Integer.parseInt(vehicleIdField.getText()));
+                PlateTrie.Entry vehicle = plateField.getSelectedEntry();
+                if (vehicle == null) {
+                    JOptionPane.showMessageDialog(dialog, "Please pick a vehicle plate from the list.",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                b.setVehicleId(vehicle.getVehicleId());
                 b.setSlotId(Integer.parseInt(slotIdField.getText()));
                 b.setDurationOfBooking(durationField.getText());
                 b.setUserId(Integer.parseInt(userIdField.getText()));
                 b.setRemarks(remarksField.getText());
 
-                int bookingId = bookingDAO.createBookingWithSlotUpdate(b);
+                int bookingId = bookingDAO.createBookingForAvailableSlot(b);
                 if (bookingId > 0) {
                     JOptionPane.showMessageDialog(dialog, "Booking created successfully! ID: " + bookingId,
                             "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -802,6 +825,7 @@ public class BookingPanel extends JPanel {
     }
 
     private void loadData() {
+        JfrEvents.PanelRefresh refresh = JfrEvents.PanelRefresh.start("BookingPanel", "loadData");
         try {
             bookingList = bookingDAO.findAll();
             updateTable();
@@ -809,6 +833,8 @@ public class BookingPanel extends JPanel {
             updateStatsPanel();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            refresh.finish();
         }
     }
 
@@ -900,11 +926,18 @@ public class BookingPanel extends JPanel {
         if (bookingList == null)
             return;
 
+        // The same owner or vehicle usually appears on many rows; look each up once
+        Map<Integer, VehicleOwner> owners = new HashMap<>();
+        Map<Integer, Vehicle> vehicles = new HashMap<>();
+
         for (Booking b : bookingList) {
             try {
                 String customerName = "Customer #" + b.getCustomerId();
                 if (b.getCustomerId() != null) {
-                    VehicleOwner owner = vehicleOwnerDAO.findById(b.getCustomerId());
+                    VehicleOwner owner = owners.containsKey(b.getCustomerId())
+                            ? owners.get(b.getCustomerId())
+                            : vehicleOwnerDAO.findById(b.getCustomerId());
+                    owners.put(b.getCustomerId(), owner);
                     if (owner != null && owner.getVehicleOwnerName() != null) {
                         customerName = owner.getVehicleOwnerName();
                     }
@@ -912,7 +945,10 @@ public class BookingPanel extends JPanel {
 
                 String vehicleInfo = "Vehicle #" + b.getVehicleId();
                 if (b.getVehicleId() != null) {
-                    Vehicle vehicle = vehicleDAO.findById(b.getVehicleId());
+                    Vehicle vehicle = vehicles.containsKey(b.getVehicleId())
+                            ? vehicles.get(b.getVehicleId())
+                            : vehicleDAO.findById(b.getVehicleId());
+                    vehicles.put(b.getVehicleId(), vehicle);
                     if (vehicle != null && vehicle.getVehiclePlateNumber() != null) {
                         vehicleInfo = vehicle.getVehiclePlateNumber();
                     }
@@ -11,6 +11,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.*;
+import utils.AppExecutors;
 
 public class CustomerDashboard extends JFrame {
     private Integer userId;
@@ -359,7 +360,7 @@ public class CustomerDashboard extends JFrame {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private void updateUserInfo() {
@@ -407,7 +408,7 @@ public class CustomerDashboard extends JFrame {
 
         card.add(scroll, BorderLayout.CENTER);
 
-        new SwingWorker<List<Booking>, Void>() {
+        AppExecutors.execute(new SwingWorker<List<Booking>, Void>() {
             @Override
             protected List<Booking> doInBackground() throws Exception {
                 if (ownerId == null)
@@ -434,14 +435,15 @@ public class CustomerDashboard extends JFrame {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        });
     }
 
     private void loadSlotsIntoCard(JPanel card) {
         JPanel grid = new JPanel(new GridLayout(3, 3, 10, 10));
         grid.setOpaque(false);
 
-        new SwingWorker<List<ParkingSlot>, Void>() {
+        // Availability is always loaded live: the warm-start snapshot does not track slot status
+        AppExecutors.execute(new SwingWorker<List<ParkingSlot>, Void>() {
             @Override
             protected List<ParkingSlot> doInBackground() throws Exception {
                 return slotDAO.findAvailableSlots();
@@ -450,32 +452,35 @@ public class CustomerDashboard extends JFrame {
             @Override
             protected void done() {
                 try {
-                    List<ParkingSlot> slots = get();
-                    grid.removeAll();
-                    if (slots != null) {
-                        int count = 0;
-                        for (ParkingSlot slot : slots) {
-                            if (count++ >= 9)
-                                break;
-                            JButton btn = new JButton("#" + slot.getParkingSlotNumber());
-                            btn.setFont(new Font("Segoe UI", Font.BOLD, 14));
-                            btn.setForeground(new Color(44, 62, 80));
-                            btn.setBackground(new Color(236, 240, 241));
-                            btn.setBorder(BorderFactory.createLineBorder(new Color(189, 195, 199)));
-                            btn.setFocusPainted(false);
-                            grid.add(btn);
-                        }
-                    }
-                    grid.revalidate();
-                    grid.repaint();
+                    fillSlotGrid(grid, get());
                 } catch (Exception e) {
                 }
             }
-        }.execute();
+        });
 
         card.add(grid, BorderLayout.CENTER);
     }
 
+    private void fillSlotGrid(JPanel grid, List<ParkingSlot> slots) {
+        grid.removeAll();
+        if (slots != null) {
+            int count = 0;
+            for (ParkingSlot slot : slots) {
+                if (count++ >= 9)
+                    break;
+                JButton btn = new JButton("#" + slot.getParkingSlotNumber());
+                btn.setFont(new Font("Segoe UI", Font.BOLD, 14));
+                btn.setForeground(new Color(44, 62, 80));
+                btn.setBackground(new Color(236, 240, 241));
+                btn.setBorder(BorderFactory.createLineBorder(new Color(189, 195, 199)));
+                btn.setFocusPainted(false);
+                grid.add(btn);
+            }
+        }
+        grid.revalidate();
+        grid.repaint();
+    }
+
     // --- NAVIGATION & PUBLIC METHODS ---
 
     public void showDashboard() {
@@ -12,6 +12,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.*;
+import utils.AppExecutors;
 
 public class CustomerPaymentPanel extends JPanel {
 
@@ -334,7 +335,7 @@ public class CustomerPaymentPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private List<Payment> getPaymentsByOwnerId(Integer ownerId) throws SQLException {
@@ -674,7 +675,7 @@ public class CustomerPaymentPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private void showInfo(String title, String msg) {
@@ -0,0 +1,318 @@
+package ui;
+
+import dao.QueryMetrics;
+import dao.StatementStats;
+import dao.WriteJournal;
+import java.awt.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.LineBorder;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.JTableHeader;
+import utils.AppExecutors;
+import utils.Metrics;
+import utils.MigrationRunner;
+
+/**
+ * System health for the on-site operator: connections, slow statements,
+ * shared-read and plate-index hit rates, background queues, offline writes
+ * waiting in the journal, heap and GC pauses, and UI stalls.
+ *
+ * Everything shown is already in memory ({@link Metrics}, {@link QueryMetrics},
+ * {@link EdtWatchdog}, {@link WriteJournal}), so a refresh never touches the
+ * database. The timer
+ * only does work while the page is on screen.
+ */
+public class DiagnosticsPanel extends JPanel {
+
+    private static final int REFRESH_MS = 2000;
+    private static final int SLOWEST_LIMIT = 15;
+
+    private JLabel dbCard, cacheCard, queueCard, journalCard, jvmCard, uiCard;
+    private DefaultTableModel statementModel;
+    private DefaultTableModel metricModel;
+    private JLabel updatedLabel;
+    private final Timer refreshTimer;
+
+    // Colors
+    private final Color BG_COLOR = new Color(248, 250, 252);
+    private final Color CARD_BG = Color.WHITE;
+    private final Color ACCENT = new Color(59, 130, 246);
+    private final Color RESET_COLOR = new Color(239, 68, 68);
+    private final Color TEXT_PRIMARY = new Color(30, 41, 59);
+    private final Color BORDER_COLOR = new Color(226, 232, 240);
+
+    public DiagnosticsPanel() {
+        setLayout(new BorderLayout(0, 20));
+        setBackground(BG_COLOR);
+        setBorder(new EmptyBorder(25, 25, 25, 25));
+
+        JPanel top = new JPanel(new BorderLayout(0, 20));
+        top.setOpaque(false);
+        top.add(createHeaderPanel(), BorderLayout.NORTH);
+        top.add(createCardsPanel(), BorderLayout.CENTER);
+        add(top, BorderLayout.NORTH);
+        add(createTablesPanel(), BorderLayout.CENTER);
+
+        refreshTimer = new Timer(REFRESH_MS, e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+        refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (!refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        // A discarded panel must not keep the timer (and itself) alive
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    // ================= HEADER =================
+    private JPanel createHeaderPanel() {
+        JPanel header = new JPanel(new BorderLayout(20, 0));
+        header.setBackground(CARD_BG);
+        header.setBorder(BorderFactory.createCompoundBorder(
+                new LineBorder(BORDER_COLOR, 2),
+                new EmptyBorder(15, 25, 15, 25)));
+
+        JLabel title = new JLabel("System Diagnostics");
+        title.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        title.setForeground(TEXT_PRIMARY);
+        header.add(title, BorderLayout.WEST);
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
+        right.setBackground(CARD_BG);
+        updatedLabel = new JLabel();
+        updatedLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        right.add(updatedLabel);
+
+        JButton reset = createButton("Reset Statement Stats", RESET_COLOR);
+        reset.addActionListener(e -> {
+            QueryMetrics.reset();
+            refresh();
+        });
+        right.add(reset);
+        header.add(right, BorderLayout.EAST);
+        return header;
+    }
+
+    private JButton createButton(String text, Color color) {
+        JButton button = new JButton(text);
+        button.setBackground(color);
+        button.setForeground(Color.WHITE);
+        button.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createCompoundBorder(
+                new LineBorder(color.darker(), 1),
+                new EmptyBorder(8, 18, 8, 18)));
+        button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+
+    // ================= CARDS =================
+    private JPanel createCardsPanel() {
+        JPanel cards = new JPanel(new GridLayout(2, 3, 15, 15));
+        cards.setOpaque(false);
+        dbCard = createCard();
+        cacheCard = createCard();
+        queueCard = createCard();
+        journalCard = createCard();
+        jvmCard = createCard();
+        uiCard = createCard();
+        cards.add(dbCard);
+        cards.add(cacheCard);
+        cards.add(queueCard);
+        cards.add(journalCard);
+        cards.add(jvmCard);
+        cards.add(uiCard);
+        return cards;
+    }
+
+    private JLabel createCard() {
+        JLabel label = new JLabel();
+        label.setOpaque(true);
+        label.setBackground(CARD_BG);
+        label.setForeground(TEXT_PRIMARY);
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        label.setVerticalAlignment(SwingConstants.TOP);
+        label.setBorder(BorderFactory.createCompoundBorder(
+                new LineBorder(BORDER_COLOR, 2),
+                new EmptyBorder(12, 15, 12, 15)));
+        return label;
+    }
+
+    private static String card(String title, String... lines) {
+        StringBuilder sb = new StringBuilder("<html><b style='font-size:14px;'>").append(title).append("</b><br/>");
+        for (String line : lines) {
+            sb.append(line).append("<br/>");
+        }
+        return sb.append("</html>").toString();
+    }
+
+    // ================= TABLES =================
+    private JPanel createTablesPanel() {
+        JPanel panel = new JPanel(new GridLayout(1, 2, 15, 0));
+        panel.setOpaque(false);
+
+        statementModel = readOnlyModel("Statement", "Count", "p50 ms", "p99 ms", "Max ms", "Slow", "Errors");
+        metricModel = readOnlyModel("Metric", "Value");
+        panel.add(titled("Slowest Statements (by p99)", createTable(statementModel, 260)));
+        panel.add(titled("All Metrics", createTable(metricModel, 260)));
+        return panel;
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private JScrollPane createTable(DefaultTableModel model, int firstColumnWidth) {
+        JTable table = new JTable(model);
+        table.setRowHeight(26);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(firstColumnWidth);
+
+        JTableHeader header = table.getTableHeader();
+        header.setBackground(new Color(240, 240, 240));
+        header.setForeground(TEXT_PRIMARY);
+        header.setFont(new Font("Segoe UI", Font.BOLD, 12));
+
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setBorder(BorderFactory.createEmptyBorder());
+        return scroll;
+    }
+
+    private JPanel titled(String title, JComponent content) {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(CARD_BG);
+        panel.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(BORDER_COLOR),
+                title,
+                javax.swing.border.TitledBorder.DEFAULT_JUSTIFICATION,
+                javax.swing.border.TitledBorder.DEFAULT_POSITION,
+                new Font("Segoe UI", Font.BOLD, 14),
+                ACCENT));
+        panel.add(content, BorderLayout.CENTER);
+        return panel;
+    }
+
+    // ================= DATA =================
+    private void refresh() {
+        SortedMap<String, Number> m = Metrics.snapshot();
+
+        dbCard.setText(card("Database",
+                "Open connections: " + (long) Metrics.value(m, "db.connections.open"),
+                "Opened: " + (long) Metrics.value(m, "db.acquire.count")
+                        + ", failed: " + (long) Metrics.value(m, "db.connections.failed"),
+                String.format("Acquire p50 / p99: %.1f / %.1f ms",
+                        Metrics.value(m, "db.acquire.p50Ms"), Metrics.value(m, "db.acquire.p99Ms")),
+                "Statements: " + (long) Metrics.value(m, "db.statements.executed")
+                        + ", slow: " + (long) Metrics.value(m, "db.statements.slow")
+                        + ", errors: " + (long) Metrics.value(m, "db.statements.errors"),
+                MigrationRunner.failure() != null
+                        ? "<span style='color:#dc2626;'><b>Schema migration failed:</b> "
+                                + escape(MigrationRunner.failure()) + "</span>"
+                        : "Schema migrations: " + MigrationRunner.status()));
+
+        cacheCard.setText(card("Shared Reads &amp; Caches",
+                "Single-flight joined: " + percent(Metrics.value(m, "singleflight.deduplicated"),
+                        Metrics.value(m, "singleflight.calls")),
+                "Reads in flight: " + (long) Metrics.value(m, "singleflight.inFlight"),
+                "Plate index hits: " + percent(Metrics.value(m, "plates.suggest.hits"),
+                        Metrics.value(m, "plates.suggest.hits") + Metrics.value(m, "plates.suggest.misses"))));
+
+        queueCard.setText(card("Background Queues",
+                "DB tasks running: " + (long) Metrics.value(m, "executor.db.active")
+                        + " / " + utils.DatabaseConnection.MAX_CONNECTIONS,
+                "DB tasks waiting: " + (long) Metrics.value(m, "executor.db.waiting"),
+                "Notifications queued: " + (long) Metrics.value(m, "executor.notify.queued"),
+                "Telegram sent / failed: " + (long) Metrics.value(m, "notify.telegram.sent")
+                        + " / " + (long) Metrics.value(m, "notify.telegram.failed"),
+                AppExecutors.usesVirtualThreads() ? "Virtual threads" : "Platform thread pool"));
+
+        String blocked = WriteJournal.blockedReason();
+        journalCard.setText(card("Offline Writes",
+                "Waiting to replay: " + WriteJournal.pending(),
+                blocked != null
+                        ? "<span style='color:#dc2626;'><b>Replay blocked:</b> " + escape(blocked) + "</span>"
+                        : "Replay: " + (WriteJournal.pending() > 0 ? "waiting for the database" : "up to date"),
+                "Skipped as conflicts: " + (long) Metrics.value(m, "db.journal.conflicts")));
+
+        jvmCard.setText(card("JVM",
+                "Heap: " + (long) Metrics.value(m, "jvm.heap.usedMb") + " / "
+                        + (long) Metrics.value(m, "jvm.heap.maxMb") + " MB",
+                "GC pauses: " + (long) Metrics.value(m, "jvm.gc.pause.count"),
+                String.format("Pause p99 / max: %.0f / %.0f ms",
+                        Metrics.value(m, "jvm.gc.pause.p99Ms"), Metrics.value(m, "jvm.gc.pause.maxMs")),
+                "Threads: " + (long) Metrics.value(m, "jvm.threads")));
+
+        EdtWatchdog watchdog = EdtWatchdog.get();
+        if (watchdog == null) {
+            uiCard.setText(card("UI Responsiveness", "Watchdog not running"));
+        } else {
+            StringBuilder byPanel = new StringBuilder();
+            for (Map.Entry<String, Long> e : watchdog.getStallsByPanel().entrySet()) {
+                byPanel.append(byPanel.length() == 0 ? "" : ", ").append(e.getKey()).append(' ').append(e.getValue());
+            }
+            uiCard.setText(card("UI Responsiveness",
+                    "Stalls over " + watchdog.getThresholdMillis() + " ms: " + watchdog.getStallCount(),
+                    "Longest: " + watchdog.getLongestStallMillis() + " ms",
+                    byPanel.length() > 0 ? byPanel.toString() : "No stalls recorded"));
+        }
+
+        List<StatementStats> statements = QueryMetrics.snapshot();
+        statements.sort(Comparator.comparingDouble(StatementStats::getP99Millis).reversed());
+        statementModel.setRowCount(0);
+        for (StatementStats s : statements.subList(0, Math.min(SLOWEST_LIMIT, statements.size()))) {
+            statementModel.addRow(new Object[] {
+                    s.getName(),
+                    s.getCount(),
+                    round(s.getP50Millis()),
+                    round(s.getP99Millis()),
+                    round(s.getMaxMillis()),
+                    s.getSlowCount(),
+                    s.getErrors()
+            });
+        }
+
+        metricModel.setRowCount(0);
+        for (Map.Entry<String, Number> e : m.entrySet()) {
+            Number v = e.getValue();
+            metricModel.addRow(new Object[] { e.getKey(),
+                    v instanceof Double d ? String.format("%.2f", d) : v.toString() });
+        }
+
+        updatedLabel.setText("Updated " + new java.text.SimpleDateFormat("HH:mm:ss").format(new java.util.Date()));
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String percent(double part, double whole) {
+        return whole > 0 ? String.format("%.1f%% of %d", 100 * part / whole, (long) whole) : "no calls yet";
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+}
@@ -0,0 +1,216 @@
+package ui;
+
+import dao.QueryMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.SwingUtilities;
+import utils.AppExecutors;
+import utils.Log;
+import utils.Metrics;
+
+/**
+ * Notices when the Swing event thread stops answering and records why.
+ *
+ * A daemon thread posts a no-op heartbeat with invokeLater every 100 ms and
+ * only looks at the clock otherwise, so a healthy UI pays for ten tiny
+ * runnables a second. When a heartbeat has waited longer than the threshold
+ * the EDT stack and every in-flight DAO statement are appended to
+ * {@code diagnostics/edt-stalls.log} (rotated at 1 MB, three old files kept),
+ * and the stall is counted against the panel class found on the EDT stack.
+ *
+ * System properties: {@code edt.stallMs} (default 500) and
+ * {@code diagnostics.dir} (default "diagnostics").
+ */
+public final class EdtWatchdog {
+
+    private static final Log LOG = Log.get(EdtWatchdog.class);
+
+    private static final long INTERVAL_MS = 100;
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    private static final int KEEP_FILES = 3;
+
+    private static EdtWatchdog instance;
+
+    private final long thresholdNanos;
+    private final Path file;
+
+    private final LongAdder stalls = new LongAdder();
+    private final Map<String, LongAdder> stallsByPanel = new ConcurrentHashMap<>();
+    private final AtomicLong longestStallNanos = new AtomicLong();
+
+    // Written by the heartbeat on the EDT, read by the watchdog thread
+    private volatile Thread edt;
+    private volatile boolean heartbeatPending;
+    private volatile long postedNanos;
+    private volatile long answeredNanos;
+
+    // Watchdog thread only
+    private boolean stallReported;
+
+    private final Runnable heartbeat = () -> {
+        edt = Thread.currentThread();
+        answeredNanos = System.nanoTime();
+        heartbeatPending = false;
+    };
+
+    private EdtWatchdog(long thresholdMs, Path dir) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.file = dir.resolve("edt-stalls.log");
+    }
+
+    /** Start watching (once per JVM); later calls return the running watchdog. */
+    public static synchronized EdtWatchdog start() {
+        if (instance == null) {
+            instance = new EdtWatchdog(Long.getLong("edt.stallMs", 500),
+                    Path.of(System.getProperty("diagnostics.dir", "diagnostics")));
+            EdtWatchdog watchdog = instance;
+            Metrics.gauge("edt.stalls", watchdog::getStallCount);
+            Metrics.gauge("edt.lagMs", watchdog::getCurrentLagMillis);
+            Metrics.gauge("edt.longestStallMs", watchdog::getLongestStallMillis);
+            AppExecutors.startDaemon("edt-watchdog", instance::watch);
+        }
+        return instance;
+    }
+
+    /** The running watchdog, or null when {@link #start()} was never called. */
+    public static synchronized EdtWatchdog get() {
+        return instance;
+    }
+
+    // ================= WATCHING =================
+
+    private void watch() {
+        while (true) {
+            try {
+                Thread.sleep(INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (!heartbeatPending) {
+                if (stallReported) {
+                    stallReported = false;
+                    recovered(answeredNanos - postedNanos);
+                }
+                heartbeatPending = true;
+                postedNanos = System.nanoTime();
+                SwingUtilities.invokeLater(heartbeat);
+                continue;
+            }
+
+            long waited = System.nanoTime() - postedNanos;
+            if (waited >= thresholdNanos && !stallReported) {
+                stallReported = true;
+                stalled(waited);
+            }
+        }
+    }
+
+    private void stalled(long waitedNanos) {
+        Thread eventThread = edt;
+        StackTraceElement[] stack = eventThread != null ? eventThread.getStackTrace() : new StackTraceElement[0];
+        String panel = panelOf(stack);
+        stalls.increment();
+        stallsByPanel.computeIfAbsent(panel, k -> new LongAdder()).increment();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== EDT stall at ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()))
+                .append(", blocked ").append(TimeUnit.NANOSECONDS.toMillis(waitedNanos)).append(" ms so far, panel ")
+                .append(panel).append(" ===\n");
+        sb.append("EDT stack:\n");
+        for (StackTraceElement frame : stack) {
+            sb.append("    at ").append(frame).append('\n');
+        }
+        List<String> statements = QueryMetrics.inFlightStatements();
+        sb.append("In-flight SQL:").append(statements.isEmpty() ? " none\n" : "\n");
+        for (String statement : statements) {
+            sb.append("    ").append(statement).append('\n');
+        }
+        write(sb.toString());
+        LOG.warn("EDT stalled in {}; details in {}", panel, file);
+    }
+
+    private void recovered(long stalledNanos) {
+        longestStallNanos.accumulateAndGet(stalledNanos, Math::max);
+        write("=== EDT recovered after " + TimeUnit.NANOSECONDS.toMillis(stalledNanos) + " ms ===\n\n");
+    }
+
+    /** The outermost-named ui class nearest the top of the stack. */
+    static String panelOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith("ui.") && !className.startsWith(EdtWatchdog.class.getName())) {
+                String simple = className.substring(3);
+                int nested = simple.indexOf('$');
+                return nested > 0 ? simple.substring(0, nested) : simple;
+            }
+        }
+        return "other";
+    }
+
+    // ================= FILE =================
+
+    private void write(String text) {
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file) && Files.size(file) > MAX_FILE_BYTES) {
+                rotate();
+            }
+            Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.warn("Could not write {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void rotate() throws IOException {
+        String name = file.getFileName().toString();
+        Files.deleteIfExists(file.resolveSibling(name + "." + KEEP_FILES));
+        for (int i = KEEP_FILES - 1; i >= 1; i--) {
+            Path older = file.resolveSibling(name + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, file.resolveSibling(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, file.resolveSibling(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // ================= STATUS =================
+
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    /** Stall counts by panel class, sorted by name. */
+    public Map<String, Long> getStallsByPanel() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        stallsByPanel.forEach((panel, count) -> snapshot.put(panel, count.sum()));
+        return snapshot;
+    }
+
+    public long getLongestStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(longestStallNanos.get());
+    }
+
+    /** How long the current heartbeat has been waiting; near zero when the UI is responsive. */
+    public long getCurrentLagMillis() {
+        return heartbeatPending ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - postedNanos) : 0;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+}
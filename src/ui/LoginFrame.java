@@ -8,6 +8,7 @@ import java.sql.SQLException;
 import javax.swing.*;
 import javax.swing.border.*;
 import models.User;
+import utils.AppExecutors;
 
 public class LoginFrame extends JFrame {
 
@@ -350,7 +351,7 @@ public class LoginFrame extends JFrame {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private void shakeFrame() {
@@ -10,6 +10,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.*;
+import utils.AppExecutors;
 
 public class MyBookingsPanel extends JPanel {
 
@@ -65,7 +66,7 @@ public class MyBookingsPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private JPanel createHeader() {
@@ -204,7 +205,7 @@ public class MyBookingsPanel extends JPanel {
     }
 
     private void loadBookings() {
-        new SwingWorker<List<Booking>, Void>() {
+        AppExecutors.execute(new SwingWorker<List<Booking>, Void>() {
             @Override
             protected List<Booking> doInBackground() throws Exception {
                 try {
@@ -226,7 +227,7 @@ public class MyBookingsPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        });
     }
 
     private void updateBookingTable() {
@@ -351,7 +352,7 @@ public class MyBookingsPanel extends JPanel {
     }
 
     private void searchAvailableSlots() {
-        new SwingWorker<List<ParkingSlot>, Void>() {
+        AppExecutors.execute(new SwingWorker<List<ParkingSlot>, Void>() {
             @Override
             protected List<ParkingSlot> doInBackground() throws Exception {
                 return slotDAO.findAvailableSlots();
@@ -364,7 +365,7 @@ public class MyBookingsPanel extends JPanel {
                 } catch (Exception e) {
                 }
             }
-        }.execute();
+        });
     }
 
     private void showAvailableSlotsDialog(List<ParkingSlot> slots) {
@@ -445,12 +446,12 @@ public class MyBookingsPanel extends JPanel {
             b.setUserId(customerId);
             b.setBookingTime(new Timestamp(System.currentTimeMillis()));
 
-            if (bookingDAO.createBookingWithSlotUpdate(b) > 0) {
+            if (bookingDAO.createBookingForAvailableSlot(b) > 0) {
                 JOptionPane.showMessageDialog(this, "Booking Created!");
                 loadBookings();
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Booking Failed", JOptionPane.ERROR_MESSAGE);
         }
     }
 
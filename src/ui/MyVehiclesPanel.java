@@ -1,5 +1,6 @@
 package ui;
 
+import dao.ReferenceSnapshot;
 import dao.VehicleCategoryDAO;
 import dao.VehicleDAO;
 import java.awt.*;
@@ -13,6 +14,7 @@ import javax.swing.border.*;
 import javax.swing.table.*;
 import models.Vehicle;
 import models.VehicleCategory;
+import utils.AppExecutors;
 
 public class MyVehiclesPanel extends JPanel {
 
@@ -104,7 +106,11 @@ public class MyVehiclesPanel extends JPanel {
 
     private void loadCategories() {
         try {
-            categories = categoryDAO.findAll();
+            // Categories rarely change: the warm-start snapshot saves a round-trip on the EDT
+            categories = ReferenceSnapshot.categories();
+            if (categories == null) {
+                categories = categoryDAO.findAll();
+            }
             if (categories != null) {
                 categoryMap.clear();
                 for (VehicleCategory category : categories) {
@@ -244,7 +250,7 @@ public class MyVehiclesPanel extends JPanel {
     }
 
     private void loadVehicles() {
-        new SwingWorker<List<Vehicle>, Void>() {
+        AppExecutors.execute(new SwingWorker<List<Vehicle>, Void>() {
             @Override
             protected List<Vehicle> doInBackground() throws Exception {
                 try {
@@ -263,7 +269,7 @@ public class MyVehiclesPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        });
     }
 
     private void updateTable() {
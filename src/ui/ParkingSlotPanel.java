@@ -17,6 +17,8 @@ import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
 import models.ParkingSlot;
+import utils.AppExecutors;
+import utils.JfrEvents;
 
 public class ParkingSlotPanel extends JPanel {
 
@@ -151,7 +153,7 @@ public class ParkingSlotPanel extends JPanel {
                     return null;
                 }
             };
-            worker.execute();
+            AppExecutors.execute(worker);
         });
 
         return button;
@@ -568,6 +570,7 @@ public class ParkingSlotPanel extends JPanel {
 
     // ================= DATA LOADING =================
     private void loadSlots() {
+        JfrEvents.PanelRefresh refresh = JfrEvents.PanelRefresh.start("ParkingSlotPanel", "loadSlots");
         try {
             slots = slotDAO.findAll();
             tableModel.setRowCount(0);
@@ -587,6 +590,8 @@ public class ParkingSlotPanel extends JPanel {
         } catch (SQLException e) {
             showMessage("Database Error", "Failed to load parking slots: " + e.getMessage(),
                     "error", OCCUPIED_COLOR);
+        } finally {
+            refresh.finish();
         }
     }
 
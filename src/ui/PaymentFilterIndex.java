@@ -0,0 +1,221 @@
+package ui;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.RowFilter;
+import javax.swing.table.TableModel;
+import models.Payment;
+
+/**
+ * Read-only filter index over one loaded payment list.
+ *
+ * Everything the payment filters look at is normalized once when the index is
+ * built, so a keystroke only costs a scan over precomputed search keys (or a
+ * bitset lookup for status / method / date). Row i of the index is row i of
+ * the table model it was built for.
+ */
+public class PaymentFilterIndex {
+
+    // Separates fields inside a search key so a term never matches across two
+    // fields. The search box cannot produce this character.
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final int size;
+    private final String[] searchKeys;
+    private final Map<Integer, BitSet> byStatus = new HashMap<>();
+    private final Map<String, BitSet> byMethod = new HashMap<>();
+
+    // Rows with a payment date, ordered by date, plus the rows without one
+    // (the date filter has never excluded undated payments)
+    private final long[] sortedDates;
+    private final int[] sortedDateRows;
+    private final BitSet undated = new BitSet();
+
+    // Last text query, reused when the user keeps typing the same term
+    private BitSet lastBase;
+    private String lastText;
+    private BitSet lastResult;
+
+    public PaymentFilterIndex(List<Payment> payments) {
+        this.size = payments.size();
+        this.searchKeys = new String[size];
+
+        long[] dates = new long[size];
+        Integer[] datedRows = new Integer[size];
+        int dated = 0;
+
+        for (int row = 0; row < size; row++) {
+            Payment p = payments.get(row);
+            searchKeys[row] = buildSearchKey(p);
+
+            int status = p.getPaymentStatus() != null ? p.getPaymentStatus() : -1;
+            byStatus.computeIfAbsent(status, k -> new BitSet(size)).set(row);
+            byMethod.computeIfAbsent(methodKey(p), k -> new BitSet(size)).set(row);
+
+            if (p.getPaymentDate() != null) {
+                dates[row] = p.getPaymentDate().getTime();
+                datedRows[dated++] = row;
+            } else {
+                undated.set(row);
+            }
+        }
+
+        Integer[] order = Arrays.copyOf(datedRows, dated);
+        Arrays.sort(order, (a, b) -> Long.compare(dates[a], dates[b]));
+        this.sortedDates = new long[dated];
+        this.sortedDateRows = new int[dated];
+        for (int i = 0; i < dated; i++) {
+            sortedDateRows[i] = order[i];
+            sortedDates[i] = dates[order[i]];
+        }
+    }
+
+    // ================= KEYS =================
+
+    /** Payment method as shown in the table ("Cash" when none recorded), case-folded. */
+    static String methodKey(Payment p) {
+        String method = p.getPaidBy() != null ? p.getPaidBy() : "Cash";
+        return method.toLowerCase(Locale.ROOT);
+    }
+
+    private static String buildSearchKey(Payment p) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(p.getPaymentId()).append(FIELD_SEPARATOR);
+        appendLower(sb, p.getBookingRef());
+        appendLower(sb, p.getFullName());
+        appendLower(sb, p.getUserName());
+        appendLower(sb, p.getStatusText());
+        appendLower(sb, p.getPaidBy());
+        return sb.toString();
+    }
+
+    private static void appendLower(StringBuilder sb, String value) {
+        if (value != null) {
+            sb.append(value.toLowerCase(Locale.ROOT));
+        }
+        sb.append(FIELD_SEPARATOR);
+    }
+
+    // ================= QUERIES =================
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rows matching every given criterion. Null (or "All") criteria are ignored.
+     *
+     * @param statuses payment status codes to keep, or null for any status
+     * @param method   payment method label, or null / "All" for any method
+     * @param from     inclusive lower bound on payment date, or null
+     * @param to       inclusive upper bound on payment date, or null
+     * @param text     free-text search term, or null / empty
+     */
+    public BitSet match(int[] statuses, String method, Date from, Date to, String text) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+
+        if (statuses != null) {
+            BitSet any = new BitSet(size);
+            for (int status : statuses) {
+                BitSet rows = byStatus.get(status);
+                if (rows != null) {
+                    any.or(rows);
+                }
+            }
+            result.and(any);
+        }
+
+        if (method != null && !method.equals("All")) {
+            BitSet rows = byMethod.get(method.toLowerCase(Locale.ROOT));
+            if (rows == null) {
+                result.clear();
+                return result;
+            }
+            result.and(rows);
+        }
+
+        if (from != null && to != null) {
+            result.and(dateRange(from.getTime(), to.getTime()));
+        }
+
+        String term = text != null ? text.toLowerCase(Locale.ROOT) : "";
+        if (!term.isEmpty()) {
+            result = matchText(result, term);
+        }
+        return result;
+    }
+
+    private BitSet dateRange(long from, long to) {
+        BitSet rows = (BitSet) undated.clone();
+        int lo = lowerBound(from);
+        int hi = upperBound(to);
+        for (int i = lo; i < hi; i++) {
+            rows.set(sortedDateRows[i]);
+        }
+        return rows;
+    }
+
+    // First index with date >= value
+    private int lowerBound(long value) {
+        int lo = 0, hi = sortedDates.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedDates[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First index with date > value
+    private int upperBound(long value) {
+        int lo = 0, hi = sortedDates.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedDates[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private synchronized BitSet matchText(BitSet base, String term) {
+        // Typing more characters can only narrow the previous result
+        BitSet candidates = base;
+        if (lastText != null && base.equals(lastBase) && term.startsWith(lastText)) {
+            candidates = lastResult;
+        }
+
+        BitSet matches = new BitSet(size);
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            if (searchKeys[row].contains(term)) {
+                matches.set(row);
+            }
+        }
+
+        lastBase = base;
+        lastText = term;
+        lastResult = matches;
+        return (BitSet) matches.clone();
+    }
+
+    /** Row filter for a table model whose rows line up with this index. */
+    public static RowFilter<TableModel, Integer> rowFilter(BitSet rows) {
+        return new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                return rows.get(entry.getIdentifier());
+            }
+        };
+    }
+}
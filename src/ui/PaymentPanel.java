@@ -2,19 +2,26 @@ package ui;
 
 import dao.BookingDAO;
 import dao.PaymentDAO;
+import dao.UncheckedSQLException;
 import dao.UserDAO;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Timer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.Booking;
+import utils.AppExecutors;
+import utils.JfrEvents;
 import models.Payment; // ADD THIS IMPORT
 import models.User; // ADD THIS IMPORT
 
@@ -27,6 +34,8 @@ public class PaymentPanel extends JPanel {
     private List<Payment> paymentList;
     private JTable table;
     private DefaultTableModel model;
+    private TableRowSorter<DefaultTableModel> sorter;
+    private PaymentFilterIndex filterIndex;
     private JLabel statsLabel;
     private JLabel timeLabel;
 
@@ -47,6 +56,8 @@ public class PaymentPanel extends JPanel {
     private JTextField searchField;
     private JSpinner dateFromSpinner;
     private JSpinner dateToSpinner;
+    private javax.swing.Timer searchDebounce;
+    private javax.swing.Timer clockTimer;
 
     public PaymentPanel() {
         setBackground(BG_COLOR);
@@ -165,7 +176,7 @@ public class PaymentPanel extends JPanel {
                     // done
                 }
             };
-            worker.execute();
+            AppExecutors.execute(worker);
         });
 
         return button;
@@ -252,10 +263,13 @@ public class PaymentPanel extends JPanel {
         searchField = new JTextField(20);
         searchField.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         searchField.putClientProperty("JTextField.placeholderText", "Search by ID, Booking, Customer...");
+        // Wait for a pause in typing instead of filtering on every key
+        searchDebounce = new javax.swing.Timer(150, e -> filterPayments());
+        searchDebounce.setRepeats(false);
         searchField.addKeyListener(new KeyAdapter() {
             @Override
             public void keyReleased(KeyEvent e) {
-                filterPayments();
+                searchDebounce.restart();
             }
         });
         filterPanel.add(searchField);
@@ -337,19 +351,12 @@ public class PaymentPanel extends JPanel {
 
                     // Color coding for amounts
                     if (column == 3 || column == 4 || column == 5) { // Amount columns
-                        if (value instanceof String) {
-                            String val = (String) value;
-                            if (val.startsWith("$")) {
-                                try {
-                                    double amount = Double.parseDouble(val.substring(1));
-                                    if (amount > 0) {
-                                        label.setForeground(column == 5 ? DANGER : TEXT_PRIMARY);
-                                    } else {
-                                        label.setForeground(TEXT_SECONDARY);
-                                    }
-                                } catch (NumberFormatException e) {
-                                    label.setForeground(TEXT_PRIMARY);
-                                }
+                        if (value instanceof AmountCell) {
+                            double amount = ((AmountCell) value).amount;
+                            if (amount > 0) {
+                                label.setForeground(column == 5 ? DANGER : TEXT_PRIMARY);
+                            } else {
+                                label.setForeground(TEXT_SECONDARY);
                             }
                         }
                     }
@@ -384,6 +391,17 @@ public class PaymentPanel extends JPanel {
         table.getColumnModel().getColumn(9).setCellRenderer(new ActionCellRenderer());
         table.getColumnModel().getColumn(9).setCellEditor(new ActionCellEditor());
 
+        // Sorting compares the precomputed cell keys; filtering uses PaymentFilterIndex
+        sorter = new TableRowSorter<>(model);
+        // The columns report Object.class so they keep the styled renderer; without
+        // these the sorter would compare the ID and amounts as text ($100.00 < $9.00)
+        sorter.setComparator(0, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+        for (int amountColumn = 3; amountColumn <= 5; amountColumn++) {
+            sorter.setComparator(amountColumn, Comparator.<AmountCell>naturalOrder());
+        }
+        sorter.setSortable(9, false);
+        table.setRowSorter(sorter);
+
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.getViewport().setBackground(Color.WHITE);
@@ -504,28 +522,33 @@ public class PaymentPanel extends JPanel {
         return footer;
     }
 
-    // private void startClock() {
-    // Timer timer = new Timer(1000, e -> {
-    // SimpleDateFormat sdf = new SimpleDateFormat("EEE, MMM dd yyyy | hh:mm:ss a");
-    // timeLabel.setText("🕒 " + sdf.format(new Date()));
-    // });
-    // timer.start();
-    // }
     private void startClock() {
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new java.util.TimerTask() {
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> {
-                    SimpleDateFormat sdf = new SimpleDateFormat("EEE, MMM dd yyyy | hh:mm:ss a");
-                    timeLabel.setText("🕒 " + sdf.format(new Date()));
-                });
-            }
-        }, 0, 1000);
+        SimpleDateFormat sdf = new SimpleDateFormat("EEE, MMM dd yyyy | hh:mm:ss a");
+        clockTimer = new javax.swing.Timer(1000, e -> timeLabel.setText("🕒 " + sdf.format(new Date())));
+        clockTimer.setInitialDelay(0);
+        clockTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        // Stop the clock when the panel leaves the screen (logout, panel switch)
+        if (clockTimer != null) {
+            clockTimer.stop();
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (clockTimer != null && !clockTimer.isRunning()) {
+            clockTimer.start();
+        }
     }
 
     // ================= DATA LOADING =================
     private void loadData() {
+        JfrEvents.PanelRefresh refresh = JfrEvents.PanelRefresh.start("PaymentPanel", "loadData");
         try {
             paymentList = paymentDAO.findAll();
             enrichPaymentData();
@@ -539,6 +562,8 @@ public class PaymentPanel extends JPanel {
 
         } catch (SQLException e) {
             showError("Database Error", "Failed to load payments: " + e.getMessage());
+        } finally {
+            refresh.finish();
         }
     }
 
@@ -582,50 +607,64 @@ public class PaymentPanel extends JPanel {
     }
 
     private void updateTable() {
+        filterIndex = fillRows(model, paymentList, this::createActionButtons);
+        sorter.setRowFilter(null);
+    }
+
+    /**
+     * Replace the rows of a payment table model, one per payment with the
+     * Actions cell from {@code actions}, and return the filter index over
+     * them. Public for tools.HotPathBenchmarks, which times exactly this.
+     */
+    public static PaymentFilterIndex fillRows(DefaultTableModel model, List<Payment> payments,
+            Function<Payment, Object> actions) {
         model.setRowCount(0);
 
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
-        for (Payment payment : paymentList) {
-            try {
-                // Get display values
-                String bookingInfo = payment.getBookingRef() != null ? payment.getBookingRef()
-                        : "BK-" + payment.getBookingId();
-
-                String customerInfo = payment.getFullName() != null ? payment.getFullName()
-                        : (payment.getUserName() != null ? payment.getUserName() : "Customer");
-
-                // Calculate balance
-                double dueAmount = payment.getDueAmount() != null ? payment.getDueAmount() : 0;
-                double paidAmount = payment.getPaidAmount() != null ? payment.getPaidAmount() : 0;
-                double balance = payment.getBalance();
-
-                // Format date
-                String paymentDate = "";
-                if (payment.getPaymentDate() != null) {
-                    paymentDate = dateFormat.format(payment.getPaymentDate());
-                }
+        for (Payment payment : payments) {
+            model.addRow(buildRow(payment, dateFormat, actions));
+        }
 
-                // Get payment method (from paid_by field)
-                String paymentMethod = payment.getPaidBy() != null ? payment.getPaidBy() : "Cash";
+        // Rows line up with the list, so the index can be built straight from it
+        return new PaymentFilterIndex(payments);
+    }
 
-                model.addRow(new Object[] {
-                        payment.getPaymentId(),
-                        bookingInfo,
-                        customerInfo,
-                        String.format("$%.2f", dueAmount),
-                        String.format("$%.2f", paidAmount),
-                        String.format("$%.2f", balance),
-                        paymentMethod,
-                        payment.getStatusText(),
-                        paymentDate,
-                        createActionButtons(payment)
-                });
+    private static Object[] buildRow(Payment payment, SimpleDateFormat dateFormat,
+            Function<Payment, Object> actions) {
+        // Get display values
+        String bookingInfo = payment.getBookingRef() != null ? payment.getBookingRef()
+                : "BK-" + payment.getBookingId();
 
-            } catch (Exception e) {
-                System.err.println("Error loading payment details: " + e.getMessage());
-            }
+        String customerInfo = payment.getFullName() != null ? payment.getFullName()
+                : (payment.getUserName() != null ? payment.getUserName() : "Customer");
+
+        // Calculate balance
+        double dueAmount = payment.getDueAmount() != null ? payment.getDueAmount() : 0;
+        double paidAmount = payment.getPaidAmount() != null ? payment.getPaidAmount() : 0;
+        double balance = payment.getBalance();
+
+        // Format date (yyyy-MM-dd sorts correctly as text)
+        String paymentDate = "";
+        if (payment.getPaymentDate() != null) {
+            paymentDate = dateFormat.format(payment.getPaymentDate());
         }
+
+        // Get payment method (from paid_by field)
+        String paymentMethod = payment.getPaidBy() != null ? payment.getPaidBy() : "Cash";
+
+        return new Object[] {
+                payment.getPaymentId(),
+                bookingInfo,
+                customerInfo,
+                new AmountCell(dueAmount),
+                new AmountCell(paidAmount),
+                new AmountCell(balance),
+                paymentMethod,
+                payment.getStatusText(),
+                paymentDate,
+                actions.apply(payment)
+        };
     }
 
     private void updateFooter() {
@@ -637,109 +676,30 @@ public class PaymentPanel extends JPanel {
     }
 
     private void filterPayments() {
-        String searchText = searchField.getText().toLowerCase();
+        if (filterIndex == null)
+            return;
+
+        String searchText = searchField.getText();
         String selectedStatus = (String) statusFilter.getSelectedItem();
         String selectedType = (String) typeFilter.getSelectedItem();
         Date fromDate = (Date) dateFromSpinner.getValue();
         Date toDate = (Date) dateToSpinner.getValue();
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                if (paymentList == null)
-                    return null;
-
-                List<Payment> filtered = paymentList.stream()
-                        .filter(p -> {
-                            // Status filter
-                            if (!selectedStatus.equals("All")) {
-                                if (!p.getStatusText().equalsIgnoreCase(selectedStatus))
-                                    return false;
-                            }
-
-                            // Type filter (payment method)
-                            if (!selectedType.equals("All")) {
-                                String method = p.getPaidBy() != null ? p.getPaidBy() : "Cash";
-                                if (!method.equalsIgnoreCase(selectedType))
-                                    return false;
-                            }
-
-                            // Date range filter
-                            if (p.getPaymentDate() != null && fromDate != null && toDate != null) {
-                                if (p.getPaymentDate().before(fromDate) ||
-                                        p.getPaymentDate().after(toDate)) {
-                                    return false;
-                                }
-                            }
-
-                            // Search filter
-                            if (!searchText.isEmpty()) {
-                                boolean matches = String.valueOf(p.getPaymentId()).contains(searchText) ||
-                                        (p.getBookingRef() != null &&
-                                                p.getBookingRef().toLowerCase().contains(searchText))
-                                        ||
-                                        (p.getFullName() != null &&
-                                                p.getFullName().toLowerCase().contains(searchText))
-                                        ||
-                                        (p.getUserName() != null &&
-                                                p.getUserName().toLowerCase().contains(searchText))
-                                        ||
-                                        p.getStatusText().toLowerCase().contains(searchText) ||
-                                        (p.getPaidBy() != null &&
-                                                p.getPaidBy().toLowerCase().contains(searchText));
-                                if (!matches)
-                                    return false;
-                            }
-
-                            return true;
-                        })
-                        .toList();
-
-                SwingUtilities.invokeLater(() -> {
-                    model.setRowCount(0);
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-                    for (Payment payment : filtered) {
-                        try {
-                            double dueAmount = payment.getDueAmount() != null ? payment.getDueAmount() : 0;
-                            double paidAmount = payment.getPaidAmount() != null ? payment.getPaidAmount() : 0;
-                            double balance = payment.getBalance();
-
-                            String paymentDate = "";
-                            if (payment.getPaymentDate() != null) {
-                                paymentDate = dateFormat.format(payment.getPaymentDate());
-                            }
-
-                            String bookingInfo = payment.getBookingRef() != null ? payment.getBookingRef()
-                                    : "BK-" + payment.getBookingId();
-
-                            String customerInfo = payment.getFullName() != null ? payment.getFullName()
-                                    : (payment.getUserName() != null ? payment.getUserName() : "Customer");
-
-                            String paymentMethod = payment.getPaidBy() != null ? payment.getPaidBy() : "Cash";
-
-                            model.addRow(new Object[] {
-                                    payment.getPaymentId(),
-                                    bookingInfo,
-                                    customerInfo,
-                                    String.format("$%.2f", dueAmount),
-                                    String.format("$%.2f", paidAmount),
-                                    String.format("$%.2f", balance),
-                                    paymentMethod,
-                                    payment.getStatusText(),
-                                    paymentDate,
-                                    createActionButtons(payment)
-                            });
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                });
+        BitSet rows = filterIndex.match(statusCodesFor(selectedStatus), selectedType,
+                fromDate, toDate, searchText);
+        sorter.setRowFilter(PaymentFilterIndex.rowFilter(rows));
+    }
 
-                return null;
-            }
+    // Status filter labels -> payment status codes (null = no status filter)
+    private int[] statusCodesFor(String selectedStatus) {
+        if (selectedStatus == null)
+            return null;
+        return switch (selectedStatus) {
+            case "PENDING" -> new int[] { Payment.STATUS_PENDING_APPROVAL };
+            case "PAID" -> new int[] { Payment.STATUS_PAID };
+            case "PARTIAL" -> new int[] { Payment.STATUS_PARTIAL };
+            default -> null;
         };
-        worker.execute();
     }
 
     private void clearFilters() {
@@ -1127,7 +1087,7 @@ public class PaymentPanel extends JPanel {
                     return null;
                 }
             };
-            worker.execute();
+            AppExecutors.execute(worker);
         }
     }
 
@@ -1139,25 +1099,44 @@ public class PaymentPanel extends JPanel {
 
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            try {
-                exportToCSV(file);
-                showSuccess("Export Successful",
-                        "Payments exported to: " + file.getAbsolutePath());
-            } catch (IOException e) {
-                showError("Export Failed", e.getMessage());
-            }
+            SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Integer doInBackground() throws Exception {
+                    return exportToCSV(file);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        int rows = get();
+                        showSuccess("Export Successful",
+                                rows + " payments exported to: " + file.getAbsolutePath());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (java.util.concurrent.ExecutionException e) {
+                        showError("Export Failed", e.getCause().getMessage());
+                    }
+                }
+            };
+            AppExecutors.execute(worker);
         }
     }
 
-    private void exportToCSV(File file) throws IOException {
-        try (PrintWriter writer = new PrintWriter(file)) {
+    // Rows come straight from the database through a cursor, so the export
+    // covers every payment without holding them all in memory
+    private int exportToCSV(File file) throws IOException, SQLException {
+        int rows = 0;
+        try (PrintWriter writer = new PrintWriter(file);
+                Stream<Payment> payments = paymentDAO.streamPaymentsForExport()) {
             // Write header
             writer.println("Payment ID,Booking ID,Customer,Amount Due,Amount Paid,Balance,Method,Status,Date,Remarks");
 
             // Write data
-            for (Payment payment : paymentList) {
-                String customer = payment.getFullName() != null ? payment.getFullName()
-                        : (payment.getUserName() != null ? payment.getUserName() : "Unknown");
+            Iterator<Payment> it = payments.iterator();
+            while (it.hasNext()) {
+                Payment payment = it.next();
+                // The name the table shows (see enrichPaymentData)
+                String customer = payment.getUserName() != null ? payment.getUserName() : "Unknown";
 
                 writer.println(String.format("%d,%d,\"%s\",%.2f,%.2f,%.2f,\"%s\",\"%s\",\"%s\",\"%s\"",
                         payment.getPaymentId(),
@@ -1172,8 +1151,15 @@ public class PaymentPanel extends JPanel {
                                 ? new SimpleDateFormat("yyyy-MM-dd").format(payment.getPaymentDate())
                                 : "",
                         payment.getRemarks() != null ? payment.getRemarks() : ""));
+                rows++;
+            }
+            if (writer.checkError()) {
+                throw new IOException("Could not write " + file.getName());
             }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
         }
+        return rows;
     }
 
     private void printReport() {
@@ -1322,6 +1308,27 @@ public class PaymentPanel extends JPanel {
     }
 
     // ================= TABLE CELL CLASSES =================
+    // Amount cell: renders as "$0.00" but sorts on the precomputed number
+    static final class AmountCell implements Comparable<AmountCell> {
+        final double amount;
+        private final String text;
+
+        AmountCell(double amount) {
+            this.amount = amount;
+            this.text = String.format("$%.2f", amount);
+        }
+
+        @Override
+        public int compareTo(AmountCell other) {
+            return Double.compare(amount, other.amount);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
     class ActionCellRenderer implements TableCellRenderer {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value,
@@ -0,0 +1,166 @@
+package ui;
+
+import dao.PlateIndex;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import utils.PlateNumbers;
+import utils.PlateTrie;
+
+/**
+ * Text field that suggests plate numbers as the user types.
+ *
+ * Suggestions come from the in-memory {@link PlateIndex}, so every keystroke
+ * is answered locally. Up/Down move through the list, Enter or a click picks
+ * a plate, Escape closes the list.
+ */
+public class PlateAutocompleteField extends JTextField {
+
+    private static final int MAX_SUGGESTIONS = 10;
+
+    private final DefaultListModel<PlateTrie.Entry> listModel = new DefaultListModel<>();
+    private final JList<PlateTrie.Entry> list = new JList<>(listModel);
+    private final JPopupMenu popup = new JPopupMenu();
+
+    private PlateTrie.Entry selected;
+    private Consumer<PlateTrie.Entry> onSelect;
+    private boolean selecting = false;
+
+    public PlateAutocompleteField() {
+        super(15);
+        putClientProperty("JTextField.placeholderText", "Type a plate number...");
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                accept(list.getSelectedValue());
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        popup.add(new JScrollPane(list));
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textChanged();
+            }
+        });
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible())
+                    return;
+                int index = list.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> {
+                        list.setSelectedIndex(Math.min(index + 1, listModel.size() - 1));
+                        list.ensureIndexIsVisible(list.getSelectedIndex());
+                        e.consume();
+                    }
+                    case KeyEvent.VK_UP -> {
+                        list.setSelectedIndex(Math.max(index - 1, 0));
+                        list.ensureIndexIsVisible(list.getSelectedIndex());
+                        e.consume();
+                    }
+                    case KeyEvent.VK_ENTER -> {
+                        accept(list.getSelectedValue());
+                        e.consume();
+                    }
+                    case KeyEvent.VK_ESCAPE -> {
+                        popup.setVisible(false);
+                        e.consume();
+                    }
+                    default -> {
+                    }
+                }
+            }
+        });
+
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /** Called with the chosen vehicle whenever the user picks a suggestion. */
+    public void setOnSelect(Consumer<PlateTrie.Entry> onSelect) {
+        this.onSelect = onSelect;
+    }
+
+    /**
+     * Vehicle for the current text: the picked suggestion if the text still
+     * matches it, otherwise a unique exact plate match, otherwise null.
+     */
+    public PlateTrie.Entry getSelectedEntry() {
+        String key = PlateNumbers.normalize(getText());
+        if (selected != null && PlateNumbers.normalize(selected.getPlate()).equals(key)) {
+            return selected;
+        }
+        List<PlateTrie.Entry> exact = PlateIndex.getInstance().findExact(getText());
+        return exact.size() == 1 ? exact.get(0) : null;
+    }
+
+    private void textChanged() {
+        if (selecting)
+            return;
+        selected = null;
+
+        List<PlateTrie.Entry> matches = PlateIndex.getInstance().suggest(getText(), MAX_SUGGESTIONS);
+        listModel.clear();
+        for (PlateTrie.Entry entry : matches) {
+            listModel.addElement(entry);
+        }
+
+        if (matches.isEmpty() || !isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+        list.setSelectedIndex(0);
+        list.setVisibleRowCount(Math.min(matches.size(), MAX_SUGGESTIONS));
+        popup.setPopupSize(getWidth(), list.getPreferredScrollableViewportSize().height + 4);
+        if (!popup.isVisible()) {
+            popup.show(this, 0, getHeight());
+        } else {
+            popup.pack();
+        }
+    }
+
+    private void accept(PlateTrie.Entry entry) {
+        popup.setVisible(false);
+        if (entry == null)
+            return;
+
+        selecting = true;
+        try {
+            setText(entry.getPlate());
+        } finally {
+            selecting = false;
+        }
+        selected = entry;
+        if (onSelect != null) {
+            onSelect.accept(entry);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package ui;
 
+import dao.ReferenceSnapshot;
 import dao.UserDAO;
 import dao.UserGroupDAO;
 import java.awt.*;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.*;
 import javax.swing.table.*;
 import models.User;
 import models.UserGroup;
+import utils.JfrEvents;
 
 public class UserManagementPanel extends JPanel {
 
@@ -113,11 +117,23 @@ public class UserManagementPanel extends JPanel {
     }
 
     private void loadUsersFromDatabase() {
+        JfrEvents.PanelRefresh refresh = JfrEvents.PanelRefresh.start("UserManagementPanel", "loadUsersFromDatabase");
         try {
             List<User> users = userDAO.findAll();
             tableModel.setRowCount(0);
+            // Group names from the warm-start snapshot rather than one query per user
+            Map<Integer, UserGroup> groups = new HashMap<>();
+            List<UserGroup> snapshot = ReferenceSnapshot.userGroups();
+            if (snapshot != null) {
+                for (UserGroup g : snapshot) {
+                    groups.put(g.getUserGroupId(), g);
+                }
+            }
             for (User u : users) {
-                UserGroup group = groupDAO.findById(u.getUserGroupId());
+                UserGroup group = groups.get(u.getUserGroupId());
+                if (group == null) {
+                    group = groupDAO.findById(u.getUserGroupId());
+                }
                 tableModel.addRow(new Object[]{
                     u.getUserId(),
                     u.getFullname(),
@@ -132,6 +148,8 @@ public class UserManagementPanel extends JPanel {
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Failed to load users from database.", "Error", JOptionPane.ERROR_MESSAGE);
+        } finally {
+            refresh.finish();
         }
     }
 
@@ -161,7 +179,8 @@ public class UserManagementPanel extends JPanel {
         JLabel lblGroup = new JLabel("Group:");
         JComboBox<String> cbGroup = new JComboBox<>();
         try {
-            for (UserGroup g : groupDAO.findAll()) {
+            List<UserGroup> groups = ReferenceSnapshot.userGroups();
+            for (UserGroup g : groups != null ? groups : groupDAO.findAll()) {
                 cbGroup.addItem(g.getGroupName());
             }
         } catch (SQLException e) {
@@ -8,6 +8,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.sql.SQLException;
 import java.util.Arrays;
+import utils.AppExecutors;
 
 public class UserProfilePanel extends JPanel {
 
@@ -268,7 +269,7 @@ public class UserProfilePanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
     }
 
     private void saveChanges() {
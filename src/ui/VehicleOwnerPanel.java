@@ -1,5 +1,6 @@
 package ui;
 
+import dao.CustomerSearchDAO;
 import dao.VehicleOwnerDAO;
 import java.awt.*;
 import java.awt.event.*;
@@ -8,14 +9,19 @@ import java.util.List;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
+import models.CustomerMatch;
 import models.VehicleOwner;
+import utils.AppExecutors;
 
 public class VehicleOwnerPanel extends JPanel {
 
     private VehicleOwnerDAO ownerDAO = new VehicleOwnerDAO();
+    private CustomerSearchDAO searchDAO = new CustomerSearchDAO();
     private JTable table;
     private DefaultTableModel model;
     private List<VehicleOwner> ownerList;
+    private JTextField searchField;
+    private Timer searchDebounce;
 
     // Colors
     private final Color PRIMARY = new Color(33, 150, 243);
@@ -72,9 +78,38 @@ public class VehicleOwnerPanel extends JPanel {
         btnPanel.add(exportBtn);
 
         header.add(btnPanel, BorderLayout.EAST);
+        header.add(createSearchPanel(), BorderLayout.CENTER);
         return header;
     }
 
+    private JPanel createSearchPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 8, 0));
+        panel.setOpaque(false);
+
+        JLabel label = new JLabel("Find:");
+        label.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        label.setForeground(TEXT_PRIMARY);
+
+        searchField = new JTextField(22);
+        searchField.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        searchField.setToolTipText("Name, phone, email, plate number or booking ref");
+        searchField.putClientProperty("JTextField.placeholderText", "Name, phone, email, plate, booking ref...");
+
+        // Query the server once typing pauses, not on every key
+        searchDebounce = new Timer(300, e -> searchOwners());
+        searchDebounce.setRepeats(false);
+        searchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                searchDebounce.restart();
+            }
+        });
+
+        panel.add(label);
+        panel.add(searchField);
+        return panel;
+    }
+
     private JButton createStyledButton(String text, Color bgColor, String tooltip, String iconSymbol) {
         JButton btn = new JButton(text);
         btn.setBackground(bgColor);
@@ -201,7 +236,38 @@ public class VehicleOwnerPanel extends JPanel {
                 return null;
             }
         };
-        worker.execute();
+        AppExecutors.execute(worker);
+    }
+
+    private void searchOwners() {
+        String term = searchField.getText().trim();
+        if (term.isEmpty()) {
+            loadOwners();
+            return;
+        }
+        if (term.length() < CustomerSearchDAO.MIN_TERM_LENGTH)
+            return;
+
+        SwingWorker<List<VehicleOwner>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<VehicleOwner> doInBackground() throws Exception {
+                return searchDAO.findCustomers(term).stream().map(CustomerMatch::getOwner).toList();
+            }
+
+            @Override
+            protected void done() {
+                // Ignore results for a term the user has already typed past
+                if (!term.equals(searchField.getText().trim()))
+                    return;
+                try {
+                    ownerList = get();
+                    updateTable();
+                } catch (Exception e) {
+                    showError("Search Error", e.getMessage());
+                }
+            }
+        };
+        AppExecutors.execute(worker);
     }
 
     private void updateTable() {
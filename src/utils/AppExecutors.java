@@ -0,0 +1,315 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingWorker;
+
+/**
+ * Central place for background work.
+ *
+ * Database work runs on virtual threads when the JVM has them (Java 21+) and
+ * on a fixed pool of named platform threads otherwise. Either way at most
+ * {@link DatabaseConnection#MAX_CONNECTIONS} tasks talk to the database at
+ * once. Notifications get their own small executor so a slow HTTP call never
+ * holds up a panel refresh. A SwingWorker can be handed to
+ * {@link #execute(Runnable)} instead of calling its own execute().
+ *
+ * Long-running service loops (probers, the journal replayer) start through
+ * {@link #startDaemon} and cleanup at exit registers with {@link #onShutdown},
+ * so one shutdown stops all of them in a known order.
+ */
+public class AppExecutors {
+
+    private static final Log LOG = Log.get(AppExecutors.class);
+
+    private static final Thread.UncaughtExceptionHandler REPORTER = (thread, error) ->
+            LOG.error("Uncaught exception in {}", thread.getName(), error);
+
+    private static final Semaphore DB_PERMITS = new Semaphore(DatabaseConnection.MAX_CONNECTIONS, true);
+    private static final AtomicInteger DB_ACTIVE = new AtomicInteger();
+
+    private static final boolean VIRTUAL = virtualThreadFactory("probe-") != null;
+    private static final ExecutorService DB = newExecutor("db-worker-", DatabaseConnection.MAX_CONNECTIONS);
+    private static final ExecutorService NOTIFY = newExecutor("notify-", 2);
+    private static final AtomicInteger NOTIFY_QUEUED = new AtomicInteger();
+
+    private static final List<Thread> DAEMONS = new CopyOnWriteArrayList<>();
+    private static final List<Runnable> SHUTDOWN_ACTIONS = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean HOOK_INSTALLED = new AtomicBoolean();
+
+    static {
+        Metrics.gauge("executor.db.active", DB_ACTIVE::get);
+        Metrics.gauge("executor.db.waiting", DB_PERMITS::getQueueLength);
+        Metrics.gauge("executor.notify.queued", NOTIFY_QUEUED::get);
+    }
+
+    private AppExecutors() {
+    }
+
+    // ================= SUBMISSION =================
+
+    /** Run database work (or a SwingWorker) in the background. */
+    public static void execute(Runnable task) {
+        if (task instanceof SwingWorker<?, ?> worker) {
+            JfrEvents.PanelRefresh refresh = new JfrEvents.PanelRefresh();
+            if (refresh.isEnabled()) {
+                executeRecorded(worker, refresh);
+                return;
+            }
+        }
+        DB.execute(new PermitTask(task, () -> {
+            if (task instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }));
+    }
+
+    // Only while a JFR recording is on: one PanelRefresh per worker, from
+    // submission until its done() has run on the EDT
+    private static void executeRecorded(SwingWorker<?, ?> worker, JfrEvents.PanelRefresh refresh) {
+        Class<?> type = worker.getClass();
+        Class<?> panel = type.getEnclosingClass();
+        Method method = type.getEnclosingMethod();
+        refresh.panel = panel != null ? panel.getSimpleName() : type.getSimpleName();
+        refresh.method = method != null ? method.getName() : "?";
+        // Workers built inside an action listener report lambda$createRefreshButton$3
+        if (refresh.method.startsWith("lambda$")) {
+            int end = refresh.method.indexOf('$', 7);
+            refresh.method = end > 7 ? refresh.method.substring(7, end) : refresh.method;
+        }
+
+        worker.addPropertyChangeListener(e -> {
+            // DONE is fired on the EDT after done() returns
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                refresh.end();
+                refresh.commit();
+            }
+        });
+        long submitted = System.nanoTime();
+        refresh.begin();
+        DB.execute(new PermitTask(() -> {
+            long started = System.nanoTime();
+            refresh.queuedNanos = started - submitted;
+            worker.run();
+            refresh.backgroundNanos = System.nanoTime() - started;
+        }, () -> worker.cancel(false)));
+    }
+
+    /** Run database work in the background and complete the future with its result. */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        DB.execute(new PermitTask(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, () -> future.cancel(false)));
+        return future;
+    }
+
+    /** Run a notification send (Telegram etc.) in the background. */
+    public static void runNotification(Runnable task) {
+        NOTIFY_QUEUED.incrementAndGet();
+        NOTIFY.execute(() -> {
+            NOTIFY_QUEUED.decrementAndGet();
+            task.run();
+        });
+    }
+
+    /**
+     * Database work that runs holding a permit. When shutdown cuts the wait
+     * short, or drops the task from the queue, {@code abandoned} runs instead
+     * so whoever waits on the task (a future, a SwingWorker's done()) hears
+     * that it will not run.
+     */
+    private static final class PermitTask implements Runnable {
+        private final Runnable task;
+        private final Runnable abandoned;
+
+        PermitTask(Runnable task, Runnable abandoned) {
+            this.task = task;
+            this.abandoned = abandoned;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DB_PERMITS.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned.run();
+                return;
+            }
+            DB_ACTIVE.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                DB_ACTIVE.decrementAndGet();
+                DB_PERMITS.release();
+            }
+        }
+    }
+
+    private static void abandonQueued(List<Runnable> dropped) {
+        for (Runnable r : dropped) {
+            if (r instanceof PermitTask permitTask) {
+                permitTask.abandoned.run();
+            }
+        }
+    }
+
+    // ================= STATUS =================
+
+    public static boolean usesVirtualThreads() {
+        return VIRTUAL;
+    }
+
+    /** Database tasks currently running. */
+    public static int activeDbTasks() {
+        return DB_ACTIVE.get();
+    }
+
+    /** Database tasks waiting for a connection permit. */
+    public static int waitingDbTasks() {
+        return DB_PERMITS.getQueueLength();
+    }
+
+    /** Notifications submitted but not started yet. */
+    public static int queuedNotifications() {
+        return NOTIFY_QUEUED.get();
+    }
+
+    // ================= SHUTDOWN =================
+
+    /**
+     * Stop the service loops, stop accepting work, give running tasks a
+     * moment, interrupt them, then run the {@link #onShutdown} actions.
+     */
+    public static void shutdown() {
+        for (Thread daemon : DAEMONS) {
+            daemon.interrupt();
+        }
+        DB.shutdown();
+        NOTIFY.shutdown();
+        try {
+            if (!DB.awaitTermination(3, TimeUnit.SECONDS)) {
+                abandonQueued(DB.shutdownNow());
+            }
+            if (!NOTIFY.awaitTermination(2, TimeUnit.SECONDS)) {
+                NOTIFY.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            abandonQueued(DB.shutdownNow());
+            NOTIFY.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for (Runnable action : SHUTDOWN_ACTIONS) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.warn("Shutdown action failed", e);
+            }
+        }
+    }
+
+    /** Shut the executors down when the JVM exits (EXIT_ON_CLOSE included). */
+    public static void installShutdownHook() {
+        if (HOOK_INSTALLED.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(AppExecutors::shutdown, "executor-shutdown"));
+        }
+    }
+
+    /** Run {@code action} at JVM exit, once the executors have stopped. */
+    public static void onShutdown(Runnable action) {
+        SHUTDOWN_ACTIONS.add(action);
+        installShutdownHook();
+    }
+
+    /**
+     * Start a daemon thread for a loop that runs for the life of the
+     * application. Interrupted at shutdown; the loop should return then.
+     */
+    public static Thread startDaemon(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(REPORTER);
+        DAEMONS.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    // ================= FACTORIES =================
+
+    /**
+     * Threads for callers that size their own concurrency (the load driver):
+     * virtual when available, daemon platform threads otherwise. No permits.
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        ThreadFactory virtual = virtualThreadFactory(prefix);
+        if (virtual != null) {
+            return reporting(virtual);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return reporting(r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService newExecutor(String prefix, int platformThreads) {
+        ThreadFactory virtual = virtualThreadFactory(prefix);
+        if (virtual != null) {
+            // One cheap thread per task; the permits do the limiting
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), reporting(virtual));
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory platform = r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(platformThreads, platformThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), reporting(platform));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory reporting(ThreadFactory base) {
+        return r -> {
+            Thread t = base.newThread(r);
+            t.setUncaughtExceptionHandler(REPORTER);
+            return t;
+        };
+    }
+
+    // Thread.ofVirtual().name(prefix, 1).factory(), looked up reflectively so
+    // the code still compiles and runs on Java 17
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Method name = ofVirtual.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 1L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package utils;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops calling the database for a while after it failed several times in a
+ * row, so callers get an immediate error (and panels their cached data)
+ * instead of each waiting out its own timeout.
+ *
+ * Only failures that say the database is unreachable or overloaded count:
+ * connection errors, statement timeouts, server shutdown, too many
+ * connections. A constraint violation is the caller's problem and leaves the
+ * breaker alone. After {@code openMillis} one trial call is let through; its
+ * outcome closes the breaker or opens it again.
+ */
+public final class CircuitBreaker {
+
+    private static final Log LOG = Log.get(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    // Class 08 is the SQLSTATE class for connection exceptions
+    static final String OPEN_STATE = "08004";
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final Metrics.Counter trips;
+    private final Metrics.Counter rejected;
+    private volatile State state = State.CLOSED;
+    private volatile long stateSince = System.nanoTime();
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openMillis * 1_000_000L;
+        this.trips = Metrics.counter("db.breaker." + name + ".trips");
+        this.rejected = Metrics.counter("db.breaker." + name + ".rejected");
+        Metrics.gauge("db.breaker." + name + ".open", () -> state == State.CLOSED ? 0 : 1);
+    }
+
+    /** Throws at once while the breaker is open; otherwise lets the call go ahead. */
+    public void beforeCall() throws SQLException {
+        State current = state;
+        if (current == State.CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            long waited = System.nanoTime() - stateSince;
+            // A trial whose caller never ran a statement must not wedge the breaker half open
+            if (waited >= openNanos) {
+                moveTo(State.HALF_OPEN);
+                return;
+            }
+        }
+        rejected.increment();
+        throw new SQLException("Database " + name + " calls paused after repeated failures; retrying in "
+                + Math.max(1, (openNanos - (System.nanoTime() - stateSince)) / 1_000_000_000L) + " s", OPEN_STATE);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            synchronized (this) {
+                if (state != State.CLOSED) {
+                    LOG.info("Database {} calls resumed", name);
+                    moveTo(State.CLOSED);
+                }
+            }
+        }
+    }
+
+    public void onFailure(SQLException e) {
+        if (!isUnavailable(e)) {
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            synchronized (this) {
+                if (state != State.OPEN) {
+                    trips.increment();
+                    LOG.warn("Database {} calls paused for {} ms: {}", name, openNanos / 1_000_000,
+                            failures + " failure(s), last: " + e.getMessage());
+                    moveTo(State.OPEN);
+                }
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void moveTo(State next) {
+        state = next;
+        stateSince = System.nanoTime();
+    }
+
+    /**
+     * True for errors that mean "the database cannot serve this right now":
+     * connection failures and an open breaker (08), insufficient resources
+     * (53), statement timeouts and server shutdown (57).
+     */
+    public static boolean isUnavailable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("53") || state.startsWith("57")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -3,6 +3,10 @@ package utils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DatabaseConnection {
     // Database configuration
@@ -12,34 +16,103 @@ public class DatabaseConnection {
     private static final String DB_USER = "postgres";
     private static final String DB_PASSWORD = "123vorn";
 
-    // ADD currentSchema PARAMETER HERE
-    private static final String URL = "jdbc:postgresql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME +
-            "?currentSchema=inet_vehicleparking" +
-            "&ssl=false" +
-            "&connectTimeout=30" +
-            "&socketTimeout=300" +
-            "&loginTimeout=10";
+    // Most connections the app opens at once; background DB work is limited to this
+    public static final int MAX_CONNECTIONS = 10;
+
+    // Every DAO call opens a connection; say where we connect once, not each time
+    private static final Log LOG = Log.get(DatabaseConnection.class);
+    private static final AtomicBoolean ANNOUNCED = new AtomicBoolean();
+    private static final Metrics.Counter FAILED = Metrics.counter("db.connections.failed");
 
     static {
         try {
             Class.forName("org.postgresql.Driver");
-            System.out.println("PostgreSQL JDBC Driver Registered!");
+            LOG.debug("PostgreSQL JDBC driver registered");
         } catch (ClassNotFoundException e) {
-            System.err.println("Failed to register PostgreSQL JDBC Driver!");
-            e.printStackTrace();
+            LOG.error("Failed to register PostgreSQL JDBC driver", e);
         }
     }
 
+    // Interactive work on whichever host is primary right now (see
+    // DatabaseHosts and Workload)
     public static Connection getConnection() throws SQLException {
+        return getConnection(Workload.INTERACTIVE);
+    }
+
+    public static Connection getConnection(Workload workload) throws SQLException {
+        return workload.open(DatabaseConnection::connectPrimary);
+    }
+
+    /**
+     * A connection for queries that tolerate slightly stale data: a healthy
+     * read replica when {@code db.replicas} is set, the primary otherwise.
+     * Counted against the reporting workload either way.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return Workload.REPORTING.open(statementTimeoutMillis -> {
+            Connection replica = ReadReplicas.connect(statementTimeoutMillis);
+            return replica != null ? replica : connectPrimary(statementTimeoutMillis);
+        });
+    }
+
+    private static Connection connectPrimary(int statementTimeoutMillis) throws SQLException {
         try {
-            System.out.println("Connecting to database: " + URL);
-            Connection connection = DriverManager.getConnection(URL, DB_USER, DB_PASSWORD);
-            // System.out.println("Database connection established successfully!");
+            if (ANNOUNCED.compareAndSet(false, true)) {
+                LOG.info("Connecting to database {} on {}", DB_NAME, System.getProperty("db.hosts", defaultHost()));
+            }
+            Connection connection = DatabaseHosts.connectPrimary(statementTimeoutMillis);
             return connection;
         } catch (SQLException e) {
-            System.err.println("Failed to establish database connection!");
-            System.err.println("Error: " + e.getMessage());
+            FAILED.increment();
+            LOG.error("Failed to establish database connection: {}", e.getMessage());
             throw e;
         }
     }
+
+    // Every host serves the same database with the same account
+    static String urlFor(String host, String port, int connectTimeoutSeconds, int socketTimeoutSeconds) {
+        // ADD currentSchema PARAMETER HERE
+        return "jdbc:postgresql://" + host + ":" + port + "/" + DB_NAME +
+                "?currentSchema=inet_vehicleparking" +
+                "&ssl=false" +
+                "&connectTimeout=" + connectTimeoutSeconds +
+                "&socketTimeout=" + socketTimeoutSeconds +
+                "&tcpKeepAlive=true" +
+                "&loginTimeout=10";
+    }
+
+    static String defaultHost() {
+        return DB_HOST + ":" + DB_PORT;
+    }
+
+    // "host:port,host" as {host, port} pairs; the port defaults to 5432
+    static List<String[]> parseHosts(String spec) {
+        List<String[]> hosts = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String hostPort = part.trim();
+            if (hostPort.isEmpty()) {
+                continue;
+            }
+            int colon = hostPort.lastIndexOf(':');
+            hosts.add(colon > 0
+                    ? new String[] { hostPort.substring(0, colon), hostPort.substring(colon + 1) }
+                    : new String[] { hostPort, "5432" });
+        }
+        return hosts;
+    }
+
+    static Connection open(String url) throws SQLException {
+        return open(url, 0);
+    }
+
+    // The timeout goes in the startup packet, so it costs no extra round-trip
+    static Connection open(String url, int statementTimeoutMillis) throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", DB_USER);
+        props.setProperty("password", DB_PASSWORD);
+        if (statementTimeoutMillis > 0) {
+            props.setProperty("options", "-c statement_timeout=" + statementTimeoutMillis);
+        }
+        return DriverManager.getConnection(url, props);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The database hosts and which of them is the primary right now.
+ *
+ * {@code -Ddb.hosts=host:port,host:port} lists the servers of one
+ * streaming-replication cluster in order of preference; the default is the
+ * single host in {@link DatabaseConnection}. A daemon thread keeps one small
+ * connection per host and asks it {@code pg_is_in_recovery()} every
+ * {@code db.probeMs} (default 1 s). New connections go to the first host that
+ * answers as a primary, so a promoted standby takes over on the next probe.
+ *
+ * A host that misses {@code db.probe.failures} probes in a row (default 2)
+ * is down. When the primary goes down or steps back to standby, every
+ * connection still open to it is aborted: statements waiting on a dead socket
+ * fail at once instead of sitting out the socket timeout.
+ */
+public final class DatabaseHosts {
+
+    private static final Log LOG = Log.get(DatabaseHosts.class);
+
+    public enum Role {
+        UNKNOWN,
+        PRIMARY,
+        STANDBY,
+        DOWN
+    }
+
+    private static final long PROBE_MS = Long.getLong("db.probeMs", 1000);
+    private static final int FAILURES_TO_DOWN = Math.max(1, Integer.getInteger("db.probe.failures", 2));
+    private static final int CONNECT_TIMEOUT_SECONDS = Integer.getInteger("db.connectTimeoutSec", 5);
+    private static final int SOCKET_TIMEOUT_SECONDS = Integer.getInteger("db.socketTimeoutSec", 300);
+
+    /** One server of the cluster and what the prober last saw of it. */
+    static final class Host {
+        final String name;
+        final String url;
+        final String probeUrl;
+        // Connections handed out for this host; weak, so closed ones just disappear
+        final Set<Connection> open = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+        volatile Role role = Role.UNKNOWN;
+        Connection probe;
+        int failures;
+
+        Host(String host, String port) {
+            this.name = host + ":" + port;
+            this.url = DatabaseConnection.urlFor(host, port, CONNECT_TIMEOUT_SECONDS, SOCKET_TIMEOUT_SECONDS);
+            this.probeUrl = DatabaseConnection.urlFor(host, port, 2, 2);
+        }
+    }
+
+    private static final List<Host> HOSTS = parse(System.getProperty("db.hosts", DatabaseConnection.defaultHost()));
+    private static volatile Host primary;
+    private static long lastProbeStartNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    private static final Metrics.Counter FAILOVERS = Metrics.counter("db.failovers");
+    private static final Metrics.Counter ABORTED = Metrics.counter("db.connections.aborted");
+
+    static {
+        Metrics.gauge("db.hosts.up", () -> HOSTS.stream().filter(h -> h.role == Role.PRIMARY
+                || h.role == Role.STANDBY).count());
+        Metrics.gauge("db.primary.available", () -> primary != null ? 1 : 0);
+        AppExecutors.startDaemon("db-host-probe", DatabaseHosts::probeLoop);
+    }
+
+    private DatabaseHosts() {
+    }
+
+    // ================= CONNECTING =================
+
+    /** Open a connection to the current primary, looking for one first if none is known. */
+    static Connection connectPrimary(int statementTimeoutMillis) throws SQLException {
+        long attempt = System.nanoTime();
+        Host target = primary;
+        if (target == null) {
+            target = discover(attempt);
+        }
+        try {
+            return open(target, statementTimeoutMillis);
+        } catch (SQLException e) {
+            // The prober may not have noticed yet; check now rather than fail every caller until it does
+            Host next;
+            try {
+                next = discover(attempt);
+            } catch (SQLException none) {
+                e.addSuppressed(none);
+                throw e;
+            }
+            if (next == target) {
+                throw e;
+            }
+            LOG.warn("Primary {} refused a connection, using {}", target.name, next.name);
+            return open(next, statementTimeoutMillis);
+        }
+    }
+
+    private static Connection open(Host host, int statementTimeoutMillis) throws SQLException {
+        Connection conn = DatabaseConnection.open(host.url, statementTimeoutMillis);
+        host.open.add(conn);
+        return conn;
+    }
+
+    /** The primary as far as the prober knows, e.g. "db1:5432", or null when there is none. */
+    public static String currentPrimary() {
+        Host host = primary;
+        return host != null ? host.name : null;
+    }
+
+    public static Role roleOf(String name) {
+        for (Host host : HOSTS) {
+            if (host.name.equals(name)) {
+                return host.role;
+            }
+        }
+        return Role.UNKNOWN;
+    }
+
+    // ================= PROBING =================
+
+    private static void probeLoop() {
+        while (true) {
+            probeAll();
+            try {
+                Thread.sleep(PROBE_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // The primary after a round of probes that started after the caller's
+    // connect attempt. Callers that failed together share one round; the
+    // lock also keeps them from probing alongside the prober.
+    private static synchronized Host discover(long attemptNanos) throws SQLException {
+        if (lastProbeStartNanos - attemptNanos < 0) {
+            probeAll();
+        }
+        Host found = primary;
+        if (found == null) {
+            throw new SQLException("No primary database among " + HOSTS.size() + " host(s): " + describe(),
+                    "08001");
+        }
+        return found;
+    }
+
+    private static synchronized void probeAll() {
+        lastProbeStartNanos = System.nanoTime();
+        for (Host host : HOSTS) {
+            probe(host);
+        }
+        Host chosen = null;
+        for (Host host : HOSTS) {
+            if (host.role == Role.PRIMARY) {
+                if (chosen == null) {
+                    chosen = host;
+                } else {
+                    LOG.warn("Both {} and {} report primary; staying with {}", chosen.name, host.name, chosen.name);
+                }
+            }
+        }
+        Host previous = primary;
+        if (chosen == previous) {
+            return;
+        }
+        primary = chosen;
+        if (previous != null) {
+            if (chosen != null) {
+                FAILOVERS.increment();
+            }
+            LOG.warn("Primary {} is {}; {}", previous.name,
+                    previous.role == Role.PRIMARY ? "no longer first in db.hosts" : previous.role.name().toLowerCase(),
+                    chosen != null ? "switching to " + chosen.name : "no primary available");
+            abortOpenConnections(previous);
+        } else if (chosen != null) {
+            LOG.info("Primary database: {}", chosen.name);
+        }
+    }
+
+    private static void probe(Host host) {
+        try {
+            if (host.probe == null || host.probe.isClosed()) {
+                host.probe = DatabaseConnection.open(host.probeUrl);
+            }
+            try (Statement st = host.probe.createStatement()) {
+                st.setQueryTimeout(2);
+                try (ResultSet rs = st.executeQuery("SELECT pg_is_in_recovery()")) {
+                    rs.next();
+                    host.role = rs.getBoolean(1) ? Role.STANDBY : Role.PRIMARY;
+                    host.failures = 0;
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(host.probe);
+            host.probe = null;
+            if (++host.failures >= FAILURES_TO_DOWN && host.role != Role.DOWN) {
+                LOG.warn("Database host {} is down: {}", host.name, e.getMessage());
+                host.role = Role.DOWN;
+            }
+        }
+    }
+
+    private static void abortOpenConnections(Host host) {
+        List<Connection> connections;
+        synchronized (host.open) {
+            connections = new ArrayList<>(host.open);
+            host.open.clear();
+        }
+        for (Connection conn : connections) {
+            try {
+                if (!conn.isClosed()) {
+                    conn.abort(Runnable::run);
+                    ABORTED.increment();
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOG.debug("Could not abort a connection to {}: {}", host.name, e.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // Already broken
+            }
+        }
+    }
+
+    private static String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Host host : HOSTS) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(host.name).append('=').append(host.role);
+        }
+        return sb.toString();
+    }
+
+    private static List<Host> parse(String spec) {
+        List<Host> hosts = new ArrayList<>();
+        for (String[] hostPort : DatabaseConnection.parseHosts(spec)) {
+            hosts.add(new Host(hostPort[0], hostPort[1]));
+        }
+        return Collections.unmodifiableList(hosts);
+    }
+}
@@ -0,0 +1,146 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events for the app, all under the "Parking" category.
+ *
+ * With a recording running ({@code -XX:StartFlightRecording} or JMC), a
+ * frozen booking screen can be lined up against the DAO statements,
+ * transactions and notifications that ran at the same time. Without one,
+ * begin/commit do nothing and the events cost next to nothing, so they stay in.
+ */
+public final class JfrEvents {
+
+    private JfrEvents() {
+    }
+
+    @Name("parking.DaoStatement")
+    @Label("DAO Statement")
+    @Category({ "Parking", "Database" })
+    @Description("One JDBC execute by a DAO; duration is the execute call")
+    @StackTrace(false)
+    public static final class DaoStatement extends Event {
+        @Label("Statement")
+        public String name;
+
+        @Label("SQL")
+        public String sql;
+
+        @Label("Parameter Shapes")
+        public String parameters;
+
+        @Label("Rows Returned")
+        public long rowsReturned;
+
+        @Label("Rows Affected")
+        public long rowsAffected;
+
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("parking.DaoTransaction")
+    @Label("DAO Transaction")
+    @Category({ "Parking", "Database" })
+    @Description("A multi-statement DAO flow from connection to commit or rollback")
+    public static final class DaoTransaction extends Event {
+        @Label("Flow")
+        public String flow;
+
+        @Label("Entity Id")
+        public long entityId;
+
+        @Label("Committed")
+        public boolean committed;
+
+        @Label("Error")
+        public String error;
+
+        /** Begin a flow; pair with {@link #finish()} in a finally block. */
+        public static DaoTransaction start(String flow, long entityId) {
+            DaoTransaction tx = new DaoTransaction();
+            if (tx.isEnabled()) {
+                tx.flow = flow;
+                tx.entityId = entityId;
+                tx.begin();
+            }
+            return tx;
+        }
+
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+    }
+
+    @Name("parking.PanelRefresh")
+    @Label("Panel Refresh")
+    @Category({ "Parking", "UI" })
+    @Description("A panel data load; for a SwingWorker, from submission until done() ran on the EDT")
+    @StackTrace(false)
+    public static final class PanelRefresh extends Event {
+        @Label("Panel")
+        public String panel;
+
+        @Label("Method")
+        public String method;
+
+        @Label("On Event Thread")
+        @Description("The load ran on the EDT, freezing the UI for its whole duration")
+        public boolean onEventThread;
+
+        @Label("Background Work")
+        @Timespan(Timespan.NANOSECONDS)
+        public long backgroundNanos;
+
+        @Label("Waited For Connection")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queuedNanos;
+
+        /** Begin a load that runs on the calling thread; pair with {@link #finish()}. */
+        public static PanelRefresh start(String panel, String method) {
+            PanelRefresh refresh = new PanelRefresh();
+            if (refresh.isEnabled()) {
+                refresh.panel = panel;
+                refresh.method = method;
+                refresh.onEventThread = javax.swing.SwingUtilities.isEventDispatchThread();
+                refresh.begin();
+            }
+            return refresh;
+        }
+
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+    }
+
+    @Name("parking.NotificationSend")
+    @Label("Notification Send")
+    @Category({ "Parking", "Notifications" })
+    @StackTrace(false)
+    public static final class NotificationSend extends Event {
+        @Label("Channel")
+        public String channel;
+
+        @Label("Payload Bytes")
+        public int payloadBytes;
+
+        @Label("HTTP Status")
+        public int status;
+
+        @Label("Error")
+        public String error;
+    }
+}
@@ -0,0 +1,205 @@
+package utils;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the spirit of
+ * HdrHistogram.
+ *
+ * Values are recorded in microseconds. Below 256 µs every value has its own
+ * bucket; above that each power of two is split into 128 buckets, so any
+ * recorded value is reported within 1% of what was measured. Up to about 12
+ * days fit; anything longer lands in the top bucket. Recording is a single
+ * atomic increment and is safe from any number of threads.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 256;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 33;
+    private static final int BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    // ================= RECORDING =================
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sumMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    /** Add every sample of another histogram to this one. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        total.addAndGet(other.total.get());
+        sumMicros.addAndGet(other.sumMicros.get());
+        maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sumMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    // ================= QUERIES =================
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sumMicros.get() / n;
+    }
+
+    /**
+     * Smallest recorded value (bucket upper bound) that at least
+     * {@code percentile} percent of samples are at or below.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalent(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    // ================= OUTPUT =================
+
+    /**
+     * Print the percentile distribution in HdrHistogram's .hgrm layout so the
+     * output can be dropped into the usual plotters. Values are scaled by
+     * {@code microsPerUnit}, e.g. 1000.0 for milliseconds.
+     */
+    public void outputPercentileDistribution(PrintStream out, int ticksPerHalfDistance, double microsPerUnit) {
+        out.println(String.format("%12s %14s %10s %14s", "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+        out.println();
+
+        long n = total.get();
+        if (n > 0) {
+            // Halve the remaining distance to 100% repeatedly, ticksPerHalfDistance steps each time
+            double percentile = 0;
+            double step = 50.0 / ticksPerHalfDistance;
+            int ticks = 0;
+            while (percentile < 100) {
+                printLine(out, percentile, microsPerUnit);
+                percentile += step;
+                if (++ticks == ticksPerHalfDistance) {
+                    ticks = 0;
+                    step /= 2;
+                }
+                if (100 - percentile < 100.0 / n) {
+                    break;
+                }
+            }
+            printLine(out, 100, microsPerUnit);
+        }
+
+        out.println(String.format("#[Mean    = %12.3f, StdDeviation   = %12.3f]",
+                getMeanMicros() / microsPerUnit, stdDeviationMicros() / microsPerUnit));
+        out.println(String.format("#[Max     = %12.3f, Total count    = %12d]",
+                maxMicros.get() / microsPerUnit, n));
+        out.println(String.format("#[Buckets = %12d, SubBuckets     = %12d]", MAX_SHIFT + 1, SUB_BUCKETS));
+    }
+
+    private void printLine(PrintStream out, double percentile, double microsPerUnit) {
+        long n = total.get();
+        long value = getValueAtPercentile(percentile);
+        long countAtOrBelow = countAtOrBelow(value);
+        double fraction = Math.min(1, (double) countAtOrBelow / n);
+        String inverse = fraction >= 1 ? "" : String.format("%14.2f", 1 / (1 - fraction));
+        out.println(String.format("%12.3f %14.12f %10d %s", value / microsPerUnit, fraction, countAtOrBelow, inverse));
+    }
+
+    private long countAtOrBelow(long micros) {
+        long seen = 0;
+        int last = indexOf(micros);
+        for (int i = 0; i <= last; i++) {
+            seen += counts.get(i);
+        }
+        return seen;
+    }
+
+    private double stdDeviationMicros() {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        double mean = getMeanMicros();
+        double squares = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c != 0) {
+                double d = (lowestEquivalent(i) + highestEquivalent(i)) / 2.0 - mean;
+                squares += d * d * c;
+            }
+        }
+        return Math.sqrt(squares / n);
+    }
+
+    // ================= BUCKETS =================
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // Keep the top 8 bits: shift is how many low bits get dropped
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - 7;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    static long lowestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return sub << shift;
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        return lowestEquivalent(index) + (1L << shift) - 1;
+    }
+}
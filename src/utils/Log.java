@@ -0,0 +1,499 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small asynchronous logger.
+ *
+ * A call only checks the level and copies its references into a slot of a
+ * fixed ring buffer; formatting and file I/O happen on the "log-writer"
+ * thread, so a transaction never waits on the console or the disk. A
+ * disabled level costs one int comparison and allocates nothing; primitive
+ * arguments are boxed before the call, though, so on a hot path guard those
+ * with {@link #isDebugEnabled()}. When the ring is full the entry is dropped
+ * and counted rather than blocking the caller.
+ *
+ * Messages use {@code {}} placeholders; a Throwable passed after the last
+ * placeholder argument is written with its stack trace. Arguments are
+ * formatted later on the writer thread, so pass values that will not change
+ * (ids, strings, numbers), not mutable objects.
+ *
+ * Output is one JSON object per line in {@code logs/app.log}, rotated at
+ * 10 MB with five old files kept. Entries at WARN and above are also echoed
+ * to stderr.
+ *
+ * Configuration (system properties, or the same keys in the file named by
+ * {@code log.config}): {@code log.level} for the default (INFO),
+ * {@code log.level.<package or class>} per package or class,
+ * {@code log.console} for the stderr echo level, {@code log.dir},
+ * {@code log.maxFileMb}, {@code log.files} and {@code log.bufferSize}.
+ */
+public final class Log {
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final int TRACE = 0, DEBUG = 1, INFO = 2, WARN = 3, ERROR = 4;
+    private static final Level[] BY_ORDINAL = Level.values();
+
+    private static final Map<String, Log> LOGGERS = new ConcurrentHashMap<>();
+    private static final Map<String, Level> LEVELS = new ConcurrentHashMap<>();
+    private static final Properties CONFIG = loadConfig();
+
+    private final String name;
+    private volatile int threshold;
+
+    private Log(String name) {
+        this.name = name;
+        this.threshold = levelFor(name).ordinal();
+    }
+
+    public static Log get(Class<?> type) {
+        return get(type.getName());
+    }
+
+    public static Log get(String name) {
+        return LOGGERS.computeIfAbsent(name, Log::new);
+    }
+
+    // ================= LEVELS =================
+
+    /** Change the level for a package or class prefix ("" for the default) at runtime. */
+    public static synchronized void setLevel(String prefix, Level level) {
+        LEVELS.put(prefix, level);
+        for (Log log : LOGGERS.values()) {
+            log.threshold = levelFor(log.name).ordinal();
+        }
+    }
+
+    // Longest configured prefix wins: dao.BookingDAO, then dao, then the default
+    private static Level levelFor(String name) {
+        String key = name;
+        while (true) {
+            Level level = LEVELS.get(key);
+            if (level != null) {
+                return level;
+            }
+            if (key.isEmpty()) {
+                return Level.INFO;
+            }
+            int dot = key.lastIndexOf('.');
+            key = dot > 0 ? key.substring(0, dot) : "";
+        }
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return DEBUG >= threshold;
+    }
+
+    // ================= LOGGING =================
+
+    public void trace(String msg) {
+        if (TRACE >= threshold) publish(TRACE, name, msg, 0, null, null, null);
+    }
+
+    public void trace(String msg, Object a) {
+        if (TRACE >= threshold) publish(TRACE, name, msg, 1, a, null, null);
+    }
+
+    public void trace(String msg, Object a, Object b) {
+        if (TRACE >= threshold) publish(TRACE, name, msg, 2, a, b, null);
+    }
+
+    public void debug(String msg) {
+        if (DEBUG >= threshold) publish(DEBUG, name, msg, 0, null, null, null);
+    }
+
+    public void debug(String msg, Object a) {
+        if (DEBUG >= threshold) publish(DEBUG, name, msg, 1, a, null, null);
+    }
+
+    public void debug(String msg, Object a, Object b) {
+        if (DEBUG >= threshold) publish(DEBUG, name, msg, 2, a, b, null);
+    }
+
+    public void debug(String msg, Object a, Object b, Object c) {
+        if (DEBUG >= threshold) publish(DEBUG, name, msg, 3, a, b, c);
+    }
+
+    public void info(String msg) {
+        if (INFO >= threshold) publish(INFO, name, msg, 0, null, null, null);
+    }
+
+    public void info(String msg, Object a) {
+        if (INFO >= threshold) publish(INFO, name, msg, 1, a, null, null);
+    }
+
+    public void info(String msg, Object a, Object b) {
+        if (INFO >= threshold) publish(INFO, name, msg, 2, a, b, null);
+    }
+
+    public void info(String msg, Object a, Object b, Object c) {
+        if (INFO >= threshold) publish(INFO, name, msg, 3, a, b, c);
+    }
+
+    public void warn(String msg) {
+        if (WARN >= threshold) publish(WARN, name, msg, 0, null, null, null);
+    }
+
+    public void warn(String msg, Object a) {
+        if (WARN >= threshold) publish(WARN, name, msg, 1, a, null, null);
+    }
+
+    public void warn(String msg, Object a, Object b) {
+        if (WARN >= threshold) publish(WARN, name, msg, 2, a, b, null);
+    }
+
+    public void warn(String msg, Object a, Object b, Object c) {
+        if (WARN >= threshold) publish(WARN, name, msg, 3, a, b, c);
+    }
+
+    public void error(String msg) {
+        if (ERROR >= threshold) publish(ERROR, name, msg, 0, null, null, null);
+    }
+
+    public void error(String msg, Object a) {
+        if (ERROR >= threshold) publish(ERROR, name, msg, 1, a, null, null);
+    }
+
+    public void error(String msg, Object a, Object b) {
+        if (ERROR >= threshold) publish(ERROR, name, msg, 2, a, b, null);
+    }
+
+    public void error(String msg, Object a, Object b, Object c) {
+        if (ERROR >= threshold) publish(ERROR, name, msg, 3, a, b, c);
+    }
+
+    // ================= RING BUFFER =================
+
+    /** One reusable slot; {@code sequence} is written last and publishes the rest. */
+    private static final class Entry {
+        volatile long sequence = -1;
+        long timeMillis;
+        int level;
+        String logger;
+        String thread;
+        String template;
+        int argc;
+        Object a, b, c;
+
+        void clear() {
+            logger = null;
+            thread = null;
+            template = null;
+            a = b = c = null;
+        }
+    }
+
+    private static final int CAPACITY = Integer.highestOneBit(
+            Math.max(64, Integer.parseInt(CONFIG.getProperty("log.bufferSize", "8192"))));
+    private static final int MASK = CAPACITY - 1;
+    private static final Entry[] RING = new Entry[CAPACITY];
+    private static final AtomicLong HEAD = new AtomicLong();
+    private static volatile long tail;
+    private static final Metrics.Counter DROPPED = Metrics.counter("log.dropped");
+
+    private static final Writer WRITER;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Entry();
+        }
+        CONFIG.stringPropertyNames().forEach(key -> {
+            if (key.equals("log.level") || key.startsWith("log.level.")) {
+                String prefix = key.equals("log.level") ? "" : key.substring("log.level.".length());
+                try {
+                    LEVELS.put(prefix, Level.valueOf(CONFIG.getProperty(key).trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Ignoring " + key + "=" + CONFIG.getProperty(key));
+                }
+            }
+        });
+        Metrics.gauge("log.backlog", () -> HEAD.get() - tail);
+
+        WRITER = new Writer();
+        Thread thread = new Thread(WRITER, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(WRITER::drainAndStop, "log-flush"));
+    }
+
+    private static void publish(int level, String logger, String template, int argc, Object a, Object b,
+            Object c) {
+        long seq;
+        do {
+            seq = HEAD.get();
+            if (seq - tail >= CAPACITY) {
+                DROPPED.increment();
+                return;
+            }
+        } while (!HEAD.compareAndSet(seq, seq + 1));
+
+        Entry e = RING[(int) (seq & MASK)];
+        e.timeMillis = System.currentTimeMillis();
+        e.level = level;
+        e.logger = logger;
+        e.thread = Thread.currentThread().getName();
+        e.template = template;
+        e.argc = argc;
+        e.a = a;
+        e.b = b;
+        e.c = c;
+        e.sequence = seq;
+    }
+
+    /** Entries published but not written yet. */
+    public static long backlog() {
+        return HEAD.get() - tail;
+    }
+
+    public static long dropped() {
+        return DROPPED.get();
+    }
+
+    // ================= WRITER =================
+
+    private static final class Writer implements Runnable {
+        private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+                .withZone(ZoneId.systemDefault());
+        private static final DateTimeFormatter CONSOLE_TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+                .withZone(ZoneId.systemDefault());
+
+        private final Path file = Path.of(CONFIG.getProperty("log.dir", "logs"), "app.log");
+        private final long maxBytes = Long.parseLong(CONFIG.getProperty("log.maxFileMb", "10")) << 20;
+        private final int keepFiles = Integer.parseInt(CONFIG.getProperty("log.files", "5"));
+        private final int consoleLevel = Level.valueOf(CONFIG.getProperty("log.console", "WARN").toUpperCase())
+                .ordinal();
+
+        private final StringBuilder line = new StringBuilder(256);
+        private BufferedWriter out;
+        private long written;
+        private boolean fileFailed;
+
+        private volatile boolean stopping;
+        private volatile Thread thread;
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            long next = 0;
+            while (true) {
+                Entry e = RING[(int) (next & MASK)];
+                if (e.sequence != next) {
+                    flush();
+                    if (stopping) {
+                        close();
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    continue;
+                }
+                write(e);
+                e.clear();
+                next++;
+                tail = next;
+            }
+        }
+
+        void drainAndStop() {
+            stopping = true;
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+                try {
+                    t.join(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void write(Entry e) {
+            String message;
+            Throwable error = null;
+            try {
+                Object[] args = { e.a, e.b, e.c };
+                int used = format(e.template, args, e.argc);
+                message = line.toString();
+                if (used < e.argc && args[e.argc - 1] instanceof Throwable t) {
+                    error = t;
+                }
+            } catch (RuntimeException ex) {
+                // An argument's toString() threw; keep the template
+                message = e.template + " [format failed: " + ex + "]";
+            }
+
+            if (e.level >= consoleLevel || fileFailed) {
+                System.err.println(CONSOLE_TIME.format(Instant.ofEpochMilli(e.timeMillis)) + " "
+                        + BY_ORDINAL[e.level] + " [" + e.thread + "] " + e.logger + " - " + message);
+                if (error != null) {
+                    error.printStackTrace();
+                }
+            }
+            if (fileFailed) {
+                return;
+            }
+
+            line.setLength(0);
+            line.append("{\"ts\":\"").append(TIME.format(Instant.ofEpochMilli(e.timeMillis)))
+                    .append("\",\"level\":\"").append(BY_ORDINAL[e.level])
+                    .append("\",\"thread\":");
+            quote(e.thread);
+            line.append(",\"logger\":");
+            quote(e.logger);
+            line.append(",\"msg\":");
+            quote(message);
+            if (error != null) {
+                line.append(",\"error\":");
+                quote(error.toString());
+                StringWriter stack = new StringWriter();
+                error.printStackTrace(new PrintWriter(stack));
+                line.append(",\"stack\":");
+                quote(stack.toString());
+            }
+            line.append("}\n");
+            append(line);
+        }
+
+        // Expand {} placeholders into line; returns how many arguments were used
+        private int format(String template, Object[] args, int argc) {
+            line.setLength(0);
+            if (template == null) {
+                line.append("null");
+                return 0;
+            }
+            int used = 0;
+            int from = 0;
+            int at;
+            while (used < argc && (at = template.indexOf("{}", from)) >= 0) {
+                line.append(template, from, at).append(args[used++]);
+                from = at + 2;
+            }
+            line.append(template, from, template.length());
+            return used;
+        }
+
+        private void quote(String s) {
+            line.append('"');
+            for (int i = 0; s != null && i < s.length(); i++) {
+                char ch = s.charAt(i);
+                switch (ch) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (ch < 0x20) {
+                            line.append(String.format("\\u%04x", (int) ch));
+                        } else {
+                            line.append(ch);
+                        }
+                    }
+                }
+            }
+            line.append('"');
+        }
+
+        private void append(CharSequence text) {
+            try {
+                if (out == null) {
+                    open();
+                } else if (written > maxBytes) {
+                    out.close();
+                    rotate();
+                    open();
+                }
+                out.append(text);
+                written += text.length();
+            } catch (IOException e) {
+                fileFailed = true;
+                System.err.println("Logging to stderr only; cannot write " + file + ": " + e.getMessage());
+            }
+        }
+
+        private void open() throws IOException {
+            Files.createDirectories(file.getParent());
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            written = Files.size(file);
+        }
+
+        private void rotate() throws IOException {
+            String base = file.getFileName().toString();
+            Files.deleteIfExists(file.resolveSibling(base + "." + keepFiles));
+            for (int i = keepFiles - 1; i >= 1; i--) {
+                Path older = file.resolveSibling(base + "." + i);
+                if (Files.exists(older)) {
+                    Files.move(older, file.resolveSibling(base + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, file.resolveSibling(base + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void flush() {
+            if (out != null) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    fileFailed = true;
+                }
+            }
+        }
+
+        private void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Nothing left to tell anyone
+                }
+            }
+        }
+    }
+
+    // ================= CONFIG =================
+
+    private static Properties loadConfig() {
+        Properties config = new Properties();
+        String path = System.getProperty("log.config");
+        if (path != null) {
+            try (InputStream in = new FileInputStream(path)) {
+                config.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read log config " + path + ": " + e.getMessage());
+            }
+        }
+        // System properties override the file
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("log.")) {
+                config.setProperty(key, System.getProperty(key));
+            }
+        }
+        return config;
+    }
+}
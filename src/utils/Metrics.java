@@ -0,0 +1,150 @@
+package utils;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * In-process registry of named counters, gauges and latency histograms.
+ *
+ * Components look their metrics up once into static fields and then only
+ * touch a LongAdder or a {@link LatencyHistogram}, so writing is lock-free
+ * and never allocates. Gauges are read on demand. The admin diagnostics page
+ * reads everything through {@link #snapshot()}.
+ *
+ * Names are dotted and grouped by their first segment: db, executor,
+ * singleflight, plates, notify, jvm, edt.
+ */
+public final class Metrics {
+
+    /** A monotonically increasing count. */
+    public static final class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public void add(long n) {
+            adder.add(n);
+        }
+
+        public long get() {
+            return adder.sum();
+        }
+
+        public void reset() {
+            adder.reset();
+        }
+    }
+
+    private static final Map<String, Object> METRICS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean JVM_REGISTERED = new AtomicBoolean();
+
+    private Metrics() {
+    }
+
+    // ================= REGISTRATION =================
+
+    /** The counter with this name, created on first use. */
+    public static Counter counter(String name) {
+        return lookup(name, Counter.class, Counter::new);
+    }
+
+    /** The histogram with this name, created on first use. */
+    public static LatencyHistogram histogram(String name) {
+        return lookup(name, LatencyHistogram.class, LatencyHistogram::new);
+    }
+
+    /** Register (or replace) a value that is read each time a snapshot is taken. */
+    public static void gauge(String name, Supplier<? extends Number> value) {
+        METRICS.put(name, value);
+    }
+
+    private static <T> T lookup(String name, Class<T> type, Supplier<T> create) {
+        Object existing = METRICS.computeIfAbsent(name, k -> create.get());
+        if (!type.isInstance(existing)) {
+            throw new IllegalStateException("Metric " + name + " is already registered as "
+                    + existing.getClass().getSimpleName());
+        }
+        return type.cast(existing);
+    }
+
+    // ================= READING =================
+
+    /**
+     * Current value of every metric, sorted by name. A histogram appears as
+     * name.count, name.p50Ms, name.p99Ms and name.maxMs.
+     */
+    public static SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> values = new TreeMap<>();
+        METRICS.forEach((name, metric) -> {
+            if (metric instanceof Counter counter) {
+                values.put(name, counter.get());
+            } else if (metric instanceof LatencyHistogram histogram) {
+                values.put(name + ".count", histogram.getCount());
+                values.put(name + ".p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+                values.put(name + ".p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+                values.put(name + ".maxMs", histogram.getMaxMicros() / 1000.0);
+            } else if (metric instanceof Supplier<?> gauge) {
+                try {
+                    values.put(name, (Number) gauge.get());
+                } catch (RuntimeException e) {
+                    // A gauge over something that is shutting down; leave it out
+                }
+            }
+        });
+        return values;
+    }
+
+    /** The value of one metric from a snapshot, or 0 when it is not registered. */
+    public static double value(Map<String, Number> snapshot, String name) {
+        Number n = snapshot.get(name);
+        return n != null ? n.doubleValue() : 0;
+    }
+
+    // ================= JVM =================
+
+    /**
+     * Heap gauges, collector totals and a histogram of GC pause times fed by
+     * the collectors' own notifications. Safe to call more than once.
+     */
+    public static void registerJvmMetrics() {
+        if (!JVM_REGISTERED.compareAndSet(false, true)) {
+            return;
+        }
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm.heap.usedMb", () -> memory.getHeapMemoryUsage().getUsed() >> 20);
+        gauge("jvm.heap.committedMb", () -> memory.getHeapMemoryUsage().getCommitted() >> 20);
+        gauge("jvm.heap.maxMb", () -> memory.getHeapMemoryUsage().getMax() >> 20);
+        gauge("jvm.threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+
+        LatencyHistogram pauses = histogram("jvm.gc.pause");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gauge("jvm.gc.collections." + gc.getName(), gc::getCollectionCount);
+            gauge("jvm.gc.timeMs." + gc.getName(), gc::getCollectionTime);
+            // ZGC and G1 report concurrent cycles through beans of their own; those are not pauses
+            if (gc instanceof NotificationEmitter emitter && !gc.getName().contains("Cycles")
+                    && !gc.getName().contains("Concurrent")) {
+                emitter.addNotificationListener((notification, handback) -> {
+                    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                            .equals(notification.getType())) {
+                        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                                .from((CompositeData) notification.getUserData());
+                        pauses.recordMicros(info.getGcInfo().getDuration() * 1000);
+                    }
+                }, null, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned SQL scripts under {@code db/migration} at startup.
+ *
+ * Scripts are named {@code V<version>__<description>.sql} and run in version
+ * order, each at most once. Applied versions are recorded with a SHA-256 of
+ * the script in {@code schema_migration}; editing a script after it has run is
+ * reported instead of silently ignored. Only one app instance migrates at a
+ * time (Postgres advisory lock).
+ *
+ * A script whose first line is {@code -- migrate:no-transaction} runs in
+ * autocommit mode, which CREATE INDEX CONCURRENTLY needs. Everything else runs
+ * in one transaction together with its history row.
+ */
+public class MigrationRunner {
+
+    private static final Log LOG = Log.get(MigrationRunner.class);
+
+    // Listed explicitly: a classpath directory cannot be listed inside a jar
+    private static final String[] SCRIPTS = {
+            "V1__booking_indexes.sql",
+            "V2__payment_indexes.sql",
+            "V3__vehicle_owner_indexes.sql",
+            "V4__parking_slot_indexes.sql",
+            "V5__trigram_search_indexes.sql",
+            "V6__booking_workflow_functions.sql",
+            "V7__write_journal_applied.sql",
+            "V8__reference_data_versions.sql",
+            "V9__transactional_reference_versions.sql",
+            "V10__slot_version_reference_columns.sql"
+    };
+
+    private static final String SCRIPT_DIR = "/db/migration/";
+    private static final String NO_TRANSACTION = "-- migrate:no-transaction";
+    private static final String HISTORY_TABLE = "inet_vehicleparking.schema_migration";
+
+    // Arbitrary constant shared by every instance of the app ("parkmig" in ASCII)
+    private static final long LOCK_KEY = 0x7061726b6d6967L;
+    private static final long LOCK_POLL_MS = 500;
+    private static final long LOCK_WAIT_MS = 10 * 60 * 1000;
+
+    // What the operator sees on the Diagnostics page
+    private static volatile String status = "not run yet";
+    private static volatile String failure;
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+CONCURRENTLY\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+
+    /** One script, loaded and parsed. */
+    static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final String checksum;
+        final boolean transactional;
+
+        Migration(String script, String sql) {
+            int split = script.indexOf("__");
+            if (!script.startsWith("V") || split < 2 || !script.endsWith(".sql")) {
+                throw new IllegalArgumentException("Bad migration name: " + script);
+            }
+            this.version = Integer.parseInt(script.substring(1, split));
+            this.description = script.substring(split + 2, script.length() - 4).replace('_', ' ');
+            this.script = script;
+            this.sql = sql.replace("\r\n", "\n");
+            this.checksum = sha256(this.sql);
+            this.transactional = !this.sql.startsWith(NO_TRANSACTION);
+        }
+    }
+
+    // ================= MIGRATE =================
+
+    /**
+     * Bring the schema up to date. Returns the number of scripts applied.
+     */
+    public int migrate() throws SQLException {
+        status = "running";
+        try {
+            int count = migrateAll();
+            failure = null;
+            status = "up to date";
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            failure = e.getMessage();
+            status = "failed";
+            throw e;
+        }
+    }
+
+    /** "not run yet", "running", "up to date" or "failed". */
+    public static String status() {
+        return status;
+    }
+
+    /** Why the last run failed, or null. */
+    public static String failure() {
+        return failure;
+    }
+
+    private int migrateAll() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.MAINTENANCE)) {
+            // Index builds on big tables outlast the URL's socketTimeout
+            conn.setNetworkTimeout(Runnable::run, 0);
+            conn.setAutoCommit(true);
+
+            acquireLock(conn);
+            try {
+                createHistoryTable(conn);
+                Map<Integer, String> applied = appliedChecksums(conn);
+
+                int count = 0;
+                for (Migration m : migrations) {
+                    String checksum = applied.get(m.version);
+                    if (checksum != null) {
+                        if (!checksum.equals(m.checksum)) {
+                            throw new SQLException("Migration " + m.script
+                                    + " was changed after it was applied (checksum mismatch)");
+                        }
+                        continue;
+                    }
+                    apply(conn, m);
+                    count++;
+                }
+                return count;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration m) throws SQLException {
+        LOG.info("Applying migration {}", m.script);
+        long start = System.currentTimeMillis();
+
+        if (m.transactional) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : splitStatements(m.sql)) {
+                    stmt.execute(sql);
+                }
+                recordApplied(conn, m, System.currentTimeMillis() - start);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Migration " + m.script + " failed: " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            return;
+        }
+
+        // A failed CREATE INDEX CONCURRENTLY leaves an invalid index behind,
+        // and IF NOT EXISTS would then skip it forever
+        List<String> statements = splitStatements(m.sql);
+        dropInvalidIndexes(conn, indexNames(statements));
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Migration " + m.script + " failed: " + e.getMessage(), e);
+        }
+        recordApplied(conn, m, System.currentTimeMillis() - start);
+    }
+
+    // ================= HISTORY =================
+
+    private void createHistoryTable(Connection conn) throws SQLException {
+        String sql = """
+                    CREATE TABLE IF NOT EXISTS %s (
+                        version      INTEGER PRIMARY KEY,
+                        description  VARCHAR(200) NOT NULL,
+                        script       VARCHAR(200) NOT NULL,
+                        checksum     CHAR(64) NOT NULL,
+                        execution_ms BIGINT NOT NULL,
+                        installed_on TIMESTAMP NOT NULL DEFAULT now()
+                    )
+                """.formatted(HISTORY_TABLE);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        String sql = "SELECT version, checksum FROM " + HISTORY_TABLE;
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void recordApplied(Connection conn, Migration m, long elapsedMs) throws SQLException {
+        String sql = "INSERT INTO " + HISTORY_TABLE
+                + " (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, m.version);
+            ps.setString(2, m.description);
+            ps.setString(3, m.script);
+            ps.setString(4, m.checksum);
+            ps.setLong(5, elapsedMs);
+            ps.executeUpdate();
+        }
+    }
+
+    // Only the script's own indexes: an invalid index can also be one that
+    // another session is still building concurrently
+    private void dropInvalidIndexes(Connection conn, List<String> indexes) throws SQLException {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        String find = """
+                    SELECT i.indexrelid::regclass::text
+                    FROM pg_index i
+                    JOIN pg_class c ON c.oid = i.indexrelid
+                    JOIN pg_namespace n ON n.oid = c.relnamespace
+                    WHERE NOT i.indisvalid AND n.nspname = 'inet_vehicleparking'
+                      AND c.relname = ANY (?)
+                """;
+        List<String> invalid = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(find)) {
+            ps.setArray(1, conn.createArrayOf("text", indexes.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    invalid.add(rs.getString(1));
+                }
+            }
+        }
+        for (String index : invalid) {
+            LOG.warn("Dropping invalid index {}", index);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            }
+        }
+    }
+
+    /** Names of the indexes the statements create concurrently, lower-cased as Postgres folds them. */
+    static List<String> indexNames(List<String> statements) {
+        List<String> names = new ArrayList<>();
+        for (String sql : statements) {
+            Matcher m = CREATE_INDEX.matcher(sql);
+            if (m.lookingAt()) {
+                names.add(m.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    // ================= LOCKING =================
+
+    // pg_try_advisory_lock in a loop rather than pg_advisory_lock: a session
+    // blocked inside pg_advisory_lock holds a snapshot, and CREATE INDEX
+    // CONCURRENTLY in the lock holder would wait for it forever
+    private void acquireLock(Connection conn) throws SQLException {
+        long deadline = System.currentTimeMillis() + LOCK_WAIT_MS;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            while (true) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new SQLException("Timed out waiting for the migration lock");
+                }
+                try {
+                    Thread.sleep(LOCK_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the migration lock", e);
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            ps.execute();
+        } catch (SQLException e) {
+            // Closing the connection releases it anyway
+            LOG.warn("Could not release migration lock: {}", e.getMessage());
+        }
+    }
+
+    // ================= SCRIPTS =================
+
+    static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : SCRIPTS) {
+            try (InputStream in = MigrationRunner.class.getResourceAsStream(SCRIPT_DIR + script)) {
+                if (in == null) {
+                    throw new SQLException("Migration script not found on classpath: " + SCRIPT_DIR + script);
+                }
+                migrations.add(new Migration(script, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new SQLException("Could not read migration " + script, e);
+            }
+        }
+        migrations.sort((a, b) -> Integer.compare(a.version, b.version));
+        return migrations;
+    }
+
+    /**
+     * Split a script into statements on top-level semicolons. Quotes,
+     * comments and dollar-quoted bodies (PL/pgSQL functions) are kept intact.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        int n = script.length();
+
+        while (i < n) {
+            char c = script.charAt(i);
+
+            if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? n : end + 1;
+                current.append('\n');
+                continue;
+            }
+            if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                current.append(' ');
+                continue;
+            }
+            if (c == '\'' || c == '"') {
+                int end = i + 1;
+                while (end < n) {
+                    if (script.charAt(end) == c) {
+                        // A doubled quote is an escaped quote
+                        if (end + 1 < n && script.charAt(end + 1) == c) {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end + 1, n);
+                current.append(script, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '$') {
+                String tag = dollarTag(script, i);
+                if (tag != null) {
+                    int close = script.indexOf(tag, i + tag.length());
+                    int end = close < 0 ? n : close + tag.length();
+                    current.append(script, i, end);
+                    i = end;
+                    continue;
+                }
+            }
+            if (c == ';') {
+                addStatement(statements, current);
+                i++;
+                continue;
+            }
+            current.append(c);
+            i++;
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    // "$$" or "$tag$" starting at i, or null
+    private static String dollarTag(String script, int i) {
+        int j = i + 1;
+        while (j < script.length()) {
+            char c = script.charAt(j);
+            if (c == '$') {
+                return script.substring(i, j + 1);
+            }
+            if (!(Character.isLetterOrDigit(c) || c == '_')) {
+                return null;
+            }
+            j++;
+        }
+        return null;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String sql = current.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        current.setLength(0);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package utils;
+
+import java.util.Locale;
+
+public class PlateNumbers {
+
+    // Same rule as the tbl_vehicle search index (db/migration/V5):
+    // upper(regexp_replace(vehicle_plate_number, '[[:space:].-]', '', 'g'))
+    public static final String SQL_NORMALIZED_PLATE =
+            "upper(regexp_replace(vehicle_plate_number, '[[:space:].-]', '', 'g'))";
+
+    private PlateNumbers() {
+    }
+
+    /**
+     * Normalize a plate for matching: drop spaces, dots and dashes and
+     * upper-case the rest, so "2a-1234", "2A 1234" and "2A1234" are equal.
+     */
+    public static String normalize(String plate) {
+        if (plate == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(plate.length());
+        for (int i = 0; i < plate.length(); i++) {
+            char c = plate.charAt(i);
+            if (!Character.isWhitespace(c) && c != '-' && c != '.') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toUpperCase(Locale.ROOT);
+    }
+}
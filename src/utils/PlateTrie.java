@@ -0,0 +1,270 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed prefix trie (radix tree) over normalized plate numbers.
+ *
+ * Keys are normalized with {@link PlateNumbers#normalize(String)}, so lookups
+ * ignore spaces, dots, dashes and case. Edges carry whole label runs rather
+ * than single characters, which keeps the tree shallow for plates that share
+ * long prefixes. Safe for concurrent readers with occasional writers.
+ */
+public class PlateTrie {
+
+    /** One vehicle stored under a plate. */
+    public static final class Entry {
+        private final int vehicleId;
+        private final int ownerId;
+        private final String plate;
+
+        public Entry(int vehicleId, int ownerId, String plate) {
+            this.vehicleId = vehicleId;
+            this.ownerId = ownerId;
+            this.plate = plate;
+        }
+
+        public int getVehicleId() { return vehicleId; }
+        public int getOwnerId() { return ownerId; }
+        public String getPlate() { return plate; }
+
+        @Override
+        public String toString() {
+            return plate;
+        }
+    }
+
+    private static final class Node {
+        String label;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        List<Entry> entries;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Node root = new Node("");
+    private final Map<Integer, String> keyByVehicleId = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ================= WRITES =================
+
+    /** Add or replace the plate for a vehicle. */
+    public void put(int vehicleId, int ownerId, String plate) {
+        String key = PlateNumbers.normalize(plate);
+        lock.writeLock().lock();
+        try {
+            removeLocked(vehicleId);
+            if (key.isEmpty()) {
+                return;
+            }
+            insert(key, new Entry(vehicleId, ownerId, plate));
+            keyByVehicleId.put(vehicleId, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int vehicleId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(vehicleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.entries = null;
+            keyByVehicleId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                addEntry(leaf, entry);
+                node.children.put(c, leaf);
+                return;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge at the point where the keys diverge
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children.put(child.label.charAt(0), child);
+                node.children.put(c, mid);
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+        addEntry(node, entry);
+    }
+
+    private static void addEntry(Node node, Entry entry) {
+        if (node.entries == null) {
+            node.entries = new ArrayList<>(1);
+        }
+        node.entries.add(entry);
+    }
+
+    private void removeLocked(int vehicleId) {
+        String key = keyByVehicleId.remove(vehicleId);
+        if (key == null) {
+            return;
+        }
+
+        // Walk down remembering the path so empty nodes can be pruned
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path.add(node);
+            i += node.label.length();
+        }
+
+        if (node.entries != null) {
+            node.entries.removeIf(e -> e.getVehicleId() == vehicleId);
+            if (node.entries.isEmpty()) {
+                node.entries = null;
+            }
+        }
+        compact(path);
+    }
+
+    private static void compact(List<Node> path) {
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node node = path.get(p);
+            Node parent = path.get(p - 1);
+            if (node.entries != null) {
+                return;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                // Merge a pass-through node into its only child
+                Node only = node.children.firstEntry().getValue();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    // ================= READS =================
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return keyByVehicleId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} vehicles whose normalized plate starts with the
+     * normalized prefix, in plate order.
+     */
+    public List<Entry> startingWith(String prefix, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 16));
+        if (limit <= 0) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = find(PlateNumbers.normalize(prefix), true);
+            if (node != null) {
+                collect(node, result, limit);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Vehicles whose plate normalizes to exactly the given plate. */
+    public List<Entry> exact(String plate) {
+        lock.readLock().lock();
+        try {
+            Node node = find(PlateNumbers.normalize(plate), false);
+            return node != null && node.entries != null ? new ArrayList<>(node.entries) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Node reached by the key; with prefixMatch the key may end inside an edge
+    private Node find(String key, boolean prefixMatch) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int remaining = key.length() - i;
+            if (remaining < child.label.length()) {
+                return prefixMatch && child.label.regionMatches(0, key, i, remaining) ? child : null;
+            }
+            if (!key.startsWith(child.label, i)) {
+                return null;
+            }
+            node = child;
+            i += child.label.length();
+        }
+        return node;
+    }
+
+    private static boolean collect(Node node, List<Entry> out, int limit) {
+        if (node.entries != null) {
+            for (Entry e : node.entries) {
+                out.add(e);
+                if (out.size() >= limit) {
+                    return true;
+                }
+            }
+        }
+        for (Node child : node.children.values()) {
+            if (collect(child, out, limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
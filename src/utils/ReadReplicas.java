@@ -0,0 +1,239 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming-replication standbys that serve listing and count queries.
+ *
+ * Configured with {@code -Ddb.replicas=host:port,host:port}; without it every
+ * read goes to the primary as before. A background thread probes each
+ * replica every {@code db.replica.probeMs} (default 2 s) and takes it out of
+ * rotation while it is unreachable or more than {@code db.replica.maxLagMs}
+ * (default 5 s) behind. Healthy replicas are used round-robin.
+ *
+ * Read-your-writes: for {@code db.replica.readYourWritesMs} after this
+ * application wrote anything (default: the lag limit), reads stay on the
+ * primary, so a user never sees a list without the row they just saved. One
+ * terminal runs one signed-in user, so "this application" is "this user".
+ */
+public final class ReadReplicas {
+
+    private static final Log LOG = Log.get(ReadReplicas.class);
+
+    private static final long MAX_LAG_MS = Long.getLong("db.replica.maxLagMs", 5000);
+    private static final long READ_YOUR_WRITES_NANOS =
+            Long.getLong("db.replica.readYourWritesMs", MAX_LAG_MS) * 1_000_000L;
+    private static final long PROBE_MS = Long.getLong("db.replica.probeMs", 2000);
+
+    // Caught up with everything received counts as no lag; otherwise the age
+    // of the last replayed transaction. A promoted standby has no lag at all.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    /** One configured standby and what the last probe found. */
+    static final class Replica {
+        final String name;
+        final String url;
+        final String probeUrl;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+
+        Replica(String host, String port) {
+            this.name = host + ":" + port;
+            this.url = DatabaseConnection.urlFor(host, port, 5, 300);
+            this.probeUrl = DatabaseConnection.urlFor(host, port, 2, 5);
+        }
+    }
+
+    private static final List<Replica> REPLICAS = parse(System.getProperty("db.replicas", ""));
+    private static final AtomicInteger NEXT = new AtomicInteger();
+    private static final AtomicLong LAST_WRITE = new AtomicLong();
+    private static volatile boolean wrote;
+
+    private static final Metrics.Counter REPLICA_READS = Metrics.counter("db.reads.replica");
+    private static final Metrics.Counter PRIMARY_READS = Metrics.counter("db.reads.primary");
+    private static final Metrics.Counter PINNED_READS = Metrics.counter("db.reads.pinnedAfterWrite");
+
+    static {
+        if (!REPLICAS.isEmpty()) {
+            Metrics.gauge("db.replicas.healthy", () -> REPLICAS.stream().filter(r -> r.healthy).count());
+            Metrics.gauge("db.replicas.maxLagMs",
+                    () -> REPLICAS.stream().mapToLong(r -> r.lagMillis).max().orElse(-1));
+            AppExecutors.startDaemon("replica-probe", ReadReplicas::probeLoop);
+            LOG.info("Read replicas: {} (max lag {} ms)", REPLICAS.size(), MAX_LAG_MS);
+        }
+    }
+
+    private ReadReplicas() {
+    }
+
+    // ================= ROUTING =================
+
+    public static boolean isConfigured() {
+        return !REPLICAS.isEmpty();
+    }
+
+    /** Remember that this application just wrote, so its next reads go to the primary. */
+    public static void noteWrite() {
+        LAST_WRITE.set(System.nanoTime());
+        wrote = true;
+    }
+
+    /**
+     * Whether this application wrote after the given {@link System#nanoTime()}.
+     * SingleFlight asks before handing over a read that started earlier.
+     * Writes count once their statement or commit has returned; without
+     * replicas they are noted by dao.QueryMetrics, which wraps every
+     * connection anyway.
+     */
+    public static boolean wroteSince(long nanos) {
+        return wrote && LAST_WRITE.get() - nanos > 0;
+    }
+
+    /**
+     * Wrap a primary connection so that a statement that changes data, or a
+     * commit, counts as a write once it has returned. Returned as is without
+     * replicas. The V6 booking functions are called with SELECT and note
+     * their own.
+     */
+    public static Connection trackWrites(Connection conn) {
+        if (REPLICAS.isEmpty()) {
+            return conn;
+        }
+        return proxy(Connection.class, conn, (proxy, method, args) -> {
+            Object result = invoke(conn, method, args);
+            String name = method.getName();
+            if (name.equals("commit")) {
+                noteWrite();
+            } else if (name.equals("prepareStatement") && args[0] instanceof String sql && changesData(sql)) {
+                PreparedStatement ps = (PreparedStatement) result;
+                return proxy(PreparedStatement.class, ps, (p, m, a) -> {
+                    Object executed = invoke(ps, m, a);
+                    if (m.getName().startsWith("execute")) {
+                        noteWrite();
+                    }
+                    return executed;
+                });
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ReadReplicas.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Whether a statement may change data; anything but SELECT, WITH and SHOW counts. */
+    public static boolean changesData(String sql) {
+        String head = sql.stripLeading();
+        return !(head.regionMatches(true, 0, "SELECT", 0, 6)
+                || head.regionMatches(true, 0, "WITH", 0, 4)
+                || head.regionMatches(true, 0, "SHOW", 0, 4));
+    }
+
+    /** A connection to a healthy replica, or null when the read belongs on the primary. */
+    static Connection connect(int statementTimeoutMillis) {
+        if (REPLICAS.isEmpty()) {
+            return null;
+        }
+        if (wrote && System.nanoTime() - LAST_WRITE.get() < READ_YOUR_WRITES_NANOS) {
+            PINNED_READS.increment();
+            PRIMARY_READS.increment();
+            return null;
+        }
+        int start = Math.floorMod(NEXT.getAndIncrement(), REPLICAS.size());
+        for (int i = 0; i < REPLICAS.size(); i++) {
+            Replica replica = REPLICAS.get((start + i) % REPLICAS.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection conn = DatabaseConnection.open(replica.url, statementTimeoutMillis);
+                REPLICA_READS.increment();
+                return conn;
+            } catch (SQLException e) {
+                // Out of rotation until the prober sees it again
+                markHealthy(replica, false, e.getMessage());
+            }
+        }
+        PRIMARY_READS.increment();
+        return null;
+    }
+
+    // ================= PROBING =================
+
+    private static void probeLoop() {
+        while (true) {
+            for (Replica replica : REPLICAS) {
+                probe(replica);
+            }
+            try {
+                Thread.sleep(PROBE_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void probe(Replica replica) {
+        try (Connection conn = DatabaseConnection.open(replica.probeUrl);
+                Statement st = conn.createStatement()) {
+            st.setQueryTimeout(2);
+            try (ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                long lag = Math.round(rs.getDouble(1));
+                replica.lagMillis = lag;
+                markHealthy(replica, lag <= MAX_LAG_MS, lag > MAX_LAG_MS ? "lag " + lag + " ms" : null);
+            }
+        } catch (SQLException e) {
+            replica.lagMillis = -1;
+            markHealthy(replica, false, e.getMessage());
+        }
+    }
+
+    private static void markHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy == healthy) {
+            return;
+        }
+        replica.healthy = healthy;
+        if (healthy) {
+            LOG.info("Replica {} back in rotation, lag {} ms", replica.name, replica.lagMillis);
+        } else {
+            LOG.warn("Replica {} out of rotation: {}", replica.name, reason);
+        }
+    }
+
+    private static List<Replica> parse(String spec) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String[] hostPort : DatabaseConnection.parseHosts(spec)) {
+            replicas.add(new Replica(hostPort[0], hostPort[1]));
+        }
+        return Collections.unmodifiableList(replicas);
+    }
+}
@@ -7,7 +7,11 @@ public class TelegramConfig {
     // To get your chat ID, message @userinfobot on Telegram
     public static final String CHAT_ID = "853828296";
 
+    // -Dtelegram.disabled=true turns notifications off (load tests, dev runs)
     public static boolean isEnabled() {
+        if (Boolean.getBoolean("telegram.disabled")) {
+            return false;
+        }
         return BOT_TOKEN != null && !BOT_TOKEN.equals("YOUR_BOT_TOKEN_HERE") &&
                 CHAT_ID != null && !CHAT_ID.equals("YOUR_CHAT_ID_HERE");
     }
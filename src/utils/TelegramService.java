@@ -12,23 +12,27 @@ import models.Payment;
 
 public class TelegramService {
 
+    private static final Log LOG = Log.get(TelegramService.class);
     private static final HttpClient httpClient = HttpClient.newBuilder().build();
+    private static final Metrics.Counter SENT = Metrics.counter("notify.telegram.sent");
+    private static final Metrics.Counter FAILED = Metrics.counter("notify.telegram.failed");
+    private static final LatencyHistogram LATENCY = Metrics.histogram("notify.telegram.latency");
     
     public static void sendKhmerPaymentNotification(Payment payment) {
         if (!TelegramConfig.isEnabled()) {
             return;
         }
 
-        new Thread(() -> {
+        AppExecutors.runNotification(() -> {
             try {
-                System.out.println("📤 Telegram: Preparing Khmer notification...");
                 String message = formatKhmerPaymentMessage(payment);
-                System.out.println("📤 Telegram: Sending message to " + TelegramConfig.CHAT_ID);
+                LOG.debug("Sending payment notification for {} to chat {}", payment.getBookingRef(),
+                        TelegramConfig.CHAT_ID);
                 sendMessage(message);
             } catch (Exception e) {
-                System.err.println("❌ Telegram: Failed to send Khmer notification: " + e.getMessage());
+                LOG.warn("Failed to send Khmer notification: {}", e.getMessage());
             }
-        }).start();
+        });
     }
 
     private static String formatKhmerPaymentMessage(Payment payment) {
@@ -60,10 +64,32 @@ public class TelegramService {
                 .POST(HttpRequest.BodyPublishers.ofString(query))
                 .build();
 
+        JfrEvents.NotificationSend event = new JfrEvents.NotificationSend();
+        event.channel = "telegram";
+        event.payloadBytes = query.getBytes(StandardCharsets.UTF_8).length;
+        event.begin();
+        long start = System.nanoTime();
+
         httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    LATENCY.recordNanos(System.nanoTime() - start);
+                    if (error == null && response.statusCode() == 200) {
+                        SENT.increment();
+                    } else {
+                        FAILED.increment();
+                    }
+                    event.end();
+                    if (response != null) {
+                        event.status = response.statusCode();
+                    }
+                    if (error != null) {
+                        event.error = error.getMessage();
+                    }
+                    event.commit();
+                })
                 .thenAccept(response -> {
                     if (response.statusCode() != 200) {
-                        System.err.println("Telegram API error: " + response.body());
+                        LOG.warn("Telegram API error {}: {}", response.statusCode(), response.body());
                     }
                 });
     }
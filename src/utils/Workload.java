@@ -0,0 +1,173 @@
+package utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The kinds of database work, each with its own statement timeout, its own
+ * share of connections (a bulkhead) and its own circuit breaker, so a slow
+ * report can use up only the reporting share and never the connections or
+ * the patience that check-in and checkout need.
+ *
+ * Every limit can be overridden with {@code -Ddb.<workload>.statementTimeoutMs},
+ * {@code .connections}, {@code .waitMs}, {@code .breakerFailures} and
+ * {@code .breakerOpenMs}. A statement timeout of 0 means none. A caller that
+ * finds all of a share's connections taken waits up to {@code waitMs} for
+ * one, then fails with SQLState 53300.
+ *
+ * The shares are sized for one terminal. The command-line tools run their
+ * own number of threads and widen the shares they use to match with
+ * {@link #allowAtLeast(int)}.
+ */
+public enum Workload {
+
+    /** Booking, check-in, checkout, payments and lookups behind them. */
+    INTERACTIVE("interactive", 5_000, 7, 2_000),
+
+    /**
+     * Listings, dashboard counts, streamed reports and exports. An admin login
+     * starts about eight of these at once (five panel loads, the dashboard,
+     * the plate index and the reference snapshot), so they queue for the
+     * three connections rather than fail with nothing cached to show yet.
+     */
+    REPORTING("reporting", 30_000, 3, 10_000),
+
+    /** Migrations and the command-line tools: no timeout, few connections. */
+    MAINTENANCE("maintenance", 0, 2, 60_000);
+
+    /** Where a workload's connections come from; given its statement timeout. */
+    @FunctionalInterface
+    interface Source {
+        Connection open(int statementTimeoutMillis) throws SQLException;
+    }
+
+    // Bulkhead full: SQLSTATE 53300 too_many_connections
+    private static final String BUSY_STATE = "53300";
+
+    private final String key;
+    private final int statementTimeoutMillis;
+    private volatile int connections;
+    private final long waitMillis;
+    private final Semaphore permits;
+    private final CircuitBreaker breaker;
+    private final Metrics.Counter busy;
+
+    Workload(String key, int statementTimeoutMillis, int connections, long waitMillis) {
+        String prefix = "db." + key + ".";
+        this.key = key;
+        this.statementTimeoutMillis = Integer.getInteger(prefix + "statementTimeoutMs", statementTimeoutMillis);
+        this.connections = Math.max(1, Integer.getInteger(prefix + "connections", connections));
+        this.waitMillis = Long.getLong(prefix + "waitMs", waitMillis);
+        this.permits = new Semaphore(this.connections, true);
+        this.breaker = new CircuitBreaker(key, Integer.getInteger(prefix + "breakerFailures", 5),
+                Long.getLong(prefix + "breakerOpenMs", 5_000));
+        this.busy = Metrics.counter("db.bulkhead." + key + ".rejected");
+        Metrics.gauge("db.bulkhead." + key + ".inUse", () -> this.connections - permits.availablePermits());
+    }
+
+    public int getStatementTimeoutMillis() {
+        return statementTimeoutMillis;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Raise this workload's share to at least {@code connections}, so that
+     * a tool running that many threads measures or loads the database
+     * rather than waiting on this side. Shares never shrink.
+     */
+    public synchronized void allowAtLeast(int connections) {
+        if (connections > this.connections) {
+            permits.release(connections - this.connections);
+            this.connections = connections;
+        }
+    }
+
+    // ================= CONNECTING =================
+
+    /**
+     * Take one of this workload's connections, if the breaker allows and one
+     * frees up within the wait, and return it wrapped so that closing it
+     * gives the slot back and its statements report to the breaker.
+     */
+    Connection open(Source source) throws SQLException {
+        breaker.beforeCall();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + key + " connection", e);
+        }
+        if (!acquired) {
+            busy.increment();
+            throw new SQLException("All " + connections + " " + key + " connections are busy", BUSY_STATE);
+        }
+        Connection conn;
+        try {
+            conn = source.open(statementTimeoutMillis);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            if (e instanceof SQLException sql) {
+                breaker.onFailure(sql);
+            }
+            throw e;
+        }
+        return guarded(conn);
+    }
+
+    private Connection guarded(Connection conn) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Workload.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ((name.equals("close") || name.equals("abort")) && released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                    Object result = invoke(conn, method, args);
+                    if (result instanceof Statement statement) {
+                        return reporting(statement, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    // Statement outcomes are what tell the breaker whether the database copes
+    private Object reporting(Statement statement, Class<?> type) {
+        Class<?> api = CallableStatement.class.isAssignableFrom(type) ? CallableStatement.class
+                : PreparedStatement.class.isAssignableFrom(type) ? PreparedStatement.class : Statement.class;
+        return Proxy.newProxyInstance(Workload.class.getClassLoader(), new Class<?>[] { api },
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    try {
+                        Object result = invoke(statement, method, args);
+                        breaker.onSuccess();
+                        return result;
+                    } catch (SQLException e) {
+                        breaker.onFailure(e);
+                        throw e;
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}